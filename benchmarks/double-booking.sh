@@ -0,0 +1,43 @@
+#!/usr/bin/env bash
+# Test de contention : aucune double réservation sous forte concurrence, toutes APIs confondues
+#
+# Usage : benchmarks/double-booking.sh [VUS] [DURATION]
+# VUS clients par protocole (50 par défaut), DURATION de la charge (30s par défaut).
+# Prérequis : k6, client mysql, base initialisée (database/schema.sql), les cinq modules démarrés (rest-reactive-api compris).
+# MYSQL permet de changer la commande de connexion (mysql -uroot -proot hotel_reservation_db par défaut).
+#
+# Les séjours visés tombent OFFSET jours dans le futur (400 par défaut) : on part d'une période
+# vide, puis on compte les paires de réservations non annulées qui se chevauchent sur une même
+# chambre. Le script échoue si ce nombre n'est pas nul.
+set -euo pipefail
+
+VUS=${1:-50}
+DURATION=${2:-30s}
+OFFSET=${OFFSET:-400}
+CHAMBRES=${CHAMBRES:-1,2,3}
+MYSQL=${MYSQL:-mysql -uroot -proot hotel_reservation_db}
+RACINE=$(cd "$(dirname "$0")/.." && pwd)
+RESULTATS="$RACINE/benchmarks/results"
+mkdir -p "$RESULTATS"
+
+DEPUIS="CURRENT_DATE + INTERVAL $OFFSET DAY"
+
+echo "=== Période de test vidée"
+$MYSQL -e "DELETE FROM reservation WHERE chambre_id IN ($CHAMBRES) AND date_fin > $DEPUIS"
+
+echo "=== Charge : $VUS clients par protocole pendant $DURATION"
+(cd "$RACINE/benchmarks/k6" && k6 run --quiet -e VUS="$VUS" -e DURATION="$DURATION" \
+    -e CHAMBRES="$CHAMBRES" -e OFFSET="$OFFSET" \
+    --summary-export "$RESULTATS/double-booking.json" double-booking.js) || true
+jq -r '"créées : \(.metrics.reservations_creees.count // 0), refusées : \(.metrics.reservations_refusees.count // 0)"' \
+    "$RESULTATS/double-booking.json"
+
+DOUBLES=$($MYSQL -N -e "
+    SELECT COUNT(*) FROM reservation a JOIN reservation b
+      ON a.chambre_id = b.chambre_id AND a.id < b.id
+     AND a.date_debut < b.date_fin AND a.date_fin > b.date_debut
+     WHERE a.chambre_id IN ($CHAMBRES) AND a.date_fin > $DEPUIS AND b.date_fin > $DEPUIS
+       AND COALESCE(a.statut, '') <> 'ANNULEE' AND COALESCE(b.statut, '') <> 'ANNULEE'")
+
+echo "Doubles réservations : $DOUBLES"
+[ "$DOUBLES" -eq 0 ]
@@ -0,0 +1,52 @@
+#!/usr/bin/env bash
+# Réservations de groupe : un appel de groupe contre autant de créations unitaires, pour chaque API
+#
+# Usage : benchmarks/group-booking.sh [GROUPE] [ITERATIONS]
+# GROUPE séjours par groupe (30 par défaut), ITERATIONS groupes par mesure (100 par défaut),
+# répartis entre VUS clients (5 par défaut). APIS limite les APIs mesurées (rest soap graphql grpc).
+# Prérequis : k6, jq, client mysql, base initialisée (database/schema.sql), les modules mesurés démarrés.
+# MYSQL permet de changer la commande de connexion (mysql -uroot -proot hotel_reservation_db par défaut).
+#
+# Les séjours tombent OFFSET jours dans le futur (400 par défaut) sur les chambres CHAMBRES :
+# la période est vidée avant chaque mesure et à la fin.
+set -euo pipefail
+
+GROUPE=${1:-30}
+ITERATIONS=${2:-100}
+VUS=${VUS:-5}
+OFFSET=${OFFSET:-400}
+CHAMBRES=${CHAMBRES:-1,2,3}
+APIS=${APIS:-rest soap graphql grpc}
+MYSQL=${MYSQL:-mysql -uroot -proot hotel_reservation_db}
+RACINE=$(cd "$(dirname "$0")/.." && pwd)
+RESULTATS="$RACINE/benchmarks/results"
+mkdir -p "$RESULTATS"
+
+vider() {
+    $MYSQL -e "DELETE FROM reservation WHERE chambre_id IN ($CHAMBRES) AND date_fin > CURRENT_DATE + INTERVAL $OFFSET DAY"
+}
+
+for API in $APIS; do
+    for MODE in unitaires groupe; do
+        echo "=== $API, $MODE : $ITERATIONS groupes de $GROUPE séjours, $VUS clients"
+        vider
+        (cd "$RACINE/benchmarks/k6" && k6 run --quiet -e API="$API" -e MODE="$MODE" -e GROUPE="$GROUPE" \
+            -e ITERATIONS="$ITERATIONS" -e VUS="$VUS" -e CHAMBRES="$CHAMBRES" -e OFFSET="$OFFSET" \
+            --summary-export "$RESULTATS/group-booking-$API-$MODE.json" group-booking.js) || true
+    done
+done
+vider
+
+echo
+echo "Durée d'un groupe complet (ms)"
+{
+    echo -e "API\tMODE\tMÉDIANE\tP95\tÉCHECS"
+    for API in $APIS; do
+        for MODE in unitaires groupe; do
+            jq -r --arg api "$API" --arg mode "$MODE" \
+                '[$api, $mode, (.metrics.duree_groupe.med | floor), (.metrics.duree_groupe["p(95)"] | floor),
+                  (.metrics.checks.fails // 0)] | @tsv' \
+                "$RESULTATS/group-booking-$API-$MODE.json"
+        done
+    done
+} | column -t -s $'\t'
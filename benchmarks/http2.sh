@@ -0,0 +1,67 @@
+#!/usr/bin/env bash
+# Latence et débit en fonction du nombre de connexions : HTTP/1.1, h2c et h2 (TLS + ALPN)
+#
+# Usage : benchmarks/http2.sh <rest|soap|graphql> <http1|h2c|h2> [CONCURRENCE] [REQUETES]
+#
+# Le module doit être démarré dans le mode correspondant :
+#   http1 : profil par défaut
+#   h2c   : mvn spring-boot:run -Dspring-boot.run.profiles=h2c
+#   h2    : mvn spring-boot:run -Dspring-boot.run.profiles=h2   (certs/generate-dev-keystore.sh)
+#
+# Pour chaque nombre de connexions, la même concurrence totale est répartie en flux
+# HTTP/2 multiplexés (CONCURRENCE / connexions par connexion). En HTTP/1.1, une
+# connexion ne porte qu'une requête à la fois : la concurrence est égale au nombre
+# de connexions. Prérequis : h2load (paquet nghttp2).
+set -euo pipefail
+
+PROTOCOLE=${1:?Usage: $0 <rest|soap|graphql> <http1|h2c|h2> [CONCURRENCE] [REQUETES]}
+MODE=${2:?Usage: $0 <rest|soap|graphql> <http1|h2c|h2> [CONCURRENCE] [REQUETES]}
+CONCURRENCE=${3:-1000}
+REQUETES=${4:-100000}
+RACINE=$(cd "$(dirname "$0")/.." && pwd)
+RESULTATS="$RACINE/benchmarks/results"
+CORPS="$RACINE/benchmarks/h2load"
+
+case "$MODE" in
+    http1) SCHEMA=http;  OPTIONS=(--h1) ;;
+    h2c)   SCHEMA=http;  OPTIONS=() ;;
+    h2)    SCHEMA=https; OPTIONS=() ;;
+    *) echo "Mode inconnu : $MODE" >&2; exit 1 ;;
+esac
+
+case "$PROTOCOLE" in
+    rest)    URL="$SCHEMA://localhost:8081/api/reservations/1" ;;
+    soap)    URL="$SCHEMA://localhost:8082/ws"
+             OPTIONS+=(-d "$CORPS/soap-getReservation.xml" -H "Content-Type: text/xml; charset=utf-8") ;;
+    graphql) URL="$SCHEMA://localhost:8083/graphql"
+             OPTIONS+=(-d "$CORPS/graphql-reservation.json" -H "Content-Type: application/json") ;;
+    *) echo "Protocole inconnu : $PROTOCOLE" >&2; exit 1 ;;
+esac
+
+mkdir -p "$RESULTATS"
+CSV="$RESULTATS/http2-$PROTOCOLE-$MODE.csv"
+echo "mode,connexions,flux_par_connexion,concurrence,req_par_s,latence_min,latence_moyenne,latence_max,echecs" > "$CSV"
+
+for CONNEXIONS in 1 2 4 8 16 32 64 128 256 512 1000; do
+    if [ "$CONNEXIONS" -gt "$CONCURRENCE" ]; then
+        break
+    fi
+    if [ "$MODE" = http1 ]; then
+        FLUX=1
+    else
+        FLUX=$(( (CONCURRENCE + CONNEXIONS - 1) / CONNEXIONS ))
+    fi
+
+    echo "=== $PROTOCOLE $MODE : $CONNEXIONS connexion(s) x $FLUX flux"
+    SORTIE=$(h2load "${OPTIONS[@]}" -n "$REQUETES" -c "$CONNEXIONS" -m "$FLUX" "$URL")
+    echo "$SORTIE" | grep -E "^(finished|requests|time for request)"
+
+    echo "$SORTIE" | awk -v mode="$MODE" -v c="$CONNEXIONS" -v m="$FLUX" '
+        /^finished in/        { debit = $4 }
+        /^requests:/          { echecs = $10 + $12 }
+        /^time for request:/  { min = $4; max = $5; moyenne = $6 }
+        END { printf "%s,%d,%d,%d,%s,%s,%s,%s,%d\n", mode, c, m, c * m, debit, min, moyenne, max, echecs }
+    ' >> "$CSV"
+done
+
+echo "Résultats : $CSV"
@@ -0,0 +1,122 @@
+import http from 'k6/http';
+import grpc from 'k6/net/grpc';
+import { check } from 'k6';
+import { Counter } from 'k6/metrics';
+
+// Créations concurrentes sur quelques chambres et quelques nuits, par les cinq APIs à la fois :
+// la plupart des demandes se chevauchent et doivent être refusées, aucune ne doit passer en double.
+// VUS clients par protocole pendant DURATION ; CHAMBRES, CLIENT et JOURS règlent la contention.
+const VUS = Number(__ENV.VUS || 50);
+const DURATION = __ENV.DURATION || '30s';
+
+function scenario(fonction) {
+    return { executor: 'constant-vus', vus: VUS, duration: DURATION, exec: fonction };
+}
+
+export const options = {
+    scenarios: {
+        rest: scenario('rest'),
+        soap: scenario('soap'),
+        graphql: scenario('graphql'),
+        grpc: scenario('grpcCreation'),
+        reactive: scenario('reactive'),
+    },
+    summaryTrendStats: ['avg', 'med', 'p(95)', 'p(99)', 'max'],
+};
+
+const CHAMBRES = (__ENV.CHAMBRES || '1,2,3').split(',').map(Number);
+const CLIENT = Number(__ENV.CLIENT || 1);
+// Nombre de jours (à partir de OFFSET jours dans le futur) sur lesquels tombent les séjours
+const JOURS = Number(__ENV.JOURS || 20);
+const OFFSET = Number(__ENV.OFFSET || 400);
+
+const REST = __ENV.REST || 'http://localhost:8081';
+const SOAP = __ENV.SOAP || 'http://localhost:8082';
+const GRAPHQL = __ENV.GRAPHQL || 'http://localhost:8083';
+const GRPC = __ENV.GRPC || 'localhost:8084';
+const REACTIVE = __ENV.REACTIVE || 'http://localhost:8085';
+
+const creees = new Counter('reservations_creees');
+const refusees = new Counter('reservations_refusees');
+
+const client = new grpc.Client();
+client.load(['../../grpc-api/src/main/proto'], 'reservation.proto');
+
+function jour(decalage) {
+    const date = new Date();
+    date.setUTCDate(date.getUTCDate() + OFFSET + decalage);
+    return date.toISOString().substring(0, 10);
+}
+
+// Séjour aléatoire de 1 à 3 nuits sur une chambre aléatoire
+function sejour() {
+    const debut = Math.floor(Math.random() * JOURS);
+    return {
+        chambreId: CHAMBRES[Math.floor(Math.random() * CHAMBRES.length)],
+        dateDebut: jour(debut),
+        dateFin: jour(debut + 1 + Math.floor(Math.random() * 3)),
+    };
+}
+
+function compter(creee, refusee) {
+    if (creee) {
+        creees.add(1);
+    } else if (refusee) {
+        refusees.add(1);
+    }
+    check(null, { 'créée ou refusée pour chevauchement': () => creee || refusee });
+}
+
+function creationRest(base) {
+    const s = sejour();
+    const res = http.post(`${base}/api/reservations`, JSON.stringify({
+        client: { id: CLIENT }, chambre: { id: s.chambreId }, dateDebut: s.dateDebut, dateFin: s.dateFin,
+    }), { headers: { 'Content-Type': 'application/json' } });
+    compter(res.status === 201, res.status === 409);
+}
+
+export function rest() {
+    creationRest(REST);
+}
+
+export function reactive() {
+    creationRest(REACTIVE);
+}
+
+export function soap() {
+    const s = sejour();
+    const enveloppe = `<soapenv:Envelope xmlns:soapenv="http://schemas.xmlsoap.org/soap/envelope/"
+        xmlns:res="http://hotel.reservation.com/soap">
+        <soapenv:Header/>
+        <soapenv:Body>
+            <res:createReservationRequest><res:reservation>
+                <res:clientId>${CLIENT}</res:clientId><res:chambreId>${s.chambreId}</res:chambreId>
+                <res:dateDebut>${s.dateDebut}</res:dateDebut><res:dateFin>${s.dateFin}</res:dateFin>
+            </res:reservation></res:createReservationRequest>
+        </soapenv:Body>
+    </soapenv:Envelope>`;
+    const res = http.post(`${SOAP}/ws`, enveloppe, { headers: { 'Content-Type': 'text/xml; charset=utf-8' } });
+    compter(res.status === 200, res.status === 500 && res.body.includes('déjà réservée'));
+}
+
+export function graphql() {
+    const s = sejour();
+    const requete = JSON.stringify({
+        query: `mutation { createReservation(clientId: ${CLIENT}, chambreId: ${s.chambreId}, `
+            + `dateDebut: "${s.dateDebut}", dateFin: "${s.dateFin}") { id } }`,
+    });
+    const res = http.post(`${GRAPHQL}/graphql`, requete, { headers: { 'Content-Type': 'application/json' } });
+    const erreurs = res.status === 200 ? res.json('errors') : null;
+    compter(res.status === 200 && !erreurs, erreurs && JSON.stringify(erreurs).includes('déjà réservée'));
+}
+
+export function grpcCreation() {
+    if (__ITER === 0) {
+        client.connect(GRPC, { plaintext: true });
+    }
+    const s = sejour();
+    const res = client.invoke('reservation.ReservationService/CreateReservation', {
+        client_id: CLIENT, chambre_id: s.chambreId, date_debut: s.dateDebut, date_fin: s.dateFin,
+    });
+    compter(res && res.status === grpc.StatusOK, res && res.status === grpc.StatusAlreadyExists);
+}
@@ -0,0 +1,15 @@
+import http from 'k6/http';
+import { check } from 'k6';
+import { options as base, idAleatoire } from './options.js';
+
+export const options = base;
+
+const TARGET = __ENV.TARGET || 'http://localhost:8083';
+
+export default function () {
+    const requete = JSON.stringify({
+        query: `query { reservation(id: ${idAleatoire()}) { id dateDebut dateFin statut } }`,
+    });
+    const res = http.post(`${TARGET}/graphql`, requete, { headers: { 'Content-Type': 'application/json' } });
+    check(res, { 'statut 200': (r) => r.status === 200 && !r.json('errors') });
+}
@@ -0,0 +1,130 @@
+import http from 'k6/http';
+import grpc from 'k6/net/grpc';
+import exec from 'k6/execution';
+import { check } from 'k6';
+import { Trend } from 'k6/metrics';
+
+// Réservation de GROUPE séjours par l'API choisie (API=rest|soap|graphql|grpc) :
+// un seul appel de groupe (MODE=groupe) ou GROUPE créations unitaires successives (MODE=unitaires).
+// ITERATIONS groupes au total, répartis entre VUS clients ; duree_groupe mesure chaque groupe complet.
+const API = __ENV.API || 'rest';
+const MODE = __ENV.MODE || 'groupe';
+const GROUPE = Number(__ENV.GROUPE || 30);
+
+export const options = {
+    scenarios: {
+        [MODE]: {
+            executor: 'shared-iterations',
+            vus: Number(__ENV.VUS || 5),
+            iterations: Number(__ENV.ITERATIONS || 100),
+            maxDuration: __ENV.MAX_DURATION || '10m',
+        },
+    },
+    summaryTrendStats: ['avg', 'med', 'p(95)', 'p(99)', 'max'],
+};
+
+// Les séjours tombent à partir de OFFSET jours dans le futur, sur les chambres CHAMBRES
+const CHAMBRES = (__ENV.CHAMBRES || '1,2,3').split(',').map(Number);
+const CLIENT = Number(__ENV.CLIENT || 1);
+const OFFSET = Number(__ENV.OFFSET || 400);
+
+const REST = __ENV.REST || 'http://localhost:8081';
+const SOAP = __ENV.SOAP || 'http://localhost:8082';
+const GRAPHQL = __ENV.GRAPHQL || 'http://localhost:8083';
+const GRPC = __ENV.GRPC || 'localhost:8084';
+
+const dureeGroupe = new Trend('duree_groupe', true);
+
+const client = new grpc.Client();
+client.load(['../../grpc-api/src/main/proto'], 'reservation.proto');
+
+function jour(decalage) {
+    const date = new Date();
+    date.setUTCDate(date.getUTCDate() + OFFSET + decalage);
+    return date.toISOString().substring(0, 10);
+}
+
+// Séjours d'une nuit répartis sur les chambres : chaque itération a ses propres nuits, toutes libres
+function sejours() {
+    const nuits = Math.ceil(GROUPE / CHAMBRES.length);
+    const base = exec.scenario.iterationInTest * nuits;
+    const liste = [];
+    for (let i = 0; i < GROUPE; i++) {
+        const nuit = base + Math.floor(i / CHAMBRES.length);
+        liste.push({ chambreId: CHAMBRES[i % CHAMBRES.length], dateDebut: jour(nuit), dateFin: jour(nuit + 1) });
+    }
+    return liste;
+}
+
+const JSON_HEADERS = { headers: { 'Content-Type': 'application/json' } };
+const XML_HEADERS = { headers: { 'Content-Type': 'text/xml; charset=utf-8' } };
+
+function enveloppe(corps) {
+    return `<soapenv:Envelope xmlns:soapenv="http://schemas.xmlsoap.org/soap/envelope/"
+        xmlns:res="http://hotel.reservation.com/soap">
+        <soapenv:Header/>
+        <soapenv:Body>${corps}</soapenv:Body>
+    </soapenv:Envelope>`;
+}
+
+function graphqlSansErreur(res) {
+    return res.status === 200 && !res.json('errors');
+}
+
+const unitaire = {
+    rest: (s) => http.post(`${REST}/api/reservations`, JSON.stringify({
+        client: { id: CLIENT }, chambre: { id: s.chambreId }, dateDebut: s.dateDebut, dateFin: s.dateFin,
+    }), JSON_HEADERS).status === 201,
+    soap: (s) => http.post(`${SOAP}/ws`, enveloppe(`<res:createReservationRequest><res:reservation>
+            <res:clientId>${CLIENT}</res:clientId><res:chambreId>${s.chambreId}</res:chambreId>
+            <res:dateDebut>${s.dateDebut}</res:dateDebut><res:dateFin>${s.dateFin}</res:dateFin>
+        </res:reservation></res:createReservationRequest>`), XML_HEADERS).status === 200,
+    graphql: (s) => graphqlSansErreur(http.post(`${GRAPHQL}/graphql`, JSON.stringify({
+        query: `mutation { createReservation(clientId: ${CLIENT}, chambreId: ${s.chambreId}, `
+            + `dateDebut: "${s.dateDebut}", dateFin: "${s.dateFin}") { id } }`,
+    }), JSON_HEADERS)),
+    grpc: (s) => {
+        const res = client.invoke('reservation.ReservationService/CreateReservation', {
+            client_id: CLIENT, chambre_id: s.chambreId, date_debut: s.dateDebut, date_fin: s.dateFin,
+        });
+        return res && res.status === grpc.StatusOK;
+    },
+};
+
+const groupe = {
+    rest: (liste) => http.post(`${REST}/api/reservations/groups`,
+        JSON.stringify({ clientId: CLIENT, sejours: liste }), JSON_HEADERS).status === 201,
+    soap: (liste) => http.post(`${SOAP}/ws`, enveloppe(`<res:createGroupReservationRequest>
+            <res:clientId>${CLIENT}</res:clientId>
+            ${liste.map((s) => `<res:sejour><res:chambreId>${s.chambreId}</res:chambreId>`
+                + `<res:dateDebut>${s.dateDebut}</res:dateDebut><res:dateFin>${s.dateFin}</res:dateFin></res:sejour>`).join('')}
+        </res:createGroupReservationRequest>`), XML_HEADERS).status === 200,
+    graphql: (liste) => graphqlSansErreur(http.post(`${GRAPHQL}/graphql`, JSON.stringify({
+        query: `mutation { createGroupReservation(clientId: ${CLIENT}, sejours: [${liste.map((s) =>
+            `{ chambreId: ${s.chambreId}, dateDebut: "${s.dateDebut}", dateFin: "${s.dateFin}" }`).join(', ')}]) `
+            + '{ reservationId } }',
+    }), JSON_HEADERS)),
+    grpc: (liste) => {
+        const res = client.invoke('reservation.ReservationService/CreateGroupReservation', {
+            client_id: CLIENT,
+            sejours: liste.map((s) => ({ chambre_id: s.chambreId, date_debut: s.dateDebut, date_fin: s.dateFin })),
+        });
+        return res && res.status === grpc.StatusOK;
+    },
+};
+
+export default function () {
+    if (API === 'grpc' && exec.vu.iterationInScenario === 0) {
+        client.connect(GRPC, { plaintext: true });
+    }
+    const liste = sejours();
+    const debut = Date.now();
+    let reussi;
+    if (MODE === 'groupe') {
+        reussi = groupe[API](liste);
+    } else {
+        reussi = liste.every((s) => unitaire[API](s));
+    }
+    dureeGroupe.add(Date.now() - debut);
+    check(null, { 'groupe entièrement réservé': () => reussi });
+}
@@ -0,0 +1,19 @@
+import grpc from 'k6/net/grpc';
+import { check } from 'k6';
+import { options as base, idAleatoire } from './options.js';
+
+export const options = base;
+
+const TARGET = __ENV.TARGET || 'localhost:8084';
+
+const client = new grpc.Client();
+client.load(['../../grpc-api/src/main/proto'], 'reservation.proto');
+
+export default function () {
+    // Une connexion HTTP/2 par client virtuel, réutilisée entre les itérations
+    if (__ITER === 0) {
+        client.connect(TARGET, { plaintext: true });
+    }
+    const res = client.invoke('reservation.ReservationService/GetReservation', { id: idAleatoire() });
+    check(res, { 'statut OK': (r) => r && r.status === grpc.StatusOK });
+}
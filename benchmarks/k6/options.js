@@ -0,0 +1,18 @@
+// Options communes : VUS clients simultanés pendant DURATION
+export const options = {
+    scenarios: {
+        charge: {
+            executor: 'constant-vus',
+            vus: Number(__ENV.VUS || 1000),
+            duration: __ENV.DURATION || '60s',
+        },
+    },
+    summaryTrendStats: ['avg', 'med', 'p(95)', 'p(99)', 'max'],
+};
+
+// IDs de réservation lus (ceux des données de test par défaut)
+export const RESERVATION_IDS = (__ENV.IDS || '1,2,3').split(',').map(Number);
+
+export function idAleatoire() {
+    return RESERVATION_IDS[Math.floor(Math.random() * RESERVATION_IDS.length)];
+}
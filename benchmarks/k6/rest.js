@@ -0,0 +1,12 @@
+import http from 'k6/http';
+import { check } from 'k6';
+import { options as base, idAleatoire } from './options.js';
+
+export const options = base;
+
+const TARGET = __ENV.TARGET || 'http://localhost:8081';
+
+export default function () {
+    const res = http.get(`${TARGET}/api/reservations/${idAleatoire()}`);
+    check(res, { 'statut 200': (r) => r.status === 200 });
+}
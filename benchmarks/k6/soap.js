@@ -0,0 +1,19 @@
+import http from 'k6/http';
+import { check } from 'k6';
+import { options as base, idAleatoire } from './options.js';
+
+export const options = base;
+
+const TARGET = __ENV.TARGET || 'http://localhost:8082';
+
+export default function () {
+    const enveloppe = `<soapenv:Envelope xmlns:soapenv="http://schemas.xmlsoap.org/soap/envelope/"
+        xmlns:res="http://hotel.reservation.com/soap">
+        <soapenv:Header/>
+        <soapenv:Body>
+            <res:getReservationRequest><res:id>${idAleatoire()}</res:id></res:getReservationRequest>
+        </soapenv:Body>
+    </soapenv:Envelope>`;
+    const res = http.post(`${TARGET}/ws`, enveloppe, { headers: { 'Content-Type': 'text/xml; charset=utf-8' } });
+    check(res, { 'statut 200': (r) => r.status === 200 });
+}
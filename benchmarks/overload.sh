@@ -0,0 +1,65 @@
+#!/usr/bin/env bash
+# Débit utile et latence au-delà de la saturation, avec et sans limiteur de concurrence
+#
+# Usage : benchmarks/overload.sh <rest|soap|graphql|grpc> [DURATION]
+# DURATION est exprimée en secondes (30s par défaut).
+# Prérequis : k6, jq, base MySQL initialisée (database/schema.sql)
+#
+# Le module est démarré deux fois (limiter.enabled=true puis false) ; pour chaque
+# niveau de charge, le script k6 du protocole tourne pendant DURATION. Le débit utile
+# compte les seules réponses réussies (check k6), la latence p99 ne porte que sur elles.
+set -euo pipefail
+
+PROTOCOLE=${1:?Usage: $0 <rest|soap|graphql|grpc> [DURATION]}
+DURATION=${2:-30s}
+RACINE=$(cd "$(dirname "$0")/.." && pwd)
+RESULTATS="$RACINE/benchmarks/results"
+
+case "$PROTOCOLE" in
+    rest)    MODULE=rest-api;    SONDE="http://localhost:8081/actuator/health" ;;
+    soap)    MODULE=soap-api;    SONDE="http://localhost:8082/actuator/health" ;;
+    graphql) MODULE=graphql-api; SONDE="http://localhost:8083/actuator/health" ;;
+    grpc)    MODULE=grpc-api;    SONDE="http://localhost:8094/actuator/health" ;;
+    *) echo "Protocole inconnu : $PROTOCOLE" >&2; exit 1 ;;
+esac
+
+if [ "$PROTOCOLE" = grpc ]; then
+    LATENCE='grpc_req_duration'
+else
+    LATENCE='http_req_duration{expected_response:true}'
+fi
+
+mkdir -p "$RESULTATS"
+CSV="$RESULTATS/overload-$PROTOCOLE.csv"
+echo "limiteur,clients,debit_utile,p99_ms,taux_echec" > "$CSV"
+
+lancer() {
+    local limiteur=$1
+    echo "=== $MODULE : limiteur $limiteur"
+    (cd "$RACINE/$MODULE" && mvn -B -q spring-boot:run \
+        -Dspring-boot.run.arguments=--limiter.enabled=$limiteur > "$RESULTATS/$MODULE-limiteur-$limiteur.log" 2>&1) &
+    local pid=$!
+    until curl -sf "$SONDE" > /dev/null; do sleep 2; done
+
+    for VUS in 50 100 200 500 1000 2000; do
+        local resume="$RESULTATS/overload-$PROTOCOLE-$limiteur-$VUS.json"
+        (cd "$RACINE/benchmarks/k6" && VUS=$VUS DURATION=$DURATION \
+            k6 run --quiet --summary-export "$resume" "$PROTOCOLE.js") || true
+        jq -r --arg l "$limiteur" --arg v "$VUS" --arg m "$LATENCE" --arg d "${DURATION%s}" '
+            .metrics.checks as $c
+            | [$l, $v,
+               ($c.passes / ($d | tonumber) | floor),
+               (.metrics[$m]["p(99)"] // 0 | floor),
+               ($c.fails / ($c.passes + $c.fails) * 100 | floor | tostring + "%")]
+            | @csv' "$resume" | tr -d '"' >> "$CSV"
+        tail -n 1 "$CSV"
+    done
+
+    pkill -P $pid || true
+    wait $pid 2>/dev/null || true
+}
+
+lancer true
+lancer false
+
+echo "Résultats : $CSV"
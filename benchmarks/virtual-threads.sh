@@ -0,0 +1,47 @@
+#!/usr/bin/env bash
+# Compare le débit d'un module à 1000 clients simultanés selon le modèle de threads
+#
+# Usage : benchmarks/virtual-threads.sh <rest|soap|graphql|grpc> [VUS] [DURATION]
+# Prérequis : JDK 21+, k6, base MySQL initialisée (database/schema.sql)
+set -euo pipefail
+
+PROTOCOLE=${1:?Usage: $0 <rest|soap|graphql|grpc> [VUS] [DURATION]}
+VUS=${2:-1000}
+DURATION=${3:-60s}
+RACINE=$(cd "$(dirname "$0")/.." && pwd)
+RESULTATS="$RACINE/benchmarks/results"
+
+case "$PROTOCOLE" in
+    rest)    MODULE=rest-api;    SONDE="http://localhost:8081/actuator/health" ;;
+    soap)    MODULE=soap-api;    SONDE="http://localhost:8082/actuator/health" ;;
+    graphql) MODULE=graphql-api; SONDE="http://localhost:8083/graphql?query=%7B__typename%7D" ;;
+    grpc)    MODULE=grpc-api;    SONDE="" ;;
+    *) echo "Protocole inconnu : $PROTOCOLE" >&2; exit 1 ;;
+esac
+
+mkdir -p "$RESULTATS"
+
+lancer() {
+    local mode=$1 profil=$2
+    echo "=== $MODULE : threads $mode ($VUS clients, $DURATION)"
+    (cd "$RACINE/$MODULE" && mvn -B -q $profil spring-boot:run > "$RESULTATS/$MODULE-$mode.log" 2>&1) &
+    local pid=$!
+    if [ -n "$SONDE" ]; then
+        until curl -sf "$SONDE" > /dev/null; do sleep 2; done
+    else
+        until grep -q "Serveur gRPC démarré" "$RESULTATS/$MODULE-$mode.log"; do sleep 2; done
+    fi
+
+    (cd "$RACINE/benchmarks/k6" && VUS=$VUS DURATION=$DURATION \
+        k6 run --summary-export "$RESULTATS/$PROTOCOLE-$mode.json" "$PROTOCOLE.js")
+
+    pkill -P $pid || true
+    wait $pid 2>/dev/null || true
+    # Threads épinglés signalés par -Djdk.tracePinnedThreads=short (« <== monitors: »)
+    echo "Traces d'épinglage : $(grep -c "<== monitors:" "$RESULTATS/$MODULE-$mode.log" || true)"
+}
+
+lancer plateforme ""
+lancer virtuels "-Pvirtual-threads"
+
+echo "Résumés k6 : $RESULTATS/$PROTOCOLE-plateforme.json et $RESULTATS/$PROTOCOLE-virtuels.json"
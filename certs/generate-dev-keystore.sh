@@ -0,0 +1,24 @@
+#!/usr/bin/env bash
+# Génère le keystore auto-signé utilisé par le profil Spring h2 (HTTP/2 sur TLS)
+#
+# Usage : certs/generate-dev-keystore.sh
+# Le fichier certs/hotel-dev.p12 n'est pas versionné. Les clients de test doivent
+# accepter le certificat auto-signé (curl -k, h2load le fait par défaut).
+set -euo pipefail
+
+DOSSIER=$(cd "$(dirname "$0")" && pwd)
+KEYSTORE="$DOSSIER/hotel-dev.p12"
+
+rm -f "$KEYSTORE"
+keytool -genkeypair \
+    -alias hotel-dev \
+    -keyalg EC -groupname secp256r1 \
+    -sigalg SHA256withECDSA \
+    -validity 365 \
+    -dname "CN=localhost, OU=Dev, O=Hotel Reservation, C=FR" \
+    -ext "SAN=dns:localhost,ip:127.0.0.1" \
+    -storetype PKCS12 \
+    -keystore "$KEYSTORE" \
+    -storepass "${HTTP2_KEYSTORE_PASSWORD:-changeit}"
+
+echo "Keystore créé : $KEYSTORE"
@@ -33,7 +33,8 @@ CREATE TABLE IF NOT EXISTS chambre (
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     INDEX idx_type (type),
-    INDEX idx_disponible (disponible)
+    INDEX idx_disponible (disponible),
+    INDEX idx_chambre_updated (updated_at)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
 -- Table : Reservation
@@ -46,6 +47,8 @@ CREATE TABLE IF NOT EXISTS reservation (
     date_fin DATE NOT NULL COMMENT 'Date de fin de séjour',
     preferences TEXT COMMENT 'Préférences spécifiques pour la réservation (JSON)',
     statut VARCHAR(50) DEFAULT 'CONFIRMEE' COMMENT 'Statut : CONFIRMEE, ANNULEE, EN_ATTENTE',
+    expires_at TIMESTAMP NULL COMMENT 'Échéance d''une option (statut EN_ATTENTE)',
+    montant DECIMAL(12, 2) NULL COMMENT 'Prix du séjour fixé à la réservation (tarifs compris)',
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     FOREIGN KEY (client_id) REFERENCES client(id) ON DELETE CASCADE,
@@ -54,9 +57,69 @@ CREATE TABLE IF NOT EXISTS reservation (
     INDEX idx_chambre (chambre_id),
     INDEX idx_dates (date_debut, date_fin),
     INDEX idx_statut (statut),
+    INDEX idx_reservation_updated (updated_at),
+    INDEX idx_reservation_expires (expires_at),
     CHECK (date_fin > date_debut)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
+-- Table : Idempotency Key
+-- Mémorise le résultat des créations de réservation pour rejouer les tentatives
+-- envoyées avec la même clé d'idempotence (en-tête Idempotency-Key / métadonnée gRPC) ;
+-- une même clé envoyée avec une autre requête (empreinte différente) est refusée
+CREATE TABLE IF NOT EXISTS idempotency_key (
+    cle VARCHAR(128) PRIMARY KEY,
+    reservation_id BIGINT NOT NULL,
+    empreinte VARCHAR(64) NOT NULL COMMENT 'SHA-256 de la requête normalisée qui a utilisé la clé',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_idempotency_created (created_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Table : Saison Tarifaire
+-- Coefficient appliqué au prix par nuit des chambres du type (de tous les types si type est NULL)
+-- pour les nuits du date_debut au date_fin exclu
+CREATE TABLE IF NOT EXISTS saison_tarifaire (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    type VARCHAR(50) NULL COMMENT 'Type de chambre, NULL pour tous les types',
+    date_debut DATE NOT NULL COMMENT 'Première nuit de la saison',
+    date_fin DATE NOT NULL COMMENT 'Fin de la saison (exclue)',
+    coefficient DECIMAL(6, 4) NOT NULL COMMENT 'Multiplicateur du prix par nuit',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    INDEX idx_saison_updated (updated_at),
+    CHECK (date_fin > date_debut),
+    CHECK (coefficient > 0)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Table : Tarif Jour
+-- Coefficient appliqué au prix par nuit des chambres du type (de tous les types si type est NULL)
+-- pour les nuits d'un jour de la semaine, en plus de celui de la saison
+CREATE TABLE IF NOT EXISTS tarif_jour (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    type VARCHAR(50) NULL COMMENT 'Type de chambre, NULL pour tous les types',
+    jour_semaine TINYINT NOT NULL COMMENT 'Jour de la semaine : 1 (lundi) à 7 (dimanche)',
+    coefficient DECIMAL(6, 4) NOT NULL COMMENT 'Multiplicateur du prix par nuit',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    INDEX idx_tarif_jour_updated (updated_at),
+    CHECK (jour_semaine BETWEEN 1 AND 7),
+    CHECK (coefficient > 0)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Table : Inventaire journalier
+-- Chambres vendues et revenu par type (en minuscules) et par nuit, tenu à jour dans la transaction
+-- de chaque réservation ; recalculé depuis reservation par la réconciliation. Table de synthèse des
+-- vues d'occupation et de revenu
+CREATE TABLE IF NOT EXISTS daily_inventory (
+    type VARCHAR(50) NOT NULL COMMENT 'Type de chambre, en minuscules',
+    jour DATE NOT NULL COMMENT 'Nuit du jour au lendemain',
+    vendues INT NOT NULL DEFAULT 0 COMMENT 'Chambres du type occupées cette nuit',
+    revenu DECIMAL(14, 2) NOT NULL DEFAULT 0 COMMENT 'Somme des prix par nuit des chambres occupées',
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (type, jour),
+    INDEX idx_inventory_jour (jour),
+    INDEX idx_inventory_updated (updated_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
 -- Données de test initiales
 -- Insertion de quelques chambres de test
 INSERT INTO chambre (type, prix, disponible) VALUES
@@ -1,12 +1,14 @@
 import React, { useState } from 'react';
 import axios from 'axios';
+import LiveMetrics from './LiveMetrics';
 import './index.css';
 
 /**
  * Composant principal de l'application React
  * 
  * Ce client React permet de tester les opérations CRUD
- * sur les réservations d'hôtel via l'API REST.
+ * sur les réservations d'hôtel via l'API REST, et de suivre
+ * les métriques en direct des quatre modules.
  */
 function App() {
   // État pour stocker les résultats des requêtes
@@ -282,6 +284,9 @@ function App() {
           )}
         </div>
       )}
+
+      {/* Section Métriques en Direct */}
+      <LiveMetrics />
     </div>
   );
 }
@@ -0,0 +1,158 @@
+import React, { useEffect, useState } from 'react';
+
+/**
+ * Tableau de bord des métriques en direct
+ *
+ * S'abonne au flux Server-Sent Events /metrics/live de chaque module et affiche
+ * leurs métriques côte à côte, mises à jour chaque seconde pendant un test de charge.
+ */
+
+// Flux des modules (le module gRPC publie sur son port HTTP, pas sur le port gRPC)
+const MODULES = [
+  { nom: 'REST', url: 'http://localhost:8081/metrics/live' },
+  { nom: 'SOAP', url: 'http://localhost:8082/metrics/live' },
+  { nom: 'GraphQL', url: 'http://localhost:8083/metrics/live' },
+  { nom: 'gRPC', url: 'http://localhost:8094/metrics/live' }
+];
+
+// Nombre de secondes gardées pour les courbes
+const HISTORIQUE = 60;
+
+/**
+ * Petite courbe SVG des dernières valeurs
+ */
+function Sparkline({ valeurs, couleur }) {
+  const largeur = 160;
+  const hauteur = 32;
+  if (valeurs.length < 2) {
+    return <svg width={largeur} height={hauteur} />;
+  }
+  const max = Math.max(...valeurs, 1);
+  const points = valeurs
+    .map((v, i) => {
+      const x = (i / (HISTORIQUE - 1)) * largeur;
+      const y = hauteur - (v / max) * (hauteur - 2) - 1;
+      return `${x.toFixed(1)},${y.toFixed(1)}`;
+    })
+    .join(' ');
+  return (
+    <svg width={largeur} height={hauteur}>
+      <polyline points={points} fill="none" stroke={couleur} strokeWidth="1.5" />
+    </svg>
+  );
+}
+
+function LiveMetrics() {
+  const [actif, setActif] = useState(false);
+  // Par module : dernier instantané, historique, état de connexion
+  const [etats, setEtats] = useState({});
+
+  useEffect(() => {
+    if (!actif) {
+      return undefined;
+    }
+    const sources = MODULES.map(({ nom, url }) => {
+      const source = new EventSource(url);
+      source.addEventListener('metrics', (event) => {
+        const instantane = JSON.parse(event.data);
+        setEtats((precedents) => {
+          const precedent = precedents[nom] || { debit: [], p99: [] };
+          return {
+            ...precedents,
+            [nom]: {
+              connecte: true,
+              instantane,
+              debit: [...precedent.debit, instantane.throughput].slice(-HISTORIQUE),
+              p99: [...precedent.p99, instantane.latencyMs.p99].slice(-HISTORIQUE)
+            }
+          };
+        });
+      });
+      // EventSource se reconnecte seul ; le module est signalé hors ligne en attendant
+      source.onerror = () => {
+        setEtats((precedents) => ({
+          ...precedents,
+          [nom]: { ...(precedents[nom] || { debit: [], p99: [] }), connecte: false }
+        }));
+      };
+      return source;
+    });
+    return () => sources.forEach((source) => source.close());
+  }, [actif]);
+
+  const valeur = (nom, lecture) => {
+    const etat = etats[nom];
+    if (!etat || !etat.instantane) {
+      return '-';
+    }
+    const v = lecture(etat.instantane);
+    return v === null || v === undefined ? '-' : v;
+  };
+
+  const pools = (instantane) =>
+    instantane.pools
+      .map((pool) => `${pool.name} ${pool.active}/${pool.max ?? '?'}${pool.queued ? ` (+${pool.queued})` : ''}`)
+      .join(', ');
+
+  const lignes = [
+    ['Débit (req/s)', (i) => i.throughput],
+    ['Erreurs (/s)', (i) => i.errors],
+    ['Rejets (/s)', (i) => i.rejected],
+    ['Latence p50 (ms)', (i) => i.latencyMs.p50],
+    ['Latence p90 (ms)', (i) => i.latencyMs.p90],
+    ['Latence p99 (ms)', (i) => i.latencyMs.p99],
+    ['Latence p99.9 (ms)', (i) => i.latencyMs.p999],
+    ['Latence max (ms)', (i) => i.latencyMs.max],
+    ['En cours', (i) => i.inFlight],
+    ['Pools (actifs/max)', pools],
+    ['GC (collections / pause ms)', (i) => `${i.gc.collections} / ${i.gc.pauseMs}`]
+  ];
+
+  return (
+    <div className="api-section">
+      <h2>Métriques en Direct</h2>
+      <p style={{ color: '#666' }}>
+        Une mise à jour par seconde ; latences calculées sur les dernières secondes de chaque module.
+      </p>
+      <button onClick={() => setActif(!actif)}>{actif ? 'Arrêter le Suivi' : 'Démarrer le Suivi'}</button>
+
+      <table className="live-metrics">
+        <thead>
+          <tr>
+            <th />
+            {MODULES.map(({ nom }) => (
+              <th key={nom}>
+                {nom}{' '}
+                <span className={etats[nom]?.connecte ? 'statut en-ligne' : 'statut hors-ligne'}>●</span>
+              </th>
+            ))}
+          </tr>
+        </thead>
+        <tbody>
+          <tr>
+            <td>Débit (60 s)</td>
+            {MODULES.map(({ nom }) => (
+              <td key={nom}><Sparkline valeurs={etats[nom]?.debit || []} couleur="#007bff" /></td>
+            ))}
+          </tr>
+          <tr>
+            <td>Latence p99 (60 s)</td>
+            {MODULES.map(({ nom }) => (
+              <td key={nom}><Sparkline valeurs={etats[nom]?.p99 || []} couleur="#dc3545" /></td>
+            ))}
+          </tr>
+          {lignes.map(([libelle, lecture]) => (
+            <tr key={libelle}>
+              <td>{libelle}</td>
+              {MODULES.map(({ nom }) => (
+                <td key={nom}>{valeur(nom, lecture)}</td>
+              ))}
+            </tr>
+          ))}
+        </tbody>
+      </table>
+    </div>
+  );
+}
+
+export default LiveMetrics;
@@ -2,6 +2,7 @@ package com.hotel.reservation.graphql;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Application principale pour le module GraphQL API
@@ -15,6 +16,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * GraphiQL UI: http://localhost:8083/graphiql
  */
 @SpringBootApplication
+@EnableScheduling
 public class GraphqlApiApplication {
 
     public static void main(String[] args) {
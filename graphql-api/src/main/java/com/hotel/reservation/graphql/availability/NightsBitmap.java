@@ -0,0 +1,185 @@
+package com.hotel.reservation.graphql.availability;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Bitmap immuable des nuits réservées d'une chambre sur l'horizon de l'index
+ *
+ * Le bit i correspond à la nuit origine + i (en jours epoch, origine fixée par l'index).
+ * Les mots nuls en fin de tableau ne sont pas stockés : une chambre sans séjour à venir
+ * n'occupe aucun mot, et une chambre réservée seulement le mois prochain en occupe un ou deux.
+ * Sur deux ans, le bitmap complet tient en 12 mots de 64 bits.
+ *
+ * Les positions passées en paramètre sont relatives à l'origine ; les bornes de fin sont exclues.
+ */
+final class NightsBitmap {
+
+    static final NightsBitmap VIDE = new NightsBitmap(new long[0]);
+
+    // En-têtes estimés (JVM 64 bits, oops compressés) : objet NightsBitmap et tableau long[]
+    private static final int ENTETES_OCTETS = 16 + 16;
+
+    private final long[] mots;
+
+    private NightsBitmap(long[] mots) {
+        this.mots = mots;
+    }
+
+    /**
+     * Construit le bitmap de séjours [debuts[i], fins[i]) en jours epoch, tronqués à [origine, origine + horizon)
+     */
+    static NightsBitmap of(int[] debuts, int[] fins, int origine, int horizon) {
+        long[] mots = new long[(horizon + 63) >>> 6];
+        int dernier = -1;
+        for (int i = 0; i < debuts.length; i++) {
+            int de = Math.max(debuts[i], origine) - origine;
+            int a = Math.min(fins[i], origine + horizon) - origine;
+            if (de < a) {
+                marquer(mots, de, a);
+                dernier = Math.max(dernier, (a - 1) >>> 6);
+            }
+        }
+        return dernier < 0 ? VIDE : new NightsBitmap(Arrays.copyOf(mots, dernier + 1));
+    }
+
+    private static void marquer(long[] mots, int de, int a) {
+        int premier = de >>> 6;
+        int dernier = (a - 1) >>> 6;
+        long masqueDebut = -1L << de;
+        long masqueFin = -1L >>> -a;
+        if (premier == dernier) {
+            mots[premier] |= masqueDebut & masqueFin;
+            return;
+        }
+        mots[premier] |= masqueDebut;
+        for (int i = premier + 1; i < dernier; i++) {
+            mots[i] = -1L;
+        }
+        mots[dernier] |= masqueFin;
+    }
+
+    /**
+     * @return true si aucune nuit de [de, a) n'est réservée
+     */
+    boolean isFree(int de, int a) {
+        return nextSetBit(de, a) < 0;
+    }
+
+    /**
+     * @return Le nombre de nuits réservées dans [de, a)
+     */
+    int cardinality(int de, int a) {
+        return cardinality(mots, de, a);
+    }
+
+    private static int cardinality(long[] mots, int de, int a) {
+        a = Math.min(a, mots.length << 6);
+        if (de >= a) {
+            return 0;
+        }
+        int premier = de >>> 6;
+        int dernier = (a - 1) >>> 6;
+        long masqueDebut = -1L << de;
+        long masqueFin = -1L >>> -a;
+        if (premier == dernier) {
+            return Long.bitCount(mots[premier] & masqueDebut & masqueFin);
+        }
+        int total = Long.bitCount(mots[premier] & masqueDebut);
+        for (int i = premier + 1; i < dernier; i++) {
+            total += Long.bitCount(mots[i]);
+        }
+        return total + Long.bitCount(mots[dernier] & masqueFin);
+    }
+
+    /**
+     * @return La première nuit réservée dans [de, a), ou -1
+     */
+    int nextSetBit(int de, int a) {
+        a = Math.min(a, mots.length << 6);
+        if (de >= a) {
+            return -1;
+        }
+        int i = de >>> 6;
+        long mot = mots[i] & (-1L << de);
+        while (true) {
+            if (mot != 0) {
+                int bit = (i << 6) + Long.numberOfTrailingZeros(mot);
+                return bit < a ? bit : -1;
+            }
+            if (++i > (a - 1) >>> 6) {
+                return -1;
+            }
+            mot = mots[i];
+        }
+    }
+
+    /**
+     * @return La dernière nuit réservée avant a (exclue), ou -1
+     */
+    int previousSetBit(int a) {
+        a = Math.min(a, mots.length << 6);
+        if (a <= 0) {
+            return -1;
+        }
+        int i = (a - 1) >>> 6;
+        long mot = mots[i] & (-1L >>> -a);
+        while (true) {
+            if (mot != 0) {
+                return (i << 6) + 63 - Long.numberOfLeadingZeros(mot);
+            }
+            if (--i < 0) {
+                return -1;
+            }
+            mot = mots[i];
+        }
+    }
+
+    /**
+     * Recherche la première fenêtre de nuits consécutives libres
+     * @param de Première nuit possible
+     * @param nuits Nombre de nuits de la fenêtre
+     * @param limite Fin de la recherche (exclue) : la fenêtre doit tenir avant
+     * @return Le début de la fenêtre, ou -1
+     */
+    int firstFreeRun(int de, int nuits, int limite) {
+        int position = de;
+        while (position + nuits <= limite) {
+            int reservee = nextSetBit(position, position + nuits);
+            if (reservee < 0) {
+                return position;
+            }
+            position = reservee + 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Intersection de bitmaps : nuits réservées dans toutes les chambres
+     * @return Le nombre de nuits de [de, a) réservées dans chacun des bitmaps (0 si la liste est vide)
+     */
+    static int andCardinality(List<NightsBitmap> bitmaps, int de, int a) {
+        if (bitmaps.isEmpty()) {
+            return 0;
+        }
+        int longueur = Integer.MAX_VALUE;
+        for (NightsBitmap bitmap : bitmaps) {
+            longueur = Math.min(longueur, bitmap.mots.length);
+        }
+        long[] intersection = new long[longueur];
+        Arrays.fill(intersection, -1L);
+        for (NightsBitmap bitmap : bitmaps) {
+            for (int i = 0; i < longueur; i++) {
+                intersection[i] &= bitmap.mots[i];
+            }
+        }
+        return cardinality(intersection, de, a);
+    }
+
+    /**
+     * @return La mémoire occupée par le bitmap, en octets (estimation)
+     */
+    long sizeInBytes() {
+        return ENTETES_OCTETS + 8L * mots.length;
+    }
+}
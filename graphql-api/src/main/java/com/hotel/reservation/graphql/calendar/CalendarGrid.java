@@ -0,0 +1,204 @@
+package com.hotel.reservation.graphql.calendar;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.hotel.reservation.graphql.model.Chambre;
+import com.hotel.reservation.graphql.repository.ChambreRepository;
+import com.hotel.reservation.graphql.repository.ReservationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Planning des chambres sur une période (chambres × nuits), pour la réception
+ *
+ * Chaque ligne est encodée par plages (run-length) : une suite de nuits de même statut
+ * devient une seule plage (statut, nombre de nuits, réservation). Les plages d'une ligne
+ * se suivent sans trou et couvrent exactement la période : un mois de 500 chambres tient
+ * en quelques milliers de plages au lieu de toutes les réservations.
+ *
+ * La grille est calculée en une passe : les séjours non annulés qui chevauchent la période
+ * sont lus en une requête, triés par chambre puis par date de début, et fusionnés avec les
+ * chambres triées par ID.
+ *
+ * Statuts d'une plage : LIBRE, HORS_SERVICE (nuits libres d'une chambre indisponible),
+ * ou le statut de la réservation (CONFIRMEE, EN_ATTENTE).
+ *
+ * Métrique exposée : calendar.grid.
+ */
+@Component
+public class CalendarGrid {
+
+    /** Statut d'une plage : nuits libres */
+    public static final String LIBRE = "LIBRE";
+
+    /** Statut d'une plage : nuits libres d'une chambre marquée indisponible */
+    public static final String HORS_SERVICE = "HORS_SERVICE";
+
+    @Autowired
+    private ChambreRepository chambreRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${calendar.max-days:62}")
+    private int maxDays;
+
+    private Timer duree;
+
+    @PostConstruct
+    void initialiser() {
+        duree = Timer.builder("calendar.grid")
+                .description("Calcul du planning des chambres sur une période")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Calcule le planning des chambres sur une période
+     * @param debut Première nuit (incluse)
+     * @param fin Fin de la période (exclue)
+     * @param type Type de chambre (insensible à la casse), ou null (ou vide) pour tous les types
+     * @param chambreIds Chambres à inclure, ou null (ou vide) pour toutes
+     * @return Une ligne par chambre retenue, triées par ID
+     * @throws IllegalArgumentException si la période est invalide ou dépasse calendar.max-days jours
+     */
+    public Calendrier grid(LocalDate debut, LocalDate fin, String type, Collection<Long> chambreIds) {
+        if (debut == null || fin == null) {
+            throw new IllegalArgumentException("Les dates de début et de fin sont obligatoires");
+        }
+        long nuits = ChronoUnit.DAYS.between(debut, fin);
+        if (nuits < 1 || nuits > maxDays) {
+            throw new IllegalArgumentException("La période doit compter entre 1 et " + maxDays + " nuits");
+        }
+        String filtreType = type == null || type.isBlank() ? null : type;
+        Set<Long> filtreIds = chambreIds == null || chambreIds.isEmpty() ? null : new HashSet<>(chambreIds);
+        return duree.record(() -> calculer(debut, fin, filtreType, filtreIds));
+    }
+
+    private Calendrier calculer(LocalDate debut, LocalDate fin, String type, Set<Long> chambreIds) {
+        List<ReservationRepository.Sejour> sejours = reservationRepository.findSejoursInWindow(debut, fin, type);
+        List<Ligne> lignes = new ArrayList<>();
+        int j = 0;
+        for (Chambre chambre : chambreRepository.findAll(Sort.by("id"))) {
+            Long chambreId = chambre.getId();
+            // Séjours des chambres écartées ou supprimées entre les deux lectures
+            while (j < sejours.size() && sejours.get(j).getChambreId() < chambreId) {
+                j++;
+            }
+            int premier = j;
+            while (j < sejours.size() && sejours.get(j).getChambreId().equals(chambreId)) {
+                j++;
+            }
+            if ((type != null && !type.equalsIgnoreCase(chambre.getType()))
+                    || (chambreIds != null && !chambreIds.contains(chambreId))) {
+                continue;
+            }
+            lignes.add(new Ligne(chambreId, chambre.getType(),
+                    plages(sejours.subList(premier, j), debut, fin, Boolean.TRUE.equals(chambre.getDisponible()))));
+        }
+        return new Calendrier(debut, fin, lignes);
+    }
+
+    /**
+     * Encode une ligne : séjours de la chambre triés par début, tronqués à la période
+     */
+    private static List<Plage> plages(List<ReservationRepository.Sejour> sejours, LocalDate debut, LocalDate fin,
+                                      boolean disponible) {
+        String libre = disponible ? LIBRE : HORS_SERVICE;
+        List<Plage> plages = new ArrayList<>(2 * sejours.size() + 1);
+        LocalDate curseur = debut;
+        for (ReservationRepository.Sejour sejour : sejours) {
+            LocalDate de = sejour.getDateDebut().isAfter(curseur) ? sejour.getDateDebut() : curseur;
+            LocalDate a = sejour.getDateFin().isBefore(fin) ? sejour.getDateFin() : fin;
+            if (!a.isAfter(de)) {
+                // Séjour chevauchant le précédent (données antérieures au contrôle des chevauchements)
+                continue;
+            }
+            if (de.isAfter(curseur)) {
+                plages.add(new Plage(libre, (int) ChronoUnit.DAYS.between(curseur, de), null));
+            }
+            String statut = sejour.getStatut() == null ? "CONFIRMEE" : sejour.getStatut();
+            plages.add(new Plage(statut, (int) ChronoUnit.DAYS.between(de, a), sejour.getId()));
+            curseur = a;
+        }
+        if (fin.isAfter(curseur)) {
+            plages.add(new Plage(libre, (int) ChronoUnit.DAYS.between(curseur, fin), null));
+        }
+        return plages;
+    }
+
+    /**
+     * Planning d'une période : une ligne par chambre
+     */
+    public static final class Calendrier {
+        private final LocalDate dateDebut;
+        private final LocalDate dateFin;
+        private final List<Ligne> chambres;
+
+        private Calendrier(LocalDate dateDebut, LocalDate dateFin, List<Ligne> chambres) {
+            this.dateDebut = dateDebut;
+            this.dateFin = dateFin;
+            this.chambres = chambres;
+        }
+
+        public LocalDate getDateDebut() { return dateDebut; }
+
+        /** Fin de la période (exclue) */
+        public LocalDate getDateFin() { return dateFin; }
+
+        public List<Ligne> getChambres() { return chambres; }
+    }
+
+    /**
+     * Ligne d'une chambre : plages consécutives à partir du début de la période
+     */
+    public static final class Ligne {
+        private final Long chambreId;
+        private final String type;
+        private final List<Plage> plages;
+
+        private Ligne(Long chambreId, String type, List<Plage> plages) {
+            this.chambreId = chambreId;
+            this.type = type;
+            this.plages = plages;
+        }
+
+        public Long getChambreId() { return chambreId; }
+        public String getType() { return type; }
+        public List<Plage> getPlages() { return plages; }
+    }
+
+    /**
+     * Plage de nuits consécutives de même statut ; reservationId est absent pour une plage libre
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static final class Plage {
+        private final String statut;
+        private final int nuits;
+        private final Long reservationId;
+
+        private Plage(String statut, int nuits, Long reservationId) {
+            this.statut = statut;
+            this.nuits = nuits;
+            this.reservationId = reservationId;
+        }
+
+        public String getStatut() { return statut; }
+        public int getNuits() { return nuits; }
+        public Long getReservationId() { return reservationId; }
+    }
+}
@@ -0,0 +1,177 @@
+package com.hotel.reservation.graphql.catalog;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.hotel.reservation.graphql.model.Chambre;
+import com.hotel.reservation.graphql.repository.ChambreRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache du catalogue des chambres, déjà encodé en réponses GraphQL
+ *
+ * La réponse à la query chambres dépend des champs sélectionnés : pour chaque
+ * sélection (par exemple [id, type, prix]), le document {"data":{"chambres":[...]}}
+ * est encodé une seule fois puis renvoyé tel quel par CatalogGraphqlFilter.
+ *
+ * Les chambres sont modifiées par le module REST (même base) : le catalogue est
+ * rechargé au plus tard après catalog.cache.ttl-seconds, ou immédiatement après
+ * invalidate().
+ */
+@Component
+public class CatalogCache {
+
+    /** Champs du type Chambre qu'une sélection pré-encodée peut contenir */
+    public static final Set<String> CHAMPS = Set.of("id", "type", "prix", "disponible", "__typename");
+
+    /** Nombre maximal de sélections différentes encodées par catalogue */
+    private static final int MAX_SELECTIONS = 64;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    @Autowired
+    private ChambreRepository chambreRepository;
+
+    @Value("${catalog.cache.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final ReentrantLock chargement = new ReentrantLock();
+
+    private volatile Entree entree;
+
+    /**
+     * Renvoie la réponse encodée pour une sélection si le catalogue est en cache
+     * @param selection Les champs sélectionnés, dans l'ordre de la query (voir CHAMPS)
+     * @return Les octets JSON de la réponse, ou null s'il faut recharger le catalogue
+     */
+    public byte[] getResponseIfPresent(List<String> selection) {
+        Entree courante = entree;
+        return isValide(courante) ? courante.reponse(selection) : null;
+    }
+
+    /**
+     * Renvoie la réponse encodée pour une sélection, en rechargeant le catalogue si nécessaire
+     * @param selection Les champs sélectionnés, dans l'ordre de la query (voir CHAMPS)
+     * @return Les octets JSON de la réponse
+     */
+    public byte[] getResponse(List<String> selection) {
+        byte[] reponse = getResponseIfPresent(selection);
+        return reponse != null ? reponse : charger().reponse(selection);
+    }
+
+    /**
+     * Renvoie le catalogue pour le resolver (chemin GraphQL habituel)
+     * @return La liste des chambres, partagée : ne pas la modifier
+     */
+    public List<Chambre> getChambres() {
+        Entree courante = entree;
+        return isValide(courante) ? courante.chambres : charger().chambres;
+    }
+
+    /**
+     * Invalide le catalogue : la prochaine lecture le recharge depuis la base
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        entree = null;
+    }
+
+    private Entree charger() {
+        chargement.lock();
+        try {
+            // Un autre thread a pu recharger le catalogue pendant l'attente du verrou
+            Entree courante = entree;
+            if (isValide(courante)) {
+                return courante;
+            }
+
+            long generationLue = generation.get();
+            Entree nouvelle = new Entree(List.copyOf(chambreRepository.findAll()), generationLue, System.nanoTime());
+            entree = nouvelle;
+            return nouvelle;
+        } finally {
+            chargement.unlock();
+        }
+    }
+
+    private boolean isValide(Entree courante) {
+        return courante != null
+                && courante.generation == generation.get()
+                && System.nanoTime() - courante.chargeeA < TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    /**
+     * Encode {"data":{"chambres":[...]}} comme le ferait graphql-java : ID en chaîne, Float en nombre
+     */
+    private static byte[] encoder(List<Chambre> chambres, List<String> selection) {
+        ByteArrayOutputStream sortie = new ByteArrayOutputStream(64 + chambres.size() * 16 * selection.size());
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(sortie)) {
+            json.writeStartObject();
+            json.writeObjectFieldStart("data");
+            json.writeArrayFieldStart("chambres");
+            for (Chambre chambre : chambres) {
+                json.writeStartObject();
+                for (String champ : selection) {
+                    switch (champ) {
+                        case "id" -> json.writeStringField("id", String.valueOf(chambre.getId()));
+                        case "type" -> json.writeStringField("type", chambre.getType());
+                        case "prix" -> json.writeNumberField("prix", chambre.getPrix().doubleValue());
+                        case "disponible" -> json.writeBooleanField("disponible", chambre.getDisponible());
+                        case "__typename" -> json.writeStringField("__typename", "Chambre");
+                        default -> throw new IllegalArgumentException("Champ de Chambre inconnu : " + champ);
+                    }
+                }
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+            json.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible d'encoder le catalogue des chambres", e);
+        }
+        return sortie.toByteArray();
+    }
+
+    /**
+     * Catalogue chargé et ses réponses encodées par sélection
+     */
+    private static final class Entree {
+        private final List<Chambre> chambres;
+        private final long generation;
+        private final long chargeeA;
+        private final Map<List<String>, byte[]> reponses = new ConcurrentHashMap<>();
+
+        private Entree(List<Chambre> chambres, long generation, long chargeeA) {
+            this.chambres = chambres;
+            this.generation = generation;
+            this.chargeeA = chargeeA;
+        }
+
+        private byte[] reponse(List<String> selection) {
+            byte[] reponse = reponses.get(selection);
+            if (reponse != null) {
+                return reponse;
+            }
+            reponse = encoder(chambres, selection);
+            // Borne le nombre de sélections gardées : au-delà, la réponse est encodée à chaque fois
+            if (reponses.size() < MAX_SELECTIONS) {
+                reponses.putIfAbsent(List.copyOf(selection), reponse);
+            }
+            return reponse;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.hotel.reservation.graphql.catalog;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import graphql.language.Definition;
+import graphql.language.Document;
+import graphql.language.Field;
+import graphql.language.OperationDefinition;
+import graphql.language.Selection;
+import graphql.language.SelectionSet;
+import graphql.parser.Parser;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Voie rapide pour la query GraphQL chambres
+ *
+ * Une requête POST dont l'unique opération est une query sans variables de la forme
+ * { chambres { id type prix disponible } } (champs scalaires, sans alias, arguments
+ * ni directives) reçoit directement la réponse pré-encodée de CatalogCache, sans
+ * validation ni exécution graphql-java. Toute autre requête, ou un catalogue absent
+ * du cache, continue vers le servlet GraphQL avec son corps intact.
+ *
+ * Seuls les petits corps JSON de longueur connue sont examinés.
+ */
+public class CatalogGraphqlFilter extends OncePerRequestFilter {
+
+    /** Taille maximale d'un corps examiné : une query chambres est minuscule */
+    private static final int MAX_TAILLE_CORPS = 4096;
+
+    private static final byte[] MARQUEUR = "chambres".getBytes(StandardCharsets.US_ASCII);
+
+    private final CatalogCache catalogCache;
+
+    private final ObjectMapper objectMapper;
+
+    public CatalogGraphqlFilter(CatalogCache catalogCache, ObjectMapper objectMapper) {
+        this.catalogCache = catalogCache;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return !"POST".equals(request.getMethod())
+                || contentType == null || !contentType.startsWith("application/json")
+                || request.getContentLength() < 0 || request.getContentLength() > MAX_TAILLE_CORPS;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        byte[] corps = request.getInputStream().readNBytes(request.getContentLength());
+
+        if (contient(corps, MARQUEUR)) {
+            List<String> selection = selectionCatalogue(corps);
+            byte[] reponse = selection != null ? catalogCache.getResponseIfPresent(selection) : null;
+            if (reponse != null) {
+                response.setStatus(HttpServletResponse.SC_OK);
+                response.setContentType("application/json;charset=UTF-8");
+                response.setContentLength(reponse.length);
+                response.getOutputStream().write(reponse);
+                return;
+            }
+        }
+
+        chain.doFilter(new CorpsDejaLu(request, corps), response);
+    }
+
+    /**
+     * Renvoie les champs sélectionnés si la requête est exactement une query chambres simple
+     * @return La sélection, ou null si la requête doit suivre le chemin GraphQL habituel
+     */
+    private List<String> selectionCatalogue(byte[] corps) {
+        try {
+            JsonNode requete = objectMapper.readTree(corps);
+            JsonNode query = requete.get("query");
+            JsonNode variables = requete.get("variables");
+            if (query == null || !query.isTextual()
+                    || (variables != null && !variables.isNull() && !variables.isEmpty())) {
+                return null;
+            }
+
+            Document document = new Parser().parseDocument(query.asText());
+            List<Definition> definitions = document.getDefinitions();
+            if (definitions.size() != 1 || !(definitions.get(0) instanceof OperationDefinition operation)
+                    || operation.getOperation() != OperationDefinition.Operation.QUERY
+                    || !operation.getVariableDefinitions().isEmpty()
+                    || !operation.getDirectives().isEmpty()) {
+                return null;
+            }
+
+            Field chambres = champSimpleUnique(operation.getSelectionSet());
+            if (chambres == null || !"chambres".equals(chambres.getName()) || chambres.getSelectionSet() == null) {
+                return null;
+            }
+
+            List<String> selection = new ArrayList<>();
+            for (Selection<?> sousSelection : chambres.getSelectionSet().getSelections()) {
+                if (!(sousSelection instanceof Field champ) || !isSimple(champ) || champ.getSelectionSet() != null
+                        || !CatalogCache.CHAMPS.contains(champ.getName()) || selection.contains(champ.getName())) {
+                    return null;
+                }
+                selection.add(champ.getName());
+            }
+            return selection.isEmpty() ? null : selection;
+        } catch (Exception e) {
+            // JSON ou GraphQL invalide : le servlet GraphQL produira l'erreur habituelle
+            return null;
+        }
+    }
+
+    private static Field champSimpleUnique(SelectionSet selectionSet) {
+        if (selectionSet == null || selectionSet.getSelections().size() != 1
+                || !(selectionSet.getSelections().get(0) instanceof Field champ) || !isSimple(champ)) {
+            return null;
+        }
+        return champ;
+    }
+
+    private static boolean isSimple(Field champ) {
+        return champ.getAlias() == null && champ.getArguments().isEmpty() && champ.getDirectives().isEmpty();
+    }
+
+    private static boolean contient(byte[] corps, byte[] motif) {
+        for (int i = 0; i <= corps.length - motif.length; i++) {
+            int j = 0;
+            while (j < motif.length && corps[i + j] == motif[j]) {
+                j++;
+            }
+            if (j == motif.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Requête dont le corps, déjà lu par le filtre, est relu depuis la mémoire
+     */
+    private static final class CorpsDejaLu extends HttpServletRequestWrapper {
+
+        private final byte[] corps;
+
+        private CorpsDejaLu(HttpServletRequest request, byte[] corps) {
+            super(request);
+            this.corps = corps;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream entree = new ByteArrayInputStream(corps);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return entree.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return entree.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return entree.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException("Lecture asynchrone non supportée");
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encodage = getCharacterEncoding() != null ? getCharacterEncoding() : StandardCharsets.UTF_8.name();
+            return new BufferedReader(new InputStreamReader(getInputStream(), Charset.forName(encodage)));
+        }
+    }
+}
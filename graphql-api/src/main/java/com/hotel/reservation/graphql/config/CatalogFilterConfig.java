@@ -0,0 +1,26 @@
+package com.hotel.reservation.graphql.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotel.reservation.graphql.catalog.CatalogCache;
+import com.hotel.reservation.graphql.catalog.CatalogGraphqlFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enregistrement de la voie rapide de la query chambres devant le servlet GraphQL
+ */
+@Configuration
+public class CatalogFilterConfig {
+
+    @Bean
+    public FilterRegistrationBean<CatalogGraphqlFilter> catalogGraphqlFilter(CatalogCache catalogCache,
+                                                                             ObjectMapper objectMapper,
+                                                                             @Value("${graphql.servlet.mapping:/graphql}") String mapping) {
+        FilterRegistrationBean<CatalogGraphqlFilter> registration =
+                new FilterRegistrationBean<>(new CatalogGraphqlFilter(catalogCache, objectMapper));
+        registration.addUrlPatterns(mapping);
+        return registration;
+    }
+}
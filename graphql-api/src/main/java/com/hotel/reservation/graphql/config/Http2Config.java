@@ -0,0 +1,40 @@
+package com.hotel.reservation.graphql.config;
+
+import org.apache.coyote.UpgradeProtocol;
+import org.apache.coyote.http2.Http2Protocol;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Réglages HTTP/2 de Tomcat
+ *
+ * Activé avec server.http2.enabled=true (profils Spring h2c et h2) : Spring Boot
+ * ajoute alors le protocole HTTP/2 au connecteur, en clair (h2c, mise à niveau ou
+ * connaissance préalable) ou en TLS négocié par ALPN.
+ *
+ * Par défaut Tomcat n'exécute que 20 flux simultanés par connexion : avec quelques
+ * connexions multiplexées, c'est ce plafond qui limiterait la concurrence, d'où les
+ * propriétés http2.max-concurrent-streams et http2.max-concurrent-stream-execution.
+ */
+@Configuration
+@ConditionalOnProperty(name = "server.http2.enabled", havingValue = "true")
+public class Http2Config {
+
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> http2ProtocolCustomizer(
+            @Value("${http2.max-concurrent-streams:256}") int maxConcurrentStreams,
+            @Value("${http2.max-concurrent-stream-execution:256}") int maxConcurrentStreamExecution) {
+        return factory -> factory.addConnectorCustomizers(connector -> {
+            for (UpgradeProtocol protocol : connector.findUpgradeProtocols()) {
+                if (protocol instanceof Http2Protocol http2) {
+                    http2.setMaxConcurrentStreams(maxConcurrentStreams);
+                    http2.setMaxConcurrentStreamExecution(maxConcurrentStreamExecution);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,49 @@
+package com.hotel.reservation.graphql.config;
+
+import com.hotel.reservation.graphql.fairness.ConsumerRegistry;
+import com.hotel.reservation.graphql.limiter.AdaptiveLimiter;
+import com.hotel.reservation.graphql.limiter.ConcurrencyLimitFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Configuration du limiteur de concurrence adaptatif devant le servlet GraphQL
+ *
+ * Sans limiteur, au-delà de la saturation les requêtes s'accumulent dans les files
+ * (Tomcat, pool JDBC) et la latence atteint plusieurs secondes avant les premiers échecs.
+ * Le filtre est placé en tête de chaîne sur le chemin du servlet GraphQL (juste après la
+ * mesure des métriques en direct), avant la voie rapide du catalogue ; limiter.enabled=false le désactive.
+ * Les permis sont répartis entre consommateurs selon leurs poids (voir ConsumerRegistry).
+ */
+@Configuration
+public class LimiterConfig {
+
+    @Bean
+    public AdaptiveLimiter apiLimiter(@Value("${limiter.initial-limit:40}") int initialLimit,
+                                      @Value("${limiter.min-limit:8}") int minLimit,
+                                      @Value("${limiter.max-limit:400}") int maxLimit,
+                                      @Value("${limiter.max-waiting:200}") int maxWaiting,
+                                      @Value("${limiter.codel.target-ms:5}") long codelTargetMs,
+                                      @Value("${limiter.codel.interval-ms:100}") long codelIntervalMs,
+                                      MeterRegistry registry) {
+        return new AdaptiveLimiter("api", initialLimit, minLimit, maxLimit, maxWaiting,
+                codelTargetMs, codelIntervalMs, registry);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(AdaptiveLimiter apiLimiter,
+                                                                                 ConsumerRegistry consumerRegistry,
+                                                                                 @Value("${limiter.enabled:true}") boolean enabled,
+                                                                                 @Value("${graphql.servlet.mapping:/graphql}") String mapping) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+                new FilterRegistrationBean<>(new ConcurrencyLimitFilter(apiLimiter, consumerRegistry));
+        registration.addUrlPatterns(mapping);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        registration.setEnabled(enabled);
+        return registration;
+    }
+}
@@ -0,0 +1,28 @@
+package com.hotel.reservation.graphql.config;
+
+import com.hotel.reservation.graphql.payload.GzipRequestFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Configuration des charges volumineuses (préférences de réservation jusqu'à la classe 100 Ko)
+ *
+ * - requêtes GraphQL envoyées en gzip décompressées au fil de la lecture (GzipRequestFilter) ;
+ * - réponses compressées par Tomcat (server.compression.*).
+ */
+@Configuration
+public class PayloadConfig {
+
+    @Bean
+    public FilterRegistrationBean<GzipRequestFilter> gzipRequestFilter(@Value("${payload.request.max-inflated-bytes:4194304}") long maxOctets,
+                                                                       @Value("${graphql.servlet.mapping:/graphql}") String mapping) {
+        FilterRegistrationBean<GzipRequestFilter> registration = new FilterRegistrationBean<>(new GzipRequestFilter(maxOctets));
+        registration.addUrlPatterns(mapping);
+        // Juste après le limiteur : une requête rejetée n'est pas décompressée
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+}
@@ -0,0 +1,37 @@
+package com.hotel.reservation.graphql.config;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Accès aux threads virtuels (JDK 21+) depuis un code compilé en Java 17
+ *
+ * Le projet reste compilé en Java 17 : l'exécuteur « un thread virtuel par tâche »
+ * est obtenu par réflexion et n'est utilisé que si threads.virtual.enabled=true.
+ */
+public final class VirtualThreads {
+
+    /** Propriété activant le mode threads virtuels */
+    public static final String ENABLED_PROPERTY = "threads.virtual.enabled";
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Crée un exécuteur qui démarre un nouveau thread virtuel pour chaque tâche
+     * @return L'exécuteur
+     * @throws IllegalStateException si la JVM ne supporte pas les threads virtuels
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("Les threads virtuels nécessitent un JDK 21 ou supérieur ("
+                    + ENABLED_PROPERTY + "=true, JVM actuelle : " + Runtime.version() + ")", e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Impossible de créer l'exécuteur de threads virtuels", e);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.hotel.reservation.graphql.fairness;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Quota de débit d'un consommateur (seau à jetons)
+ *
+ * Le seau contient au plus une seconde de requêtes et se remplit en continu
+ * au débit autorisé : une rafale courte passe, un débit soutenu supérieur au
+ * quota est rejeté.
+ */
+public class RateQuota {
+
+    private final double parNanoseconde;
+    private final double capacite;
+    private final ReentrantLock verrou = new ReentrantLock();
+    private double jetons;
+    private long dernierRemplissage;
+
+    public RateQuota(int requestsPerSecond) {
+        this.parNanoseconde = requestsPerSecond / (double) TimeUnit.SECONDS.toNanos(1);
+        this.capacite = requestsPerSecond;
+        this.jetons = requestsPerSecond;
+        this.dernierRemplissage = System.nanoTime();
+    }
+
+    /**
+     * Consomme un jeton s'il en reste
+     * @return true si la requête respecte le quota
+     */
+    public boolean tryAcquire() {
+        verrou.lock();
+        try {
+            long maintenant = System.nanoTime();
+            jetons = Math.min(capacite, jetons + (maintenant - dernierRemplissage) * parNanoseconde);
+            dernierRemplissage = maintenant;
+            if (jetons < 1) {
+                return false;
+            }
+            jetons--;
+            return true;
+        } finally {
+            verrou.unlock();
+        }
+    }
+}
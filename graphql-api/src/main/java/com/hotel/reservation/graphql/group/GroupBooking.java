@@ -0,0 +1,285 @@
+package com.hotel.reservation.graphql.group;
+
+import com.hotel.reservation.graphql.admission.RoomAdmission;
+import com.hotel.reservation.graphql.availability.AvailabilityIndex;
+import com.hotel.reservation.graphql.inventory.DailyInventory;
+import com.hotel.reservation.graphql.model.Chambre;
+import com.hotel.reservation.graphql.model.Reservation;
+import com.hotel.reservation.graphql.pricing.RateCache;
+import com.hotel.reservation.graphql.repository.ChambreRepository;
+import com.hotel.reservation.graphql.repository.ClientRepository;
+import com.hotel.reservation.graphql.repository.ReservationRepository;
+import com.hotel.reservation.graphql.stats.ReservationCounters;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Réservations de groupe : plusieurs chambres et séjours réservés en une seule transaction
+ *
+ * Un groupe (un voyagiste qui réserve 20 à 50 chambres) est accepté en entier ou refusé en
+ * entier : aucune réservation n'est créée si une seule ligne chevauche une réservation non
+ * annulée, une autre ligne du groupe, ou porte sur une chambre hors service.
+ *
+ * Les verrous des chambres sont pris dans l'ordre croissant, dans ce module (RoomAdmission.admitAll)
+ * puis en base (un seul SELECT ... ORDER BY id FOR UPDATE) : deux groupes qui partagent des
+ * chambres, ou un groupe et une création simple, ne peuvent pas s'interbloquer.
+ *
+ * Les séjours existants des chambres sont lus en une requête et les réservations insérées par
+ * un seul lot JDBC (un INSERT multi-lignes avec rewriteBatchedStatements), au lieu d'une
+ * transaction et de plusieurs allers-retours par chambre.
+ *
+ * Métrique exposée : booking.group (attente des verrous comprise).
+ */
+@Component
+public class GroupBooking {
+
+    /** Résultat d'une ligne : réservation créée */
+    public static final String RESERVEE = "RESERVEE";
+
+    /** Résultat d'une ligne : chevauche une réservation existante ou une autre ligne du groupe */
+    public static final String CONFLIT = "CONFLIT";
+
+    /** Résultat d'une ligne : chambre hors service */
+    public static final String INDISPONIBLE = "INDISPONIBLE";
+
+    /** Résultat d'une ligne : période libre, mais rien n'est réservé car le groupe est refusé */
+    public static final String LIBRE = "LIBRE";
+
+    // Une seule requête multi-lignes : InnoDB attribue des IDs consécutifs, renvoyés dans l'ordre du lot
+    private static final String INSERTION = "INSERT INTO reservation (client_id, chambre_id, date_debut, date_fin, montant, statut) "
+            + "VALUES (?, ?, ?, ?, ?, 'CONFIRMEE')";
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private ChambreRepository chambreRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private RoomAdmission roomAdmission;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private DailyInventory dailyInventory;
+
+    @Autowired
+    private RateCache rateCache;
+
+    @Autowired
+    private ReservationCounters reservationCounters;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${booking.group.max-size:100}")
+    private int maxSize;
+
+    private Timer duree;
+
+    @PostConstruct
+    void initialiser() {
+        duree = Timer.builder("booking.group")
+                .description("Réservations de groupe : verrous des chambres, contrôle et insertion")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Réserve toutes les lignes du groupe, ou aucune
+     * @param clientId Le client (voyagiste) titulaire des réservations
+     * @param lignes Les séjours demandés ; complétés avec leur résultat et l'ID de la réservation créée
+     * @return Les lignes, toutes RESERVEE
+     * @throws GroupConflictException si une ligne est en conflit ou porte sur une chambre hors service
+     * @throws IllegalArgumentException si le groupe est vide, trop grand ou contient un séjour invalide
+     */
+    public List<Ligne> book(Long clientId, List<Ligne> lignes) {
+        valider(clientId, lignes);
+        List<Long> chambreIds = lignes.stream().map(Ligne::getChambreId).distinct().sorted().toList();
+        return duree.record(() -> roomAdmission.admitAll(chambreIds,
+                () -> transactionTemplate.execute(status -> reserver(clientId, lignes, chambreIds))));
+    }
+
+    private void valider(Long clientId, List<Ligne> lignes) {
+        if (clientId == null) {
+            throw new IllegalArgumentException("Le client est obligatoire");
+        }
+        if (lignes == null || lignes.isEmpty()) {
+            throw new IllegalArgumentException("Le groupe ne contient aucun séjour");
+        }
+        if (lignes.size() > maxSize) {
+            throw new IllegalArgumentException("Trop de séjours dans le groupe (maximum " + maxSize + ")");
+        }
+        for (Ligne ligne : lignes) {
+            if (ligne.getChambreId() == null || ligne.getDateDebut() == null || ligne.getDateFin() == null
+                    || !ligne.getDateFin().isAfter(ligne.getDateDebut())) {
+                throw new IllegalArgumentException("Séjour invalide pour la chambre " + ligne.getChambreId());
+            }
+            ligne.setReservationId(null);
+            ligne.setResultat(null);
+        }
+    }
+
+    private List<Ligne> reserver(Long clientId, List<Ligne> lignes, List<Long> chambreIds) {
+        if (!clientRepository.existsById(clientId)) {
+            throw new RuntimeException("Client non trouvé");
+        }
+
+        Map<Long, Chambre> chambres = new HashMap<>();
+        for (Chambre chambre : chambreRepository.findAllByIdForUpdate(chambreIds)) {
+            chambres.put(chambre.getId(), chambre);
+        }
+        for (Long chambreId : chambreIds) {
+            if (!chambres.containsKey(chambreId)) {
+                throw new RuntimeException("Chambre non trouvée : " + chambreId);
+            }
+        }
+
+        // Séjours existants des chambres du groupe, sur la période couverte par le groupe
+        LocalDate debut = lignes.stream().map(Ligne::getDateDebut).min(LocalDate::compareTo).orElseThrow();
+        LocalDate fin = lignes.stream().map(Ligne::getDateFin).max(LocalDate::compareTo).orElseThrow();
+        Map<Long, List<LocalDate[]>> occupees = new HashMap<>();
+        for (ReservationRepository.Sejour sejour : reservationRepository.findSejoursOverlapping(chambreIds, debut, fin)) {
+            occupees.computeIfAbsent(sejour.getChambreId(), id -> new ArrayList<>())
+                    .add(new LocalDate[] {sejour.getDateDebut(), sejour.getDateFin()});
+        }
+
+        boolean refuse = false;
+        for (Ligne ligne : lignes) {
+            List<LocalDate[]> periodes = occupees.computeIfAbsent(ligne.getChambreId(), id -> new ArrayList<>());
+            if (!Boolean.TRUE.equals(chambres.get(ligne.getChambreId()).getDisponible())) {
+                ligne.setResultat(INDISPONIBLE);
+            } else if (chevauche(periodes, ligne)) {
+                ligne.setResultat(CONFLIT);
+            } else {
+                ligne.setResultat(LIBRE);
+            }
+            // La ligne occupe sa période pour les lignes suivantes du groupe
+            periodes.add(new LocalDate[] {ligne.getDateDebut(), ligne.getDateFin()});
+            refuse |= !LIBRE.equals(ligne.getResultat());
+        }
+        if (refuse) {
+            throw roomAdmission.conflict(new GroupConflictException(lignes));
+        }
+
+        // Prix de chaque séjour, fixé à la réservation
+        List<BigDecimal> montants = new ArrayList<>(lignes.size());
+        for (Ligne ligne : lignes) {
+            montants.add(rateCache.priceStay(chambres.get(ligne.getChambreId()), ligne.getDateDebut(), ligne.getDateFin()));
+        }
+        inserer(clientId, lignes, montants);
+        for (int i = 0; i < lignes.size(); i++) {
+            Ligne ligne = lignes.get(i);
+            ligne.setResultat(RESERVEE);
+            Reservation reservation = new Reservation();
+            reservation.setId(ligne.getReservationId());
+            reservation.setChambre(chambres.get(ligne.getChambreId()));
+            reservation.setDateDebut(ligne.getDateDebut());
+            reservation.setDateFin(ligne.getDateFin());
+            reservation.setMontant(montants.get(i));
+            dailyInventory.sell(reservation);
+            reservationCounters.add(reservation);
+            availabilityIndex.updateAfterCommit(reservation);
+        }
+        return lignes;
+    }
+
+    private static boolean chevauche(List<LocalDate[]> periodes, Ligne ligne) {
+        for (LocalDate[] periode : periodes) {
+            if (periode[0].isBefore(ligne.getDateFin()) && periode[1].isAfter(ligne.getDateDebut())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Insère les réservations du groupe en un seul lot, sur la connexion de la transaction en cours
+     */
+    private void inserer(Long clientId, List<Ligne> lignes, List<BigDecimal> montants) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connexion -> {
+            try (PreparedStatement insertion = connexion.prepareStatement(INSERTION, Statement.RETURN_GENERATED_KEYS)) {
+                for (int i = 0; i < lignes.size(); i++) {
+                    Ligne ligne = lignes.get(i);
+                    insertion.setLong(1, clientId);
+                    insertion.setLong(2, ligne.getChambreId());
+                    insertion.setObject(3, ligne.getDateDebut());
+                    insertion.setObject(4, ligne.getDateFin());
+                    insertion.setBigDecimal(5, montants.get(i));
+                    insertion.addBatch();
+                }
+                insertion.executeBatch();
+                try (ResultSet cles = insertion.getGeneratedKeys()) {
+                    for (Ligne ligne : lignes) {
+                        if (!cles.next()) {
+                            throw new IllegalStateException("ID non renvoyé pour une réservation du groupe");
+                        }
+                        ligne.setReservationId(cles.getLong(1));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Séjour d'un groupe : chambre et période demandées, puis résultat et ID de la réservation créée
+     */
+    public static class Ligne {
+        private Long chambreId;
+        private LocalDate dateDebut;
+        private LocalDate dateFin;
+        private Long reservationId;
+        private String resultat;
+
+        public Ligne() {
+        }
+
+        public Ligne(Long chambreId, LocalDate dateDebut, LocalDate dateFin) {
+            this.chambreId = chambreId;
+            this.dateDebut = dateDebut;
+            this.dateFin = dateFin;
+        }
+
+        public Long getChambreId() { return chambreId; }
+        public void setChambreId(Long chambreId) { this.chambreId = chambreId; }
+        public LocalDate getDateDebut() { return dateDebut; }
+        public void setDateDebut(LocalDate dateDebut) { this.dateDebut = dateDebut; }
+        public LocalDate getDateFin() { return dateFin; }
+        public void setDateFin(LocalDate dateFin) { this.dateFin = dateFin; }
+
+        /** ID de la réservation créée, null si le groupe est refusé */
+        public Long getReservationId() { return reservationId; }
+        public void setReservationId(Long reservationId) { this.reservationId = reservationId; }
+
+        /** RESERVEE, CONFLIT, INDISPONIBLE ou LIBRE */
+        public String getResultat() { return resultat; }
+        public void setResultat(String resultat) { this.resultat = resultat; }
+    }
+}
@@ -0,0 +1,31 @@
+package com.hotel.reservation.graphql.group;
+
+import com.hotel.reservation.graphql.admission.BookingConflictException;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Groupe refusé : au moins une ligne est en conflit ou porte sur une chambre hors service
+ * Aucune réservation du groupe n'est créée ; chaque ligne porte son résultat.
+ */
+public class GroupConflictException extends BookingConflictException {
+
+    private final List<GroupBooking.Ligne> lignes;
+
+    public GroupConflictException(List<GroupBooking.Ligne> lignes) {
+        super("Groupe refusé, chambres déjà réservées ou hors service : " + lignes.stream()
+                .filter(ligne -> !GroupBooking.LIBRE.equals(ligne.getResultat()))
+                .map(ligne -> String.valueOf(ligne.getChambreId()))
+                .distinct()
+                .collect(Collectors.joining(", ")));
+        this.lignes = lignes;
+    }
+
+    /**
+     * @return Les lignes du groupe avec leur résultat (CONFLIT, INDISPONIBLE ou LIBRE)
+     */
+    public List<GroupBooking.Ligne> getLignes() {
+        return lignes;
+    }
+}
@@ -0,0 +1,11 @@
+package com.hotel.reservation.graphql.idempotency;
+
+/**
+ * Clé d'idempotence déjà utilisée pour une requête de création différente
+ */
+public class IdempotencyConflictException extends RuntimeException {
+
+    public IdempotencyConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,164 @@
+package com.hotel.reservation.graphql.payload;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Décompression des corps de requête envoyés avec Content-Encoding: gzip
+ *
+ * Le corps est décompressé au fil de la lecture par le convertisseur de message :
+ * rien n'est tamponné ici. Le volume décompressé est borné (protection contre les
+ * archives explosives) ; au-delà, la lecture échoue. Un autre encodage reçoit 415.
+ */
+public class GzipRequestFilter extends OncePerRequestFilter {
+
+    private final long maxOctetsDecompresses;
+
+    public GzipRequestFilter(long maxOctetsDecompresses) {
+        this.maxOctetsDecompresses = maxOctetsDecompresses;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String encodage = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        return encodage == null || encodage.isBlank() || "identity".equalsIgnoreCase(encodage.trim());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!"gzip".equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING).trim())) {
+            response.setStatus(HttpStatus.UNSUPPORTED_MEDIA_TYPE.value());
+            return;
+        }
+        chain.doFilter(new CorpsDecompresse(request, maxOctetsDecompresses), response);
+    }
+
+    /**
+     * Requête dont le corps est décompressé à la lecture ; la longueur devient inconnue
+     */
+    private static final class CorpsDecompresse extends HttpServletRequestWrapper {
+
+        private final long maxOctets;
+        private ServletInputStream flux;
+
+        private CorpsDecompresse(HttpServletRequest request, long maxOctets) {
+            super(request);
+            this.maxOctets = maxOctets;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (flux == null) {
+                flux = new FluxDecompresse(new GZIPInputStream(super.getInputStream(), 8192), maxOctets);
+            }
+            return flux;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            String encodage = getCharacterEncoding() != null ? getCharacterEncoding() : StandardCharsets.UTF_8.name();
+            return new BufferedReader(new InputStreamReader(getInputStream(), Charset.forName(encodage)));
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            if (HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                return null;
+            }
+            return super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            if (HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                return Collections.emptyEnumeration();
+            }
+            return super.getHeaders(name);
+        }
+    }
+
+    /**
+     * Flux décompressé borné à maxOctets
+     */
+    private static final class FluxDecompresse extends ServletInputStream {
+
+        private final InputStream entree;
+        private final long maxOctets;
+        private long lus;
+        private boolean fini;
+
+        private FluxDecompresse(InputStream entree, long maxOctets) {
+            this.entree = entree;
+            this.maxOctets = maxOctets;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] octet = new byte[1];
+            return read(octet, 0, 1) < 0 ? -1 : octet[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = entree.read(b, off, len);
+            if (n < 0) {
+                fini = true;
+                return n;
+            }
+            lus += n;
+            if (lus > maxOctets) {
+                throw new IOException("Corps de requête décompressé trop volumineux (maximum " + maxOctets + " octets)");
+            }
+            return n;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return fini;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            throw new UnsupportedOperationException("Lecture asynchrone non supportée");
+        }
+
+        @Override
+        public void close() throws IOException {
+            entree.close();
+        }
+    }
+}
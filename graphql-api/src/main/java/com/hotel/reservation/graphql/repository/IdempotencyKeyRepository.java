@@ -0,0 +1,28 @@
+package com.hotel.reservation.graphql.repository;
+
+import com.hotel.reservation.graphql.model.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Repository JPA pour l'entité IdempotencyKey
+ */
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+    /**
+     * Supprime les clés plus anciennes que la date donnée
+     * @param limite Les clés créées avant cette date sont supprimées
+     * @return Le nombre de clés supprimées
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.createdAt < :limite")
+    int deleteCreatedBefore(@Param("limite") LocalDateTime limite);
+}
@@ -1,12 +1,153 @@
 package com.hotel.reservation.graphql.repository;
 
 import com.hotel.reservation.graphql.model.Reservation;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository JPA pour l'entité Reservation
  */
 @Repository
 public interface ReservationRepository extends JpaRepository<Reservation, Long> {
+
+    /**
+     * Projection d'une réservation réduite à son séjour, pour l'index des disponibilités
+     */
+    interface Sejour {
+        Long getId();
+        Long getChambreId();
+        LocalDate getDateDebut();
+        LocalDate getDateFin();
+        String getStatut();
+    }
+
+    /**
+     * Projection d'une option en attente : ID et échéance, pour la roue d'expiration
+     */
+    interface Option {
+        Long getId();
+        LocalDateTime getExpiresAt();
+    }
+
+    /**
+     * Recherche plusieurs réservations en une seule requête IN
+     * Le client et la chambre sont chargés par jointure pour éviter N+1 requêtes
+     */
+    @Query("SELECT r FROM Reservation r JOIN FETCH r.client JOIN FETCH r.chambre WHERE r.id IN :ids")
+    List<Reservation> findAllWithClientAndChambreByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Recherche une réservation avec son client et sa chambre, chargés par jointure
+     * L'entité reste lisible hors session (cache local des réservations)
+     */
+    @Query("SELECT r FROM Reservation r JOIN FETCH r.client JOIN FETCH r.chambre WHERE r.id = :id")
+    Optional<Reservation> findWithClientAndChambreById(@Param("id") Long id);
+
+    /**
+     * Recherche les séjours non annulés se terminant après une date
+     * @param depuis Les séjours terminés à cette date ou avant sont ignorés
+     * @return Les séjours triés par chambre puis par date de début
+     */
+    @Query("SELECT r.id AS id, r.chambre.id AS chambreId, r.dateDebut AS dateDebut, r.dateFin AS dateFin, r.statut AS statut "
+            + "FROM Reservation r WHERE r.dateFin > :depuis AND (r.statut IS NULL OR r.statut <> 'ANNULEE') "
+            + "ORDER BY r.chambre.id, r.dateDebut")
+    List<Sejour> findSejoursEndingAfter(@Param("depuis") LocalDate depuis);
+
+    /**
+     * Recherche les séjours modifiés depuis une date, quel que soit leur statut
+     * @param depuis Date de modification minimale (updated_at)
+     * @return Les séjours créés ou modifiés depuis cette date
+     */
+    @Query("SELECT r.id AS id, r.chambre.id AS chambreId, r.dateDebut AS dateDebut, r.dateFin AS dateFin, r.statut AS statut "
+            + "FROM Reservation r WHERE r.updatedAt >= :depuis")
+    List<Sejour> findSejoursUpdatedSince(@Param("depuis") LocalDateTime depuis);
+
+    /**
+     * Indique si une réservation non annulée de la chambre chevauche une période
+     * @param chambreId L'ID de la chambre
+     * @param debut Date d'arrivée (incluse)
+     * @param fin Date de départ (exclue)
+     * @param exclue ID d'une réservation à ignorer (celle qui est modifiée), ou null
+     * @return true si la période n'est pas libre
+     */
+    @Query("SELECT CASE WHEN COUNT(r) > 0 THEN true ELSE false END FROM Reservation r "
+            + "WHERE r.chambre.id = :chambreId AND (r.statut IS NULL OR r.statut <> 'ANNULEE') "
+            + "AND r.dateDebut < :fin AND r.dateFin > :debut AND (:exclue IS NULL OR r.id <> :exclue)")
+    boolean existsOverlapping(@Param("chambreId") Long chambreId, @Param("debut") LocalDate debut,
+                              @Param("fin") LocalDate fin, @Param("exclue") Long exclue);
+
+    /**
+     * Recherche les séjours non annulés qui chevauchent une période, pour le planning des chambres
+     * @param debut Première nuit (incluse)
+     * @param fin Fin de la période (exclue)
+     * @param type Type de chambre (insensible à la casse), ou null pour tous les types
+     * @return Les séjours triés par chambre puis par date de début
+     */
+    @Query("SELECT r.id AS id, r.chambre.id AS chambreId, r.dateDebut AS dateDebut, r.dateFin AS dateFin, r.statut AS statut "
+            + "FROM Reservation r WHERE r.dateDebut < :fin AND r.dateFin > :debut "
+            + "AND (r.statut IS NULL OR r.statut <> 'ANNULEE') "
+            + "AND (:type IS NULL OR LOWER(r.chambre.type) = LOWER(:type)) "
+            + "ORDER BY r.chambre.id, r.dateDebut")
+    List<Sejour> findSejoursInWindow(@Param("debut") LocalDate debut, @Param("fin") LocalDate fin,
+                                     @Param("type") String type);
+
+    /**
+     * Recherche les séjours non annulés de plusieurs chambres qui chevauchent une période
+     * @param chambreIds Les IDs des chambres
+     * @param debut Date d'arrivée (incluse)
+     * @param fin Date de départ (exclue)
+     * @return Les séjours trouvés, sans ordre garanti
+     */
+    @Query("SELECT r.id AS id, r.chambre.id AS chambreId, r.dateDebut AS dateDebut, r.dateFin AS dateFin, r.statut AS statut "
+            + "FROM Reservation r WHERE r.chambre.id IN :chambreIds AND (r.statut IS NULL OR r.statut <> 'ANNULEE') "
+            + "AND r.dateDebut < :fin AND r.dateFin > :debut")
+    List<Sejour> findSejoursOverlapping(@Param("chambreIds") Collection<Long> chambreIds,
+                                        @Param("debut") LocalDate debut, @Param("fin") LocalDate fin);
+
+    /**
+     * Lit une réservation en verrouillant sa ligne (SELECT ... FOR UPDATE) jusqu'à la fin de la transaction
+     * @param id L'ID de la réservation
+     * @return La réservation verrouillée, ou vide
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Reservation r WHERE r.id = :id")
+    Optional<Reservation> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Recherche toutes les options en attente (reconstruction de la roue d'expiration au démarrage)
+     * @return L'ID et l'échéance de chaque option
+     */
+    @Query("SELECT r.id AS id, r.expiresAt AS expiresAt FROM Reservation r WHERE r.statut = 'EN_ATTENTE'")
+    List<Option> findPendingHolds();
+
+    /**
+     * Lit et verrouille celles des réservations données qui sont encore des options en attente
+     * @param ids Les IDs des options échues d'après la roue d'expiration
+     * @return Les options encore en attente, verrouillées jusqu'à la fin de la transaction
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Reservation r WHERE r.id IN :ids AND r.statut = 'EN_ATTENTE'")
+    List<Reservation> findPendingHoldsForUpdate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Supprime les options expirées avant une date
+     * @param limite Les options expirées (ANNULEE avec une échéance) avant cette date sont supprimées
+     * @return Le nombre d'options supprimées
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Reservation r WHERE r.statut = 'ANNULEE' AND r.expiresAt < :limite")
+    int deleteExpiredHoldsBefore(@Param("limite") LocalDateTime limite);
 }
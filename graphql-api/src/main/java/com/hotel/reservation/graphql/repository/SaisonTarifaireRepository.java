@@ -0,0 +1,27 @@
+package com.hotel.reservation.graphql.repository;
+
+import com.hotel.reservation.graphql.model.SaisonTarifaire;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository JPA pour l'entité SaisonTarifaire
+ * 
+ * Cette interface fournit des méthodes CRUD automatiques grâce à Spring Data JPA.
+ */
+@Repository
+public interface SaisonTarifaireRepository extends JpaRepository<SaisonTarifaire, Long> {
+
+    /**
+     * Empreinte des tables qui fixent les prix : nombre de lignes et dernière modification
+     * des saisons, des tarifs par jour et des chambres
+     * Elle change à chaque ajout, modification ou suppression, quel que soit le module qui l'a faite.
+     * @return L'empreinte, à comparer à la précédente
+     */
+    @Query(value = "SELECT CONCAT_WS('/', "
+            + "(SELECT COUNT(*) FROM saison_tarifaire), (SELECT COALESCE(MAX(updated_at), '') FROM saison_tarifaire), "
+            + "(SELECT COUNT(*) FROM tarif_jour), (SELECT COALESCE(MAX(updated_at), '') FROM tarif_jour), "
+            + "(SELECT COUNT(*) FROM chambre), (SELECT COALESCE(MAX(updated_at), '') FROM chambre))", nativeQuery = true)
+    String findPricingSignature();
+}
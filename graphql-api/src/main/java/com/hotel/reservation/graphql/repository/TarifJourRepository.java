@@ -0,0 +1,14 @@
+package com.hotel.reservation.graphql.repository;
+
+import com.hotel.reservation.graphql.model.TarifJour;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository JPA pour l'entité TarifJour
+ * 
+ * Cette interface fournit des méthodes CRUD automatiques grâce à Spring Data JPA.
+ */
+@Repository
+public interface TarifJourRepository extends JpaRepository<TarifJour, Long> {
+}
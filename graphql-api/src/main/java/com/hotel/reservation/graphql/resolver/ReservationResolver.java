@@ -1,16 +1,40 @@
 package com.hotel.reservation.graphql.resolver;
 
+import com.hotel.reservation.graphql.admission.RoomAdmission;
+import com.hotel.reservation.graphql.assignment.RoomAssignment;
+import com.hotel.reservation.graphql.availability.AvailabilityIndex;
+import com.hotel.reservation.graphql.calendar.CalendarGrid;
+import com.hotel.reservation.graphql.cache.NearCache;
+import com.hotel.reservation.graphql.catalog.CatalogCache;
+import com.hotel.reservation.graphql.group.GroupBooking;
+import com.hotel.reservation.graphql.hold.HoldExpiredException;
+import com.hotel.reservation.graphql.hold.HoldManager;
+import com.hotel.reservation.graphql.idempotency.IdempotencyStore;
+import com.hotel.reservation.graphql.inventory.DailyInventory;
+import com.hotel.reservation.graphql.inventory.OccupancyViews;
 import com.hotel.reservation.graphql.model.Client;
 import com.hotel.reservation.graphql.model.Chambre;
 import com.hotel.reservation.graphql.model.Reservation;
+import com.hotel.reservation.graphql.pricing.RateCache;
 import com.hotel.reservation.graphql.repository.ClientRepository;
 import com.hotel.reservation.graphql.repository.ChambreRepository;
 import com.hotel.reservation.graphql.repository.ReservationRepository;
+import com.hotel.reservation.graphql.stats.ReservationCounters;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -22,6 +46,9 @@ import java.util.Optional;
 @Component
 public class ReservationResolver {
 
+    /** Nombre maximal d'IDs acceptés par reservationsByIds */
+    private static final int MAX_IDS_PAR_REQUETE = 500;
+
     @Autowired
     private ClientRepository clientRepository;
 
@@ -31,11 +58,78 @@ public class ReservationResolver {
     @Autowired
     private ReservationRepository reservationRepository;
 
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private NearCache<Long, Reservation> reservationCache;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private RoomAdmission roomAdmission;
+
+    @Autowired
+    private HoldManager holdManager;
+
+    @Autowired
+    private GroupBooking groupBooking;
+
+    @Autowired
+    private RoomAssignment roomAssignment;
+
+    @Autowired
+    private CalendarGrid calendarGrid;
+
+    @Autowired
+    private RateCache rateCache;
+
+    @Autowired
+    private DailyInventory dailyInventory;
+
+    @Autowired
+    private ReservationCounters reservationCounters;
+
+    @Autowired
+    private OccupancyViews occupancyViews;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     /**
      * Query : Récupère une réservation par son ID
+     * Servie par le cache local : les lectures simultanées d'un même ID absent du cache
+     * ne déclenchent qu'une requête (client et chambre chargés par jointure)
      */
     public Reservation getReservation(Long id) {
-        return reservationRepository.findById(id).orElse(null);
+        return reservationCache.get(id, reservationRepository::findWithClientAndChambreById).orElse(null);
+    }
+
+    /**
+     * Query : Récupère plusieurs réservations par leurs IDs en une seule requête IN
+     * La liste retournée suit l'ordre des IDs demandés, avec null pour un ID non trouvé
+     */
+    public List<Reservation> getReservationsByIds(List<Long> ids) {
+        if (ids.size() > MAX_IDS_PAR_REQUETE) {
+            throw new IllegalArgumentException("Trop d'IDs demandés (maximum " + MAX_IDS_PAR_REQUETE + ")");
+        }
+
+        Map<Long, Reservation> parId = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (Reservation reservation : reservationRepository.findAllWithClientAndChambreByIdIn(new LinkedHashSet<>(ids))) {
+                parId.put(reservation.getId(), reservation);
+            }
+        }
+
+        List<Reservation> resultats = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            resultats.add(parId.get(id));
+        }
+        return resultats;
     }
 
     /**
@@ -45,16 +139,186 @@ public class ReservationResolver {
         return reservationRepository.findAll();
     }
 
+    /**
+     * Query : Récupère toutes les chambres depuis le cache du catalogue
+     * (les queries chambres simples sont servies avant même le servlet par CatalogGraphqlFilter)
+     */
+    public List<Chambre> getChambres() {
+        return catalogCache.getChambres();
+    }
+
+    /**
+     * Query : Recherche les chambres libres sur [dateDebut, dateFin), éventuellement d'un type
+     * Servie par l'index des disponibilités, sans requête SQL une fois l'index construit
+     */
+    public List<Chambre> getChambresDisponibles(String type, String dateDebut, String dateFin) {
+        return availabilityIndex.search(type, LocalDate.parse(dateDebut), LocalDate.parse(dateFin));
+    }
+
+    /**
+     * Query : Planning des chambres sur une période, chaque ligne encodée par plages de même statut
+     * Calculé en une passe sur les séjours de la période (CalendarGrid).
+     */
+    public CalendarGrid.Calendrier getCalendrier(String dateDebut, String dateFin, String type, List<Long> chambreIds) {
+        return calendarGrid.grid(LocalDate.parse(dateDebut), LocalDate.parse(dateFin), type, chambreIds);
+    }
+
+    /**
+     * Query : Prix d'un séjour sur [dateDebut, dateFin) dans une chambre, ou « à partir de »
+     * dans la chambre la moins chère d'un type (sans chambreId)
+     * Calculé en mémoire sur les grilles tarifaires (RateCache), sans requête SQL une fois chargées.
+     */
+    public RateCache.Devis getDevis(Long chambreId, String type, String dateDebut, String dateFin) {
+        LocalDate debut = LocalDate.parse(dateDebut);
+        LocalDate fin = LocalDate.parse(dateFin);
+        return chambreId != null ? rateCache.quoteRoom(chambreId, debut, fin) : rateCache.quoteType(type, debut, fin);
+    }
+
+    /**
+     * Query : Chambres vendues d'un type pour chaque nuit de [dateDebut, dateFin)
+     * Lu sur le miroir de l'inventaire journalier (un compteur par nuit), sans requête SQL.
+     */
+    public DailyInventory.Inventaire getInventaire(String type, String dateDebut, String dateFin) {
+        return dailyInventory.inventory(type, LocalDate.parse(dateDebut), LocalDate.parse(dateFin));
+    }
+
+    /**
+     * Query : Taux d'occupation et revenu par jour, semaine ou mois de [dateDebut, dateFin)
+     * Lu sur les vues tenues à jour en mémoire à chaque réservation, sans requête SQL.
+     */
+    public OccupancyViews.Vue getOccupation(String type, String granularite, String dateDebut, String dateFin) {
+        return occupancyViews.occupancy(type, granularite, LocalDate.parse(dateDebut), LocalDate.parse(dateFin));
+    }
+
+    /**
+     * Query : Nombre de réservations par statut, et de réservations non annulées par type de chambre
+     * Lu sur les compteurs en mémoire, sans requête SQL.
+     */
+    public ReservationCounters.Statistiques getReservationStats() {
+        return reservationCounters.stats();
+    }
+
     /**
      * Mutation : Crée une nouvelle réservation
+     * 
+     * Avec l'en-tête HTTP Idempotency-Key, une nouvelle tentative portant la même
+     * clé renvoie la réservation créée la première fois sans en créer une autre. La même
+     * clé envoyée avec d'autres arguments est refusée (IdempotencyConflictException).
+     * 
+     * Les créations d'une même chambre passent une par une (RoomAdmission) ; une période
+     * qui chevauche une réservation non annulée de la chambre est refusée, comme une chambre
+     * hors service ou une date de fin non postérieure à la date de début.
      */
     public Reservation createReservation(Long clientId, Long chambreId, 
                                         String dateDebut, String dateFin, 
                                         String preferences) {
+        String idempotencyKey = idempotencyKeyFromRequest();
+        if (idempotencyKey == null) {
+            return roomAdmission.admit(chambreId, () -> transactionTemplate.execute(
+                    status -> creerReservation(clientId, chambreId, dateDebut, dateFin, preferences, "CONFIRMEE")));
+        }
+        if (!IdempotencyStore.isValidKey(idempotencyKey)) {
+            throw new IllegalArgumentException("Clé d'idempotence invalide");
+        }
+        
+        String empreinte = IdempotencyStore.empreinte(clientId, chambreId,
+                LocalDate.parse(dateDebut), LocalDate.parse(dateFin), "CONFIRMEE", preferences);
+        // Verrou de la chambre pris seulement pour créer : une nouvelle tentative rejoint la création en cours
+        Long id = idempotencyStore.execute(idempotencyKey, empreinte,
+                enregistrement -> roomAdmission.admit(chambreId, enregistrement),
+                () -> creerReservation(clientId, chambreId, dateDebut, dateFin, preferences, "CONFIRMEE").getId());
+        return reservationRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Réservation non trouvée"));
+    }
+
+    /**
+     * Mutation : Réserve plusieurs chambres et séjours en une seule transaction, tous ou aucun
+     * 
+     * Les chambres sont verrouillées dans l'ordre croissant de leurs IDs et les réservations
+     * insérées en un seul lot (GroupBooking).
+     */
+    public List<GroupBooking.Ligne> createGroupReservation(Long clientId, List<SejourGroupeInput> sejours) {
+        List<GroupBooking.Ligne> lignes = new ArrayList<>();
+        for (SejourGroupeInput sejour : sejours) {
+            lignes.add(new GroupBooking.Ligne(sejour.getChambreId(),
+                    LocalDate.parse(sejour.getDateDebut()), LocalDate.parse(sejour.getDateFin())));
+        }
+        return groupBooking.book(clientId, lignes);
+    }
+
+    /**
+     * Mutation : Réserve une chambre d'un type donné, le module choisit la chambre
+     * 
+     * La chambre retenue est la mieux ajustée au calendrier parmi les chambres libres du type
+     * (RoomAssignment) : celle qui laisse le moins de nuits isolées invendables.
+     */
+    public Reservation createReservationByType(Long clientId, String type,
+                                               String dateDebut, String dateFin,
+                                               String preferences) {
+        return roomAssignment.assign(type, LocalDate.parse(dateDebut), LocalDate.parse(dateFin),
+                chambreId -> transactionTemplate.execute(
+                        status -> creerReservation(clientId, chambreId, dateDebut, dateFin, preferences, "CONFIRMEE")));
+    }
+
+    /**
+     * Mutation : Pose une option, la chambre est bloquée jusqu'à l'échéance (hold.ttl-minutes)
+     * 
+     * L'option expire (statut ANNULEE) si elle n'est pas confirmée par confirmHold avant expiresAt.
+     */
+    public Reservation placeHold(Long clientId, Long chambreId,
+                                 String dateDebut, String dateFin,
+                                 String preferences) {
+        return roomAdmission.admit(chambreId, () -> transactionTemplate.execute(
+                status -> creerReservation(clientId, chambreId, dateDebut, dateFin, preferences, HoldManager.EN_ATTENTE)));
+    }
+
+    /**
+     * Mutation : Confirme une option avant son échéance
+     * 
+     * La ligne est verrouillée : l'expiration de l'option passe avant ou après, jamais
+     * pendant. Confirmer une réservation déjà confirmée la renvoie telle quelle.
+     */
+    @Transactional
+    public Reservation confirmHold(Long id) {
+        Reservation reservation = reservationRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new RuntimeException("Réservation non trouvée"));
+        if ("CONFIRMEE".equals(reservation.getStatut())) {
+            return reservation;
+        }
+        if (!HoldManager.EN_ATTENTE.equals(reservation.getStatut()) || reservation.getExpiresAt() == null
+                || !reservation.getExpiresAt().isAfter(LocalDateTime.now())) {
+            throw new HoldExpiredException("L'option a expiré ou a été annulée");
+        }
+        
+        reservationCache.invalidateAfterCommit(id);
+        // Mêmes nuits vendues ; le séjour entre dans le revenu
+        dailyInventory.release(reservation);
+        reservationCounters.remove(reservation);
+        reservation.setStatut("CONFIRMEE");
+        dailyInventory.sell(reservation);
+        reservationCounters.add(reservation);
+        reservation.setExpiresAt(null);
+        holdManager.untrackAfterCommit(id, true);
+        return reservation;
+    }
+
+    /**
+     * Crée la réservation dans la transaction courante
+     * 
+     * La ligne de la chambre est verrouillée jusqu'au commit avant la recherche de
+     * chevauchement : deux créations simultanées sur la même chambre, dans ce module
+     * ou dans un autre, ne peuvent pas réserver les mêmes nuits.
+     * 
+     * @param statut CONFIRMEE, ou EN_ATTENTE pour une option dont l'échéance est fixée ici
+     * @throws IllegalArgumentException si la chambre est hors service ou si la date de fin n'est pas postérieure à la date de début
+     */
+    private Reservation creerReservation(Long clientId, Long chambreId,
+                                         String dateDebut, String dateFin,
+                                         String preferences, String statut) {
         Client client = clientRepository.findById(clientId)
                 .orElseThrow(() -> new RuntimeException("Client non trouvé"));
         
-        Chambre chambre = chambreRepository.findById(chambreId)
+        Chambre chambre = chambreRepository.findByIdForUpdate(chambreId)
                 .orElseThrow(() -> new RuntimeException("Chambre non trouvée"));
         
         Reservation reservation = new Reservation();
@@ -63,29 +327,74 @@ public class ReservationResolver {
         reservation.setDateDebut(LocalDate.parse(dateDebut));
         reservation.setDateFin(LocalDate.parse(dateFin));
         reservation.setPreferences(preferences);
+        reservation.setStatut(statut);
         
-        return reservationRepository.save(reservation);
+        if (!chambre.getDisponible()) {
+            throw new IllegalArgumentException("La chambre n'est pas disponible");
+        }
+        if (!reservation.getDateFin().isAfter(reservation.getDateDebut())) {
+            throw new IllegalArgumentException("La date de fin doit être postérieure à la date de début");
+        }
+        
+        reservation.setMontant(rateCache.priceStay(chambre, reservation.getDateDebut(), reservation.getDateFin()));
+        reservation.setExpiresAt(HoldManager.EN_ATTENTE.equals(statut) ? holdManager.newExpiry() : null);
+        
+        verifierChevauchement(reservation, null);
+        
+        Reservation saved = reservationRepository.save(reservation);
+        dailyInventory.sell(saved);
+        reservationCounters.add(saved);
+        availabilityIndex.updateAfterCommit(saved);
+        if (saved.getExpiresAt() != null) {
+            holdManager.trackAfterCommit(saved.getId(), saved.getExpiresAt());
+        }
+        return saved;
+    }
+
+    /**
+     * Lit l'en-tête Idempotency-Key de la requête HTTP en cours, s'il est présent
+     */
+    private String idempotencyKeyFromRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            return servletAttributes.getRequest().getHeader(IdempotencyStore.HEADER);
+        }
+        return null;
     }
 
     /**
-     * Mutation : Met à jour une réservation
+     * Mutation : Met à jour partiellement une réservation
+     * 
+     * Seuls les arguments fournis sont appliqués. Le client et la chambre sont
+     * affectés par référence après une vérification d'existence, et l'entité
+     * gérée est flushée en fin de transaction avec un UPDATE limité aux colonnes modifiées.
      */
+    @Transactional
     public Reservation updateReservation(Long id, Long clientId, Long chambreId,
                                         String dateDebut, String dateFin,
-                                        String preferences) {
-        Reservation reservation = reservationRepository.findById(id)
+                                        String preferences, String statut) {
+        // Verrouillée : les nuits retirées de l'inventaire sont bien celles de l'état modifié
+        Reservation reservation = reservationRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new RuntimeException("Réservation non trouvée"));
+        reservationCache.invalidateAfterCommit(id);
+        dailyInventory.release(reservation);
+        reservationCounters.remove(reservation);
+        Long ancienneChambre = reservation.getChambre().getId();
+        LocalDate ancienDebut = reservation.getDateDebut();
+        LocalDate ancienneFin = reservation.getDateFin();
         
-        if (clientId != null) {
-            Client client = clientRepository.findById(clientId)
-                    .orElseThrow(() -> new RuntimeException("Client non trouvé"));
-            reservation.setClient(client);
+        if (clientId != null && !clientId.equals(reservation.getClient().getId())) {
+            if (!clientRepository.existsById(clientId)) {
+                throw new RuntimeException("Client non trouvé");
+            }
+            reservation.setClient(clientRepository.getReferenceById(clientId));
         }
         
-        if (chambreId != null) {
-            Chambre chambre = chambreRepository.findById(chambreId)
-                    .orElseThrow(() -> new RuntimeException("Chambre non trouvée"));
-            reservation.setChambre(chambre);
+        if (chambreId != null && !chambreId.equals(reservation.getChambre().getId())) {
+            if (!chambreRepository.existsById(chambreId)) {
+                throw new RuntimeException("Chambre non trouvée");
+            }
+            reservation.setChambre(chambreRepository.getReferenceById(chambreId));
         }
         
         if (dateDebut != null) {
@@ -96,21 +405,94 @@ public class ReservationResolver {
             reservation.setDateFin(LocalDate.parse(dateFin));
         }
         
+        if (!reservation.getDateFin().isAfter(reservation.getDateDebut())) {
+            throw new RuntimeException("La date de fin doit être postérieure à la date de début");
+        }
+        
         if (preferences != null) {
             reservation.setPreferences(preferences);
         }
         
-        return reservationRepository.save(reservation);
+        if (statut != null && !statut.equals(reservation.getStatut())) {
+            if (HoldManager.EN_ATTENTE.equals(statut)) {
+                throw new RuntimeException("Une réservation existante ne peut pas être remise en attente");
+            }
+            // Une option confirmée ou annulée par modification n'expire plus
+            reservation.setStatut(statut);
+            reservation.setExpiresAt(null);
+            holdManager.untrackAfterCommit(id, false);
+        }
+        
+        // Nouvelle chambre, nouvelles dates ou réservation réactivée : mêmes garanties qu'à la création
+        if (chambreId != null || dateDebut != null || dateFin != null || statut != null) {
+            chambreRepository.findByIdForUpdate(reservation.getChambre().getId());
+            verifierChevauchement(reservation, id);
+        }
+        
+        // Autre chambre ou autres nuits : le séjour est revendu aux tarifs du moment
+        if (!ancienneChambre.equals(reservation.getChambre().getId())
+                || !ancienDebut.equals(reservation.getDateDebut())
+                || !ancienneFin.equals(reservation.getDateFin())) {
+            reservation.setMontant(rateCache.priceStay(reservation.getChambre(),
+                    reservation.getDateDebut(), reservation.getDateFin()));
+        }
+        
+        dailyInventory.sell(reservation);
+        reservationCounters.add(reservation);
+        availabilityIndex.updateAfterCommit(reservation);
+        return reservation;
+    }
+
+    /**
+     * Refuse une réservation qui chevauche une réservation non annulée de sa chambre
+     * La ligne de la chambre doit être verrouillée dans la transaction courante (findByIdForUpdate)
+     * @param exclue La réservation modifiée, ignorée dans la recherche (null pour une création)
+     */
+    private void verifierChevauchement(Reservation reservation, Long exclue) {
+        if ("ANNULEE".equals(reservation.getStatut())) {
+            return;
+        }
+        if (reservationRepository.existsOverlapping(reservation.getChambre().getId(),
+                reservation.getDateDebut(), reservation.getDateFin(), exclue)) {
+            throw roomAdmission.conflict();
+        }
     }
 
     /**
      * Mutation : Supprime une réservation
      */
     public Boolean deleteReservation(Long id) {
-        if (reservationRepository.existsById(id)) {
-            reservationRepository.deleteById(id);
+        // Ligne verrouillée : ses nuits sont retirées de l'inventaire dans la même transaction
+        Boolean supprimee = transactionTemplate.execute(status -> reservationRepository.findByIdForUpdate(id)
+                .map(reservation -> {
+                    dailyInventory.release(reservation);
+                    reservationCounters.remove(reservation);
+                    reservationRepository.delete(reservation);
+                    return true;
+                })
+                .orElse(false));
+        if (Boolean.TRUE.equals(supprimee)) {
+            reservationCache.invalidate(id);
+            availabilityIndex.removeAfterCommit(id);
+            holdManager.untrackAfterCommit(id, false);
             return true;
         }
         return false;
     }
+
+    /**
+     * Séjour demandé dans une réservation de groupe (input SejourGroupeInput)
+     */
+    public static class SejourGroupeInput {
+        private Long chambreId;
+        private String dateDebut;
+        private String dateFin;
+
+        public Long getChambreId() { return chambreId; }
+        public void setChambreId(Long chambreId) { this.chambreId = chambreId; }
+        public String getDateDebut() { return dateDebut; }
+        public void setDateDebut(String dateDebut) { this.dateDebut = dateDebut; }
+        public String getDateFin() { return dateFin; }
+        public void setDateFin(String dateFin) { this.dateFin = dateFin; }
+    }
 }
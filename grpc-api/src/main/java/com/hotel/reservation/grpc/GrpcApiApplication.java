@@ -2,6 +2,7 @@ package com.hotel.reservation.grpc;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Application principale pour le module gRPC API
@@ -14,6 +15,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * gRPC Endpoint: localhost:8084
  */
 @SpringBootApplication
+@EnableScheduling
 public class GrpcApiApplication {
 
     public static void main(String[] args) {
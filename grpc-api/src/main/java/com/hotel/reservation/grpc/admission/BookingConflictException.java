@@ -0,0 +1,11 @@
+package com.hotel.reservation.grpc.admission;
+
+/**
+ * Réservation refusée : la chambre a déjà une réservation non annulée sur la période
+ */
+public class BookingConflictException extends RuntimeException {
+
+    public BookingConflictException(String message) {
+        super(message);
+    }
+}
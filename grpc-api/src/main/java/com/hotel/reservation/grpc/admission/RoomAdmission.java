@@ -0,0 +1,174 @@
+package com.hotel.reservation.grpc.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Admission des créations de réservation, chambre par chambre
+ *
+ * Les créations d'une même chambre passent l'une après l'autre dans ce module, derrière
+ * un verrou choisi par l'ID de la chambre parmi un tableau fixe (lock striping). Le verrou
+ * est pris avant la transaction : une création en attente n'occupe pas de connexion.
+ *
+ * La garantie contre les doubles réservations vient de la base : dans la transaction,
+ * la ligne de la chambre est verrouillée (findByIdForUpdate) avant la recherche de
+ * chevauchement, ce qui sérialise aussi les créations des autres modules. Le verrou local
+ * évite seulement que les créations concurrentes d'une même chambre attendent ce verrou
+ * de ligne en tenant chacune une connexion.
+ *
+ * Avec au moins autant de verrous que de chambres et des IDs contigus, deux chambres
+ * différentes n'ont jamais le même verrou.
+ *
+ * Métriques exposées : booking.admission.wait, booking.admission.rejected, booking.conflicts.
+ */
+@Component
+public class RoomAdmission {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${booking.admission.stripes:1024}")
+    private int stripes;
+
+    @Value("${booking.admission.wait-timeout-ms:5000}")
+    private long waitTimeoutMs;
+
+    private ReentrantLock[] verrous;
+    private int masque;
+
+    private Timer attente;
+    private Counter rejets;
+    private Counter conflits;
+
+    @PostConstruct
+    void initialiser() {
+        // Puissance de deux : le verrou est choisi par un masque
+        int taille = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        verrous = new ReentrantLock[taille];
+        for (int i = 0; i < taille; i++) {
+            verrous[i] = new ReentrantLock();
+        }
+        masque = taille - 1;
+
+        attente = Timer.builder("booking.admission.wait")
+                .description("Attente du verrou de chambre avant une création de réservation")
+                .register(meterRegistry);
+        rejets = Counter.builder("booking.admission.rejected")
+                .description("Créations abandonnées après l'attente maximale du verrou de chambre")
+                .register(meterRegistry);
+        conflits = Counter.builder("booking.conflicts")
+                .description("Réservations refusées car la chambre est déjà réservée sur la période")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Exécute une création de réservation sous le verrou de sa chambre
+     * @param chambreId L'ID de la chambre réservée (null : exécution sans verrou, la création échouera)
+     * @param creation La création, qui ouvre sa propre transaction
+     * @return Le résultat de la création
+     * @throws RejectedExecutionException si le verrou n'est pas obtenu dans le délai
+     */
+    public <T> T admit(Long chambreId, Supplier<T> creation) {
+        if (chambreId == null) {
+            return creation.get();
+        }
+        ReentrantLock verrou = verrous[indice(chambreId)];
+        long debut = System.nanoTime();
+        try {
+            if (!verrou.tryLock(waitTimeoutMs, TimeUnit.MILLISECONDS)) {
+                rejets.increment();
+                throw new RejectedExecutionException("Trop de réservations simultanées sur la chambre " + chambreId);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Attente interrompue", e);
+        } finally {
+            attente.record(System.nanoTime() - debut, TimeUnit.NANOSECONDS);
+        }
+        try {
+            return creation.get();
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    /**
+     * Exécute une création portant sur plusieurs chambres sous les verrous de toutes ses chambres
+     *
+     * Les verrous sont pris dans l'ordre croissant de leur indice : deux groupes qui partagent
+     * des chambres les demandent dans le même ordre et ne peuvent pas s'attendre mutuellement.
+     * Le délai booking.admission.wait-timeout-ms vaut pour l'ensemble des verrous.
+     *
+     * @param chambreIds Les IDs des chambres réservées (les null sont ignorés)
+     * @param creation La création, qui ouvre sa propre transaction
+     * @return Le résultat de la création
+     * @throws RejectedExecutionException si les verrous ne sont pas tous obtenus dans le délai
+     */
+    public <T> T admitAll(Collection<Long> chambreIds, Supplier<T> creation) {
+        int[] indices = chambreIds.stream()
+                .filter(Objects::nonNull)
+                .mapToInt(this::indice)
+                .distinct()
+                .sorted()
+                .toArray();
+        int pris = 0;
+        try {
+            long debut = System.nanoTime();
+            long limite = debut + TimeUnit.MILLISECONDS.toNanos(waitTimeoutMs);
+            try {
+                while (pris < indices.length) {
+                    if (!verrous[indices[pris]].tryLock(limite - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                        rejets.increment();
+                        throw new RejectedExecutionException("Trop de réservations simultanées sur les chambres du groupe");
+                    }
+                    pris++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Attente interrompue", e);
+            } finally {
+                attente.record(System.nanoTime() - debut, TimeUnit.NANOSECONDS);
+            }
+            return creation.get();
+        } finally {
+            while (pris > 0) {
+                verrous[indices[--pris]].unlock();
+            }
+        }
+    }
+
+    /**
+     * Refus d'une réservation qui chevauche une réservation existante de la chambre
+     * @return L'exception à lever
+     */
+    public BookingConflictException conflict() {
+        return conflict(new BookingConflictException("La chambre est déjà réservée sur cette période"));
+    }
+
+    /**
+     * Refus d'une réservation pour chevauchement, avec une exception particulière
+     * @param refus L'exception à lever
+     * @return refus, une fois le refus compté dans booking.conflicts
+     */
+    public <E extends BookingConflictException> E conflict(E refus) {
+        conflits.increment();
+        return refus;
+    }
+
+    private int indice(Long chambreId) {
+        int h = Long.hashCode(chambreId);
+        return (h ^ (h >>> 16)) & masque;
+    }
+}
@@ -0,0 +1,109 @@
+package com.hotel.reservation.grpc.catalog;
+
+import com.hotel.reservation.grpc.model.Chambre;
+import com.hotel.reservation.grpc.repository.ChambreRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache du catalogue des chambres, déjà encodé en protobuf
+ *
+ * Garde les octets d'un ChambreListResponse : l'appel GetAllChambres les écrit
+ * tels quels sur le flux HTTP/2 (voir CatalogMethods), sans requête SQL ni
+ * construction ou sérialisation de messages.
+ *
+ * Les chambres sont modifiées par le module REST (même base) : le catalogue est
+ * rechargé au plus tard après catalog.cache.ttl-seconds, ou immédiatement après
+ * invalidate().
+ */
+@Component
+public class CatalogCache {
+
+    @Autowired
+    private ChambreRepository chambreRepository;
+
+    @Value("${catalog.cache.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final ReentrantLock chargement = new ReentrantLock();
+
+    private volatile Entree entree;
+
+    /**
+     * Renvoie le catalogue encodé, en le rechargeant depuis la base si nécessaire
+     * @return Les octets protobuf d'un ChambreListResponse
+     */
+    public byte[] getBytes() {
+        Entree courante = entree;
+        return isValide(courante) ? courante.octets : charger();
+    }
+
+    /**
+     * Invalide le catalogue : la prochaine lecture le recharge depuis la base
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        entree = null;
+    }
+
+    private byte[] charger() {
+        chargement.lock();
+        try {
+            // Un autre thread a pu recharger le catalogue pendant l'attente du verrou
+            Entree courante = entree;
+            if (isValide(courante)) {
+                return courante.octets;
+            }
+
+            long generationLue = generation.get();
+            byte[] octets = encoder(chambreRepository.findAll());
+            entree = new Entree(octets, generationLue, System.nanoTime());
+            return octets;
+        } finally {
+            chargement.unlock();
+        }
+    }
+
+    private boolean isValide(Entree courante) {
+        return courante != null
+                && courante.generation == generation.get()
+                && System.nanoTime() - courante.chargeeA < TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    private static byte[] encoder(List<Chambre> chambres) {
+        com.hotel.reservation.grpc.ChambreListResponse.Builder builder =
+            com.hotel.reservation.grpc.ChambreListResponse.newBuilder();
+        for (Chambre chambre : chambres) {
+            builder.addChambres(com.hotel.reservation.grpc.Chambre.newBuilder()
+                .setId(chambre.getId())
+                .setType(chambre.getType())
+                .setPrix(chambre.getPrix().doubleValue())
+                .setDisponible(chambre.getDisponible())
+                .build());
+        }
+        return builder.build().toByteArray();
+    }
+
+    /**
+     * Catalogue encodé, avec la génération et l'instant de son chargement
+     */
+    private static final class Entree {
+        private final byte[] octets;
+        private final long generation;
+        private final long chargeeA;
+
+        private Entree(byte[] octets, long generation, long chargeeA) {
+            this.octets = octets;
+            this.generation = generation;
+            this.chargeeA = chargeeA;
+        }
+    }
+}
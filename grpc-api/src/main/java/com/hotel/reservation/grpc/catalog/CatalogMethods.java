@@ -0,0 +1,73 @@
+package com.hotel.reservation.grpc.catalog;
+
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerMethodDefinition;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.stub.ServerCalls;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Liaison de GetAllChambres à une réponse protobuf pré-encodée
+ *
+ * Le stub généré sérialise un message à chaque appel. Ici, la méthode GetAllChambres
+ * du service est redéclarée avec un marshaller de réponse « octets bruts » : le
+ * serveur écrit directement les octets de CatalogCache, qui sont exactement ceux
+ * d'un ChambreListResponse pour le client. Les autres méthodes restent inchangées.
+ */
+public final class CatalogMethods {
+
+    /** Marshaller identité : le message est déjà encodé */
+    private static final MethodDescriptor.Marshaller<byte[]> OCTETS = new MethodDescriptor.Marshaller<>() {
+        @Override
+        public InputStream stream(byte[] value) {
+            return new ByteArrayInputStream(value);
+        }
+
+        @Override
+        public byte[] parse(InputStream stream) {
+            try {
+                return stream.readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    };
+
+    private CatalogMethods() {
+    }
+
+    /**
+     * Remplace GetAllChambres d'un service lié par la version pré-encodée
+     * @param service Le service lié (bindService() de l'implémentation)
+     * @param catalogCache Le cache du catalogue
+     * @return Le service, avec GetAllChambres servi depuis le cache
+     */
+    public static ServerServiceDefinition withPreEncodedCatalog(ServerServiceDefinition service, CatalogCache catalogCache) {
+        MethodDescriptor<com.hotel.reservation.grpc.GetAllChambresRequest, com.hotel.reservation.grpc.ChambreListResponse> generee =
+            com.hotel.reservation.grpc.ReservationServiceGrpc.getGetAllChambresMethod();
+
+        // Builder par nom : les descripteurs de méthodes peuvent alors différer de ceux du stub généré
+        ServerServiceDefinition.Builder builder = ServerServiceDefinition.builder(service.getServiceDescriptor().getName());
+        for (ServerMethodDefinition<?, ?> methode : service.getMethods()) {
+            if (!methode.getMethodDescriptor().getFullMethodName().equals(generee.getFullMethodName())) {
+                builder.addMethod(methode);
+            }
+        }
+
+        MethodDescriptor<com.hotel.reservation.grpc.GetAllChambresRequest, byte[]> preEncodee =
+            generee.toBuilder(generee.getRequestMarshaller(), OCTETS).build();
+        builder.addMethod(preEncodee, ServerCalls.asyncUnaryCall((request, responseObserver) -> {
+            try {
+                responseObserver.onNext(catalogCache.getBytes());
+                responseObserver.onCompleted();
+            } catch (Exception e) {
+                responseObserver.onError(e);
+            }
+        }));
+        return builder.build();
+    }
+}
@@ -1,8 +1,22 @@
 package com.hotel.reservation.grpc.config;
 
+import com.hotel.reservation.grpc.catalog.CatalogCache;
+import com.hotel.reservation.grpc.catalog.CatalogMethods;
+import com.hotel.reservation.grpc.fairness.ConsumerRegistry;
+import com.hotel.reservation.grpc.idempotency.IdempotencyKeyInterceptor;
+import com.hotel.reservation.grpc.limiter.AdaptiveLimiter;
+import com.hotel.reservation.grpc.limiter.ConcurrencyLimitInterceptor;
+import com.hotel.reservation.grpc.live.LiveMetrics;
+import com.hotel.reservation.grpc.live.LiveMetricsInterceptor;
+import com.hotel.reservation.grpc.payload.CompressionInterceptor;
 import com.hotel.reservation.grpc.service.ReservationServiceImpl;
 import io.grpc.Server;
 import io.grpc.ServerBuilder;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
+import io.grpc.ServerServiceDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -11,6 +25,7 @@ import org.springframework.context.annotation.Configuration;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Configuration du serveur gRPC
@@ -21,29 +36,80 @@ import java.io.IOException;
 @Configuration
 public class GrpcServerConfig {
 
+    private static final Logger log = LoggerFactory.getLogger(GrpcServerConfig.class);
+
     @Value("${grpc.server.port:8084}")
     private int grpcPort;
 
+    @Value("${" + VirtualThreads.ENABLED_PROPERTY + ":false}")
+    private boolean virtualThreads;
+
+    @Value("${limiter.enabled:true}")
+    private boolean limiterEnabled;
+
+    @Value("${grpc.server.compression:gzip}")
+    private String compression;
+
+    @Value("${grpc.server.compression-min-message-bytes:2048}")
+    private int compressionMinMessageBytes;
+
     @Autowired
     private ReservationServiceImpl reservationService;
 
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private AdaptiveLimiter apiLimiter;
+
+    @Autowired
+    private ConsumerRegistry consumerRegistry;
+
+    @Autowired
+    private LiveMetrics liveMetrics;
+
     private Server grpcServer;
 
+    private ExecutorService virtualThreadExecutor;
+
     /**
      * Démarre le serveur gRPC
+     * 
+     * En mode threads virtuels (threads.virtual.enabled=true, JDK 21+), chaque appel
+     * s'exécute sur un thread virtuel au lieu du pool de threads par défaut de gRPC.
+     * 
+     * GetAllChambres est servi depuis les octets pré-encodés de CatalogCache.
+     * Les appels sont d'abord mesurés pour les métriques en direct, puis passent par le
+     * limiteur de concurrence (limiter.enabled) : un appel rejeté ne passe par aucun
+     * autre traitement. Les réponses d'au moins
+     * grpc.server.compression-min-message-bytes sont compressées (gzip) si le client l'accepte.
      */
     @PostConstruct
     public void startGrpcServer() throws IOException {
-        grpcServer = ServerBuilder.forPort(grpcPort)
-                .addService(reservationService)
-                .build()
-                .start();
+        ServerServiceDefinition service = CatalogMethods.withPreEncodedCatalog(reservationService.bindService(), catalogCache);
+        // Le dernier intercepteur de la liste est appelé en premier
+        CompressionInterceptor compressionInterceptor = new CompressionInterceptor(compression, compressionMinMessageBytes);
+        LiveMetricsInterceptor liveMetricsInterceptor = new LiveMetricsInterceptor(liveMetrics);
+        ServerInterceptor[] interceptors = limiterEnabled
+                ? new ServerInterceptor[] {compressionInterceptor, new IdempotencyKeyInterceptor(),
+                        new ConcurrencyLimitInterceptor(apiLimiter, consumerRegistry), liveMetricsInterceptor}
+                : new ServerInterceptor[] {compressionInterceptor, new IdempotencyKeyInterceptor(), liveMetricsInterceptor};
+        ServerBuilder<?> builder = ServerBuilder.forPort(grpcPort)
+                .addService(ServerInterceptors.intercept(service, interceptors));
         
-        System.out.println("Serveur gRPC démarré sur le port " + grpcPort);
+        if (virtualThreads) {
+            virtualThreadExecutor = VirtualThreads.newVirtualThreadPerTaskExecutor();
+            builder.executor(virtualThreadExecutor);
+        }
+        
+        grpcServer = builder.build().start();
+        
+        log.info("Serveur gRPC démarré sur le port {}{}", grpcPort,
+                virtualThreads ? " (threads virtuels)" : "");
         
         // Ajoute un hook pour arrêter le serveur à l'arrêt de l'application
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            System.err.println("Arrêt du serveur gRPC...");
+            log.info("Arrêt du serveur gRPC...");
             if (grpcServer != null) {
                 grpcServer.shutdown();
             }
@@ -58,5 +124,8 @@ public class GrpcServerConfig {
         if (grpcServer != null) {
             grpcServer.shutdown();
         }
+        if (virtualThreadExecutor != null) {
+            virtualThreadExecutor.shutdown();
+        }
     }
 }
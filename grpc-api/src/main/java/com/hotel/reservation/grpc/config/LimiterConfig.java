@@ -0,0 +1,31 @@
+package com.hotel.reservation.grpc.config;
+
+import com.hotel.reservation.grpc.limiter.AdaptiveLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration du limiteur de concurrence adaptatif du serveur gRPC
+ *
+ * Sans limiteur, au-delà de la saturation les appels s'accumulent dans l'exécuteur
+ * gRPC et le pool JDBC, et la latence atteint plusieurs secondes avant les premiers
+ * échecs. Le limiteur est appliqué par ConcurrencyLimitInterceptor (voir GrpcServerConfig) ;
+ * ses permis sont répartis entre consommateurs selon leurs poids (voir ConsumerRegistry).
+ */
+@Configuration
+public class LimiterConfig {
+
+    @Bean
+    public AdaptiveLimiter apiLimiter(@Value("${limiter.initial-limit:40}") int initialLimit,
+                                      @Value("${limiter.min-limit:8}") int minLimit,
+                                      @Value("${limiter.max-limit:400}") int maxLimit,
+                                      @Value("${limiter.max-waiting:200}") int maxWaiting,
+                                      @Value("${limiter.codel.target-ms:5}") long codelTargetMs,
+                                      @Value("${limiter.codel.interval-ms:100}") long codelIntervalMs,
+                                      MeterRegistry registry) {
+        return new AdaptiveLimiter("api", initialLimit, minLimit, maxLimit, maxWaiting,
+                codelTargetMs, codelIntervalMs, registry);
+    }
+}
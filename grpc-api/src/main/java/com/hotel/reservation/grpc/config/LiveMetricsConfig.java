@@ -0,0 +1,26 @@
+package com.hotel.reservation.grpc.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotel.reservation.grpc.live.LiveMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration des métriques en direct (GET /metrics/live sur server.port)
+ *
+ * Les appels sont mesurés par LiveMetricsInterceptor, ajouté au serveur par GrpcServerConfig.
+ */
+@Configuration
+public class LiveMetricsConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public LiveMetrics liveMetrics(@Value("${live-metrics.window-seconds:5}") int windowSeconds,
+                                   @Value("${live-metrics.max-subscribers:16}") int maxSubscribers,
+                                   @Value("${live-metrics.subscription-timeout-ms:1800000}") long subscriptionTimeoutMs,
+                                   MeterRegistry registry,
+                                   ObjectMapper objectMapper) {
+        return new LiveMetrics("grpc", windowSeconds, maxSubscribers, subscriptionTimeoutMs, registry, objectMapper);
+    }
+}
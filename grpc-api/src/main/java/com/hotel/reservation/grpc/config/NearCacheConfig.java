@@ -0,0 +1,29 @@
+package com.hotel.reservation.grpc.config;
+
+import com.hotel.reservation.grpc.cache.NearCache;
+import com.hotel.reservation.grpc.payload.PreferencesCodec;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration du cache local devant GetReservation
+ *
+ * Les messages proto mis en cache sont immuables et partagés entre appels.
+ * UpdateReservation, DeleteReservation et SetPreferences invalident l'entrée concernée ; les écritures
+ * des autres modules sont prises en compte au plus tard après nearcache.ttl-seconds.
+ * Les réservations aux préférences volumineuses ne sont pas gardées.
+ */
+@Configuration
+public class NearCacheConfig {
+
+    @Bean
+    public NearCache<Long, com.hotel.reservation.grpc.Reservation> reservationCache(
+            @Value("${nearcache.reservations.max-entries:10000}") int maxEntries,
+            @Value("${nearcache.ttl-seconds:5}") long ttlSeconds,
+            MeterRegistry registry) {
+        return new NearCache<>("reservations", maxEntries, ttlSeconds,
+                reservation -> PreferencesCodec.isPetite(reservation.getPreferences()), registry);
+    }
+}
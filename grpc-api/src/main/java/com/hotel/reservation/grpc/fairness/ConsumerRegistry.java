@@ -0,0 +1,79 @@
+package com.hotel.reservation.grpc.fairness;
+
+import io.grpc.Metadata;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Consommateurs connus de l'API et identification des requêtes
+ *
+ * Un appel est attribué au consommateur de sa clé d'API (métadonnée x-api-key,
+ * table fairness.api-keys) ; à défaut, au consommateur nommé par la métadonnée
+ * x-consumer s'il est déclaré dans fairness.weights ; sinon au consommateur
+ * « default ». Les noms inconnus ne créent pas de consommateur : le nombre de
+ * files et de métriques reste borné par la configuration.
+ */
+@Component
+public class ConsumerRegistry {
+
+    /** Métadonnée portant la clé d'API */
+    public static final Metadata.Key<String> API_KEY =
+            Metadata.Key.of("x-api-key", Metadata.ASCII_STRING_MARSHALLER);
+
+    /** Métadonnée nommant le consommateur (réseau interne de confiance) */
+    public static final Metadata.Key<String> CONSUMER =
+            Metadata.Key.of("x-consumer", Metadata.ASCII_STRING_MARSHALLER);
+
+    /** Consommateur des requêtes non identifiées */
+    public static final String DEFAULT_CONSUMER = "default";
+
+    private final Map<String, Consumer> consommateurs = new HashMap<>();
+
+    private final Map<String, String> consommateurParCle;
+
+    private final Consumer parDefaut;
+
+    public ConsumerRegistry(@Value("#{${fairness.weights:{default:1}}}") Map<String, Integer> poids,
+                            @Value("#{${fairness.rate-limits:{:}}}") Map<String, Integer> quotas,
+                            @Value("#{${fairness.api-keys:{:}}}") Map<String, String> apiKeys,
+                            @Value("${fairness.max-waiting-per-consumer:100}") int maxWaitingParConsommateur,
+                            MeterRegistry registry) {
+        Map<String, Integer> tousLesPoids = new HashMap<>(poids);
+        tousLesPoids.putIfAbsent(DEFAULT_CONSUMER, 1);
+        apiKeys.values().forEach(nom -> tousLesPoids.putIfAbsent(nom, 1));
+
+        tousLesPoids.forEach((nom, poidsConsommateur) -> {
+            Integer quota = quotas.get(nom);
+            consommateurs.put(nom, new Consumer(nom, poidsConsommateur, maxWaitingParConsommateur,
+                    quota != null ? new RateQuota(quota) : null, registry));
+        });
+        this.consommateurParCle = Map.copyOf(apiKeys);
+        this.parDefaut = consommateurs.get(DEFAULT_CONSUMER);
+    }
+
+    /**
+     * Identifie le consommateur d'un appel
+     * @param apiKey La clé d'API présentée, ou null
+     * @param nomDeclare Le nom de consommateur déclaré, ou null
+     * @return Le consommateur (jamais null)
+     */
+    public Consumer resolve(String apiKey, String nomDeclare) {
+        if (apiKey != null) {
+            String nom = consommateurParCle.get(apiKey);
+            if (nom != null) {
+                return consommateurs.get(nom);
+            }
+        }
+        if (nomDeclare != null) {
+            Consumer declare = consommateurs.get(nomDeclare);
+            if (declare != null) {
+                return declare;
+            }
+        }
+        return parDefaut;
+    }
+}
@@ -0,0 +1,11 @@
+package com.hotel.reservation.grpc.hold;
+
+/**
+ * Confirmation refusée : l'option a expiré ou a été annulée
+ */
+public class HoldExpiredException extends RuntimeException {
+
+    public HoldExpiredException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,35 @@
+package com.hotel.reservation.grpc.idempotency;
+
+import io.grpc.Context;
+import io.grpc.Contexts;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+
+/**
+ * Intercepteur gRPC qui expose la métadonnée idempotency-key aux services
+ *
+ * La clé est placée dans le Context gRPC de l'appel et lue par le service
+ * via IdempotencyKeyInterceptor.IDEMPOTENCY_KEY.get().
+ */
+public class IdempotencyKeyInterceptor implements ServerInterceptor {
+
+    /** Clé du Context gRPC contenant la clé d'idempotence de l'appel (ou null) */
+    public static final Context.Key<String> IDEMPOTENCY_KEY = Context.key(IdempotencyStore.METADATA_KEY);
+
+    private static final Metadata.Key<String> METADATA_KEY =
+            Metadata.Key.of(IdempotencyStore.METADATA_KEY, Metadata.ASCII_STRING_MARSHALLER);
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call,
+                                                                 Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        String idempotencyKey = headers.get(METADATA_KEY);
+        if (idempotencyKey == null) {
+            return next.startCall(call, headers);
+        }
+        Context context = Context.current().withValue(IDEMPOTENCY_KEY, idempotencyKey);
+        return Contexts.interceptCall(context, call, headers, next);
+    }
+}
@@ -0,0 +1,277 @@
+package com.hotel.reservation.grpc.idempotency;
+
+import com.hotel.reservation.grpc.model.IdempotencyKey;
+import com.hotel.reservation.grpc.repository.IdempotencyKeyRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Stockage des clés d'idempotence pour la création de réservations
+ *
+ * Une création exécutée avec une clé déjà connue renvoie l'ID de la réservation
+ * créée la première fois, sans relancer la création. Les doublons concurrents
+ * attendent la fin de la première exécution au lieu de la concurrencer.
+ *
+ * Les résultats sont gardés dans un cache mémoire borné (taille et durée de vie),
+ * avec la table idempotency_key comme repli après éviction, redémarrage ou
+ * exécution sur une autre instance. La clé primaire de cette table garantit
+ * qu'une seule création est validée par clé.
+ *
+ * Chaque clé est enregistrée avec l'empreinte de la requête qui l'a utilisée la
+ * première fois : la même clé réutilisée pour une requête différente est refusée
+ * (IdempotencyConflictException) au lieu de renvoyer la réservation d'une autre requête.
+ *
+ * Le cache et la table sont consultés avant l'admission de la création (verrou de la
+ * chambre) : une nouvelle tentative rejoint la création en cours pour sa clé, jusqu'à
+ * wait-timeout-ms, au lieu d'attendre le verrou de la chambre que cette création détient.
+ */
+@Component
+public class IdempotencyStore {
+
+    /** Métadonnée gRPC portant la clé d'idempotence */
+    public static final String METADATA_KEY = "idempotency-key";
+
+    /** Longueur maximale d'une clé (taille de la colonne idempotency_key.cle) */
+    public static final int MAX_KEY_LENGTH = 128;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${idempotency.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    @Value("${idempotency.wait-timeout-ms:30000}")
+    private long waitTimeoutMs;
+
+    @Value("${idempotency.db-retention-hours:24}")
+    private long dbRetentionHours;
+
+    private final Map<String, Entree> entrees = new ConcurrentHashMap<>();
+
+    // Ordre d'insertion des clés, pour évincer les plus anciennes en premier
+    private final Queue<String> ordre = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Vérifie qu'une clé fournie par le client est utilisable
+     * @param cle La clé reçue
+     * @return true si la clé est non vide et de longueur acceptable
+     */
+    public static boolean isValidKey(String cle) {
+        return cle != null && !cle.isBlank() && cle.length() <= MAX_KEY_LENGTH;
+    }
+
+    /**
+     * Calcule l'empreinte d'une requête de création : SHA-256 de ses champs normalisés
+     *
+     * Les champs sont pris dans un ordre fixe et séparés par un caractère de contrôle :
+     * l'empreinte ne dépend ni de la mise en forme ni de l'ordre des champs du message.
+     *
+     * @param champs Les champs qui déterminent la réservation créée (null comme vide)
+     * @return L'empreinte, en 64 caractères hexadécimaux
+     */
+    public static String empreinte(Object... champs) {
+        StringBuilder normalisee = new StringBuilder();
+        for (Object champ : champs) {
+            normalisee.append(champ == null ? "" : champ).append('\u001F');
+        }
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(normalisee.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    /**
+     * Exécute une création au plus une fois pour une clé donnée
+     *
+     * @param cle La clé d'idempotence fournie par le client
+     * @param empreinte L'empreinte de la requête (voir empreinte(Object...))
+     * @param admission Enveloppe de la transaction de création, par exemple le verrou de la chambre
+     *                  (RoomAdmission.admit) ; appelée seulement si la création doit être exécutée
+     * @param creation La création à exécuter, qui renvoie l'ID de la réservation créée
+     * @return L'ID de la réservation, créée maintenant ou lors d'une exécution précédente
+     * @throws IdempotencyConflictException si la clé a déjà servi pour une autre requête
+     */
+    public Long execute(String cle, String empreinte, Function<Supplier<Long>, Long> admission, Supplier<Long> creation) {
+        purger();
+
+        while (true) {
+            Entree nouvelle = new Entree(empreinte, System.nanoTime());
+            Entree existante = entrees.putIfAbsent(cle, nouvelle);
+
+            if (existante == null) {
+                ordre.add(cle);
+                return executerPremiere(cle, nouvelle, admission, creation);
+            }
+
+            if (existante.isExpiree(ttlNanos())) {
+                entrees.remove(cle, existante);
+                continue;
+            }
+
+            verifier(existante.empreinte, empreinte);
+            return attendre(existante.resultat);
+        }
+    }
+
+    /**
+     * Première exécution pour une clé : consulte la table, puis, sous l'admission, crée et
+     * enregistre la clé dans la même transaction que la réservation
+     *
+     * Une clé enregistrée par une autre instance entre la lecture et la création est
+     * détectée par la clé primaire de la table : la création est alors annulée.
+     */
+    private Long executerPremiere(String cle, Entree entree, Function<Supplier<Long>, Long> admission,
+                                  Supplier<Long> creation) {
+        try {
+            Optional<IdempotencyKey> enregistree = idempotencyKeyRepository.findById(cle);
+            Long id;
+            if (enregistree.isPresent()) {
+                verifier(enregistree.get().getEmpreinte(), entree.empreinte);
+                id = enregistree.get().getReservationId();
+            } else {
+                id = admission.apply(() -> transactionTemplate.execute(status -> {
+                    Long reservationId = creation.get();
+                    idempotencyKeyRepository.saveAndFlush(new IdempotencyKey(cle, reservationId, entree.empreinte));
+                    return reservationId;
+                }));
+            }
+            entree.resultat.complete(id);
+            return id;
+        } catch (DataIntegrityViolationException e) {
+            // Une autre instance a enregistré la même clé : notre création a été annulée
+            Optional<IdempotencyKey> gagnante = idempotencyKeyRepository.findById(cle);
+            if (gagnante.isPresent()) {
+                if (!entree.empreinte.equals(gagnante.get().getEmpreinte())) {
+                    IdempotencyConflictException conflit = conflit();
+                    echouer(cle, entree, conflit);
+                    throw conflit;
+                }
+                entree.resultat.complete(gagnante.get().getReservationId());
+                return gagnante.get().getReservationId();
+            }
+            echouer(cle, entree, e);
+            throw e;
+        } catch (RuntimeException e) {
+            echouer(cle, entree, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Refuse une requête dont l'empreinte diffère de celle enregistrée pour la clé
+     */
+    private static void verifier(String enregistree, String recue) {
+        if (!recue.equals(enregistree)) {
+            throw conflit();
+        }
+    }
+
+    private static IdempotencyConflictException conflit() {
+        return new IdempotencyConflictException("Clé d'idempotence déjà utilisée pour une autre requête");
+    }
+
+    /**
+     * En cas d'échec, la clé est libérée pour qu'une nouvelle tentative puisse s'exécuter
+     */
+    private void echouer(String cle, Entree entree, RuntimeException e) {
+        entrees.remove(cle, entree);
+        entree.resultat.completeExceptionally(e);
+    }
+
+    /**
+     * Attend le résultat d'une exécution en cours ou terminée pour la même clé
+     */
+    private Long attendre(CompletableFuture<Long> resultat) {
+        try {
+            return resultat.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new RuntimeException("Création en cours pour cette clé d'idempotence, réessayez plus tard");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Attente interrompue", e);
+        }
+    }
+
+    /**
+     * Évince les entrées expirées ou en surnombre, de la plus ancienne à la plus récente
+     */
+    private void purger() {
+        long ttl = ttlNanos();
+        String cle;
+        while ((cle = ordre.peek()) != null) {
+            Entree entree = entrees.get(cle);
+            boolean enSurnombre = entrees.size() > maxEntries;
+            if (entree != null && !enSurnombre && !entree.isExpiree(ttl)) {
+                break;
+            }
+            if (ordre.remove(cle) && entree != null && (enSurnombre || entree.isExpiree(ttl))) {
+                entrees.remove(cle, entree);
+            }
+        }
+    }
+
+    /**
+     * Supprime périodiquement les clés anciennes de la table de repli
+     */
+    @Scheduled(fixedDelayString = "${idempotency.db-purge-interval-ms:3600000}")
+    public void purgerTable() {
+        idempotencyKeyRepository.deleteCreatedBefore(LocalDateTime.now().minusHours(dbRetentionHours));
+    }
+
+    private long ttlNanos() {
+        return TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    /**
+     * Entrée du cache mémoire : empreinte de la requête, résultat (éventuellement en cours)
+     * et date de création
+     */
+    private static final class Entree {
+        private final CompletableFuture<Long> resultat = new CompletableFuture<>();
+        private final String empreinte;
+        private final long creeeA;
+
+        private Entree(String empreinte, long creeeA) {
+            this.empreinte = empreinte;
+            this.creeeA = creeeA;
+        }
+
+        private boolean isExpiree(long ttlNanos) {
+            return System.nanoTime() - creeeA > ttlNanos;
+        }
+    }
+}
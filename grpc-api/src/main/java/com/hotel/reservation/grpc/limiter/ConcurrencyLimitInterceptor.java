@@ -0,0 +1,70 @@
+package com.hotel.reservation.grpc.limiter;
+
+import com.hotel.reservation.grpc.fairness.Consumer;
+import com.hotel.reservation.grpc.fairness.ConsumerRegistry;
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+
+/**
+ * Intercepteur appliquant le limiteur de concurrence adaptatif aux appels gRPC
+ *
+ * L'appel est d'abord attribué à son consommateur (x-api-key ou x-consumer) : au-delà
+ * de son quota de débit, ou sans permis du limiteur, il est fermé immédiatement avec
+ * RESOURCE_EXHAUSTED, avant la lecture de son message. Le permis est libéré à la fermeture de l'appel : un statut
+ * OK ajuste la limite, une erreur ou une annulation la laisse inchangée.
+ */
+public class ConcurrencyLimitInterceptor implements ServerInterceptor {
+
+    private final AdaptiveLimiter limiter;
+
+    private final ConsumerRegistry consumerRegistry;
+
+    public ConcurrencyLimitInterceptor(AdaptiveLimiter limiter, ConsumerRegistry consumerRegistry) {
+        this.limiter = limiter;
+        this.consumerRegistry = consumerRegistry;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call,
+                                                                 Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        Consumer consommateur = consumerRegistry.resolve(
+                headers.get(ConsumerRegistry.API_KEY), headers.get(ConsumerRegistry.CONSUMER));
+        AdaptiveLimiter.Permit permis = consommateur.tryAcquireQuota() ? limiter.tryAcquire(consommateur) : null;
+        if (permis == null) {
+            call.close(Status.RESOURCE_EXHAUSTED.withDescription("Serveur saturé, réessayez plus tard"), new Metadata());
+            return new ServerCall.Listener<>() {
+            };
+        }
+
+        ServerCall<ReqT, RespT> appelSuivi = new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+            @Override
+            public void close(Status status, Metadata trailers) {
+                if (status.isOk()) {
+                    permis.release();
+                } else {
+                    permis.ignore();
+                }
+                super.close(status, trailers);
+            }
+        };
+
+        try {
+            return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(next.startCall(appelSuivi, headers)) {
+                @Override
+                public void onCancel() {
+                    permis.ignore();
+                    super.onCancel();
+                }
+            };
+        } catch (RuntimeException e) {
+            permis.ignore();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.hotel.reservation.grpc.live;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Métriques en direct du module, publiées chaque seconde en Server-Sent Events
+ *
+ * Les appels gRPC sont mesurés par un intercepteur (start / Mesure.stop) dans une
+ * RollingWindow sans verrou. Chaque seconde, un thread dédié calcule un instantané JSON
+ * et l'envoie à tous les abonnés :
+ * - throughput, errors, rejected : requêtes de la dernière seconde complète ;
+ * - latencyMs : p50, p90, p99, p999 et max sur les window-seconds dernières secondes ;
+ * - inFlight : requêtes en cours ;
+ * - pools : connexions JDBC (hikaricp.*) ;
+ * - gc : collections et temps de pause depuis la publication précédente.
+ *
+ * Le format est le même dans tous les modules, pour les comparer côte à côte.
+ */
+public class LiveMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveMetrics.class);
+
+    /**
+     * Issue d'une requête mesurée
+     */
+    public enum Resultat {
+        OK,
+        ERREUR,
+        REJETEE
+    }
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final String[] NOMS_QUANTILES = {"p50", "p90", "p99", "p999"};
+
+    private final String module;
+    private final int fenetreSecondes;
+    private final int maxAbonnes;
+    private final long abonnementTimeoutMs;
+    private final MeterRegistry registry;
+    private final ObjectMapper objectMapper;
+
+    private final long origine = System.nanoTime();
+    private final RollingWindow fenetre;
+    private final AtomicInteger enCours = new AtomicInteger();
+    private final List<SseEmitter> abonnes = new CopyOnWriteArrayList<>();
+    private final List<GarbageCollectorMXBean> collecteurs = new ArrayList<>();
+    private final ScheduledExecutorService publication;
+
+    // Totaux GC à la publication précédente (thread de publication uniquement)
+    private long collectionsPrecedentes;
+    private long pausesPrecedentesMs;
+
+    private volatile String dernierInstantane;
+
+    public LiveMetrics(String module, int fenetreSecondes, int maxAbonnes, long abonnementTimeoutMs,
+                       MeterRegistry registry, ObjectMapper objectMapper) {
+        this.module = module;
+        this.fenetreSecondes = fenetreSecondes;
+        this.maxAbonnes = maxAbonnes;
+        this.abonnementTimeoutMs = abonnementTimeoutMs;
+        this.registry = registry;
+        this.objectMapper = objectMapper;
+        this.fenetre = new RollingWindow(fenetreSecondes);
+        for (GarbageCollectorMXBean collecteur : ManagementFactory.getGarbageCollectorMXBeans()) {
+            // Les cycles concurrents (G1 Concurrent GC, ZGC Cycles) n'arrêtent pas l'application
+            if (!collecteur.getName().contains("Concurrent") && !collecteur.getName().contains("Cycles")) {
+                collecteurs.add(collecteur);
+            }
+        }
+        lireGc();
+
+        this.publication = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("live-metrics-"));
+        // Publication juste après chaque changement de seconde
+        long ecouleNanos = (System.nanoTime() - origine) % TimeUnit.SECONDS.toNanos(1);
+        long delaiNanos = TimeUnit.SECONDS.toNanos(1) - ecouleNanos + TimeUnit.MILLISECONDS.toNanos(20);
+        publication.scheduleAtFixedRate(this::publier, delaiNanos, TimeUnit.SECONDS.toNanos(1), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Début de la mesure d'une requête
+     * @return La mesure, à terminer une seule fois par stop (les appels suivants sont ignorés)
+     */
+    public Mesure start() {
+        enCours.incrementAndGet();
+        return new Mesure(System.nanoTime());
+    }
+
+    /**
+     * Issue d'un appel gRPC : RESOURCE_EXHAUSTED = rejet, erreurs côté serveur = erreur
+     * (les erreurs du client, comme NOT_FOUND ou INVALID_ARGUMENT, restent OK)
+     */
+    public static Resultat resultatGrpc(Status status) {
+        switch (status.getCode()) {
+            case RESOURCE_EXHAUSTED:
+                return Resultat.REJETEE;
+            case UNKNOWN:
+            case INTERNAL:
+            case UNAVAILABLE:
+            case DEADLINE_EXCEEDED:
+            case DATA_LOSS:
+            case UNIMPLEMENTED:
+            case CANCELLED:
+                return Resultat.ERREUR;
+            default:
+                return Resultat.OK;
+        }
+    }
+
+    /**
+     * Abonne un client au flux
+     * @return L'émetteur SSE, ou null si le nombre maximal d'abonnés est atteint
+     */
+    public SseEmitter subscribe() {
+        if (abonnes.size() >= maxAbonnes) {
+            return null;
+        }
+        SseEmitter emetteur = new SseEmitter(abonnementTimeoutMs);
+        emetteur.onCompletion(() -> abonnes.remove(emetteur));
+        emetteur.onTimeout(() -> abonnes.remove(emetteur));
+        emetteur.onError(erreur -> abonnes.remove(emetteur));
+        abonnes.add(emetteur);
+
+        // Le dernier instantané est envoyé tout de suite, sans attendre la prochaine seconde
+        String instantane = dernierInstantane;
+        if (instantane != null) {
+            envoyer(emetteur, instantane);
+        }
+        return emetteur;
+    }
+
+    /**
+     * Tâche périodique : prépare la seconde suivante, calcule et diffuse l'instantané
+     */
+    private void publier() {
+        try {
+            long seconde = secondeCourante();
+            fenetre.avancer(seconde);
+            String instantane = objectMapper.writeValueAsString(instantane(seconde));
+            dernierInstantane = instantane;
+            for (SseEmitter abonne : abonnes) {
+                envoyer(abonne, instantane);
+            }
+        } catch (JsonProcessingException | RuntimeException e) {
+            // Une exception arrêterait la tâche périodique : seule cette seconde est perdue
+            log.warn("Métriques en direct non publiées", e);
+        }
+    }
+
+    private void envoyer(SseEmitter abonne, String instantane) {
+        try {
+            abonne.send(SseEmitter.event().name("metrics").data(instantane, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            // Client déconnecté : retiré des abonnés
+            abonnes.remove(abonne);
+            abonne.completeWithError(e);
+        }
+    }
+
+    private Map<String, Object> instantane(long seconde) {
+        RollingWindow.Vue derniereSeconde = fenetre.lire(seconde, 1);
+        RollingWindow.Vue vue = fenetre.lire(seconde, fenetreSecondes);
+
+        Map<String, Object> instantane = new LinkedHashMap<>();
+        instantane.put("module", module);
+        instantane.put("timestamp", System.currentTimeMillis());
+        instantane.put("windowSeconds", fenetreSecondes);
+        instantane.put("throughput", derniereSeconde.getRequetes());
+        instantane.put("errors", derniereSeconde.getErreurs());
+        instantane.put("rejected", derniereSeconde.getRejets());
+
+        Map<String, Object> latences = new LinkedHashMap<>();
+        for (int i = 0; i < QUANTILES.length; i++) {
+            latences.put(NOMS_QUANTILES[i], millis(vue.percentileMicros(QUANTILES[i])));
+        }
+        latences.put("max", millis(vue.getMaxMicros()));
+        instantane.put("latencyMs", latences);
+
+        instantane.put("inFlight", enCours.get());
+        instantane.put("pools", pools());
+        instantane.put("gc", lireGc());
+        return instantane;
+    }
+
+    /**
+     * Occupation des pools, lue dans les jauges Micrometer enregistrées par Spring Boot
+     */
+    private List<Map<String, Object>> pools() {
+        List<Map<String, Object>> pools = new ArrayList<>();
+        ajouterPool(pools, "db", jauge("hikaricp.connections.active"),
+                jauge("hikaricp.connections.max"), jauge("hikaricp.connections.pending"));
+        return pools;
+    }
+
+    private Gauge jauge(String nom) {
+        return registry.find(nom).gauge();
+    }
+
+    private static void ajouterPool(List<Map<String, Object>> pools, String nom, Gauge actifs, Gauge max, Gauge enAttente) {
+        if (actifs == null || Double.isNaN(actifs.value())) {
+            return;
+        }
+        Map<String, Object> pool = new LinkedHashMap<>();
+        pool.put("name", nom);
+        pool.put("active", (long) actifs.value());
+        pool.put("max", max == null || Double.isNaN(max.value()) ? null : (long) max.value());
+        pool.put("queued", enAttente == null || Double.isNaN(enAttente.value()) ? null : (long) enAttente.value());
+        pools.add(pool);
+    }
+
+    /**
+     * Collections et temps de pause depuis l'appel précédent
+     */
+    private Map<String, Object> lireGc() {
+        long collections = 0;
+        long pausesMs = 0;
+        for (GarbageCollectorMXBean collecteur : collecteurs) {
+            collections += Math.max(collecteur.getCollectionCount(), 0);
+            pausesMs += Math.max(collecteur.getCollectionTime(), 0);
+        }
+        Map<String, Object> gc = new LinkedHashMap<>();
+        gc.put("collections", collections - collectionsPrecedentes);
+        gc.put("pauseMs", pausesMs - pausesPrecedentesMs);
+        collectionsPrecedentes = collections;
+        pausesPrecedentesMs = pausesMs;
+        return gc;
+    }
+
+    private long secondeCourante() {
+        return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - origine);
+    }
+
+    private static double millis(long micros) {
+        return Math.round(micros / 10.0) / 100.0;
+    }
+
+    /**
+     * Ferme les abonnements et arrête la publication
+     */
+    public void shutdown() {
+        publication.shutdownNow();
+        for (SseEmitter abonne : abonnes) {
+            abonne.complete();
+        }
+        abonnes.clear();
+    }
+
+    /**
+     * Mesure d'une requête en cours
+     */
+    public final class Mesure {
+
+        private final long debut;
+        private final AtomicBoolean terminee = new AtomicBoolean();
+
+        private Mesure(long debut) {
+            this.debut = debut;
+        }
+
+        /**
+         * Termine la mesure et l'enregistre dans la fenêtre
+         * @param resultat L'issue de la requête
+         */
+        public void stop(Resultat resultat) {
+            if (!terminee.compareAndSet(false, true)) {
+                return;
+            }
+            enCours.decrementAndGet();
+            long fin = System.nanoTime();
+            long seconde = TimeUnit.NANOSECONDS.toSeconds(fin - origine);
+            if (resultat == Resultat.REJETEE) {
+                fenetre.enregistrerRejet(seconde);
+            } else {
+                fenetre.enregistrer(seconde, TimeUnit.NANOSECONDS.toMicros(fin - debut), resultat == Resultat.ERREUR);
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.hotel.reservation.grpc.live;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Flux Server-Sent Events des métriques en direct
+ *
+ * Servi sur server.port (serveur HTTP de l'actuator), à côté du serveur gRPC.
+ */
+@RestController
+@CrossOrigin(origins = "*") // Le tableau de bord React est servi sur un autre port
+public class LiveMetricsController {
+
+    @Autowired
+    private LiveMetrics liveMetrics;
+
+    /**
+     * GET /metrics/live
+     * Un événement "metrics" (JSON) par seconde
+     * @return Le flux, 503 si le nombre maximal d'abonnés est atteint
+     */
+    @GetMapping(value = "/metrics/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> live() {
+        SseEmitter emetteur = liveMetrics.subscribe();
+        if (emetteur == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+        return ResponseEntity.ok(emetteur);
+    }
+}
@@ -0,0 +1,53 @@
+package com.hotel.reservation.grpc.live;
+
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+
+/**
+ * Intercepteur mesurant les appels gRPC pour les métriques en direct
+ *
+ * Appelé avant le limiteur de concurrence, il compte aussi les rejets (RESOURCE_EXHAUSTED).
+ * La mesure se termine à la fermeture de l'appel, ou à son annulation par le client
+ * (comptée comme une erreur).
+ */
+public class LiveMetricsInterceptor implements ServerInterceptor {
+
+    private final LiveMetrics liveMetrics;
+
+    public LiveMetricsInterceptor(LiveMetrics liveMetrics) {
+        this.liveMetrics = liveMetrics;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call,
+                                                                 Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        LiveMetrics.Mesure mesure = liveMetrics.start();
+
+        ServerCall<ReqT, RespT> appelMesure = new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+            @Override
+            public void close(Status status, Metadata trailers) {
+                mesure.stop(LiveMetrics.resultatGrpc(status));
+                super.close(status, trailers);
+            }
+        };
+
+        try {
+            return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(next.startCall(appelMesure, headers)) {
+                @Override
+                public void onCancel() {
+                    mesure.stop(LiveMetrics.Resultat.ERREUR);
+                    super.onCancel();
+                }
+            };
+        } catch (RuntimeException e) {
+            mesure.stop(LiveMetrics.Resultat.ERREUR);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.hotel.reservation.grpc.live;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fenêtre glissante des requêtes terminées, par tranches d'une seconde, sans verrou
+ *
+ * Chaque tranche compte les requêtes, erreurs et rejets d'une seconde et répartit les
+ * latences dans un histogramme logarithmique : valeurs exactes jusqu'à 31 µs, puis 16
+ * intervalles par puissance de 2 (erreur relative d'au plus 6 %). Un enregistrement ne
+ * fait que des incréments atomiques sur la tranche de sa seconde.
+ *
+ * Les tranches sont remises à zéro une seconde à l'avance par avancer(), appelée chaque
+ * seconde par un seul thread : une tranche n'est jamais remise à zéro pendant qu'elle
+ * reçoit des enregistrements ni pendant qu'elle est lue. Si ce thread prend plus d'une
+ * seconde de retard, les enregistrements de la seconde concernée peuvent être perdus.
+ */
+public class RollingWindow {
+
+    private static final int SOUS_INTERVALLES = 16;
+    private static final int LINEAIRES = 2 * SOUS_INTERVALLES;
+    private static final int NB_INTERVALLES = LINEAIRES + (63 - 5) * SOUS_INTERVALLES;
+
+    private final Tranche[] tranches;
+
+    // Dernière seconde dont la tranche a été préparée (thread de publication uniquement)
+    private long dernierePreparee = -1;
+
+    /**
+     * @param secondes Nombre maximal de secondes complètes lues en une fois
+     */
+    public RollingWindow(int secondes) {
+        // Tranches lues + tranche en cours d'écriture + tranche préparée d'avance + marge
+        this.tranches = new Tranche[secondes + 3];
+        for (int i = 0; i < tranches.length; i++) {
+            tranches[i] = new Tranche();
+        }
+    }
+
+    /**
+     * Enregistre une requête traitée
+     * @param seconde La seconde de fin de la requête
+     * @param latenceMicros Sa latence en microsecondes
+     * @param erreur true si elle a échoué côté serveur
+     */
+    public void enregistrer(long seconde, long latenceMicros, boolean erreur) {
+        Tranche tranche = tranche(seconde);
+        tranche.requetes.increment();
+        if (erreur) {
+            tranche.erreurs.increment();
+        }
+        tranche.latences.incrementAndGet(intervalle(latenceMicros));
+        tranche.max.accumulateAndGet(latenceMicros, Math::max);
+    }
+
+    /**
+     * Enregistre une requête rejetée (limiteur, quota) : comptée à part, hors latences
+     * @param seconde La seconde du rejet
+     */
+    public void enregistrerRejet(long seconde) {
+        tranche(seconde).rejets.increment();
+    }
+
+    /**
+     * Prépare la tranche de la seconde suivant secondeCourante (et celle de la seconde
+     * en cours au démarrage ou après un retard). Appelée chaque seconde, toujours par le
+     * même thread.
+     * @param secondeCourante La seconde en cours
+     */
+    public void avancer(long secondeCourante) {
+        long debut = Math.max(dernierePreparee + 1, secondeCourante);
+        for (long seconde = debut; seconde <= secondeCourante + 1; seconde++) {
+            tranche(seconde).reinitialiser(seconde);
+        }
+        dernierePreparee = Math.max(dernierePreparee, secondeCourante + 1);
+    }
+
+    /**
+     * Cumule les dernières secondes complètes
+     * @param secondeCourante La seconde en cours (non lue)
+     * @param secondes Nombre de secondes à cumuler, au plus celui donné au constructeur
+     * @return Le cumul des tranches de secondeCourante - secondes à secondeCourante - 1
+     */
+    public Vue lire(long secondeCourante, int secondes) {
+        Vue vue = new Vue();
+        for (long seconde = secondeCourante - secondes; seconde < secondeCourante; seconde++) {
+            Tranche tranche = tranche(seconde);
+            // Tranche non préparée pour cette seconde (démarrage, retard de publication) : ignorée
+            if (seconde < 0 || tranche.seconde != seconde) {
+                continue;
+            }
+            vue.requetes += tranche.requetes.sum();
+            vue.erreurs += tranche.erreurs.sum();
+            vue.rejets += tranche.rejets.sum();
+            vue.max = Math.max(vue.max, tranche.max.get());
+            for (int i = 0; i < NB_INTERVALLES; i++) {
+                vue.latences[i] += tranche.latences.get(i);
+            }
+        }
+        return vue;
+    }
+
+    private Tranche tranche(long seconde) {
+        return tranches[(int) Math.floorMod(seconde, (long) tranches.length)];
+    }
+
+    static int intervalle(long micros) {
+        if (micros < LINEAIRES) {
+            return (int) Math.max(micros, 0);
+        }
+        int exposant = 63 - Long.numberOfLeadingZeros(micros);
+        int sousIntervalle = (int) (micros >>> (exposant - 4)) & (SOUS_INTERVALLES - 1);
+        return LINEAIRES + (exposant - 5) * SOUS_INTERVALLES + sousIntervalle;
+    }
+
+    static long borneHaute(int intervalle) {
+        if (intervalle < LINEAIRES) {
+            return intervalle;
+        }
+        int exposant = 5 + (intervalle - LINEAIRES) / SOUS_INTERVALLES;
+        int sousIntervalle = (intervalle - LINEAIRES) % SOUS_INTERVALLES;
+        long largeur = 1L << (exposant - 4);
+        return (SOUS_INTERVALLES + sousIntervalle) * largeur + largeur - 1;
+    }
+
+    /**
+     * Cumul de plusieurs secondes, lu par le thread de publication
+     */
+    public static final class Vue {
+        private long requetes;
+        private long erreurs;
+        private long rejets;
+        private long max;
+        private final long[] latences = new long[NB_INTERVALLES];
+
+        public long getRequetes() {
+            return requetes;
+        }
+
+        public long getErreurs() {
+            return erreurs;
+        }
+
+        public long getRejets() {
+            return rejets;
+        }
+
+        public long getMaxMicros() {
+            return max;
+        }
+
+        /**
+         * @param quantile Entre 0 et 1 (0.99 pour le p99)
+         * @return La latence en microsecondes (borne haute de l'intervalle), 0 sans requête
+         */
+        public long percentileMicros(double quantile) {
+            long total = 0;
+            for (long compte : latences) {
+                total += compte;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rang = Math.max(1, (long) Math.ceil(quantile * total));
+            long cumul = 0;
+            for (int i = 0; i < NB_INTERVALLES; i++) {
+                cumul += latences[i];
+                if (cumul >= rang) {
+                    return Math.min(borneHaute(i), max);
+                }
+            }
+            return max;
+        }
+    }
+
+    /**
+     * Compteurs d'une seconde
+     */
+    private static final class Tranche {
+        private volatile long seconde = -1;
+        private final LongAdder requetes = new LongAdder();
+        private final LongAdder erreurs = new LongAdder();
+        private final LongAdder rejets = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+        private final AtomicLongArray latences = new AtomicLongArray(NB_INTERVALLES);
+
+        private void reinitialiser(long nouvelleSeconde) {
+            requetes.reset();
+            erreurs.reset();
+            rejets.reset();
+            max.set(0);
+            for (int i = 0; i < NB_INTERVALLES; i++) {
+                latences.set(i, 0);
+            }
+            seconde = nouvelleSeconde;
+        }
+    }
+}
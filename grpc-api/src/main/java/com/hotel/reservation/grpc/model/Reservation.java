@@ -1,6 +1,9 @@
 package com.hotel.reservation.grpc.model;
 
+import com.hotel.reservation.grpc.payload.PreferencesConverter;
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
@@ -9,6 +12,7 @@ import java.time.LocalDateTime;
  */
 @Entity
 @Table(name = "reservation")
+@DynamicUpdate // Les UPDATE ne portent que sur les colonnes modifiées
 public class Reservation {
 
     @Id
@@ -30,11 +34,18 @@ public class Reservation {
     private LocalDate dateFin;
 
     @Column(name = "preferences", columnDefinition = "TEXT")
+    @Convert(converter = PreferencesConverter.class) // Compressées en base au-delà de 1 Ko
     private String preferences;
 
     @Column(name = "statut", length = 50)
     private String statut = "CONFIRMEE";
 
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt; // Échéance d'une option (statut EN_ATTENTE), null sinon
+
+    @Column(name = "montant", precision = 12, scale = 2)
+    private BigDecimal montant; // Prix du séjour fixé à la réservation, null pour les plus anciennes
+
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
@@ -112,6 +123,22 @@ public class Reservation {
         this.statut = statut;
     }
 
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public BigDecimal getMontant() {
+        return montant;
+    }
+
+    public void setMontant(BigDecimal montant) {
+        this.montant = montant;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
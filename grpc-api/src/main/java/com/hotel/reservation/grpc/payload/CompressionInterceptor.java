@@ -0,0 +1,48 @@
+package com.hotel.reservation.grpc.payload;
+
+import com.google.protobuf.MessageLite;
+import io.grpc.ForwardingServerCall;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+
+/**
+ * Intercepteur gRPC qui compresse les messages de réponse volumineux
+ *
+ * Le compresseur (gzip) n'est utilisé que si le client l'annonce dans grpc-accept-encoding,
+ * et seulement pour les messages d'au moins minOctets : les petites réponses restent
+ * non compressées. Les requêtes compressées par le client sont décompressées par gRPC.
+ */
+public class CompressionInterceptor implements ServerInterceptor {
+
+    private final String compresseur;
+    private final int minOctets;
+
+    public CompressionInterceptor(String compresseur, int minOctets) {
+        this.compresseur = compresseur;
+        this.minOctets = minOctets;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call,
+                                                                 Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        call.setCompression(compresseur);
+        return next.startCall(new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+            @Override
+            public void sendMessage(RespT message) {
+                setMessageCompression(taille(message) >= minOctets);
+                super.sendMessage(message);
+            }
+        }, headers);
+    }
+
+    private static int taille(Object message) {
+        if (message instanceof MessageLite proto) {
+            return proto.getSerializedSize();
+        }
+        // Réponses pré-encodées (voir CatalogMethods)
+        return message instanceof byte[] octets ? octets.length : Integer.MAX_VALUE;
+    }
+}
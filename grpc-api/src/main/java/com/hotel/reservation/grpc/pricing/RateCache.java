@@ -0,0 +1,392 @@
+package com.hotel.reservation.grpc.pricing;
+
+import com.hotel.reservation.grpc.availability.AvailabilityIndex;
+import com.hotel.reservation.grpc.model.Chambre;
+import com.hotel.reservation.grpc.model.SaisonTarifaire;
+import com.hotel.reservation.grpc.model.TarifJour;
+import com.hotel.reservation.grpc.repository.ChambreRepository;
+import com.hotel.reservation.grpc.repository.SaisonTarifaireRepository;
+import com.hotel.reservation.grpc.repository.TarifJourRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Devis d'un séjour, calculé sur des grilles tarifaires en mémoire
+ *
+ * Le prix d'une nuit est le prix de la chambre multiplié par le coefficient de la saison
+ * (SaisonTarifaire) et par celui du jour de la semaine (TarifJour), arrondi au centime.
+ * Une règle propre au type de chambre l'emporte sur une règle de tous les types ; entre
+ * deux saisons de même portée, la plus récente (plus grand ID) l'emporte.
+ *
+ * Les prix sont calculés une fois par chargement, pour chaque type et chaque prix de chambre
+ * (les chambres d'un même type au même prix partagent leur grille), sur horizon-days nuits à
+ * partir d'aujourd'hui. Chaque grille est un tableau de centimes cumulés indexé par jour :
+ * un devis est une soustraction de deux cases, sans BigDecimal ni boucle sur les nuits.
+ *
+ * Le prix d'un séjour réservé est calculé de la même façon et enregistré avec la réservation
+ * (priceStay) : les changements de tarifs ou de prix ne modifient pas les séjours déjà vendus.
+ *
+ * Le cache est invalidé après la validation d'une modification des tarifs ou des chambres
+ * faite par ce module, et toutes les check-interval-ms si l'empreinte des tables (nombre de
+ * lignes, dernière modification) a changé, pour les modifications faites ailleurs. Il est
+ * aussi reconstruit au changement de jour. Un chargement commencé avant une invalidation
+ * n'est pas conservé après elle.
+ *
+ * Métriques exposées : pricing.quotes, pricing.cache.load.
+ */
+@Component
+public class RateCache {
+
+    private static final Logger log = LoggerFactory.getLogger(RateCache.class);
+
+    // 100 % : une nuit sans saison ni tarif par jour est au prix de la chambre
+    private static final BigDecimal NEUTRE = BigDecimal.ONE;
+
+    @Autowired
+    private ChambreRepository chambreRepository;
+
+    @Autowired
+    private SaisonTarifaireRepository saisonTarifaireRepository;
+
+    @Autowired
+    private TarifJourRepository tarifJourRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${pricing.horizon-days:730}")
+    private int horizonJours;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final ReentrantLock chargement = new ReentrantLock();
+
+    // Null tant que les grilles ne sont pas chargées, ou après une invalidation
+    private volatile Grilles grilles;
+
+    private Counter devis;
+    private Timer duree;
+
+    @PostConstruct
+    void initialiser() {
+        devis = Counter.builder("pricing.quotes").description("Devis calculés").register(meterRegistry);
+        duree = Timer.builder("pricing.cache.load")
+                .description("Chargement des grilles tarifaires")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return true si les grilles sont chargées (un devis ne va pas en base)
+     */
+    public boolean isReady() {
+        return grilles != null;
+    }
+
+    /**
+     * Calcule le prix d'un séjour dans une chambre
+     * @param chambreId L'ID de la chambre
+     * @param debut Date d'arrivée (incluse, au plus tôt aujourd'hui)
+     * @param fin Date de départ (exclue, au plus horizon-days jours après aujourd'hui)
+     * @return Le devis
+     * @throws IllegalArgumentException Si la période est invalide ou dépasse l'horizon
+     * @throws RuntimeException Si la chambre n'existe pas
+     */
+    public Devis quoteRoom(Long chambreId, LocalDate debut, LocalDate fin) {
+        AvailabilityIndex.checkPeriod(debut, fin);
+        Grilles courantes = grilles();
+        Grille grille = chambreId == null ? null : courantes.parChambre.get(chambreId);
+        if (grille == null) {
+            throw new RuntimeException("Chambre non trouvée avec l'ID: " + chambreId);
+        }
+        return devis(courantes, grille, chambreId, debut, fin);
+    }
+
+    /**
+     * Calcule le prix d'un séjour dans la chambre la moins chère d'un type
+     * @param type Le type de chambre (insensible à la casse)
+     * @param debut Date d'arrivée (incluse, au plus tôt aujourd'hui)
+     * @param fin Date de départ (exclue, au plus horizon-days jours après aujourd'hui)
+     * @return Le devis « à partir de », sans chambre
+     * @throws IllegalArgumentException Si la période est invalide ou dépasse l'horizon
+     * @throws RuntimeException Si aucune chambre n'est de ce type
+     */
+    public Devis quoteType(String type, LocalDate debut, LocalDate fin) {
+        AvailabilityIndex.checkPeriod(debut, fin);
+        if (type == null || type.isBlank()) {
+            throw new IllegalArgumentException("Le type de chambre est obligatoire");
+        }
+        Grilles courantes = grilles();
+        Grille grille = courantes.parType.get(type.toLowerCase(Locale.ROOT));
+        if (grille == null) {
+            throw new RuntimeException("Type de chambre non trouvé : " + type);
+        }
+        return devis(courantes, grille, null, debut, fin);
+    }
+
+    /**
+     * Prix d'un séjour au moment où il est réservé, enregistré avec la réservation (montant)
+     * Calculé sur les grilles pour un séjour dans leur horizon ; sinon (séjour passé ou
+     * au-delà de l'horizon), au prix par nuit de la chambre. Ne compte pas comme un devis.
+     * @param chambre La chambre réservée, lue dans la transaction en cours
+     * @param debut Date d'arrivée (incluse)
+     * @param fin Date de départ (exclue, après debut)
+     * @return Le prix du séjour
+     */
+    public BigDecimal priceStay(Chambre chambre, LocalDate debut, LocalDate fin) {
+        Grilles courantes = grilles();
+        Grille grille = courantes.parChambre.get(chambre.getId());
+        int de = (int) debut.toEpochDay() - courantes.origine;
+        int a = (int) fin.toEpochDay() - courantes.origine;
+        if (grille != null && de >= 0 && a <= courantes.horizon) {
+            return BigDecimal.valueOf(grille.cumul[a] - grille.cumul[de], 2);
+        }
+        return chambre.getPrix().multiply(BigDecimal.valueOf(fin.toEpochDay() - debut.toEpochDay()))
+                .setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private Devis devis(Grilles courantes, Grille grille, Long chambreId, LocalDate debut, LocalDate fin) {
+        int de = (int) debut.toEpochDay() - courantes.origine;
+        int a = (int) fin.toEpochDay() - courantes.origine;
+        if (de < 0 || a > courantes.horizon) {
+            throw new IllegalArgumentException("Période hors de l'horizon des tarifs");
+        }
+        devis.increment();
+        long centimes = grille.cumul[a] - grille.cumul[de];
+        return new Devis(chambreId, grille.type, debut, fin, a - de, BigDecimal.valueOf(centimes, 2));
+    }
+
+    /**
+     * Invalide les grilles après la validation de la transaction en cours
+     * (immédiatement s'il n'y a pas de transaction)
+     */
+    public void invalidateAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate();
+                }
+            });
+        } else {
+            invalidate();
+        }
+    }
+
+    /**
+     * Invalide les grilles : le prochain devis (ou la prochaine vérification) les recharge
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        grilles = null;
+    }
+
+    /**
+     * Vérification périodique : recharge les grilles si les tarifs ou les chambres ont changé
+     * (dans n'importe quel module) ou si le jour a changé
+     */
+    @Scheduled(fixedDelayString = "${pricing.cache.check-interval-ms:5000}")
+    public void verifier() {
+        try {
+            Grilles courantes = grilles;
+            if (courantes != null && (courantes.origine != (int) LocalDate.now().toEpochDay()
+                    || !courantes.empreinte.equals(saisonTarifaireRepository.findPricingSignature()))) {
+                invalidate();
+            }
+            grilles();
+        } catch (RuntimeException e) {
+            // La base peut être indisponible : nouvel essai au prochain passage
+            log.warn("Chargement des grilles tarifaires impossible", e);
+        }
+    }
+
+    private Grilles grilles() {
+        Grilles courantes = grilles;
+        return courantes != null ? courantes : charger();
+    }
+
+    private Grilles charger() {
+        chargement.lock();
+        try {
+            Grilles courantes = grilles;
+            if (courantes != null) {
+                return courantes;
+            }
+            long generationLue = generation.get();
+            Grilles nouvelles = duree.record(this::construire);
+            // Une invalidation pendant la lecture : ces grilles servent ce devis, sans être conservées
+            if (generation.get() == generationLue) {
+                grilles = nouvelles;
+            }
+            return nouvelles;
+        } finally {
+            chargement.unlock();
+        }
+    }
+
+    private Grilles construire() {
+        // Empreinte lue avant les tables : une modification pendant la lecture sera revue
+        String empreinte = saisonTarifaireRepository.findPricingSignature();
+        int origine = (int) LocalDate.now().toEpochDay();
+        List<SaisonTarifaire> saisons = saisonTarifaireRepository.findAll(Sort.by("id"));
+        List<TarifJour> jours = tarifJourRepository.findAll(Sort.by("id"));
+
+        // Chambres par type (en minuscules) puis par prix : une grille par prix
+        Map<String, TreeMap<BigDecimal, List<Chambre>>> classes = new HashMap<>();
+        for (Chambre chambre : chambreRepository.findAll()) {
+            classes.computeIfAbsent(chambre.getType().toLowerCase(Locale.ROOT), t -> new TreeMap<>())
+                    .computeIfAbsent(chambre.getPrix(), p -> new ArrayList<>())
+                    .add(chambre);
+        }
+
+        Map<Long, Grille> parChambre = new HashMap<>();
+        Map<String, Grille> parType = new HashMap<>();
+        for (Map.Entry<String, TreeMap<BigDecimal, List<Chambre>>> entree : classes.entrySet()) {
+            BigDecimal[] coefficients = coefficients(entree.getKey(), saisons, jours, origine);
+            for (Map.Entry<BigDecimal, List<Chambre>> classe : entree.getValue().entrySet()) {
+                Grille grille = new Grille(classe.getValue().get(0).getType(),
+                        cumul(classe.getKey(), coefficients));
+                for (Chambre chambre : classe.getValue()) {
+                    parChambre.put(chambre.getId(), grille);
+                }
+                // Prix croissants : la première grille du type est la moins chère
+                parType.putIfAbsent(entree.getKey(), grille);
+            }
+        }
+        return new Grilles(empreinte, origine, horizonJours, parChambre, parType);
+    }
+
+    /**
+     * Coefficient de chaque nuit de l'horizon pour un type : saison × jour de la semaine
+     * Les règles de tous les types sont appliquées d'abord, puis celles du type, chacune
+     * dans l'ordre des IDs : la dernière appliquée l'emporte.
+     */
+    private BigDecimal[] coefficients(String type, List<SaisonTarifaire> saisons, List<TarifJour> jours, int origine) {
+        BigDecimal[] saison = new BigDecimal[horizonJours];
+        Arrays.fill(saison, NEUTRE);
+        BigDecimal[] jour = new BigDecimal[8];
+        Arrays.fill(jour, NEUTRE);
+        for (boolean propre : new boolean[] {false, true}) {
+            for (SaisonTarifaire regle : saisons) {
+                if (concerne(regle.getType(), type, propre)) {
+                    int de = Math.max((int) regle.getDateDebut().toEpochDay() - origine, 0);
+                    int a = Math.min((int) regle.getDateFin().toEpochDay() - origine, horizonJours);
+                    for (int i = de; i < a; i++) {
+                        saison[i] = regle.getCoefficient();
+                    }
+                }
+            }
+            for (TarifJour regle : jours) {
+                if (concerne(regle.getType(), type, propre)) {
+                    jour[regle.getJourSemaine()] = regle.getCoefficient();
+                }
+            }
+        }
+        BigDecimal[] nuits = new BigDecimal[horizonJours];
+        for (int i = 0; i < horizonJours; i++) {
+            // Jour epoch 0 (1970-01-01) : un jeudi, jour 4 de la semaine ISO
+            nuits[i] = saison[i].multiply(jour[Math.floorMod(origine + i + 3, 7) + 1]);
+        }
+        return nuits;
+    }
+
+    private static boolean concerne(String typeRegle, String type, boolean propre) {
+        return propre ? typeRegle != null && typeRegle.equalsIgnoreCase(type) : typeRegle == null;
+    }
+
+    /**
+     * @return Les centimes cumulés : cumul[i] = prix des nuits 0 à i - 1 de l'horizon
+     */
+    private static long[] cumul(BigDecimal prix, BigDecimal[] coefficients) {
+        long[] cumul = new long[coefficients.length + 1];
+        for (int i = 0; i < coefficients.length; i++) {
+            long centimes = prix.multiply(coefficients[i]).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+            cumul[i + 1] = cumul[i] + centimes;
+        }
+        return cumul;
+    }
+
+    /**
+     * Grilles chargées, immuables : par chambre et, pour chaque type, celle de la chambre la moins chère
+     */
+    private static final class Grilles {
+        private final String empreinte;
+        private final int origine;
+        private final int horizon;
+        private final Map<Long, Grille> parChambre;
+        private final Map<String, Grille> parType;
+
+        private Grilles(String empreinte, int origine, int horizon, Map<Long, Grille> parChambre, Map<String, Grille> parType) {
+            this.empreinte = empreinte;
+            this.origine = origine;
+            this.horizon = horizon;
+            this.parChambre = parChambre;
+            this.parType = parType;
+        }
+    }
+
+    /**
+     * Grille d'un type et d'un prix de chambre : centimes cumulés nuit après nuit depuis l'origine
+     */
+    private static final class Grille {
+        private final String type;
+        private final long[] cumul;
+
+        private Grille(String type, long[] cumul) {
+            this.type = type;
+            this.cumul = cumul;
+        }
+    }
+
+    /**
+     * Devis d'un séjour : prix total des nuits de dateDebut à la veille de dateFin
+     */
+    public static final class Devis {
+        private final Long chambreId;
+        private final String type;
+        private final LocalDate dateDebut;
+        private final LocalDate dateFin;
+        private final int nuits;
+        private final BigDecimal total;
+
+        private Devis(Long chambreId, String type, LocalDate dateDebut, LocalDate dateFin, int nuits, BigDecimal total) {
+            this.chambreId = chambreId;
+            this.type = type;
+            this.dateDebut = dateDebut;
+            this.dateFin = dateFin;
+            this.nuits = nuits;
+            this.total = total;
+        }
+
+        /** La chambre, null pour un devis par type (chambre la moins chère du type) */
+        public Long getChambreId() { return chambreId; }
+        public String getType() { return type; }
+        public LocalDate getDateDebut() { return dateDebut; }
+        public LocalDate getDateFin() { return dateFin; }
+        public int getNuits() { return nuits; }
+        public BigDecimal getTotal() { return total; }
+    }
+}
@@ -1,17 +1,50 @@
 package com.hotel.reservation.grpc.service;
 
+import com.hotel.reservation.grpc.admission.BookingConflictException;
+import com.hotel.reservation.grpc.admission.RoomAdmission;
+import com.hotel.reservation.grpc.assignment.RoomAssignment;
+import com.hotel.reservation.grpc.availability.AvailabilityIndex;
+import com.hotel.reservation.grpc.calendar.CalendarGrid;
+import com.hotel.reservation.grpc.cache.NearCache;
+import com.hotel.reservation.grpc.group.GroupBooking;
+import com.hotel.reservation.grpc.hold.HoldExpiredException;
+import com.hotel.reservation.grpc.hold.HoldManager;
+import com.hotel.reservation.grpc.idempotency.IdempotencyConflictException;
+import com.hotel.reservation.grpc.idempotency.IdempotencyKeyInterceptor;
+import com.hotel.reservation.grpc.idempotency.IdempotencyStore;
+import com.hotel.reservation.grpc.inventory.DailyInventory;
+import com.hotel.reservation.grpc.inventory.OccupancyViews;
 import com.hotel.reservation.grpc.model.Client;
 import com.hotel.reservation.grpc.model.Chambre;
 import com.hotel.reservation.grpc.model.Reservation;
+import com.hotel.reservation.grpc.payload.PreferencesCodec;
+import com.hotel.reservation.grpc.payload.PreferencesTooLargeException;
+import com.hotel.reservation.grpc.pricing.RateCache;
 import com.hotel.reservation.grpc.repository.ClientRepository;
 import com.hotel.reservation.grpc.repository.ChambreRepository;
 import com.hotel.reservation.grpc.repository.ReservationRepository;
+import com.hotel.reservation.grpc.stats.ReservationCounters;
+import com.google.protobuf.UnsafeByteOperations;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Implémentation du service gRPC pour les réservations
@@ -22,6 +55,12 @@ import java.util.List;
 @Service
 public class ReservationServiceImpl extends ReservationServiceGrpc.ReservationServiceImplBase {
 
+    /** Nombre maximal d'IDs acceptés par GetReservations */
+    private static final int MAX_IDS_PAR_REQUETE = 500;
+
+    /** Taille des morceaux envoyés par GetPreferences */
+    private static final int TAILLE_MORCEAU = 32 * 1024;
+
     @Autowired
     private ClientRepository clientRepository;
 
@@ -31,27 +70,202 @@ public class ReservationServiceImpl extends ReservationServiceGrpc.ReservationSe
     @Autowired
     private ReservationRepository reservationRepository;
 
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private NearCache<Long, com.hotel.reservation.grpc.Reservation> reservationCache;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private RoomAdmission roomAdmission;
+
+    @Autowired
+    private HoldManager holdManager;
+
+    @Autowired
+    private GroupBooking groupBooking;
+
+    @Autowired
+    private RoomAssignment roomAssignment;
+
+    @Autowired
+    private CalendarGrid calendarGrid;
+
+    @Autowired
+    private RateCache rateCache;
+
+    @Autowired
+    private DailyInventory dailyInventory;
+
+    @Autowired
+    private ReservationCounters reservationCounters;
+
+    @Autowired
+    private OccupancyViews occupancyViews;
+
+    @Value("${payload.preferences.max-bytes:1048576}")
+    private long maxPreferencesBytes;
+
     /**
      * Crée une nouvelle réservation
+     * 
+     * Avec la métadonnée idempotency-key, une nouvelle tentative portant la même
+     * clé renvoie la réservation créée la première fois sans en créer une autre. La même
+     * clé envoyée avec une autre requête est refusée avec FAILED_PRECONDITION.
+     * 
+     * Les créations d'une même chambre passent une par une (RoomAdmission) : une période
+     * qui chevauche une réservation non annulée de la chambre est refusée avec ALREADY_EXISTS,
+     * une attente trop longue du verrou de la chambre avec UNAVAILABLE. Une chambre hors service
+     * ou une date de fin non postérieure à la date de début donne INVALID_ARGUMENT.
      */
     @Override
     public void createReservation(com.hotel.reservation.grpc.CreateReservationRequest request,
                                   StreamObserver<com.hotel.reservation.grpc.ReservationResponse> responseObserver) {
         try {
-            Client client = clientRepository.findById(request.getClientId())
-                    .orElseThrow(() -> new RuntimeException("Client non trouvé"));
+            Reservation saved;
+            String idempotencyKey = IdempotencyKeyInterceptor.IDEMPOTENCY_KEY.get();
+            if (idempotencyKey == null) {
+                saved = roomAdmission.admit(request.getChambreId(),
+                        () -> transactionTemplate.execute(status -> creerReservation(request, "CONFIRMEE")));
+            } else {
+                if (!IdempotencyStore.isValidKey(idempotencyKey)) {
+                    responseObserver.onError(Status.INVALID_ARGUMENT
+                            .withDescription("Clé d'idempotence invalide")
+                            .asRuntimeException());
+                    return;
+                }
+                String empreinte = IdempotencyStore.empreinte(request.getClientId(), request.getChambreId(),
+                        LocalDate.parse(request.getDateDebut()), LocalDate.parse(request.getDateFin()),
+                        "CONFIRMEE", request.getPreferences());
+                // Verrou de la chambre pris seulement pour créer : une nouvelle tentative rejoint la création en cours
+                Long id = idempotencyStore.execute(idempotencyKey, empreinte,
+                        enregistrement -> roomAdmission.admit(request.getChambreId(), enregistrement),
+                        () -> creerReservation(request, "CONFIRMEE").getId());
+                saved = reservationRepository.findById(id)
+                        .orElseThrow(() -> new RuntimeException("Réservation non trouvée"));
+            }
             
-            Chambre chambre = chambreRepository.findById(request.getChambreId())
-                    .orElseThrow(() -> new RuntimeException("Chambre non trouvée"));
+            com.hotel.reservation.grpc.ReservationResponse response = 
+                com.hotel.reservation.grpc.ReservationResponse.newBuilder()
+                    .setReservation(convertToProto(saved))
+                    .build();
+            
+            responseObserver.onNext(response);
+            responseObserver.onCompleted();
+        } catch (BookingConflictException e) {
+            responseObserver.onError(Status.ALREADY_EXISTS.withDescription(e.getMessage()).asRuntimeException());
+        } catch (IdempotencyConflictException e) {
+            responseObserver.onError(Status.FAILED_PRECONDITION.withDescription(e.getMessage()).asRuntimeException());
+        } catch (RejectedExecutionException e) {
+            responseObserver.onError(Status.UNAVAILABLE.withDescription(e.getMessage()).asRuntimeException());
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+        } catch (Exception e) {
+            responseObserver.onError(e);
+        }
+    }
+
+    /**
+     * Réserve plusieurs chambres et séjours en une seule transaction : tous ou aucun
+     * 
+     * Les chambres sont verrouillées dans l'ordre croissant de leurs IDs et les réservations
+     * insérées en un seul lot (GroupBooking). Un groupe refusé donne ALREADY_EXISTS avec la liste
+     * des chambres en conflit ou hors service, un groupe invalide INVALID_ARGUMENT.
+     */
+    @Override
+    public void createGroupReservation(com.hotel.reservation.grpc.CreateGroupReservationRequest request,
+                                       StreamObserver<com.hotel.reservation.grpc.GroupReservationResponse> responseObserver) {
+        try {
+            List<GroupBooking.Ligne> lignes = new ArrayList<>();
+            for (com.hotel.reservation.grpc.GroupSejour sejour : request.getSejoursList()) {
+                lignes.add(new GroupBooking.Ligne(sejour.getChambreId(),
+                        LocalDate.parse(sejour.getDateDebut()), LocalDate.parse(sejour.getDateFin())));
+            }
+            
+            com.hotel.reservation.grpc.GroupReservationResponse.Builder builder = 
+                com.hotel.reservation.grpc.GroupReservationResponse.newBuilder();
+            for (GroupBooking.Ligne ligne : groupBooking.book(request.getClientId(), lignes)) {
+                builder.addSejours(com.hotel.reservation.grpc.GroupSejour.newBuilder()
+                        .setChambreId(ligne.getChambreId())
+                        .setDateDebut(ligne.getDateDebut().toString())
+                        .setDateFin(ligne.getDateFin().toString())
+                        .setReservationId(ligne.getReservationId())
+                        .setResultat(ligne.getResultat()));
+            }
+            
+            responseObserver.onNext(builder.build());
+            responseObserver.onCompleted();
+        } catch (BookingConflictException e) {
+            responseObserver.onError(Status.ALREADY_EXISTS.withDescription(e.getMessage()).asRuntimeException());
+        } catch (RejectedExecutionException e) {
+            responseObserver.onError(Status.UNAVAILABLE.withDescription(e.getMessage()).asRuntimeException());
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+        } catch (Exception e) {
+            responseObserver.onError(e);
+        }
+    }
+
+    /**
+     * Réserve une chambre d'un type donné : le service choisit la chambre
+     * 
+     * La chambre retenue est la mieux ajustée au calendrier parmi les chambres libres du type
+     * (RoomAssignment) : celle qui laisse le moins de nuits isolées invendables. Aucune chambre
+     * libre donne ALREADY_EXISTS, un type ou une période invalide INVALID_ARGUMENT.
+     */
+    @Override
+    public void createReservationByType(com.hotel.reservation.grpc.CreateReservationByTypeRequest request,
+                                        StreamObserver<com.hotel.reservation.grpc.ReservationResponse> responseObserver) {
+        try {
+            Reservation saved = roomAssignment.assign(request.getType(), LocalDate.parse(request.getDateDebut()),
+                    LocalDate.parse(request.getDateFin()), chambreId -> {
+                        com.hotel.reservation.grpc.CreateReservationRequest creation =
+                            com.hotel.reservation.grpc.CreateReservationRequest.newBuilder()
+                                .setClientId(request.getClientId())
+                                .setChambreId(chambreId)
+                                .setDateDebut(request.getDateDebut())
+                                .setDateFin(request.getDateFin())
+                                .setPreferences(request.getPreferences())
+                                .build();
+                        return transactionTemplate.execute(status -> creerReservation(creation, "CONFIRMEE"));
+                    });
             
-            Reservation reservation = new Reservation();
-            reservation.setClient(client);
-            reservation.setChambre(chambre);
-            reservation.setDateDebut(LocalDate.parse(request.getDateDebut()));
-            reservation.setDateFin(LocalDate.parse(request.getDateFin()));
-            reservation.setPreferences(request.getPreferences());
+            com.hotel.reservation.grpc.ReservationResponse response = 
+                com.hotel.reservation.grpc.ReservationResponse.newBuilder()
+                    .setReservation(convertToProto(saved))
+                    .build();
             
-            Reservation saved = reservationRepository.save(reservation);
+            responseObserver.onNext(response);
+            responseObserver.onCompleted();
+        } catch (BookingConflictException e) {
+            responseObserver.onError(Status.ALREADY_EXISTS.withDescription(e.getMessage()).asRuntimeException());
+        } catch (RejectedExecutionException e) {
+            responseObserver.onError(Status.UNAVAILABLE.withDescription(e.getMessage()).asRuntimeException());
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+        } catch (Exception e) {
+            responseObserver.onError(e);
+        }
+    }
+
+    /**
+     * Pose une option : la chambre est bloquée jusqu'à l'échéance (hold.ttl-minutes)
+     * 
+     * L'option expire (statut ANNULEE) si elle n'est pas confirmée par ConfirmHold avant
+     * expires_at. Mêmes refus qu'une création : ALREADY_EXISTS, UNAVAILABLE, INVALID_ARGUMENT.
+     */
+    @Override
+    public void placeHold(com.hotel.reservation.grpc.CreateReservationRequest request,
+                          StreamObserver<com.hotel.reservation.grpc.ReservationResponse> responseObserver) {
+        try {
+            Reservation saved = roomAdmission.admit(request.getChambreId(),
+                    () -> transactionTemplate.execute(status -> creerReservation(request, HoldManager.EN_ATTENTE)));
             
             com.hotel.reservation.grpc.ReservationResponse response = 
                 com.hotel.reservation.grpc.ReservationResponse.newBuilder()
@@ -60,24 +274,134 @@ public class ReservationServiceImpl extends ReservationServiceGrpc.ReservationSe
             
             responseObserver.onNext(response);
             responseObserver.onCompleted();
+        } catch (BookingConflictException e) {
+            responseObserver.onError(Status.ALREADY_EXISTS.withDescription(e.getMessage()).asRuntimeException());
+        } catch (RejectedExecutionException e) {
+            responseObserver.onError(Status.UNAVAILABLE.withDescription(e.getMessage()).asRuntimeException());
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
         } catch (Exception e) {
             responseObserver.onError(e);
         }
     }
 
+    /**
+     * Confirme une option avant son échéance
+     * 
+     * La ligne est verrouillée : l'expiration de l'option passe avant ou après, jamais
+     * pendant. Une option expirée ou annulée est refusée avec FAILED_PRECONDITION.
+     */
+    @Override
+    public void confirmHold(com.hotel.reservation.grpc.GetReservationRequest request,
+                            StreamObserver<com.hotel.reservation.grpc.ReservationResponse> responseObserver) {
+        try {
+            Optional<Reservation> confirmee = transactionTemplate.execute(status -> {
+                Optional<Reservation> trouvee = reservationRepository.findByIdForUpdate(request.getId());
+                if (trouvee.isEmpty() || "CONFIRMEE".equals(trouvee.get().getStatut())) {
+                    return trouvee;
+                }
+                Reservation reservation = trouvee.get();
+                if (!HoldManager.EN_ATTENTE.equals(reservation.getStatut()) || reservation.getExpiresAt() == null
+                        || !reservation.getExpiresAt().isAfter(LocalDateTime.now())) {
+                    throw new HoldExpiredException("L'option a expiré ou a été annulée");
+                }
+                reservationCache.invalidateAfterCommit(reservation.getId());
+                // Mêmes nuits vendues ; le séjour entre dans le revenu
+                dailyInventory.release(reservation);
+                reservationCounters.remove(reservation);
+                reservation.setStatut("CONFIRMEE");
+                dailyInventory.sell(reservation);
+                reservationCounters.add(reservation);
+                reservation.setExpiresAt(null);
+                holdManager.untrackAfterCommit(reservation.getId(), true);
+                return trouvee;
+            });
+            
+            if (confirmee.isEmpty()) {
+                responseObserver.onError(Status.NOT_FOUND
+                        .withDescription("Réservation non trouvée")
+                        .asRuntimeException());
+                return;
+            }
+            
+            com.hotel.reservation.grpc.ReservationResponse response = 
+                com.hotel.reservation.grpc.ReservationResponse.newBuilder()
+                    .setReservation(convertToProto(confirmee.get()))
+                    .build();
+            
+            responseObserver.onNext(response);
+            responseObserver.onCompleted();
+        } catch (HoldExpiredException e) {
+            responseObserver.onError(Status.FAILED_PRECONDITION.withDescription(e.getMessage()).asRuntimeException());
+        } catch (Exception e) {
+            responseObserver.onError(e);
+        }
+    }
+
+    /**
+     * Crée la réservation dans la transaction courante
+     * 
+     * La ligne de la chambre est verrouillée jusqu'au commit avant la recherche de
+     * chevauchement : deux créations simultanées sur la même chambre, dans ce module
+     * ou dans un autre, ne peuvent pas réserver les mêmes nuits.
+     * 
+     * @param statut CONFIRMEE, ou EN_ATTENTE pour une option dont l'échéance est fixée ici
+     * @throws IllegalArgumentException si la chambre est hors service ou si la date de fin n'est pas postérieure à la date de début
+     */
+    private Reservation creerReservation(com.hotel.reservation.grpc.CreateReservationRequest request, String statut) {
+        Client client = clientRepository.findById(request.getClientId())
+                .orElseThrow(() -> new RuntimeException("Client non trouvé"));
+        
+        Chambre chambre = chambreRepository.findByIdForUpdate(request.getChambreId())
+                .orElseThrow(() -> new RuntimeException("Chambre non trouvée"));
+        
+        Reservation reservation = new Reservation();
+        reservation.setClient(client);
+        reservation.setChambre(chambre);
+        reservation.setDateDebut(LocalDate.parse(request.getDateDebut()));
+        reservation.setDateFin(LocalDate.parse(request.getDateFin()));
+        reservation.setPreferences(request.getPreferences());
+        reservation.setStatut(statut);
+        
+        if (!chambre.getDisponible()) {
+            throw new IllegalArgumentException("La chambre n'est pas disponible");
+        }
+        if (!reservation.getDateFin().isAfter(reservation.getDateDebut())) {
+            throw new IllegalArgumentException("La date de fin doit être postérieure à la date de début");
+        }
+        
+        reservation.setMontant(rateCache.priceStay(chambre, reservation.getDateDebut(), reservation.getDateFin()));
+        reservation.setExpiresAt(HoldManager.EN_ATTENTE.equals(statut) ? holdManager.newExpiry() : null);
+        
+        verifierChevauchement(reservation, null);
+        
+        Reservation saved = reservationRepository.save(reservation);
+        dailyInventory.sell(saved);
+        reservationCounters.add(saved);
+        availabilityIndex.updateAfterCommit(saved);
+        if (saved.getExpiresAt() != null) {
+            holdManager.trackAfterCommit(saved.getId(), saved.getExpiresAt());
+        }
+        return saved;
+    }
+
     /**
      * Récupère une réservation par son ID
+     * 
+     * Le message proto (immuable) est servi par le cache local : les appels simultanés
+     * pour un même ID absent du cache ne déclenchent qu'une requête.
      */
     @Override
     public void getReservation(com.hotel.reservation.grpc.GetReservationRequest request,
                                StreamObserver<com.hotel.reservation.grpc.ReservationResponse> responseObserver) {
         try {
-            Reservation reservation = reservationRepository.findById(request.getId())
+            com.hotel.reservation.grpc.Reservation reservation = reservationCache
+                    .get(request.getId(), id -> reservationRepository.findById(id).map(this::convertToProto))
                     .orElseThrow(() -> new RuntimeException("Réservation non trouvée"));
             
             com.hotel.reservation.grpc.ReservationResponse response = 
                 com.hotel.reservation.grpc.ReservationResponse.newBuilder()
-                    .setReservation(convertToProto(reservation))
+                    .setReservation(reservation)
                     .build();
             
             responseObserver.onNext(response);
@@ -87,6 +411,47 @@ public class ReservationServiceImpl extends ReservationServiceGrpc.ReservationSe
         }
     }
 
+    /**
+     * Récupère plusieurs réservations par leurs IDs en une seule requête IN
+     * Les résultats suivent l'ordre des IDs demandés
+     */
+    @Override
+    public void getReservations(com.hotel.reservation.grpc.GetReservationsRequest request,
+                                StreamObserver<com.hotel.reservation.grpc.ReservationLookupListResponse> responseObserver) {
+        try {
+            List<Long> ids = request.getIdsList();
+            if (ids.size() > MAX_IDS_PAR_REQUETE) {
+                responseObserver.onError(Status.INVALID_ARGUMENT
+                        .withDescription("Trop d'IDs demandés (maximum " + MAX_IDS_PAR_REQUETE + ")")
+                        .asRuntimeException());
+                return;
+            }
+
+            Map<Long, Reservation> parId = new HashMap<>();
+            for (Reservation reservation : reservationRepository.findAllById(new LinkedHashSet<>(ids))) {
+                parId.put(reservation.getId(), reservation);
+            }
+
+            com.hotel.reservation.grpc.ReservationLookupListResponse.Builder builder = 
+                com.hotel.reservation.grpc.ReservationLookupListResponse.newBuilder();
+            
+            for (Long id : ids) {
+                com.hotel.reservation.grpc.ReservationLookup.Builder lookup = 
+                    com.hotel.reservation.grpc.ReservationLookup.newBuilder().setId(id);
+                Reservation reservation = parId.get(id);
+                if (reservation != null) {
+                    lookup.setFound(true).setReservation(convertToProto(reservation));
+                }
+                builder.addResults(lookup);
+            }
+            
+            responseObserver.onNext(builder.build());
+            responseObserver.onCompleted();
+        } catch (Exception e) {
+            responseObserver.onError(e);
+        }
+    }
+
     /**
      * Récupère toutes les réservations
      */
@@ -111,40 +476,87 @@ public class ReservationServiceImpl extends ReservationServiceGrpc.ReservationSe
     }
 
     /**
-     * Met à jour une réservation
+     * Met à jour partiellement une réservation
+     * 
+     * Seuls les champs présents dans la requête sont appliqués. Le client et la chambre
+     * sont affectés par référence après une vérification d'existence ; l'entité gérée est
+     * flushée au commit avec un UPDATE limité aux colonnes modifiées.
      */
     @Override
     public void updateReservation(com.hotel.reservation.grpc.UpdateReservationRequest request,
                                   StreamObserver<com.hotel.reservation.grpc.ReservationResponse> responseObserver) {
         try {
-            Reservation reservation = reservationRepository.findById(request.getId())
-                    .orElseThrow(() -> new RuntimeException("Réservation non trouvée"));
-            
-            if (request.getClientId() > 0) {
-                Client client = clientRepository.findById(request.getClientId())
-                        .orElseThrow(() -> new RuntimeException("Client non trouvé"));
-                reservation.setClient(client);
-            }
-            
-            if (request.getChambreId() > 0) {
-                Chambre chambre = chambreRepository.findById(request.getChambreId())
-                        .orElseThrow(() -> new RuntimeException("Chambre non trouvée"));
-                reservation.setChambre(chambre);
-            }
-            
-            if (!request.getDateDebut().isEmpty()) {
-                reservation.setDateDebut(LocalDate.parse(request.getDateDebut()));
-            }
-            
-            if (!request.getDateFin().isEmpty()) {
-                reservation.setDateFin(LocalDate.parse(request.getDateFin()));
-            }
-            
-            if (!request.getPreferences().isEmpty()) {
-                reservation.setPreferences(request.getPreferences());
-            }
-            
-            Reservation updated = reservationRepository.save(reservation);
+            // Transaction programmatique : bindService() appelle l'instance cible, pas le proxy Spring
+            Reservation updated = transactionTemplate.execute(status -> {
+                // Verrouillée : les nuits retirées de l'inventaire sont bien celles de l'état modifié
+                Reservation reservation = reservationRepository.findByIdForUpdate(request.getId())
+                        .orElseThrow(() -> new RuntimeException("Réservation non trouvée"));
+                reservationCache.invalidateAfterCommit(request.getId());
+                dailyInventory.release(reservation);
+                reservationCounters.remove(reservation);
+                Long ancienneChambre = reservation.getChambre().getId();
+                LocalDate ancienDebut = reservation.getDateDebut();
+                LocalDate ancienneFin = reservation.getDateFin();
+                
+                if (request.hasClientId() && request.getClientId() != reservation.getClient().getId()) {
+                    if (!clientRepository.existsById(request.getClientId())) {
+                        throw new RuntimeException("Client non trouvé");
+                    }
+                    reservation.setClient(clientRepository.getReferenceById(request.getClientId()));
+                }
+                
+                if (request.hasChambreId() && request.getChambreId() != reservation.getChambre().getId()) {
+                    if (!chambreRepository.existsById(request.getChambreId())) {
+                        throw new RuntimeException("Chambre non trouvée");
+                    }
+                    reservation.setChambre(chambreRepository.getReferenceById(request.getChambreId()));
+                }
+                
+                if (request.hasDateDebut()) {
+                    reservation.setDateDebut(LocalDate.parse(request.getDateDebut()));
+                }
+                
+                if (request.hasDateFin()) {
+                    reservation.setDateFin(LocalDate.parse(request.getDateFin()));
+                }
+                
+                if (!reservation.getDateFin().isAfter(reservation.getDateDebut())) {
+                    throw new RuntimeException("La date de fin doit être postérieure à la date de début");
+                }
+                
+                if (request.hasPreferences()) {
+                    reservation.setPreferences(request.getPreferences());
+                }
+                
+                if (request.hasStatut() && !request.getStatut().equals(reservation.getStatut())) {
+                    if (HoldManager.EN_ATTENTE.equals(request.getStatut())) {
+                        throw new RuntimeException("Une réservation existante ne peut pas être remise en attente");
+                    }
+                    // Une option confirmée ou annulée par modification n'expire plus
+                    reservation.setStatut(request.getStatut());
+                    reservation.setExpiresAt(null);
+                    holdManager.untrackAfterCommit(reservation.getId(), false);
+                }
+                
+                // Nouvelle chambre, nouvelles dates ou réservation réactivée : mêmes garanties qu'à la création
+                if (request.hasChambreId() || request.hasDateDebut() || request.hasDateFin() || request.hasStatut()) {
+                    chambreRepository.findByIdForUpdate(reservation.getChambre().getId());
+                    verifierChevauchement(reservation, reservation.getId());
+                }
+                
+                // Autre chambre ou autres nuits : le séjour est revendu aux tarifs du moment
+                if (!ancienneChambre.equals(reservation.getChambre().getId())
+                        || !ancienDebut.equals(reservation.getDateDebut())
+                        || !ancienneFin.equals(reservation.getDateFin())) {
+                    reservation.setMontant(rateCache.priceStay(reservation.getChambre(),
+                            reservation.getDateDebut(), reservation.getDateFin()));
+                }
+                
+                dailyInventory.sell(reservation);
+                reservationCounters.add(reservation);
+                availabilityIndex.updateAfterCommit(reservation);
+                return reservation;
+            });
             
             com.hotel.reservation.grpc.ReservationResponse response = 
                 com.hotel.reservation.grpc.ReservationResponse.newBuilder()
@@ -153,11 +565,28 @@ public class ReservationServiceImpl extends ReservationServiceGrpc.ReservationSe
             
             responseObserver.onNext(response);
             responseObserver.onCompleted();
+        } catch (BookingConflictException e) {
+            responseObserver.onError(Status.ALREADY_EXISTS.withDescription(e.getMessage()).asRuntimeException());
         } catch (Exception e) {
             responseObserver.onError(e);
         }
     }
 
+    /**
+     * Refuse une réservation qui chevauche une réservation non annulée de sa chambre
+     * La ligne de la chambre doit être verrouillée dans la transaction courante (findByIdForUpdate)
+     * @param exclue La réservation modifiée, ignorée dans la recherche (null pour une création)
+     */
+    private void verifierChevauchement(Reservation reservation, Long exclue) {
+        if ("ANNULEE".equals(reservation.getStatut())) {
+            return;
+        }
+        if (reservationRepository.existsOverlapping(reservation.getChambre().getId(),
+                reservation.getDateDebut(), reservation.getDateFin(), exclue)) {
+            throw roomAdmission.conflict();
+        }
+    }
+
     /**
      * Supprime une réservation
      */
@@ -165,7 +594,16 @@ public class ReservationServiceImpl extends ReservationServiceGrpc.ReservationSe
     public void deleteReservation(com.hotel.reservation.grpc.DeleteReservationRequest request,
                                   StreamObserver<com.hotel.reservation.grpc.DeleteReservationResponse> responseObserver) {
         try {
-            reservationRepository.deleteById(request.getId());
+            // Ligne verrouillée : ses nuits sont retirées de l'inventaire dans la même transaction
+            transactionTemplate.executeWithoutResult(status ->
+                    reservationRepository.findByIdForUpdate(request.getId()).ifPresent(reservation -> {
+                        dailyInventory.release(reservation);
+                        reservationCounters.remove(reservation);
+                        reservationRepository.delete(reservation);
+                    }));
+            reservationCache.invalidate(request.getId());
+            availabilityIndex.removeAfterCommit(request.getId());
+            holdManager.untrackAfterCommit(request.getId(), false);
             
             com.hotel.reservation.grpc.DeleteReservationResponse response = 
                 com.hotel.reservation.grpc.DeleteReservationResponse.newBuilder()
@@ -180,6 +618,452 @@ public class ReservationServiceImpl extends ReservationServiceGrpc.ReservationSe
         }
     }
 
+    /**
+     * Recherche les chambres libres sur [date_debut, date_fin), éventuellement d'un type
+     * 
+     * Servie par l'index des disponibilités, sans requête SQL une fois l'index construit.
+     * Période invalide (dates manquantes ou mal formées, fin avant début, début passé) : INVALID_ARGUMENT.
+     */
+    @Override
+    public void getChambresDisponibles(com.hotel.reservation.grpc.GetChambresDisponiblesRequest request,
+                                       StreamObserver<com.hotel.reservation.grpc.ChambreListResponse> responseObserver) {
+        List<Chambre> chambres;
+        try {
+            chambres = availabilityIndex.search(request.getType(),
+                    LocalDate.parse(request.getDateDebut()), LocalDate.parse(request.getDateFin()));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription(e.getMessage())
+                    .asRuntimeException());
+            return;
+        } catch (Exception e) {
+            responseObserver.onError(e);
+            return;
+        }
+
+        com.hotel.reservation.grpc.ChambreListResponse.Builder builder = 
+            com.hotel.reservation.grpc.ChambreListResponse.newBuilder();
+        
+        for (Chambre chambre : chambres) {
+            builder.addChambres(com.hotel.reservation.grpc.Chambre.newBuilder()
+                    .setId(chambre.getId())
+                    .setType(chambre.getType())
+                    .setPrix(chambre.getPrix().doubleValue())
+                    .setDisponible(chambre.getDisponible()));
+        }
+        
+        responseObserver.onNext(builder.build());
+        responseObserver.onCompleted();
+    }
+
+    /**
+     * Planning des chambres sur une période, pour la grille de la réception
+     * 
+     * Chaque chambre a une ligne encodée par plages de nuits consécutives de même statut,
+     * calculée en une passe sur les séjours de la période (CalendarGrid). Une période invalide
+     * ou trop longue (calendar.max-days) donne INVALID_ARGUMENT.
+     */
+    @Override
+    public void getCalendrier(com.hotel.reservation.grpc.GetCalendrierRequest request,
+                              StreamObserver<com.hotel.reservation.grpc.CalendrierResponse> responseObserver) {
+        CalendarGrid.Calendrier calendrier;
+        try {
+            calendrier = calendarGrid.grid(LocalDate.parse(request.getDateDebut()), LocalDate.parse(request.getDateFin()),
+                    request.getType(), request.getChambreIdsList());
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription(e.getMessage())
+                    .asRuntimeException());
+            return;
+        } catch (Exception e) {
+            responseObserver.onError(e);
+            return;
+        }
+
+        com.hotel.reservation.grpc.CalendrierResponse.Builder builder = 
+            com.hotel.reservation.grpc.CalendrierResponse.newBuilder()
+                .setDateDebut(calendrier.getDateDebut().toString())
+                .setDateFin(calendrier.getDateFin().toString());
+        
+        for (CalendarGrid.Ligne ligne : calendrier.getChambres()) {
+            com.hotel.reservation.grpc.LigneCalendrier.Builder ligneBuilder = 
+                com.hotel.reservation.grpc.LigneCalendrier.newBuilder()
+                    .setChambreId(ligne.getChambreId())
+                    .setType(ligne.getType());
+            for (CalendarGrid.Plage plage : ligne.getPlages()) {
+                com.hotel.reservation.grpc.Plage.Builder plageBuilder = 
+                    com.hotel.reservation.grpc.Plage.newBuilder()
+                        .setStatut(plage.getStatut())
+                        .setNuits(plage.getNuits());
+                if (plage.getReservationId() != null) {
+                    plageBuilder.setReservationId(plage.getReservationId());
+                }
+                ligneBuilder.addPlages(plageBuilder);
+            }
+            builder.addChambres(ligneBuilder);
+        }
+        
+        responseObserver.onNext(builder.build());
+        responseObserver.onCompleted();
+    }
+
+    /**
+     * Prix d'un séjour sur [date_debut, date_fin) dans une chambre, ou « à partir de » dans
+     * la chambre la moins chère d'un type (chambre_id 0)
+     * 
+     * Calculé en mémoire sur les grilles tarifaires (RateCache), sans requête SQL une fois chargées.
+     * Période invalide ou hors de l'horizon des tarifs : INVALID_ARGUMENT ; chambre ou type inconnu : NOT_FOUND.
+     */
+    @Override
+    public void getDevis(com.hotel.reservation.grpc.GetDevisRequest request,
+                         StreamObserver<com.hotel.reservation.grpc.DevisResponse> responseObserver) {
+        RateCache.Devis devis;
+        try {
+            LocalDate debut = LocalDate.parse(request.getDateDebut());
+            LocalDate fin = LocalDate.parse(request.getDateFin());
+            devis = request.getChambreId() != 0
+                    ? rateCache.quoteRoom(request.getChambreId(), debut, fin)
+                    : rateCache.quoteType(request.getType(), debut, fin);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription(e.getMessage())
+                    .asRuntimeException());
+            return;
+        } catch (Exception e) {
+            responseObserver.onError(Status.NOT_FOUND
+                    .withDescription(e.getMessage())
+                    .asRuntimeException());
+            return;
+        }
+
+        com.hotel.reservation.grpc.DevisResponse.Builder builder = 
+            com.hotel.reservation.grpc.DevisResponse.newBuilder()
+                .setType(devis.getType())
+                .setDateDebut(devis.getDateDebut().toString())
+                .setDateFin(devis.getDateFin().toString())
+                .setNuits(devis.getNuits())
+                .setTotal(devis.getTotal().doubleValue());
+        if (devis.getChambreId() != null) {
+            builder.setChambreId(devis.getChambreId());
+        }
+        
+        responseObserver.onNext(builder.build());
+        responseObserver.onCompleted();
+    }
+
+    /**
+     * Chambres vendues d'un type pour chaque nuit de [date_debut, date_fin)
+     * 
+     * Lu sur le miroir de l'inventaire journalier (un compteur par nuit), sans requête SQL.
+     * Période invalide ou hors de l'horizon : INVALID_ARGUMENT ; miroir en cours de chargement :
+     * UNAVAILABLE ; type inconnu : NOT_FOUND.
+     */
+    @Override
+    public void getInventaire(com.hotel.reservation.grpc.GetInventaireRequest request,
+                              StreamObserver<com.hotel.reservation.grpc.InventaireResponse> responseObserver) {
+        DailyInventory.Inventaire inventaire;
+        try {
+            inventaire = dailyInventory.inventory(request.getType(),
+                    LocalDate.parse(request.getDateDebut()), LocalDate.parse(request.getDateFin()));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription(e.getMessage())
+                    .asRuntimeException());
+            return;
+        } catch (IllegalStateException e) {
+            responseObserver.onError(Status.UNAVAILABLE
+                    .withDescription(e.getMessage())
+                    .asRuntimeException());
+            return;
+        } catch (Exception e) {
+            responseObserver.onError(Status.NOT_FOUND
+                    .withDescription(e.getMessage())
+                    .asRuntimeException());
+            return;
+        }
+
+        com.hotel.reservation.grpc.InventaireResponse response = 
+            com.hotel.reservation.grpc.InventaireResponse.newBuilder()
+                .setType(inventaire.getType())
+                .setDateDebut(inventaire.getDateDebut().toString())
+                .setDateFin(inventaire.getDateFin().toString())
+                .setCapacite(inventaire.getCapacite())
+                .setLibres(inventaire.getLibres())
+                .setDisponible(inventaire.isDisponible())
+                .addAllVendues(inventaire.getVendues())
+                .build();
+        
+        responseObserver.onNext(response);
+        responseObserver.onCompleted();
+    }
+
+    /**
+     * Taux d'occupation et revenu par jour, semaine ou mois, d'un type de chambre ou de tous
+     * 
+     * Lu sur les vues tenues à jour en mémoire à chaque réservation, sans requête SQL.
+     * Période ou granularité invalide : INVALID_ARGUMENT ; vues en cours de chargement :
+     * UNAVAILABLE ; type inconnu : NOT_FOUND.
+     */
+    @Override
+    public void getOccupation(com.hotel.reservation.grpc.GetOccupationRequest request,
+                              StreamObserver<com.hotel.reservation.grpc.OccupationResponse> responseObserver) {
+        OccupancyViews.Vue vue;
+        try {
+            vue = occupancyViews.occupancy(request.getType(), request.getGranularite(),
+                    LocalDate.parse(request.getDateDebut()), LocalDate.parse(request.getDateFin()));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription(e.getMessage())
+                    .asRuntimeException());
+            return;
+        } catch (IllegalStateException e) {
+            responseObserver.onError(Status.UNAVAILABLE
+                    .withDescription(e.getMessage())
+                    .asRuntimeException());
+            return;
+        } catch (Exception e) {
+            responseObserver.onError(Status.NOT_FOUND
+                    .withDescription(e.getMessage())
+                    .asRuntimeException());
+            return;
+        }
+
+        com.hotel.reservation.grpc.OccupationResponse.Builder response = 
+            com.hotel.reservation.grpc.OccupationResponse.newBuilder()
+                .setType(vue.getType() != null ? vue.getType() : "")
+                .setGranularite(vue.getGranularite())
+                .setDateDebut(vue.getDateDebut().toString())
+                .setDateFin(vue.getDateFin().toString());
+        for (OccupancyViews.Periode periode : vue.getPeriodes()) {
+            response.addPeriodes(com.hotel.reservation.grpc.Periode.newBuilder()
+                    .setDateDebut(periode.getDateDebut().toString())
+                    .setDateFin(periode.getDateFin().toString())
+                    .setNuits(periode.getNuits())
+                    .setCapacite(periode.getCapacite())
+                    .setVendues(periode.getVendues())
+                    .setTaux(periode.getTaux())
+                    .setRevenu(periode.getRevenu().doubleValue())
+                    .build());
+        }
+        
+        responseObserver.onNext(response.build());
+        responseObserver.onCompleted();
+    }
+
+    /**
+     * Nombre de réservations par statut, et de réservations non annulées par type de chambre
+     * 
+     * Lu sur les compteurs en mémoire, sans requête SQL. Compteurs en cours de chargement : UNAVAILABLE.
+     */
+    @Override
+    public void getReservationStats(com.hotel.reservation.grpc.GetReservationStatsRequest request,
+                                    StreamObserver<com.hotel.reservation.grpc.ReservationStatsResponse> responseObserver) {
+        ReservationCounters.Statistiques stats;
+        try {
+            stats = reservationCounters.stats();
+        } catch (IllegalStateException e) {
+            responseObserver.onError(Status.UNAVAILABLE
+                    .withDescription(e.getMessage())
+                    .asRuntimeException());
+            return;
+        }
+
+        com.hotel.reservation.grpc.ReservationStatsResponse.Builder response = 
+            com.hotel.reservation.grpc.ReservationStatsResponse.newBuilder()
+                .setTotal(stats.getTotal())
+                .setRechargeLe(stats.getRechargeLe().toString());
+        for (ReservationCounters.Compteur compteur : stats.getParStatut()) {
+            response.addParStatut(convertToProto(compteur));
+        }
+        for (ReservationCounters.Compteur compteur : stats.getParType()) {
+            response.addParType(convertToProto(compteur));
+        }
+        
+        responseObserver.onNext(response.build());
+        responseObserver.onCompleted();
+    }
+
+    private com.hotel.reservation.grpc.Compteur convertToProto(ReservationCounters.Compteur compteur) {
+        return com.hotel.reservation.grpc.Compteur.newBuilder()
+                .setCle(compteur.getCle())
+                .setNombre(compteur.getNombre())
+                .build();
+    }
+
+    /**
+     * Récupère les préférences d'une réservation par morceaux
+     * 
+     * L'envoi suit le contrôle de flux : un morceau n'est décompressé et envoyé que
+     * lorsque le transport peut l'accepter, la mémoire par appel reste bornée à
+     * quelques morceaux. Aucun morceau si la réservation n'a pas de préférences.
+     */
+    @Override
+    public void getPreferences(com.hotel.reservation.grpc.GetReservationRequest request,
+                               StreamObserver<com.hotel.reservation.grpc.PreferencesChunk> responseObserver) {
+        String stockee;
+        try {
+            Optional<String> preferences = reservationRepository.findStoredPreferencesById(request.getId());
+            if (preferences.isEmpty() && !reservationRepository.existsById(request.getId())) {
+                responseObserver.onError(Status.NOT_FOUND
+                        .withDescription("Réservation non trouvée")
+                        .asRuntimeException());
+                return;
+            }
+            stockee = preferences.orElse(null);
+        } catch (Exception e) {
+            responseObserver.onError(e);
+            return;
+        }
+
+        if (stockee == null) {
+            responseObserver.onCompleted();
+            return;
+        }
+        ServerCallStreamObserver<com.hotel.reservation.grpc.PreferencesChunk> appel =
+                (ServerCallStreamObserver<com.hotel.reservation.grpc.PreferencesChunk>) responseObserver;
+        EnvoiPreferences envoi = new EnvoiPreferences(request.getId(), stockee, appel);
+        appel.setOnCancelHandler(envoi::fermer);
+        appel.setOnReadyHandler(envoi);
+    }
+
+    /**
+     * Remplace les préférences d'une réservation, reçues par morceaux
+     * 
+     * Les morceaux sont compressés au fil de la réception : seule la forme compressée
+     * est gardée en mémoire. Au-delà de payload.preferences.max-bytes : RESOURCE_EXHAUSTED.
+     */
+    @Override
+    public StreamObserver<com.hotel.reservation.grpc.PreferencesChunk> setPreferences(
+            StreamObserver<com.hotel.reservation.grpc.SetPreferencesResponse> responseObserver) {
+        return new StreamObserver<>() {
+            private final PreferencesCodec.Encodeur encodeur = new PreferencesCodec.Encodeur(maxPreferencesBytes);
+            private long reservationId;
+            private boolean premier = true;
+            private boolean termine;
+
+            @Override
+            public void onNext(com.hotel.reservation.grpc.PreferencesChunk morceau) {
+                if (termine) {
+                    return;
+                }
+                if (premier) {
+                    reservationId = morceau.getReservationId();
+                    premier = false;
+                }
+                try {
+                    morceau.getData().writeTo(encodeur);
+                } catch (PreferencesTooLargeException e) {
+                    echouer(Status.RESOURCE_EXHAUSTED.withDescription(e.getMessage()));
+                } catch (IOException e) {
+                    echouer(Status.INTERNAL.withDescription("Compression des préférences impossible").withCause(e));
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                // Appel annulé par le client : rien n'est enregistré
+                termine = true;
+            }
+
+            @Override
+            public void onCompleted() {
+                if (termine) {
+                    return;
+                }
+                termine = true;
+                if (premier) {
+                    responseObserver.onError(Status.INVALID_ARGUMENT
+                            .withDescription("Aucun morceau reçu")
+                            .asRuntimeException());
+                    return;
+                }
+                try {
+                    encodeur.close();
+                    if (reservationRepository.updateStoredPreferences(reservationId, encodeur.resultat()) == 0) {
+                        responseObserver.onError(Status.NOT_FOUND
+                                .withDescription("Réservation non trouvée")
+                                .asRuntimeException());
+                        return;
+                    }
+                    reservationCache.invalidate(reservationId);
+
+                    responseObserver.onNext(com.hotel.reservation.grpc.SetPreferencesResponse.newBuilder()
+                            .setReservationId(reservationId)
+                            .setSize(encodeur.getOctetsEnClair())
+                            .build());
+                    responseObserver.onCompleted();
+                } catch (PreferencesTooLargeException e) {
+                    responseObserver.onError(Status.RESOURCE_EXHAUSTED.withDescription(e.getMessage()).asRuntimeException());
+                } catch (Exception e) {
+                    responseObserver.onError(e);
+                }
+            }
+
+            private void echouer(Status status) {
+                termine = true;
+                responseObserver.onError(status.asRuntimeException());
+            }
+        };
+    }
+
+    /**
+     * Envoi des préférences piloté par le contrôle de flux (appelé à chaque fois que
+     * le transport redevient prêt, sur l'exécuteur sérialisé de l'appel)
+     */
+    private static final class EnvoiPreferences implements Runnable {
+
+        private final long reservationId;
+        private final String stockee;
+        private final ServerCallStreamObserver<com.hotel.reservation.grpc.PreferencesChunk> appel;
+        private InputStream flux;
+        private boolean termine;
+
+        private EnvoiPreferences(long reservationId, String stockee,
+                                 ServerCallStreamObserver<com.hotel.reservation.grpc.PreferencesChunk> appel) {
+            this.reservationId = reservationId;
+            this.stockee = stockee;
+            this.appel = appel;
+        }
+
+        @Override
+        public void run() {
+            if (termine) {
+                return;
+            }
+            try {
+                if (flux == null) {
+                    flux = PreferencesCodec.openDecoded(stockee);
+                }
+                while (appel.isReady()) {
+                    byte[] morceau = flux.readNBytes(TAILLE_MORCEAU);
+                    if (morceau.length == 0) {
+                        fermer();
+                        appel.onCompleted();
+                        return;
+                    }
+                    appel.onNext(com.hotel.reservation.grpc.PreferencesChunk.newBuilder()
+                            .setReservationId(reservationId)
+                            .setData(UnsafeByteOperations.unsafeWrap(morceau))
+                            .build());
+                }
+            } catch (IOException e) {
+                fermer();
+                appel.onError(Status.INTERNAL.withDescription("Préférences illisibles").withCause(e).asRuntimeException());
+            }
+        }
+
+        private void fermer() {
+            termine = true;
+            if (flux != null) {
+                try {
+                    flux.close();
+                } catch (IOException e) {
+                    // Flux en mémoire : rien à libérer
+                }
+            }
+        }
+    }
+
     /**
      * Convertit une entité JPA en message proto
      */
@@ -192,6 +1076,7 @@ public class ReservationServiceImpl extends ReservationServiceGrpc.ReservationSe
                 .setDateFin(reservation.getDateFin().toString())
                 .setPreferences(reservation.getPreferences() != null ? reservation.getPreferences() : "")
                 .setStatut(reservation.getStatut() != null ? reservation.getStatut() : "CONFIRMEE")
+                .setExpiresAt(reservation.getExpiresAt() != null ? reservation.getExpiresAt().toString() : "")
                 .build();
     }
 }
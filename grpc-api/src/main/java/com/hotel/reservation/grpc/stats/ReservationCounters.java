@@ -0,0 +1,307 @@
+package com.hotel.reservation.grpc.stats;
+
+import com.hotel.reservation.grpc.model.Reservation;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Compteurs en direct des réservations : par statut, et réservations actives par type de chambre
+ *
+ * Les tableaux de bord lisent ces compteurs au lieu d'un COUNT(*) ... GROUP BY statut sur
+ * reservation toutes les quelques secondes. Chargés depuis la base au démarrage, ils sont tenus
+ * à jour par chaque écriture de ce module qui crée, supprime ou change le statut ou la chambre
+ * d'une réservation : add / remove relèvent le statut et le type au moment de l'appel et les
+ * appliquent après la validation de la transaction (rien en cas de rollback). Un LongAdder par
+ * clé : les écritures concurrentes sur un même statut ne se disputent pas une seule case.
+ *
+ * Les écritures des autres modules sont prises en compte par un rechargement complet toutes les
+ * resync-interval-ms (deux GROUP BY, un par minute par défaut, quel que soit le nombre de
+ * lecteurs). Une écriture locale validée pendant le rechargement peut être comptée deux fois ou
+ * pas du tout ; l'écart est corrigé au rechargement suivant.
+ *
+ * Les statuts sont ceux de la colonne (CONFIRMEE, EN_ATTENTE, ANNULEE) ; les types, en
+ * minuscules, ne comptent que les réservations non annulées.
+ *
+ * Métrique exposée : reservations.live.total.
+ */
+@Component
+public class ReservationCounters {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationCounters.class);
+
+    private static final String PAR_STATUT = "SELECT COALESCE(statut, 'CONFIRMEE'), COUNT(*) FROM reservation "
+            + "GROUP BY COALESCE(statut, 'CONFIRMEE')";
+
+    private static final String PAR_TYPE = "SELECT LOWER(c.type), COUNT(*) FROM reservation r "
+            + "JOIN chambre c ON c.id = r.chambre_id WHERE r.statut IS NULL OR r.statut <> 'ANNULEE' "
+            + "GROUP BY LOWER(c.type)";
+
+    private static final String CLIENT = "SELECT COALESCE(r.statut, 'CONFIRMEE'), LOWER(c.type), COUNT(*) "
+            + "FROM reservation r JOIN chambre c ON c.id = r.chambre_id WHERE r.client_id = ? "
+            + "GROUP BY COALESCE(r.statut, 'CONFIRMEE'), LOWER(c.type)";
+
+    private static final String ACTIVES_CHAMBRE = "SELECT COUNT(*) FROM reservation "
+            + "WHERE chambre_id = ? AND (statut IS NULL OR statut <> 'ANNULEE')";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Un seul rechargement à la fois
+    private final ReentrantLock maintenance = new ReentrantLock();
+
+    // Null tant que les compteurs ne sont pas chargés
+    private volatile Compteurs compteurs;
+
+    @PostConstruct
+    void initialiser() {
+        Gauge.builder("reservations.live.total", this, c -> {
+                    Compteurs courant = c.compteurs;
+                    return courant == null ? Double.NaN : courant.total();
+                })
+                .description("Nombre de réservations, d'après les compteurs en mémoire")
+                .register(meterRegistry);
+    }
+
+    // ========== Mouvements, dans la transaction des écritures ==========
+
+    /**
+     * Compte une réservation, après la validation de la transaction en cours
+     * À appeler avec l'état de la réservation après l'écriture.
+     */
+    public void add(Reservation reservation) {
+        compter(reservation, 1);
+    }
+
+    /**
+     * Décompte une réservation, après la validation de la transaction en cours
+     * À appeler avec l'état de la réservation avant l'écriture.
+     */
+    public void remove(Reservation reservation) {
+        compter(reservation, -1);
+    }
+
+    private void compter(Reservation reservation, long delta) {
+        String statut = statut(reservation.getStatut());
+        String type = "ANNULEE".equals(statut) ? null : reservation.getChambre().getType().toLowerCase(Locale.ROOT);
+        apresCommit(() -> appliquer(statut, type, delta));
+    }
+
+    /**
+     * Décompte des options annulées supprimées en masse (purge)
+     */
+    public void removeCancelled(int nombre) {
+        apresCommit(() -> appliquer("ANNULEE", null, -nombre));
+    }
+
+    /**
+     * Décompte les réservations d'un client, avant sa suppression (cascade en base)
+     */
+    public void removeClient(Long clientId) {
+        jdbcTemplate.query(CLIENT, resultat -> {
+            String statut = resultat.getString(1);
+            String type = "ANNULEE".equals(statut) ? null : resultat.getString(2);
+            long nombre = resultat.getLong(3);
+            apresCommit(() -> appliquer(statut, type, -nombre));
+        }, clientId);
+    }
+
+    /**
+     * Passe les réservations actives d'une chambre d'un type à l'autre, quand son type change
+     * La ligne de la chambre doit être verrouillée : aucune réservation ne s'y ajoute entre-temps.
+     */
+    public void retypeRoom(Long chambreId, String ancienType, String nouveauType) {
+        if (ancienType.equalsIgnoreCase(nouveauType)) {
+            return;
+        }
+        Long nombre = jdbcTemplate.queryForObject(ACTIVES_CHAMBRE, Long.class, chambreId);
+        if (nombre == null || nombre == 0) {
+            return;
+        }
+        String ancien = ancienType.toLowerCase(Locale.ROOT);
+        String nouveau = nouveauType.toLowerCase(Locale.ROOT);
+        apresCommit(() -> {
+            Compteurs courant = compteurs;
+            if (courant != null) {
+                courant.type(ancien).add(-nombre);
+                courant.type(nouveau).add(nombre);
+            }
+        });
+    }
+
+    private static String statut(String statut) {
+        return statut == null ? "CONFIRMEE" : statut;
+    }
+
+    private void appliquer(String statut, String type, long delta) {
+        Compteurs courant = compteurs;
+        if (courant == null) {
+            return;
+        }
+        courant.statut(statut).add(delta);
+        if (type != null) {
+            courant.type(type).add(delta);
+        }
+    }
+
+    // Hors transaction (purge), le mouvement est appliqué tout de suite
+    private static void apresCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // ========== Lecture ==========
+
+    /**
+     * @return true si les compteurs sont chargés
+     */
+    public boolean isReady() {
+        return compteurs != null;
+    }
+
+    /**
+     * Valeurs courantes des compteurs, sans requête SQL
+     * @throws IllegalStateException Si les compteurs ne sont pas encore chargés
+     */
+    public Statistiques stats() {
+        Compteurs courant = compteurs;
+        if (courant == null) {
+            throw new IllegalStateException("Les compteurs de réservations ne sont pas encore chargés");
+        }
+        List<Compteur> parStatut = valeurs(courant.parStatut);
+        List<Compteur> parType = valeurs(courant.parType);
+        long total = parStatut.stream().mapToLong(Compteur::getNombre).sum();
+        return new Statistiques(total, parStatut, parType, courant.chargesLe);
+    }
+
+    // Triés par clé ; les clés retombées à zéro (type supprimé, statut disparu) ne sont pas listées
+    private static List<Compteur> valeurs(Map<String, LongAdder> adders) {
+        List<Compteur> valeurs = new ArrayList<>();
+        new TreeMap<>(adders).forEach((cle, adder) -> {
+            long valeur = adder.sum();
+            if (valeur != 0) {
+                valeurs.add(new Compteur(cle, valeur));
+            }
+        });
+        return valeurs;
+    }
+
+    /**
+     * Rechargement périodique depuis la base, pour les écritures des autres modules
+     * Le premier passage, au démarrage, charge les compteurs.
+     */
+    @Scheduled(fixedDelayString = "${stats.resync-interval-ms:60000}")
+    public void recharger() {
+        if (!maintenance.tryLock()) {
+            return;
+        }
+        try {
+            Compteurs nouveaux = new Compteurs(LocalDateTime.now());
+            jdbcTemplate.query(PAR_STATUT, resultat -> {
+                nouveaux.statut(resultat.getString(1)).add(resultat.getLong(2));
+            });
+            jdbcTemplate.query(PAR_TYPE, resultat -> {
+                nouveaux.type(resultat.getString(1)).add(resultat.getLong(2));
+            });
+            compteurs = nouveaux;
+        } catch (RuntimeException e) {
+            // La base peut être indisponible : nouvel essai au prochain passage
+            log.warn("Chargement des compteurs de réservations impossible", e);
+        } finally {
+            maintenance.unlock();
+        }
+    }
+
+    private static final class Compteurs {
+        private final LocalDateTime chargesLe;
+        private final Map<String, LongAdder> parStatut = new ConcurrentHashMap<>();
+        private final Map<String, LongAdder> parType = new ConcurrentHashMap<>();
+
+        private Compteurs(LocalDateTime chargesLe) {
+            this.chargesLe = chargesLe;
+        }
+
+        private LongAdder statut(String statut) {
+            return parStatut.computeIfAbsent(statut, s -> new LongAdder());
+        }
+
+        private LongAdder type(String type) {
+            return parType.computeIfAbsent(type, t -> new LongAdder());
+        }
+
+        private long total() {
+            return parStatut.values().stream().mapToLong(LongAdder::sum).sum();
+        }
+    }
+
+    /**
+     * Instantané des compteurs
+     */
+    public static class Statistiques {
+        private final long total;
+        private final List<Compteur> parStatut;
+        private final List<Compteur> parType;
+        private final LocalDateTime rechargeLe;
+
+        private Statistiques(long total, List<Compteur> parStatut, List<Compteur> parType,
+                             LocalDateTime rechargeLe) {
+            this.total = total;
+            this.parStatut = parStatut;
+            this.parType = parType;
+            this.rechargeLe = rechargeLe;
+        }
+
+        public long getTotal() { return total; }
+        /** Réservations par statut */
+        public List<Compteur> getParStatut() { return parStatut; }
+        /** Réservations non annulées par type de chambre (en minuscules) */
+        public List<Compteur> getParType() { return parType; }
+        /** Dernier rechargement depuis la base */
+        public LocalDateTime getRechargeLe() { return rechargeLe; }
+    }
+
+    /**
+     * Valeur d'un compteur : statut ou type, et nombre de réservations
+     */
+    public static class Compteur {
+        private final String cle;
+        private final long nombre;
+
+        private Compteur(String cle, long nombre) {
+            this.cle = cle;
+            this.nombre = nombre;
+        }
+
+        public String getCle() { return cle; }
+        public long getNombre() { return nombre; }
+    }
+}
@@ -2,6 +2,7 @@ package com.hotel.reservation.rest;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Application principale pour le module REST API
@@ -14,6 +15,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * Documentation API : http://localhost:8081/swagger-ui.html
  */
 @SpringBootApplication
+@EnableScheduling
 public class RestApiApplication {
 
     public static void main(String[] args) {
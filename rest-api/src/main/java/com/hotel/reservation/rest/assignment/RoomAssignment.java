@@ -0,0 +1,89 @@
+package com.hotel.reservation.rest.assignment;
+
+import com.hotel.reservation.rest.admission.BookingConflictException;
+import com.hotel.reservation.rest.admission.RoomAdmission;
+import com.hotel.reservation.rest.availability.AvailabilityIndex;
+import com.hotel.reservation.rest.model.Chambre;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Réservation par type de chambre : le module choisit la chambre
+ *
+ * Le client demande un type ("Double") et une période ; la chambre est choisie par
+ * l'index des disponibilités (AvailabilityIndex.bestFit) pour limiter les trous d'une
+ * ou deux nuits que laissent des chambres choisies au hasard par les clients.
+ *
+ * La chambre retenue est réservée par le chemin habituel (RoomAdmission puis verrou de
+ * la ligne et recherche de chevauchement en base) : l'index peut avoir quelques secondes
+ * de retard sur les autres modules. Si elle vient d'être prise, la candidate suivante est
+ * essayée, jusqu'à booking.assignment.candidates chambres.
+ *
+ * Métriques exposées : booking.assignment.selection (choix des candidates dans l'index),
+ * booking.assignment.retries (candidates prises entre le choix et la réservation).
+ */
+@Component
+public class RoomAssignment {
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private RoomAdmission roomAdmission;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${booking.assignment.candidates:5}")
+    private int candidates;
+
+    @Value("${booking.assignment.min-gap-nights:2}")
+    private int minGapNights;
+
+    private Timer selection;
+    private Counter reessais;
+
+    @PostConstruct
+    void initialiser() {
+        selection = Timer.builder("booking.assignment.selection")
+                .description("Choix des chambres candidates d'une réservation par type")
+                .register(meterRegistry);
+        reessais = Counter.builder("booking.assignment.retries")
+                .description("Chambres candidates réservées entre-temps, remplacées par la suivante")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Réserve une chambre du type demandé, la mieux ajustée parmi les chambres libres
+     * @param type Le type de chambre (insensible à la casse)
+     * @param debut Date d'arrivée (incluse)
+     * @param fin Date de départ (exclue)
+     * @param creation Crée la réservation sur la chambre dont l'ID est passé, dans sa propre transaction
+     * @return Le résultat de la création
+     * @throws BookingConflictException si aucune chambre du type n'est libre sur la période
+     * @throws IllegalArgumentException si le type manque ou si la période est invalide
+     */
+    public <T> T assign(String type, LocalDate debut, LocalDate fin, Function<Long, T> creation) {
+        List<Chambre> chambres = selection.record(
+                () -> availabilityIndex.bestFit(type, debut, fin, minGapNights, candidates));
+        for (Chambre chambre : chambres) {
+            Long chambreId = chambre.getId();
+            try {
+                return roomAdmission.admit(chambreId, () -> creation.apply(chambreId));
+            } catch (BookingConflictException e) {
+                reessais.increment();
+            }
+        }
+        throw roomAdmission.conflict(new BookingConflictException(
+                "Aucune chambre de type " + type + " n'est libre sur cette période"));
+    }
+}
@@ -0,0 +1,135 @@
+package com.hotel.reservation.rest.bulkhead;
+
+import com.hotel.reservation.rest.config.VirtualThreads;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Cloison (bulkhead) d'exécution bornée
+ *
+ * Chaque cloison possède son propre pool de threads et sa propre file d'attente
+ * bornée : une rafale de travail d'un type (par exemple les écritures) ne peut pas
+ * consommer les threads réservés à l'autre (les lectures). Quand la file est pleine,
+ * la tâche est rejetée immédiatement et le rejet est compté.
+ *
+ * En mode threads virtuels (threads.virtual.enabled=true), chaque tâche démarre sur
+ * son propre thread virtuel et les limites sont portées par deux sémaphores : au plus
+ * « threads » tâches s'exécutent en même temps, les suivantes attendent leur tour, et
+ * au-delà de « threads + queueCapacity » tâches admises la tâche est rejetée comme
+ * avec une file pleine. Seul le thread qui attend change (virtuel au lieu d'une
+ * entrée de file), pas la capacité de la cloison.
+ *
+ * Métriques exposées : executor.* (tag name=bulkhead.&lt;nom&gt;, pool plateforme) ou
+ * bulkhead.active et bulkhead.queued (tag name, threads virtuels), et bulkhead.rejected (tag name).
+ */
+public class Bulkhead {
+
+    private final String nom;
+    private final ExecutorService executor;
+    private final Counter rejets;
+
+    /** Tâches admises (en cours + en attente), null hors mode threads virtuels */
+    private final Semaphore admises;
+
+    /** Tâches en cours d'exécution, null hors mode threads virtuels */
+    private final Semaphore enCours;
+
+    public Bulkhead(String nom, int threads, int queueCapacity, boolean virtuel, MeterRegistry registry) {
+        this.nom = nom;
+        this.rejets = Counter.builder("bulkhead.rejected")
+                .description("Tâches rejetées car la file de la cloison est pleine")
+                .tag("name", nom)
+                .register(registry);
+
+        if (virtuel) {
+            this.executor = VirtualThreads.newVirtualThreadPerTaskExecutor();
+            this.admises = new Semaphore(threads + queueCapacity);
+            this.enCours = new Semaphore(threads);
+            Gauge.builder("bulkhead.active", enCours, s -> threads - s.availablePermits())
+                    .description("Tâches en cours d'exécution dans la cloison")
+                    .tag("name", nom)
+                    .register(registry);
+            Gauge.builder("bulkhead.queued", this,
+                            b -> (threads + queueCapacity - b.admises.availablePermits())
+                                    - (threads - b.enCours.availablePermits()))
+                    .description("Tâches admises en attente d'une place dans la cloison")
+                    .tag("name", nom)
+                    .register(registry);
+        } else {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    new CustomizableThreadFactory("bulkhead-" + nom + "-"),
+                    new ThreadPoolExecutor.AbortPolicy());
+            ExecutorServiceMetrics.monitor(registry, pool, "bulkhead." + nom, List.of());
+            this.executor = pool;
+            this.admises = null;
+            this.enCours = null;
+        }
+    }
+
+    /**
+     * Exécute une tâche dans la cloison
+     * @param tache La tâche à exécuter
+     * @return Le résultat futur, en échec avec RejectedExecutionException si la cloison est saturée
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> tache) {
+        try {
+            return lancer(tache);
+        } catch (RejectedExecutionException e) {
+            rejets.increment();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Démarre la tâche sur le pool, ou sur un thread virtuel borné par les sémaphores
+     * @throws RejectedExecutionException si la cloison est saturée
+     */
+    private <T> CompletableFuture<T> lancer(Supplier<T> tache) {
+        if (admises == null) {
+            return CompletableFuture.supplyAsync(tache, executor);
+        }
+
+        if (!admises.tryAcquire()) {
+            throw new RejectedExecutionException("Cloison " + nom + " saturée");
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                enCours.acquireUninterruptibly();
+                try {
+                    return tache.get();
+                } finally {
+                    enCours.release();
+                    admises.release();
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            admises.release();
+            throw e;
+        }
+    }
+
+    public String getNom() {
+        return nom;
+    }
+
+    /**
+     * Arrête l'exécuteur : les tâches déjà acceptées sont terminées
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
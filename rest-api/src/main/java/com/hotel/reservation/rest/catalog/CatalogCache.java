@@ -0,0 +1,131 @@
+package com.hotel.reservation.rest.catalog;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotel.reservation.rest.repository.ChambreRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache du catalogue des chambres, déjà encodé en JSON
+ *
+ * La table chambre est petite et lue sur presque chaque page : GET /api/chambres
+ * renvoie directement ces octets, sans requête SQL ni sérialisation Jackson.
+ * Le cache est invalidé après la validation de createChambre, updateChambre et
+ * deleteChambre. Les autres modules (SOAP, GraphQL, gRPC) partagent la table :
+ * la durée de vie catalog.cache.ttl-seconds borne le délai avant de voir une
+ * modification faite hors de ce module.
+ *
+ * Un seul thread recharge le catalogue à la fois ; chaque chargement est associé
+ * à une génération, de sorte qu'un chargement commencé avant une invalidation
+ * n'est jamais servi après elle.
+ */
+@Component
+public class CatalogCache {
+
+    @Autowired
+    private ChambreRepository chambreRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${catalog.cache.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final ReentrantLock chargement = new ReentrantLock();
+
+    private volatile Entree entree;
+
+    /**
+     * Renvoie le catalogue encodé s'il est en cache, sans accès à la base
+     * @return Les octets JSON du catalogue, ou null s'il faut le recharger
+     */
+    public byte[] getJsonIfPresent() {
+        Entree courante = entree;
+        return isValide(courante) ? courante.json : null;
+    }
+
+    /**
+     * Renvoie le catalogue encodé, en le rechargeant depuis la base si nécessaire
+     * @return Les octets JSON du catalogue (tableau de chambres)
+     */
+    public byte[] getJson() {
+        byte[] json = getJsonIfPresent();
+        return json != null ? json : charger();
+    }
+
+    /**
+     * Invalide le catalogue après la validation de la transaction en cours
+     * (immédiatement s'il n'y a pas de transaction)
+     */
+    public void invalidateAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate();
+                }
+            });
+        } else {
+            invalidate();
+        }
+    }
+
+    /**
+     * Invalide le catalogue : la prochaine lecture le recharge depuis la base
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        entree = null;
+    }
+
+    private byte[] charger() {
+        chargement.lock();
+        try {
+            // Un autre thread a pu recharger le catalogue pendant l'attente du verrou
+            Entree courante = entree;
+            if (isValide(courante)) {
+                return courante.json;
+            }
+
+            long generationLue = generation.get();
+            byte[] json = objectMapper.writeValueAsBytes(chambreRepository.findAll());
+            entree = new Entree(json, generationLue, System.nanoTime());
+            return json;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Impossible d'encoder le catalogue des chambres", e);
+        } finally {
+            chargement.unlock();
+        }
+    }
+
+    private boolean isValide(Entree courante) {
+        return courante != null
+                && courante.generation == generation.get()
+                && System.nanoTime() - courante.chargeeA < TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    /**
+     * Catalogue encodé, avec la génération et l'instant de son chargement
+     */
+    private static final class Entree {
+        private final byte[] json;
+        private final long generation;
+        private final long chargeeA;
+
+        private Entree(byte[] json, long generation, long chargeeA) {
+            this.json = json;
+            this.generation = generation;
+            this.chargeeA = chargeeA;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.hotel.reservation.rest.config;
+
+import com.hotel.reservation.rest.bulkhead.Bulkhead;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration des cloisons d'exécution du contrôleur REST
+ *
+ * Les lectures et les écritures s'exécutent sur deux pools séparés et bornés,
+ * hors des threads Tomcat : une rafale de createReservation ne peut plus
+ * épuiser les threads qui servent les lectures. En mode threads virtuels, les
+ * mêmes tailles bornent les tâches par sémaphore au lieu d'un pool plateforme.
+ */
+@Configuration
+public class BulkheadConfig {
+
+    /**
+     * Cloison des lectures (GET)
+     */
+    @Bean(destroyMethod = "shutdown")
+    public Bulkhead readBulkhead(@Value("${bulkhead.reads.threads:16}") int threads,
+                                 @Value("${bulkhead.reads.queue-capacity:500}") int queueCapacity,
+                                 @Value("${" + VirtualThreads.ENABLED_PROPERTY + ":false}") boolean virtuel,
+                                 MeterRegistry registry) {
+        return new Bulkhead("reads", threads, queueCapacity, virtuel, registry);
+    }
+
+    /**
+     * Cloison des écritures (POST, PUT, PATCH, DELETE)
+     */
+    @Bean(destroyMethod = "shutdown")
+    public Bulkhead writeBulkhead(@Value("${bulkhead.writes.threads:4}") int threads,
+                                  @Value("${bulkhead.writes.queue-capacity:100}") int queueCapacity,
+                                  @Value("${" + VirtualThreads.ENABLED_PROPERTY + ":false}") boolean virtuel,
+                                  MeterRegistry registry) {
+        return new Bulkhead("writes", threads, queueCapacity, virtuel, registry);
+    }
+}
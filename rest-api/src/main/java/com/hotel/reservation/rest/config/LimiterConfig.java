@@ -0,0 +1,48 @@
+package com.hotel.reservation.rest.config;
+
+import com.hotel.reservation.rest.fairness.ConsumerRegistry;
+import com.hotel.reservation.rest.limiter.AdaptiveLimiter;
+import com.hotel.reservation.rest.limiter.ConcurrencyLimitFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Configuration du limiteur de concurrence adaptatif devant le contrôleur REST
+ *
+ * Sans limiteur, au-delà de la saturation les requêtes s'accumulent dans les files
+ * (Tomcat, cloisons) et la latence atteint plusieurs secondes avant les premiers échecs.
+ * Le filtre est placé en tête de chaîne sur /api/*, juste après la mesure des métriques
+ * en direct ; limiter.enabled=false le désactive.
+ * Les permis sont répartis entre consommateurs selon leurs poids (voir ConsumerRegistry).
+ */
+@Configuration
+public class LimiterConfig {
+
+    @Bean
+    public AdaptiveLimiter apiLimiter(@Value("${limiter.initial-limit:40}") int initialLimit,
+                                      @Value("${limiter.min-limit:8}") int minLimit,
+                                      @Value("${limiter.max-limit:400}") int maxLimit,
+                                      @Value("${limiter.max-waiting:200}") int maxWaiting,
+                                      @Value("${limiter.codel.target-ms:5}") long codelTargetMs,
+                                      @Value("${limiter.codel.interval-ms:100}") long codelIntervalMs,
+                                      MeterRegistry registry) {
+        return new AdaptiveLimiter("api", initialLimit, minLimit, maxLimit, maxWaiting,
+                codelTargetMs, codelIntervalMs, registry);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(AdaptiveLimiter apiLimiter,
+                                                                                 ConsumerRegistry consumerRegistry,
+                                                                                 @Value("${limiter.enabled:true}") boolean enabled) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+                new FilterRegistrationBean<>(new ConcurrencyLimitFilter(apiLimiter, consumerRegistry));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        registration.setEnabled(enabled);
+        return registration;
+    }
+}
@@ -0,0 +1,43 @@
+package com.hotel.reservation.rest.config;
+
+import com.hotel.reservation.rest.cache.NearCache;
+import com.hotel.reservation.rest.model.Client;
+import com.hotel.reservation.rest.model.Reservation;
+import com.hotel.reservation.rest.payload.PreferencesCodec;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration des caches locaux devant les recherches par ID
+ *
+ * GET /api/reservations/{id} et GET /api/clients/{id} sont servis depuis la mémoire
+ * tant que l'entrée est valide ; les écritures de ReservationService invalident
+ * les entrées concernées après validation de la transaction.
+ */
+@Configuration
+public class NearCacheConfig {
+
+    /**
+     * Cache des réservations par ID (client et chambre chargés)
+     * Les réservations aux préférences volumineuses ne sont pas gardées
+     */
+    @Bean
+    public NearCache<Long, Reservation> reservationCache(@Value("${nearcache.reservations.max-entries:10000}") int maxEntries,
+                                                         @Value("${nearcache.ttl-seconds:5}") long ttlSeconds,
+                                                         MeterRegistry registry) {
+        return new NearCache<>("reservations", maxEntries, ttlSeconds,
+                reservation -> PreferencesCodec.isPetite(reservation.getPreferences()), registry);
+    }
+
+    /**
+     * Cache des clients par ID
+     */
+    @Bean
+    public NearCache<Long, Client> clientCache(@Value("${nearcache.clients.max-entries:10000}") int maxEntries,
+                                               @Value("${nearcache.ttl-seconds:5}") long ttlSeconds,
+                                               MeterRegistry registry) {
+        return new NearCache<>("clients", maxEntries, ttlSeconds, registry);
+    }
+}
@@ -0,0 +1,37 @@
+package com.hotel.reservation.rest.config;
+
+import com.fasterxml.jackson.core.StreamReadConstraints;
+import com.hotel.reservation.rest.payload.GzipRequestFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Configuration des charges volumineuses (préférences de réservation jusqu'à la classe 100 Ko)
+ *
+ * - corps de requête gzip décompressés au fil de la lecture (GzipRequestFilter) ;
+ * - chaînes JSON bornées à payload.preferences.max-bytes pendant l'analyse : un corps
+ *   trop gros est rejeté dès le dépassement, sans être tamponné en entier ;
+ * - réponses compressées par Tomcat (server.compression.*).
+ */
+@Configuration
+public class PayloadConfig {
+
+    @Bean
+    public FilterRegistrationBean<GzipRequestFilter> gzipRequestFilter(@Value("${payload.request.max-inflated-bytes:4194304}") long maxOctets) {
+        FilterRegistrationBean<GzipRequestFilter> registration = new FilterRegistrationBean<>(new GzipRequestFilter(maxOctets));
+        registration.addUrlPatterns("/api/*");
+        // Juste après le limiteur : une requête rejetée n'est pas décompressée
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer preferencesStringLimit(@Value("${payload.preferences.max-bytes:1048576}") int maxOctets) {
+        return builder -> builder.postConfigurer(objectMapper -> objectMapper.getFactory().setStreamReadConstraints(
+                StreamReadConstraints.builder().maxStringLength(maxOctets).build()));
+    }
+}
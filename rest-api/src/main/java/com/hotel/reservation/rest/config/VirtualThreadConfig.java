@@ -0,0 +1,31 @@
+package com.hotel.reservation.rest.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Mode threads virtuels pour Tomcat
+ *
+ * Activé par threads.virtual.enabled=true (profil Maven virtual-threads, JDK 21+) :
+ * chaque requête HTTP est traitée sur un thread virtuel au lieu du pool de threads
+ * plateforme de Tomcat (server.tomcat.threads.max), qui ne borne plus la concurrence.
+ * La concurrence vers MySQL reste bornée par le pool Hikari.
+ */
+@Configuration
+@ConditionalOnProperty(name = VirtualThreads.ENABLED_PROPERTY, havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService tomcatVirtualThreadExecutor() {
+        return VirtualThreads.newVirtualThreadPerTaskExecutor();
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService tomcatVirtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(tomcatVirtualThreadExecutor);
+    }
+}
@@ -1,17 +1,56 @@
 package com.hotel.reservation.rest.controller;
 
+import com.hotel.reservation.rest.admission.BookingConflictException;
+import com.hotel.reservation.rest.admission.RoomAdmission;
+import com.hotel.reservation.rest.assignment.RoomAssignment;
+import com.hotel.reservation.rest.availability.AvailabilityIndex;
+import com.hotel.reservation.rest.bulkhead.Bulkhead;
+import com.hotel.reservation.rest.calendar.CalendarGrid;
+import com.hotel.reservation.rest.catalog.CatalogCache;
+import com.hotel.reservation.rest.dto.GroupBookingRequest;
+import com.hotel.reservation.rest.dto.ReservationLookup;
+import com.hotel.reservation.rest.dto.ReservationPatch;
+import com.hotel.reservation.rest.dto.TypeBookingRequest;
+import com.hotel.reservation.rest.group.GroupBooking;
+import com.hotel.reservation.rest.group.GroupConflictException;
+import com.hotel.reservation.rest.hold.HoldExpiredException;
+import com.hotel.reservation.rest.idempotency.IdempotencyConflictException;
+import com.hotel.reservation.rest.idempotency.IdempotencyStore;
+import com.hotel.reservation.rest.inventory.DailyInventory;
+import com.hotel.reservation.rest.inventory.InventoryReconciler;
+import com.hotel.reservation.rest.inventory.OccupancyViews;
 import com.hotel.reservation.rest.model.Client;
 import com.hotel.reservation.rest.model.Chambre;
 import com.hotel.reservation.rest.model.Reservation;
+import com.hotel.reservation.rest.model.SaisonTarifaire;
+import com.hotel.reservation.rest.model.TarifJour;
+import com.hotel.reservation.rest.payload.PreferencesCodec;
+import com.hotel.reservation.rest.payload.PreferencesTooLargeException;
+import com.hotel.reservation.rest.pricing.RateCache;
+import com.hotel.reservation.rest.report.MonthlyReportJob;
 import com.hotel.reservation.rest.service.ReservationService;
+import com.hotel.reservation.rest.stats.ReservationCounters;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Contrôleur REST pour la gestion des réservations d'hôtel
@@ -19,6 +58,9 @@ import java.util.Optional;
  * Ce contrôleur expose des endpoints REST pour les opérations CRUD
  * sur les clients, chambres et réservations.
  * 
+ * Les traitements s'exécutent de façon asynchrone sur deux cloisons bornées
+ * (lectures / écritures) afin de libérer les threads Tomcat pendant l'accès JDBC.
+ * 
  * Base URL: http://localhost:8081/api
  */
 @RestController
@@ -29,6 +71,56 @@ public class ReservationRestController {
     @Autowired
     private ReservationService reservationService;
 
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private RoomAdmission roomAdmission;
+
+    @Autowired
+    private GroupBooking groupBooking;
+
+    @Autowired
+    private RoomAssignment roomAssignment;
+
+    @Autowired
+    private CalendarGrid calendarGrid;
+
+    @Autowired
+    private RateCache rateCache;
+
+    @Autowired
+    private DailyInventory dailyInventory;
+
+    @Autowired
+    private InventoryReconciler inventoryReconciler;
+
+    @Autowired
+    private OccupancyViews occupancyViews;
+
+    @Autowired
+    private ReservationCounters reservationCounters;
+
+    @Autowired
+    private MonthlyReportJob monthlyReportJob;
+
+    @Autowired
+    @Qualifier("readBulkhead")
+    private Bulkhead readBulkhead;
+
+    @Autowired
+    @Qualifier("writeBulkhead")
+    private Bulkhead writeBulkhead;
+
+    @Value("${payload.preferences.max-bytes:1048576}")
+    private long maxPreferencesBytes;
+
     // ========== Endpoints pour les Clients ==========
 
     /**
@@ -39,13 +131,15 @@ public class ReservationRestController {
      * @return Le client créé avec son ID généré
      */
     @PostMapping("/clients")
-    public ResponseEntity<Client> createClient(@Valid @RequestBody Client client) {
-        try {
-            Client createdClient = reservationService.createClient(client);
-            return new ResponseEntity<>(createdClient, HttpStatus.CREATED);
-        } catch (Exception e) {
-            return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
-        }
+    public CompletableFuture<ResponseEntity<Client>> createClient(@Valid @RequestBody Client client) {
+        return writeBulkhead.submit(() -> {
+            try {
+                Client createdClient = reservationService.createClient(client);
+                return new ResponseEntity<>(createdClient, HttpStatus.CREATED);
+            } catch (Exception e) {
+                return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        });
     }
 
     /**
@@ -56,10 +150,12 @@ public class ReservationRestController {
      * @return Le client trouvé ou 404 si non trouvé
      */
     @GetMapping("/clients/{id}")
-    public ResponseEntity<Client> getClientById(@PathVariable Long id) {
-        Optional<Client> client = reservationService.getClientById(id);
-        return client.map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public CompletableFuture<ResponseEntity<Client>> getClientById(@PathVariable Long id) {
+        return readBulkhead.submit(() -> {
+            Optional<Client> client = reservationService.getClientById(id);
+            return client.map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        });
     }
 
     /**
@@ -69,9 +165,11 @@ public class ReservationRestController {
      * @return Liste de tous les clients
      */
     @GetMapping("/clients")
-    public ResponseEntity<List<Client>> getAllClients() {
-        List<Client> clients = reservationService.getAllClients();
-        return ResponseEntity.ok(clients);
+    public CompletableFuture<ResponseEntity<List<Client>>> getAllClients() {
+        return readBulkhead.submit(() -> {
+            List<Client> clients = reservationService.getAllClients();
+            return ResponseEntity.ok(clients);
+        });
     }
 
     /**
@@ -83,13 +181,15 @@ public class ReservationRestController {
      * @return Le client mis à jour
      */
     @PutMapping("/clients/{id}")
-    public ResponseEntity<Client> updateClient(@PathVariable Long id, @Valid @RequestBody Client client) {
-        try {
-            Client updatedClient = reservationService.updateClient(id, client);
-            return ResponseEntity.ok(updatedClient);
-        } catch (RuntimeException e) {
-            return ResponseEntity.notFound().build();
-        }
+    public CompletableFuture<ResponseEntity<Client>> updateClient(@PathVariable Long id, @Valid @RequestBody Client client) {
+        return writeBulkhead.submit(() -> {
+            try {
+                Client updatedClient = reservationService.updateClient(id, client);
+                return ResponseEntity.ok(updatedClient);
+            } catch (RuntimeException e) {
+                return ResponseEntity.notFound().build();
+            }
+        });
     }
 
     /**
@@ -100,13 +200,15 @@ public class ReservationRestController {
      * @return 204 No Content si succès, 404 si non trouvé
      */
     @DeleteMapping("/clients/{id}")
-    public ResponseEntity<Void> deleteClient(@PathVariable Long id) {
-        try {
-            reservationService.deleteClient(id);
-            return ResponseEntity.noContent().build();
-        } catch (Exception e) {
-            return ResponseEntity.notFound().build();
-        }
+    public CompletableFuture<ResponseEntity<Void>> deleteClient(@PathVariable Long id) {
+        return writeBulkhead.submit(() -> {
+            try {
+                reservationService.deleteClient(id);
+                return ResponseEntity.noContent().build();
+            } catch (Exception e) {
+                return ResponseEntity.notFound().build();
+            }
+        });
     }
 
     // ========== Endpoints pour les Chambres ==========
@@ -119,13 +221,15 @@ public class ReservationRestController {
      * @return La chambre créée avec son ID généré
      */
     @PostMapping("/chambres")
-    public ResponseEntity<Chambre> createChambre(@Valid @RequestBody Chambre chambre) {
-        try {
-            Chambre createdChambre = reservationService.createChambre(chambre);
-            return new ResponseEntity<>(createdChambre, HttpStatus.CREATED);
-        } catch (Exception e) {
-            return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
-        }
+    public CompletableFuture<ResponseEntity<Chambre>> createChambre(@Valid @RequestBody Chambre chambre) {
+        return writeBulkhead.submit(() -> {
+            try {
+                Chambre createdChambre = reservationService.createChambre(chambre);
+                return new ResponseEntity<>(createdChambre, HttpStatus.CREATED);
+            } catch (Exception e) {
+                return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        });
     }
 
     /**
@@ -136,22 +240,143 @@ public class ReservationRestController {
      * @return La chambre trouvée ou 404 si non trouvée
      */
     @GetMapping("/chambres/{id}")
-    public ResponseEntity<Chambre> getChambreById(@PathVariable Long id) {
-        Optional<Chambre> chambre = reservationService.getChambreById(id);
-        return chambre.map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public CompletableFuture<ResponseEntity<Chambre>> getChambreById(@PathVariable Long id) {
+        return readBulkhead.submit(() -> {
+            Optional<Chambre> chambre = reservationService.getChambreById(id);
+            return chambre.map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        });
     }
 
     /**
      * GET /api/chambres
      * Récupère toutes les chambres
      * 
-     * @return Liste de toutes les chambres
+     * Le catalogue est servi depuis CatalogCache sous forme d'octets JSON déjà
+     * encodés : en cache, la réponse est écrite sans passer par la cloison ni la base.
+     * 
+     * @return Liste de toutes les chambres (tableau JSON)
      */
-    @GetMapping("/chambres")
-    public ResponseEntity<List<Chambre>> getAllChambres() {
-        List<Chambre> chambres = reservationService.getAllChambres();
-        return ResponseEntity.ok(chambres);
+    @GetMapping(value = "/chambres", produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<byte[]>> getAllChambres() {
+        byte[] catalogue = catalogCache.getJsonIfPresent();
+        if (catalogue != null) {
+            return CompletableFuture.completedFuture(ResponseEntity.ok(catalogue));
+        }
+        return readBulkhead.submit(() -> ResponseEntity.ok(catalogCache.getJson()));
+    }
+
+    /**
+     * GET /api/chambres/disponibles?type=suite&dateDebut=2026-12-20&dateFin=2026-12-27
+     * Recherche les chambres libres sur une période (nuits de dateDebut à la veille de dateFin)
+     * 
+     * Une fois l'index des disponibilités construit, la recherche se fait en mémoire :
+     * la réponse est calculée sans passer par la cloison ni la base.
+     * 
+     * @param type Le type de chambre (optionnel, insensible à la casse)
+     * @param dateDebut Date d'arrivée (ISO, au plus tôt aujourd'hui)
+     * @param dateFin Date de départ (ISO, après dateDebut)
+     * @return Les chambres disponibles triées par ID, ou 400 si la période est invalide
+     */
+    @GetMapping("/chambres/disponibles")
+    public CompletableFuture<ResponseEntity<List<Chambre>>> getChambresDisponibles(
+            @RequestParam(required = false) String type,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateDebut,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFin) {
+        if (availabilityIndex.isReady()) {
+            return CompletableFuture.completedFuture(chambresDisponibles(type, dateDebut, dateFin));
+        }
+        return readBulkhead.submit(() -> chambresDisponibles(type, dateDebut, dateFin));
+    }
+
+    private ResponseEntity<List<Chambre>> chambresDisponibles(String type, LocalDate dateDebut, LocalDate dateFin) {
+        try {
+            return ResponseEntity.ok(reservationService.getChambresDisponibles(type, dateDebut, dateFin));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * GET /api/chambres/occupation?mois=2026-12&type=double
+     * Taux d'occupation d'un mois par type de chambre, calculé en mémoire sur les bitmaps
+     * des nuits réservées (pour le mois en cours, à partir d'aujourd'hui)
+     * 
+     * @param mois Le mois (yyyy-MM), dans l'horizon de l'index des disponibilités
+     * @param type Le type de chambre (optionnel)
+     * @return Une occupation par type, 400 si le mois est hors de l'horizon,
+     *         503 si l'index est en cours de construction
+     */
+    @GetMapping("/chambres/occupation")
+    public CompletableFuture<ResponseEntity<List<AvailabilityIndex.Occupation>>> getOccupation(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth mois,
+            @RequestParam(required = false) String type) {
+        try {
+            return CompletableFuture.completedFuture(ResponseEntity.ok(reservationService.getOccupation(mois, type)));
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        } catch (IllegalStateException e) {
+            return CompletableFuture.completedFuture(indexEnConstruction());
+        }
+    }
+
+    /**
+     * GET /api/chambres/premiere-disponibilite?nuits=3&type=suite&depuis=2026-12-01
+     * Première fenêtre de nuits consécutives libres dans une chambre disponible, calculée en mémoire
+     * 
+     * @param nuits Nombre de nuits
+     * @param type Le type de chambre (optionnel)
+     * @param depuis Première date d'arrivée possible (optionnelle, aujourd'hui par défaut)
+     * @return La chambre et les dates de la fenêtre la plus tôt, 404 s'il n'y en a pas dans
+     *         l'horizon de l'index, 400 si les paramètres sont invalides, 503 si l'index est
+     *         en cours de construction
+     */
+    @GetMapping("/chambres/premiere-disponibilite")
+    public CompletableFuture<ResponseEntity<AvailabilityIndex.Fenetre>> getPremiereDisponibilite(
+            @RequestParam int nuits,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate depuis) {
+        try {
+            return CompletableFuture.completedFuture(reservationService.getPremiereDisponibilite(type, depuis, nuits)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build()));
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        } catch (IllegalStateException e) {
+            return CompletableFuture.completedFuture(indexEnConstruction());
+        }
+    }
+
+    /**
+     * GET /api/chambres/calendrier?dateDebut=2026-12-01&dateFin=2027-01-01&type=double
+     * Planning des chambres sur une période, pour la grille de la réception
+     * 
+     * Chaque chambre a une ligne encodée par plages de nuits consécutives de même statut
+     * (LIBRE, HORS_SERVICE, CONFIRMEE, EN_ATTENTE), calculée en une passe (CalendarGrid).
+     * 
+     * @param dateDebut Première nuit (ISO)
+     * @param dateFin Fin de la période (ISO, exclue), au plus calendar.max-days nuits après dateDebut
+     * @param type Le type de chambre (optionnel)
+     * @param chambreIds Les chambres à inclure (optionnel, toutes par défaut)
+     * @return Le planning, une ligne par chambre triée par ID, ou 400 si la période est invalide
+     */
+    @GetMapping("/chambres/calendrier")
+    public CompletableFuture<ResponseEntity<CalendarGrid.Calendrier>> getCalendrier(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateDebut,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFin,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) List<Long> chambreIds) {
+        return readBulkhead.submit(() -> {
+            try {
+                return ResponseEntity.ok(calendarGrid.grid(dateDebut, dateFin, type, chambreIds));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        });
+    }
+
+    private static <T> ResponseEntity<T> indexEnConstruction() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
     }
 
     /**
@@ -163,13 +388,15 @@ public class ReservationRestController {
      * @return La chambre mise à jour
      */
     @PutMapping("/chambres/{id}")
-    public ResponseEntity<Chambre> updateChambre(@PathVariable Long id, @Valid @RequestBody Chambre chambre) {
-        try {
-            Chambre updatedChambre = reservationService.updateChambre(id, chambre);
-            return ResponseEntity.ok(updatedChambre);
-        } catch (RuntimeException e) {
-            return ResponseEntity.notFound().build();
-        }
+    public CompletableFuture<ResponseEntity<Chambre>> updateChambre(@PathVariable Long id, @Valid @RequestBody Chambre chambre) {
+        return writeBulkhead.submit(() -> {
+            try {
+                Chambre updatedChambre = reservationService.updateChambre(id, chambre);
+                return ResponseEntity.ok(updatedChambre);
+            } catch (RuntimeException e) {
+                return ResponseEntity.notFound().build();
+            }
+        });
     }
 
     /**
@@ -180,32 +407,451 @@ public class ReservationRestController {
      * @return 204 No Content si succès, 404 si non trouvé
      */
     @DeleteMapping("/chambres/{id}")
-    public ResponseEntity<Void> deleteChambre(@PathVariable Long id) {
+    public CompletableFuture<ResponseEntity<Void>> deleteChambre(@PathVariable Long id) {
+        return writeBulkhead.submit(() -> {
+            try {
+                reservationService.deleteChambre(id);
+                return ResponseEntity.noContent().build();
+            } catch (Exception e) {
+                return ResponseEntity.notFound().build();
+            }
+        });
+    }
+
+    // ========== Endpoints pour les Tarifs ==========
+
+    /**
+     * GET /api/tarifs/devis?chambreId=12&dateDebut=2026-12-20&dateFin=2026-12-27
+     * GET /api/tarifs/devis?type=suite&dateDebut=2026-12-20&dateFin=2026-12-27
+     * Prix d'un séjour (nuits de dateDebut à la veille de dateFin) dans une chambre, ou « à partir de »
+     * dans la chambre la moins chère d'un type, selon les saisons et les tarifs par jour de la semaine
+     * 
+     * Une fois les grilles tarifaires chargées, le devis est calculé en mémoire (RateCache) :
+     * la réponse est calculée sans passer par la cloison ni la base.
+     * 
+     * @param chambreId La chambre (prioritaire sur type)
+     * @param type Le type de chambre (insensible à la casse)
+     * @param dateDebut Date d'arrivée (ISO, au plus tôt aujourd'hui)
+     * @param dateFin Date de départ (ISO, après dateDebut, dans pricing.horizon-days jours)
+     * @return Le devis, 404 si la chambre ou le type n'existe pas, 400 si les paramètres sont invalides
+     */
+    @GetMapping("/tarifs/devis")
+    public CompletableFuture<ResponseEntity<RateCache.Devis>> getDevis(
+            @RequestParam(required = false) Long chambreId,
+            @RequestParam(required = false) String type,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateDebut,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFin) {
+        if (rateCache.isReady()) {
+            return CompletableFuture.completedFuture(devis(chambreId, type, dateDebut, dateFin));
+        }
+        return readBulkhead.submit(() -> devis(chambreId, type, dateDebut, dateFin));
+    }
+
+    private ResponseEntity<RateCache.Devis> devis(Long chambreId, String type, LocalDate dateDebut, LocalDate dateFin) {
         try {
-            reservationService.deleteChambre(id);
-            return ResponseEntity.noContent().build();
-        } catch (Exception e) {
+            if (chambreId != null) {
+                return ResponseEntity.ok(rateCache.quoteRoom(chambreId, dateDebut, dateFin));
+            }
+            return ResponseEntity.ok(rateCache.quoteType(type, dateDebut, dateFin));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
     }
 
+    /**
+     * GET /api/tarifs/saisons
+     * Récupère toutes les saisons tarifaires
+     * 
+     * @return Les saisons triées par ID
+     */
+    @GetMapping("/tarifs/saisons")
+    public CompletableFuture<ResponseEntity<List<SaisonTarifaire>>> getAllSaisons() {
+        return readBulkhead.submit(() -> ResponseEntity.ok(reservationService.getAllSaisons()));
+    }
+
+    /**
+     * POST /api/tarifs/saisons
+     * Crée une saison tarifaire (type null : tous les types de chambre)
+     * 
+     * @param saison La saison à créer
+     * @return La saison créée avec son ID généré, 400 si dateFin n'est pas après dateDebut
+     */
+    @PostMapping("/tarifs/saisons")
+    public CompletableFuture<ResponseEntity<SaisonTarifaire>> createSaison(@Valid @RequestBody SaisonTarifaire saison) {
+        return writeBulkhead.submit(() -> {
+            try {
+                return new ResponseEntity<>(reservationService.createSaison(saison), HttpStatus.CREATED);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        });
+    }
+
+    /**
+     * DELETE /api/tarifs/saisons/{id}
+     * Supprime une saison tarifaire
+     * 
+     * @param id L'ID de la saison à supprimer
+     * @return 204 No Content si succès, 404 si non trouvée
+     */
+    @DeleteMapping("/tarifs/saisons/{id}")
+    public CompletableFuture<ResponseEntity<Void>> deleteSaison(@PathVariable Long id) {
+        return writeBulkhead.submit(() -> {
+            try {
+                reservationService.deleteSaison(id);
+                return ResponseEntity.noContent().build();
+            } catch (RuntimeException e) {
+                return ResponseEntity.notFound().build();
+            }
+        });
+    }
+
+    /**
+     * GET /api/tarifs/jours
+     * Récupère tous les tarifs par jour de la semaine
+     * 
+     * @return Les tarifs triés par ID
+     */
+    @GetMapping("/tarifs/jours")
+    public CompletableFuture<ResponseEntity<List<TarifJour>>> getAllTarifsJour() {
+        return readBulkhead.submit(() -> ResponseEntity.ok(reservationService.getAllTarifsJour()));
+    }
+
+    /**
+     * POST /api/tarifs/jours
+     * Crée un tarif par jour de la semaine (1 : lundi ... 7 : dimanche ; type null : tous les types)
+     * 
+     * @param tarif Le tarif à créer
+     * @return Le tarif créé avec son ID généré
+     */
+    @PostMapping("/tarifs/jours")
+    public CompletableFuture<ResponseEntity<TarifJour>> createTarifJour(@Valid @RequestBody TarifJour tarif) {
+        return writeBulkhead.submit(() -> new ResponseEntity<>(reservationService.createTarifJour(tarif), HttpStatus.CREATED));
+    }
+
+    /**
+     * DELETE /api/tarifs/jours/{id}
+     * Supprime un tarif par jour de la semaine
+     * 
+     * @param id L'ID du tarif à supprimer
+     * @return 204 No Content si succès, 404 si non trouvé
+     */
+    @DeleteMapping("/tarifs/jours/{id}")
+    public CompletableFuture<ResponseEntity<Void>> deleteTarifJour(@PathVariable Long id) {
+        return writeBulkhead.submit(() -> {
+            try {
+                reservationService.deleteTarifJour(id);
+                return ResponseEntity.noContent().build();
+            } catch (RuntimeException e) {
+                return ResponseEntity.notFound().build();
+            }
+        });
+    }
+
+    // ========== Endpoints pour l'Inventaire ==========
+
+    /**
+     * GET /api/inventaire?type=double&dateDebut=2027-03-10&dateFin=2027-03-15
+     * Chambres vendues d'un type pour chaque nuit d'une période, et chambres libres la nuit la plus chargée
+     * 
+     * Lu sur le miroir de l'inventaire journalier : un compteur par nuit, sans passer par la
+     * cloison ni la base. disponible indique qu'une chambre du type reste libre chaque nuit
+     * (pas forcément la même chambre).
+     * 
+     * @param type Le type de chambre (insensible à la casse)
+     * @param dateDebut Première nuit (ISO, au plus tôt aujourd'hui)
+     * @param dateFin Fin de la période (ISO, exclue, dans inventory.horizon-days jours)
+     * @return L'inventaire, 404 si aucune chambre n'est de ce type, 400 si la période est invalide,
+     *         503 si le miroir est en cours de chargement
+     */
+    @GetMapping("/inventaire")
+    public CompletableFuture<ResponseEntity<DailyInventory.Inventaire>> getInventaire(
+            @RequestParam String type,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateDebut,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFin) {
+        try {
+            return CompletableFuture.completedFuture(ResponseEntity.ok(dailyInventory.inventory(type, dateDebut, dateFin)));
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        } catch (IllegalStateException e) {
+            return CompletableFuture.completedFuture(indexEnConstruction());
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+        }
+    }
+
+    /**
+     * GET /api/inventaire/occupation?granularite=mois&dateDebut=2026-01-01&dateFin=2027-01-01&type=double
+     * Taux d'occupation et revenu par jour, semaine ou mois, d'un type de chambre ou de tous
+     * 
+     * Lu sur les vues tenues à jour en mémoire à chaque réservation, sans passer par la cloison
+     * ni la base : passé et futur, sans agrégation sur reservation.
+     * 
+     * @param granularite jour, semaine ou mois
+     * @param dateDebut Première nuit (ISO)
+     * @param dateFin Fin de la période (ISO, exclue, au plus occupancy.max-days jours après le début)
+     * @param type Le type de chambre (optionnel, tous les types par défaut)
+     * @return Une période par jour, semaine ou mois, 404 si aucune chambre n'est de ce type,
+     *         400 si la période ou la granularité est invalide, 503 si les vues sont en cours de chargement
+     */
+    @GetMapping("/inventaire/occupation")
+    public CompletableFuture<ResponseEntity<OccupancyViews.Vue>> getOccupationVue(
+            @RequestParam String granularite,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateDebut,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFin,
+            @RequestParam(required = false) String type) {
+        try {
+            return CompletableFuture.completedFuture(ResponseEntity.ok(occupancyViews.occupancy(type, granularite, dateDebut, dateFin)));
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        } catch (IllegalStateException e) {
+            return CompletableFuture.completedFuture(indexEnConstruction());
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+        }
+    }
+
+    /**
+     * POST /api/inventaire/reconciliation?depuis=2024-01-01
+     * Recalcule les compteurs de l'inventaire journalier depuis les réservations, par plages de nuits en parallèle
+     * 
+     * @param depuis Première nuit recalculée (ISO, optionnel : inventory.reconcile.past-days jours avant aujourd'hui)
+     * @return Le bilan (plages traitées, compteurs corrigés, plages en échec), 409 si une
+     *         réconciliation est déjà en cours dans ce module
+     */
+    @PostMapping("/inventaire/reconciliation")
+    public CompletableFuture<ResponseEntity<InventoryReconciler.Bilan>> reconcileInventaire(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate depuis) {
+        return writeBulkhead.submit(() -> {
+            try {
+                return ResponseEntity.ok(inventoryReconciler.reconcile(depuis));
+            } catch (IllegalStateException e) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).build();
+            }
+        });
+    }
+
+    // ========== Endpoints pour les Relevés mensuels ==========
+
+    /**
+     * POST /api/rapports/mensuels?mois=2026-09
+     * Lance la production des relevés de fin de mois (par client, par chambre et par statut)
+     * 
+     * Le relevé s'exécute sur le thread du job, hors cloison : sur une grosse table il dépasse
+     * le délai d'une requête. Son avancement se suit sur GET /api/rapports/mensuels/dernier.
+     * 
+     * @param mois Le mois (yyyy-MM), au plus tard le mois en cours
+     * @return 202 avec l'état du relevé lancé, 409 si un relevé est déjà en cours,
+     *         400 si le mois est à venir
+     */
+    @PostMapping("/rapports/mensuels")
+    public CompletableFuture<ResponseEntity<MonthlyReportJob.Etat>> startRapportMensuel(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth mois) {
+        try {
+            return CompletableFuture.completedFuture(ResponseEntity.accepted().body(monthlyReportJob.start(mois)));
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        } catch (IllegalStateException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.CONFLICT).build());
+        }
+    }
+
+    /**
+     * GET /api/rapports/mensuels/dernier
+     * État du dernier relevé de fin de mois lancé par ce module
+     * 
+     * @return L'état (EN_COURS, TERMINE ou ECHEC, avancement, répertoire des fichiers),
+     *         404 si aucun relevé n'a été lancé depuis le démarrage
+     */
+    @GetMapping("/rapports/mensuels/dernier")
+    public CompletableFuture<ResponseEntity<MonthlyReportJob.Etat>> getDernierRapportMensuel() {
+        MonthlyReportJob.Etat etat = monthlyReportJob.last();
+        return CompletableFuture.completedFuture(etat == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(etat));
+    }
+
     // ========== Endpoints pour les Réservations ==========
 
+    /**
+     * GET /api/reservations/stats
+     * Nombre de réservations par statut, et de réservations non annulées par type de chambre
+     * 
+     * Lu sur les compteurs en mémoire, sans passer par la cloison ni la base : les tableaux de
+     * bord peuvent l'interroger toutes les secondes sans charger MySQL.
+     * 
+     * @return Les compteurs et leur dernier rechargement, 503 s'ils sont en cours de chargement
+     */
+    @GetMapping("/reservations/stats")
+    public CompletableFuture<ResponseEntity<ReservationCounters.Statistiques>> getReservationStats() {
+        try {
+            return CompletableFuture.completedFuture(ResponseEntity.ok(reservationCounters.stats()));
+        } catch (IllegalStateException e) {
+            return CompletableFuture.completedFuture(indexEnConstruction());
+        }
+    }
+
     /**
      * POST /api/reservations
      * Crée une nouvelle réservation
      * 
+     * Avec l'en-tête Idempotency-Key, une nouvelle tentative portant la même clé
+     * renvoie la réservation créée la première fois sans en créer une autre. La même
+     * clé envoyée avec une autre requête est refusée avec 422.
+     * 
+     * Les créations d'une même chambre passent une par une (RoomAdmission) ; une période
+     * qui chevauche une réservation non annulée de la chambre est refusée avec 409.
+     * 
      * @param reservation La réservation à créer
-     * @return La réservation créée avec son ID généré
+     * @param idempotencyKey Clé d'idempotence optionnelle (128 caractères max)
+     * @return La réservation créée avec son ID généré, 409 si la chambre est déjà réservée,
+     *         422 si la clé d'idempotence a servi pour une autre requête
      */
     @PostMapping("/reservations")
-    public ResponseEntity<Reservation> createReservation(@Valid @RequestBody Reservation reservation) {
-        try {
-            Reservation createdReservation = reservationService.createReservation(reservation);
-            return new ResponseEntity<>(createdReservation, HttpStatus.CREATED);
-        } catch (RuntimeException e) {
-            return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
-        }
+    public CompletableFuture<ResponseEntity<Reservation>> createReservation(@Valid @RequestBody Reservation reservation,
+                                                         @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return writeBulkhead.submit(() -> {
+            Long chambreId = reservation.getChambre() != null ? reservation.getChambre().getId() : null;
+            try {
+                if (idempotencyKey == null) {
+                    Reservation createdReservation = roomAdmission.admit(chambreId,
+                            () -> reservationService.createReservation(reservation));
+                    return new ResponseEntity<>(createdReservation, HttpStatus.CREATED);
+                }
+                if (!IdempotencyStore.isValidKey(idempotencyKey)) {
+                    return ResponseEntity.badRequest().build();
+                }
+                String empreinte = IdempotencyStore.empreinte(
+                        reservation.getClient() != null ? reservation.getClient().getId() : null, chambreId,
+                        reservation.getDateDebut(), reservation.getDateFin(), reservation.getStatut(),
+                        reservation.getPreferences());
+                // Verrou de la chambre pris seulement pour créer : une nouvelle tentative rejoint la création en cours
+                Long id = idempotencyStore.execute(idempotencyKey, empreinte,
+                        enregistrement -> roomAdmission.admit(chambreId, enregistrement),
+                        () -> reservationService.createReservation(reservation).getId());
+                return reservationService.getReservationById(id)
+                        .map(createdReservation -> new ResponseEntity<>(createdReservation, HttpStatus.CREATED))
+                        .orElse(new ResponseEntity<>(null, HttpStatus.GONE));
+            } catch (BookingConflictException e) {
+                return new ResponseEntity<>(null, HttpStatus.CONFLICT);
+            } catch (IdempotencyConflictException e) {
+                return new ResponseEntity<>(null, HttpStatus.UNPROCESSABLE_ENTITY);
+            } catch (RejectedExecutionException e) {
+                // Attente trop longue du verrou de la chambre : même réponse qu'une cloison saturée
+                throw e;
+            } catch (RuntimeException e) {
+                return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
+            }
+        });
+    }
+
+    /**
+     * POST /api/reservations/groups
+     * Réserve plusieurs chambres et séjours en une seule transaction : tous ou aucun
+     * 
+     * Les chambres sont verrouillées dans l'ordre croissant de leurs IDs et les réservations
+     * insérées en un seul lot (GroupBooking).
+     * 
+     * @param request Le client et les séjours à réserver (booking.group.max-size au plus)
+     * @return Les séjours avec l'ID de leur réservation (201), ou avec leur résultat si le groupe
+     *         est refusé (409 : CONFLIT, INDISPONIBLE, ou LIBRE pour les séjours qui étaient possibles)
+     */
+    @PostMapping("/reservations/groups")
+    public CompletableFuture<ResponseEntity<List<GroupBooking.Ligne>>> createGroupReservation(@RequestBody GroupBookingRequest request) {
+        return writeBulkhead.submit(() -> {
+            try {
+                return new ResponseEntity<>(groupBooking.book(request.getClientId(), request.getSejours()), HttpStatus.CREATED);
+            } catch (GroupConflictException e) {
+                return new ResponseEntity<>(e.getLignes(), HttpStatus.CONFLICT);
+            } catch (RejectedExecutionException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
+            }
+        });
+    }
+
+    /**
+     * POST /api/reservations/by-type
+     * Réserve une chambre d'un type donné : le module choisit la chambre
+     * 
+     * La chambre retenue est la mieux ajustée au calendrier parmi les chambres libres du type
+     * (RoomAssignment) : celle qui laisse le moins de nuits isolées invendables.
+     * 
+     * @param request Le client, le type de chambre, la période et les préférences éventuelles
+     * @return La réservation créée sur la chambre choisie, 409 si aucune chambre du type n'est libre
+     */
+    @PostMapping("/reservations/by-type")
+    public CompletableFuture<ResponseEntity<Reservation>> createReservationByType(@RequestBody TypeBookingRequest request) {
+        return writeBulkhead.submit(() -> {
+            try {
+                Reservation createdReservation = roomAssignment.assign(request.getType(), request.getDateDebut(),
+                        request.getDateFin(), chambreId -> {
+                            // Nouvelle réservation à chaque candidate : la création modifie celle qu'elle reçoit
+                            Reservation reservation = new Reservation();
+                            reservation.setClient(new Client());
+                            reservation.getClient().setId(request.getClientId());
+                            reservation.setChambre(new Chambre());
+                            reservation.getChambre().setId(chambreId);
+                            reservation.setDateDebut(request.getDateDebut());
+                            reservation.setDateFin(request.getDateFin());
+                            reservation.setPreferences(request.getPreferences());
+                            return reservationService.createReservation(reservation);
+                        });
+                return new ResponseEntity<>(createdReservation, HttpStatus.CREATED);
+            } catch (BookingConflictException e) {
+                return new ResponseEntity<>(null, HttpStatus.CONFLICT);
+            } catch (RejectedExecutionException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
+            }
+        });
+    }
+
+    /**
+     * POST /api/reservations/holds
+     * Pose une option : la chambre est bloquée pendant hold.ttl-minutes, le temps de confirmer
+     * 
+     * @param reservation La réservation à poser en attente (le statut fourni est ignoré)
+     * @return L'option créée (statut EN_ATTENTE, échéance expiresAt), 409 si la chambre est déjà réservée
+     */
+    @PostMapping("/reservations/holds")
+    public CompletableFuture<ResponseEntity<Reservation>> placeHold(@Valid @RequestBody Reservation reservation) {
+        return writeBulkhead.submit(() -> {
+            Long chambreId = reservation.getChambre() != null ? reservation.getChambre().getId() : null;
+            try {
+                Reservation option = roomAdmission.admit(chambreId, () -> reservationService.placeHold(reservation));
+                return new ResponseEntity<>(option, HttpStatus.CREATED);
+            } catch (BookingConflictException e) {
+                return new ResponseEntity<>(null, HttpStatus.CONFLICT);
+            } catch (RejectedExecutionException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
+            }
+        });
+    }
+
+    /**
+     * POST /api/reservations/{id}/confirmation
+     * Confirme une option avant son échéance
+     * 
+     * @param id L'ID de l'option
+     * @return La réservation confirmée, 404 si non trouvée, 410 si l'option a expiré ou a été annulée
+     */
+    @PostMapping("/reservations/{id}/confirmation")
+    public CompletableFuture<ResponseEntity<Reservation>> confirmHold(@PathVariable Long id) {
+        return writeBulkhead.submit(() -> {
+            try {
+                reservationService.confirmHold(id);
+                return relue(id);
+            } catch (HoldExpiredException e) {
+                return new ResponseEntity<>(null, HttpStatus.GONE);
+            } catch (RuntimeException e) {
+                return ResponseEntity.notFound().build();
+            }
+        });
     }
 
     /**
@@ -216,10 +862,31 @@ public class ReservationRestController {
      * @return La réservation trouvée ou 404 si non trouvée
      */
     @GetMapping("/reservations/{id}")
-    public ResponseEntity<Reservation> getReservationById(@PathVariable Long id) {
-        Optional<Reservation> reservation = reservationService.getReservationById(id);
-        return reservation.map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public CompletableFuture<ResponseEntity<Reservation>> getReservationById(@PathVariable Long id) {
+        return readBulkhead.submit(() -> {
+            Optional<Reservation> reservation = reservationService.getReservationById(id);
+            return reservation.map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        });
+    }
+
+    /**
+     * GET /api/reservations?ids=1,2,3
+     * Récupère plusieurs réservations en un seul aller-retour
+     * 
+     * @param ids Les IDs des réservations, séparés par des virgules
+     * @return Un résultat par ID dans l'ordre demandé (found=false si non trouvé),
+     *         ou 400 si trop d'IDs sont demandés
+     */
+    @GetMapping(value = "/reservations", params = "ids")
+    public CompletableFuture<ResponseEntity<List<ReservationLookup>>> getReservationsByIds(@RequestParam List<Long> ids) {
+        return readBulkhead.submit(() -> {
+            try {
+                return ResponseEntity.ok(reservationService.getReservationsByIds(ids));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        });
     }
 
     /**
@@ -229,9 +896,11 @@ public class ReservationRestController {
      * @return Liste de toutes les réservations
      */
     @GetMapping("/reservations")
-    public ResponseEntity<List<Reservation>> getAllReservations() {
-        List<Reservation> reservations = reservationService.getAllReservations();
-        return ResponseEntity.ok(reservations);
+    public CompletableFuture<ResponseEntity<List<Reservation>>> getAllReservations() {
+        return readBulkhead.submit(() -> {
+            List<Reservation> reservations = reservationService.getAllReservations();
+            return ResponseEntity.ok(reservations);
+        });
     }
 
     /**
@@ -243,13 +912,55 @@ public class ReservationRestController {
      * @return La réservation mise à jour
      */
     @PutMapping("/reservations/{id}")
-    public ResponseEntity<Reservation> updateReservation(@PathVariable Long id, @Valid @RequestBody Reservation reservation) {
-        try {
-            Reservation updatedReservation = reservationService.updateReservation(id, reservation);
-            return ResponseEntity.ok(updatedReservation);
-        } catch (RuntimeException e) {
-            return ResponseEntity.notFound().build();
-        }
+    public CompletableFuture<ResponseEntity<Reservation>> updateReservation(@PathVariable Long id, @Valid @RequestBody Reservation reservation) {
+        return writeBulkhead.submit(() -> {
+            try {
+                reservationService.updateReservation(id, reservation);
+                return relue(id);
+            } catch (BookingConflictException e) {
+                return new ResponseEntity<>(null, HttpStatus.CONFLICT);
+            } catch (RuntimeException e) {
+                return ResponseEntity.notFound().build();
+            }
+        });
+    }
+
+    /**
+     * PATCH /api/reservations/{id}
+     * Met à jour partiellement une réservation : seuls les champs fournis sont modifiés
+     * 
+     * @param id L'ID de la réservation à mettre à jour
+     * @param patch Les champs à modifier (clientId, chambreId, dateDebut, dateFin, preferences, statut)
+     * @return La réservation mise à jour, 409 si la nouvelle période chevauche une autre réservation
+     */
+    @PatchMapping("/reservations/{id}")
+    public CompletableFuture<ResponseEntity<Reservation>> patchReservation(@PathVariable Long id, @RequestBody ReservationPatch patch) {
+        return writeBulkhead.submit(() -> {
+            try {
+                reservationService.patchReservation(id, patch);
+                return relue(id);
+            } catch (BookingConflictException e) {
+                return new ResponseEntity<>(null, HttpStatus.CONFLICT);
+            } catch (RuntimeException e) {
+                return ResponseEntity.notFound().build();
+            }
+        });
+    }
+
+    /**
+     * Réponse d'une modification : la réservation relue avec son client et sa chambre (JOIN FETCH)
+     * 
+     * La cloison sérialise la réponse après la fin de la transaction : l'entité modifiée,
+     * dont le client et la chambre peuvent être des références LAZY, n'est pas renvoyée.
+     * Le cache est invalidé au commit, la relecture voit donc la modification.
+     * 
+     * @param id L'ID de la réservation modifiée
+     * @return La réservation, ou 404 si elle a été supprimée entre-temps
+     */
+    private ResponseEntity<Reservation> relue(Long id) {
+        return reservationService.getReservationById(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 
     /**
@@ -260,12 +971,116 @@ public class ReservationRestController {
      * @return 204 No Content si succès, 404 si non trouvé
      */
     @DeleteMapping("/reservations/{id}")
-    public ResponseEntity<Void> deleteReservation(@PathVariable Long id) {
+    public CompletableFuture<ResponseEntity<Void>> deleteReservation(@PathVariable Long id) {
+        return writeBulkhead.submit(() -> {
+            try {
+                reservationService.deleteReservation(id);
+                return ResponseEntity.noContent().build();
+            } catch (Exception e) {
+                return ResponseEntity.notFound().build();
+            }
+        });
+    }
+
+    /**
+     * GET /api/reservations/{id}/preferences
+     * Récupère les préférences d'une réservation en flux (transfert chunked)
+     * 
+     * Si le client accepte gzip et que les préférences sont stockées compressées, les
+     * octets gzip stockés sont envoyés tels quels (Content-Encoding: gzip), sans
+     * décompression. Sinon elles sont décompressées au fil de l'écriture.
+     * 
+     * @param id L'ID de la réservation
+     * @return Les préférences, 204 si la réservation n'en a pas, 404 si non trouvée
+     */
+    @GetMapping("/reservations/{id}/preferences")
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> getPreferences(@PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return readBulkhead.submit(() -> {
+            String stockee;
+            try {
+                stockee = reservationService.getStoredPreferences(id);
+            } catch (RuntimeException e) {
+                return ResponseEntity.notFound().<StreamingResponseBody>build();
+            }
+            if (stockee == null) {
+                return ResponseEntity.noContent().<StreamingResponseBody>build();
+            }
+
+            byte[] gzip = acceptsGzip(acceptEncoding) ? PreferencesCodec.gzipBytes(stockee) : null;
+            ResponseEntity.BodyBuilder reponse = ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (gzip != null) {
+                return reponse.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                        .body((StreamingResponseBody) sortie -> sortie.write(gzip));
+            }
+            return reponse.body((StreamingResponseBody) sortie -> {
+                try (InputStream preferences = PreferencesCodec.openDecoded(stockee)) {
+                    preferences.transferTo(sortie);
+                }
+            });
+        });
+    }
+
+    /**
+     * PUT /api/reservations/{id}/preferences
+     * Remplace les préférences d'une réservation à partir du corps brut de la requête
+     * 
+     * Le corps (éventuellement envoyé en gzip) est compressé au fil de la lecture :
+     * seule sa forme compressée est gardée en mémoire. Les corps de formulaire sont refusés
+     * (415) : le filtre de formulaire de Spring les consommerait avant le contrôleur.
+     * 
+     * @param id L'ID de la réservation
+     * @return 204 si succès, 404 si non trouvée, 413 si les préférences sont trop volumineuses
+     */
+    @PutMapping(value = "/reservations/{id}/preferences",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public CompletableFuture<ResponseEntity<Void>> replacePreferences(@PathVariable Long id, HttpServletRequest request) {
+        String stockee;
         try {
-            reservationService.deleteReservation(id);
-            return ResponseEntity.noContent().build();
-        } catch (Exception e) {
-            return ResponseEntity.notFound().build();
+            // Lu sur le thread Tomcat : le flux de la requête n'est pas lu depuis la cloison
+            stockee = PreferencesCodec.encode(request.getInputStream(), maxPreferencesBytes);
+        } catch (PreferencesTooLargeException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build());
+        } catch (IOException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
         }
+
+        return writeBulkhead.submit(() -> {
+            try {
+                reservationService.replaceStoredPreferences(id, stockee);
+                return ResponseEntity.noContent().<Void>build();
+            } catch (RuntimeException e) {
+                return ResponseEntity.notFound().<Void>build();
+            }
+        });
+    }
+
+    /**
+     * Vérifie qu'un en-tête Accept-Encoding autorise gzip (ni absent ni q=0)
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String codage : acceptEncoding.split(",")) {
+            String[] parties = codage.trim().split(";");
+            String nom = parties[0].trim();
+            if (nom.equalsIgnoreCase("gzip") || nom.equals("*")) {
+                return parties.length < 2 || !parties[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Cloison saturée : rejet immédiat avec 503 pour que le client réessaie plus tard
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Void> handleBulkheadFull() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .build();
     }
 }
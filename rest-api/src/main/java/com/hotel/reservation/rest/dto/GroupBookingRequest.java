@@ -0,0 +1,37 @@
+package com.hotel.reservation.rest.dto;
+
+import com.hotel.reservation.rest.group.GroupBooking;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Corps d'une réservation de groupe : un client et les séjours à réserver ensemble
+ *
+ * Une même chambre peut apparaître sur plusieurs lignes, pour des périodes distinctes.
+ */
+public class GroupBookingRequest {
+
+    private Long clientId;
+    private List<GroupBooking.Ligne> sejours = new ArrayList<>();
+
+    public GroupBookingRequest() {
+    }
+
+    // Getters et Setters
+    public Long getClientId() {
+        return clientId;
+    }
+
+    public void setClientId(Long clientId) {
+        this.clientId = clientId;
+    }
+
+    public List<GroupBooking.Ligne> getSejours() {
+        return sejours;
+    }
+
+    public void setSejours(List<GroupBooking.Ligne> sejours) {
+        this.sejours = sejours;
+    }
+}
@@ -0,0 +1,91 @@
+package com.hotel.reservation.rest.dto;
+
+import com.hotel.reservation.rest.model.Reservation;
+
+import java.time.LocalDate;
+
+/**
+ * Corps d'une mise à jour partielle (PATCH) de réservation
+ *
+ * Seuls les champs non null sont appliqués. Le client et la chambre
+ * sont désignés par leur ID, sans charger les entités associées.
+ */
+public class ReservationPatch {
+
+    private Long clientId;
+    private Long chambreId;
+    private LocalDate dateDebut;
+    private LocalDate dateFin;
+    private String preferences;
+    private String statut;
+
+    public ReservationPatch() {
+    }
+
+    /**
+     * Construit un patch à partir d'une réservation complète (utilisé par PUT)
+     */
+    public static ReservationPatch from(Reservation reservation) {
+        ReservationPatch patch = new ReservationPatch();
+        if (reservation.getClient() != null) {
+            patch.setClientId(reservation.getClient().getId());
+        }
+        if (reservation.getChambre() != null) {
+            patch.setChambreId(reservation.getChambre().getId());
+        }
+        patch.setDateDebut(reservation.getDateDebut());
+        patch.setDateFin(reservation.getDateFin());
+        patch.setPreferences(reservation.getPreferences());
+        patch.setStatut(reservation.getStatut());
+        return patch;
+    }
+
+    // Getters et Setters
+    public Long getClientId() {
+        return clientId;
+    }
+
+    public void setClientId(Long clientId) {
+        this.clientId = clientId;
+    }
+
+    public Long getChambreId() {
+        return chambreId;
+    }
+
+    public void setChambreId(Long chambreId) {
+        this.chambreId = chambreId;
+    }
+
+    public LocalDate getDateDebut() {
+        return dateDebut;
+    }
+
+    public void setDateDebut(LocalDate dateDebut) {
+        this.dateDebut = dateDebut;
+    }
+
+    public LocalDate getDateFin() {
+        return dateFin;
+    }
+
+    public void setDateFin(LocalDate dateFin) {
+        this.dateFin = dateFin;
+    }
+
+    public String getPreferences() {
+        return preferences;
+    }
+
+    public void setPreferences(String preferences) {
+        this.preferences = preferences;
+    }
+
+    public String getStatut() {
+        return statut;
+    }
+
+    public void setStatut(String statut) {
+        this.statut = statut;
+    }
+}
@@ -0,0 +1,59 @@
+package com.hotel.reservation.rest.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Corps d'une réservation par type de chambre : la chambre est choisie par le module
+ */
+public class TypeBookingRequest {
+
+    private Long clientId;
+    private String type;
+    private LocalDate dateDebut;
+    private LocalDate dateFin;
+    private String preferences;
+
+    public TypeBookingRequest() {
+    }
+
+    // Getters et Setters
+    public Long getClientId() {
+        return clientId;
+    }
+
+    public void setClientId(Long clientId) {
+        this.clientId = clientId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public LocalDate getDateDebut() {
+        return dateDebut;
+    }
+
+    public void setDateDebut(LocalDate dateDebut) {
+        this.dateDebut = dateDebut;
+    }
+
+    public LocalDate getDateFin() {
+        return dateFin;
+    }
+
+    public void setDateFin(LocalDate dateFin) {
+        this.dateFin = dateFin;
+    }
+
+    public String getPreferences() {
+        return preferences;
+    }
+
+    public void setPreferences(String preferences) {
+        this.preferences = preferences;
+    }
+}
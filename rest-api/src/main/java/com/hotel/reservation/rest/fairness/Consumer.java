@@ -0,0 +1,119 @@
+package com.hotel.reservation.rest.fairness;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Consommateur de l'API (partenaire, tableau de bord interne, ...)
+ *
+ * Porte le poids utilisé par l'ordonnancement équitable du limiteur, les quotas
+ * du consommateur et ses métriques (tag consumer) : consumer.requests (latence de
+ * bout en bout, file d'attente comprise, tag outcome), consumer.rejected (tag reason)
+ * et consumer.waiting.
+ */
+public class Consumer {
+
+    /** Motifs de rejet comptés par consommateur */
+    public static final String RATE_QUOTA = "rate-quota";
+    public static final String CONSUMER_QUEUE_FULL = "consumer-queue-full";
+    public static final String QUEUE_FULL = "queue-full";
+    public static final String QUEUE_TIMEOUT = "queue-timeout";
+
+    private final String nom;
+    private final int poids;
+    private final int maxWaiting;
+    private final RateQuota quota;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Timer succes;
+    private final Timer erreurs;
+    private final Map<String, Counter> rejets;
+
+    public Consumer(String nom, int poids, int maxWaiting, RateQuota quota, MeterRegistry registry) {
+        this.nom = nom;
+        this.poids = Math.max(1, poids);
+        this.maxWaiting = maxWaiting;
+        this.quota = quota;
+        this.succes = timer("success", registry);
+        this.erreurs = timer("error", registry);
+        this.rejets = Map.of(
+                RATE_QUOTA, compteur(RATE_QUOTA, registry),
+                CONSUMER_QUEUE_FULL, compteur(CONSUMER_QUEUE_FULL, registry),
+                QUEUE_FULL, compteur(QUEUE_FULL, registry),
+                QUEUE_TIMEOUT, compteur(QUEUE_TIMEOUT, registry));
+        Gauge.builder("consumer.waiting", waiting, AtomicInteger::get)
+                .description("Requêtes du consommateur en attente d'un permis")
+                .tag("consumer", nom)
+                .register(registry);
+    }
+
+    /**
+     * Applique le quota de débit du consommateur
+     * @return true si la requête peut être admise, false si elle doit être rejetée (429)
+     */
+    public boolean tryAcquireQuota() {
+        if (quota == null || quota.tryAcquire()) {
+            return true;
+        }
+        countRejection(RATE_QUOTA);
+        return false;
+    }
+
+    /**
+     * Réserve une place dans la file d'attente, dans la limite de la part du consommateur
+     * @return false si le consommateur a déjà maxWaiting requêtes en attente
+     */
+    public boolean enterQueue() {
+        if (waiting.incrementAndGet() > maxWaiting) {
+            waiting.decrementAndGet();
+            countRejection(CONSUMER_QUEUE_FULL);
+            return false;
+        }
+        return true;
+    }
+
+    public void leaveQueue() {
+        waiting.decrementAndGet();
+    }
+
+    public void countRejection(String motif) {
+        rejets.get(motif).increment();
+    }
+
+    /**
+     * Enregistre la latence de bout en bout d'une requête admise
+     */
+    public void recordLatency(long nanos, boolean reussie) {
+        (reussie ? succes : erreurs).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public String getNom() {
+        return nom;
+    }
+
+    public int getPoids() {
+        return poids;
+    }
+
+    private Timer timer(String outcome, MeterRegistry registry) {
+        return Timer.builder("consumer.requests")
+                .description("Latence des requêtes du consommateur, attente comprise")
+                .tag("consumer", nom)
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+    }
+
+    private Counter compteur(String motif, MeterRegistry registry) {
+        return Counter.builder("consumer.rejected")
+                .description("Requêtes du consommateur rejetées")
+                .tag("consumer", nom)
+                .tag("reason", motif)
+                .register(registry);
+    }
+}
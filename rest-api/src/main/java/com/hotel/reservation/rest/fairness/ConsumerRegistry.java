@@ -0,0 +1,76 @@
+package com.hotel.reservation.rest.fairness;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Consommateurs connus de l'API et identification des requêtes
+ *
+ * Une requête est attribuée au consommateur de sa clé d'API (en-tête X-Api-Key,
+ * table fairness.api-keys) ; à défaut, au consommateur nommé par l'en-tête
+ * X-Consumer s'il est déclaré dans fairness.weights ; sinon au consommateur
+ * « default ». Les noms inconnus ne créent pas de consommateur : le nombre de
+ * files et de métriques reste borné par la configuration.
+ */
+@Component
+public class ConsumerRegistry {
+
+    /** En-tête portant la clé d'API */
+    public static final String API_KEY_HEADER = "X-Api-Key";
+
+    /** En-tête nommant le consommateur (réseau interne de confiance) */
+    public static final String CONSUMER_HEADER = "X-Consumer";
+
+    /** Consommateur des requêtes non identifiées */
+    public static final String DEFAULT_CONSUMER = "default";
+
+    private final Map<String, Consumer> consommateurs = new HashMap<>();
+
+    private final Map<String, String> consommateurParCle;
+
+    private final Consumer parDefaut;
+
+    public ConsumerRegistry(@Value("#{${fairness.weights:{default:1}}}") Map<String, Integer> poids,
+                            @Value("#{${fairness.rate-limits:{:}}}") Map<String, Integer> quotas,
+                            @Value("#{${fairness.api-keys:{:}}}") Map<String, String> apiKeys,
+                            @Value("${fairness.max-waiting-per-consumer:100}") int maxWaitingParConsommateur,
+                            MeterRegistry registry) {
+        Map<String, Integer> tousLesPoids = new HashMap<>(poids);
+        tousLesPoids.putIfAbsent(DEFAULT_CONSUMER, 1);
+        apiKeys.values().forEach(nom -> tousLesPoids.putIfAbsent(nom, 1));
+
+        tousLesPoids.forEach((nom, poidsConsommateur) -> {
+            Integer quota = quotas.get(nom);
+            consommateurs.put(nom, new Consumer(nom, poidsConsommateur, maxWaitingParConsommateur,
+                    quota != null ? new RateQuota(quota) : null, registry));
+        });
+        this.consommateurParCle = Map.copyOf(apiKeys);
+        this.parDefaut = consommateurs.get(DEFAULT_CONSUMER);
+    }
+
+    /**
+     * Identifie le consommateur d'une requête
+     * @param apiKey La clé d'API présentée, ou null
+     * @param nomDeclare Le nom de consommateur déclaré, ou null
+     * @return Le consommateur (jamais null)
+     */
+    public Consumer resolve(String apiKey, String nomDeclare) {
+        if (apiKey != null) {
+            String nom = consommateurParCle.get(apiKey);
+            if (nom != null) {
+                return consommateurs.get(nom);
+            }
+        }
+        if (nomDeclare != null) {
+            Consumer declare = consommateurs.get(nomDeclare);
+            if (declare != null) {
+                return declare;
+            }
+        }
+        return parDefaut;
+    }
+}
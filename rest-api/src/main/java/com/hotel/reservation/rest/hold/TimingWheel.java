@@ -0,0 +1,169 @@
+package com.hotel.reservation.rest.hold;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Roue temporelle hiérarchique : échéances des options en attente, par ID de réservation
+ *
+ * Le temps avance par ticks de tickMs. Chaque niveau compte 64 cases ; une case du niveau n
+ * couvre 64^n ticks. Une échéance est rangée au plus bas niveau qui l'atteint en moins de
+ * 64 cases. Quand le tick courant entre dans la case d'un niveau supérieur, les échéances
+ * de cette case redescendent d'un ou plusieurs niveaux (cascade) ; celles du niveau 0
+ * expirent quand le tick courant arrive sur leur case.
+ *
+ * Planifier, annuler et expirer coûtent O(1) par échéance, sans tri ni requête : 4 niveaux
+ * d'une seconde couvrent 194 jours. Les échéances au-delà sont rangées dans la dernière
+ * case du niveau supérieur et replacées à chaque cascade.
+ *
+ * Non thread-safe : l'appelant sérialise les accès.
+ */
+final class TimingWheel {
+
+    private static final int BITS = 6;
+    private static final int CASES = 1 << BITS;
+    private static final int MASQUE = CASES - 1;
+
+    private final long origineMs;
+    private final long tickMs;
+    private final Entree[][] niveaux;
+    private final Map<Long, Entree> parId = new HashMap<>();
+
+    // Dernier tick traité
+    private long courant;
+
+    TimingWheel(long maintenantMs, long tickMs, int nombreNiveaux) {
+        this.origineMs = maintenantMs;
+        this.tickMs = tickMs;
+        this.niveaux = new Entree[nombreNiveaux][CASES];
+    }
+
+    /**
+     * Planifie (ou replanifie) l'échéance d'un ID
+     * Une échéance passée expire à la prochaine avance
+     */
+    void schedule(long id, long echeanceMs) {
+        cancel(id);
+        long tick = Math.max(Math.floorDiv(echeanceMs - origineMs + tickMs - 1, tickMs), courant + 1);
+        Entree entree = new Entree(id, tick);
+        parId.put(id, entree);
+        placer(entree);
+    }
+
+    /**
+     * Retire l'échéance d'un ID, s'il en a une
+     */
+    void cancel(long id) {
+        Entree entree = parId.remove(id);
+        if (entree != null) {
+            detacher(entree);
+        }
+    }
+
+    /**
+     * Avance jusqu'à l'instant donné
+     * @return Les IDs dont l'échéance est atteinte, retirés de la roue
+     */
+    List<Long> advance(long maintenantMs) {
+        long cible = Math.floorDiv(maintenantMs - origineMs, tickMs);
+        List<Long> expires = new ArrayList<>();
+        while (courant < cible) {
+            courant++;
+            // Les niveaux supérieurs d'abord : leurs échéances peuvent tomber dans une case à cascader
+            for (int niveau = niveaux.length - 1; niveau > 0; niveau--) {
+                if ((courant & ((1L << (BITS * niveau)) - 1)) == 0) {
+                    cascader(niveau, (int) (courant >>> (BITS * niveau)) & MASQUE);
+                }
+            }
+            int indice = (int) courant & MASQUE;
+            Entree entree = niveaux[0][indice];
+            niveaux[0][indice] = null;
+            while (entree != null) {
+                Entree suivante = entree.suivante;
+                entree.suivante = null;
+                entree.precedente = null;
+                if (entree.tick > courant) {
+                    // Hors de portée d'une roue à un seul niveau : replacée pour un tour de plus
+                    placer(entree);
+                } else {
+                    parId.remove(entree.id);
+                    expires.add(entree.id);
+                }
+                entree = suivante;
+            }
+        }
+        return expires;
+    }
+
+    /**
+     * @return Le nombre d'échéances planifiées
+     */
+    int size() {
+        return parId.size();
+    }
+
+    private void cascader(int niveau, int indice) {
+        Entree entree = niveaux[niveau][indice];
+        niveaux[niveau][indice] = null;
+        while (entree != null) {
+            Entree suivante = entree.suivante;
+            entree.suivante = null;
+            entree.precedente = null;
+            placer(entree);
+            entree = suivante;
+        }
+    }
+
+    private void placer(Entree entree) {
+        int niveau = 0;
+        while (niveau < niveaux.length - 1
+                && (entree.tick >>> (BITS * niveau)) - (courant >>> (BITS * niveau)) >= CASES) {
+            niveau++;
+        }
+        long unites = (entree.tick >>> (BITS * niveau)) - (courant >>> (BITS * niveau));
+        // Hors de portée : dernière case du niveau supérieur, replacée à la cascade
+        long unite = unites < CASES ? entree.tick >>> (BITS * niveau) : (courant >>> (BITS * niveau)) + MASQUE;
+        int indice = (int) unite & MASQUE;
+
+        entree.niveau = niveau;
+        entree.indice = indice;
+        Entree tete = niveaux[niveau][indice];
+        entree.suivante = tete;
+        if (tete != null) {
+            tete.precedente = entree;
+        }
+        niveaux[niveau][indice] = entree;
+    }
+
+    private void detacher(Entree entree) {
+        if (entree.precedente != null) {
+            entree.precedente.suivante = entree.suivante;
+        } else if (niveaux[entree.niveau][entree.indice] == entree) {
+            niveaux[entree.niveau][entree.indice] = entree.suivante;
+        }
+        if (entree.suivante != null) {
+            entree.suivante.precedente = entree.precedente;
+        }
+        entree.suivante = null;
+        entree.precedente = null;
+    }
+
+    /**
+     * Échéance chaînée dans sa case (liste doublement chaînée : retrait en O(1))
+     */
+    private static final class Entree {
+        private final long id;
+        private final long tick;
+        private int niveau;
+        private int indice;
+        private Entree precedente;
+        private Entree suivante;
+
+        private Entree(long id, long tick) {
+            this.id = id;
+            this.tick = tick;
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package com.hotel.reservation.rest.inventory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Vues d'occupation et de revenu par type de chambre, par jour, semaine ou mois
+ *
+ * Agrégats en mémoire tenus à jour de façon incrémentale : chaque mouvement validé de
+ * l'inventaire journalier (DailyInventory) ajoute ses chambres vendues et son revenu aux nuits
+ * concernées, sans rien recalculer. Les compteurs sont répartis en fragments d'un mois par type
+ * (une case par jour), créés à la première nuit vendue : passé compris, quelques centaines d'octets
+ * par type et par mois. Une semaine ou un mois est la somme de ses jours.
+ *
+ * La table daily_inventory sert de table de synthèse : elle est chargée en entier au démarrage,
+ * puis relue toutes les sync-interval-ms pour les lignes modifiées depuis la relecture précédente
+ * (updated_at, moins inventory.sync-overlap-seconds), qui portent leur valeur absolue : les
+ * écritures des autres modules sont reprises, et un écart avec un mouvement local est corrigé à la
+ * relecture suivante.
+ *
+ * Le taux d'occupation rapporte les nuits vendues aux nuits des chambres disponibles (hors
+ * service exclues) du type, au nombre de chambres actuel ; les options en attente y comptent. Le
+ * revenu ne compte que les réservations confirmées, au prix enregistré à leur réservation (tarifs
+ * compris) : un changement de prix ne modifie pas les périodes passées.
+ *
+ * Métrique exposée : occupancy.queries.
+ */
+@Component
+public class OccupancyViews {
+
+    private static final Logger log = LoggerFactory.getLogger(OccupancyViews.class);
+
+    private static final String CAPACITES = "SELECT LOWER(type), SUM(CASE WHEN disponible THEN 1 ELSE 0 END) "
+            + "FROM chambre GROUP BY LOWER(type)";
+
+    private static final String LIGNES = "SELECT type, jour, vendues, revenu FROM daily_inventory";
+
+    private static final String LIGNES_MODIFIEES = LIGNES + " WHERE updated_at >= ?";
+
+    /**
+     * Découpage des périodes d'une vue : jours, semaines (du lundi au dimanche) ou mois civils
+     */
+    public enum Granularite { JOUR, SEMAINE, MOIS }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${occupancy.max-days:1100}")
+    private int maxJours;
+
+    @Value("${inventory.sync-overlap-seconds:10}")
+    private long syncOverlapSeconds;
+
+    // Type -> mois (année * 12 + mois - 1) -> fragment
+    private final Map<String, Map<Integer, Fragment>> fragments = new ConcurrentHashMap<>();
+
+    private volatile Map<String, Integer> capacites = Collections.emptyMap();
+
+    // Une seule relecture de la base à la fois
+    private final ReentrantLock maintenance = new ReentrantLock();
+
+    private volatile boolean chargees;
+
+    // Début de la dernière relecture réussie (thread de maintenance uniquement)
+    private LocalDateTime derniereSynchro;
+
+    private Counter requetes;
+
+    @PostConstruct
+    void initialiser() {
+        requetes = Counter.builder("occupancy.queries")
+                .description("Vues d'occupation et de revenu calculées en mémoire")
+                .register(meterRegistry);
+    }
+
+    // ========== Mises à jour ==========
+
+    /**
+     * Ajoute un mouvement validé de l'inventaire journalier
+     * @param type Le type de chambre, en minuscules
+     * @param jour La nuit (jour epoch)
+     * @param vendues Chambres vendues en plus (ou en moins)
+     * @param centimes Revenu ajouté (ou retiré), en centimes
+     */
+    void ajouter(String type, long jour, int vendues, long centimes) {
+        LocalDate date = LocalDate.ofEpochDay(jour);
+        Fragment fragment = fragments.computeIfAbsent(type, t -> new ConcurrentHashMap<>())
+                .computeIfAbsent(mois(date), m -> new Fragment());
+        fragment.vendues.addAndGet(date.getDayOfMonth() - 1, vendues);
+        fragment.centimes.addAndGet(date.getDayOfMonth() - 1, centimes);
+    }
+
+    private void fixer(String type, LocalDate date, int vendues, long centimes) {
+        Fragment fragment = fragments.computeIfAbsent(type, t -> new ConcurrentHashMap<>())
+                .computeIfAbsent(mois(date), m -> new Fragment());
+        fragment.vendues.set(date.getDayOfMonth() - 1, vendues);
+        fragment.centimes.set(date.getDayOfMonth() - 1, centimes);
+    }
+
+    private static int mois(LocalDate date) {
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+
+    /**
+     * Synchronisation périodique avec la table de synthèse
+     * Charge toutes les lignes au premier passage, puis celles modifiées depuis la relecture
+     * précédente (moins sync-overlap-seconds, pour les transactions validées après elle).
+     */
+    @Scheduled(fixedDelayString = "${occupancy.sync-interval-ms:5000}")
+    public void synchroniser() {
+        if (!maintenance.tryLock()) {
+            return;
+        }
+        try {
+            LocalDateTime debutLecture = LocalDateTime.now();
+            Map<String, Integer> nouvelles = new HashMap<>();
+            jdbcTemplate.query(CAPACITES, resultat -> {
+                nouvelles.put(resultat.getString(1), resultat.getInt(2));
+            });
+            if (derniereSynchro == null) {
+                jdbcTemplate.query(LIGNES, resultat -> {
+                    relire(resultat.getString(1), resultat.getDate(2).toLocalDate(), resultat.getInt(3), resultat.getBigDecimal(4));
+                });
+            } else {
+                jdbcTemplate.query(LIGNES_MODIFIEES, resultat -> {
+                    relire(resultat.getString(1), resultat.getDate(2).toLocalDate(), resultat.getInt(3), resultat.getBigDecimal(4));
+                }, Timestamp.valueOf(derniereSynchro.minusSeconds(syncOverlapSeconds)));
+            }
+            capacites = nouvelles;
+            derniereSynchro = debutLecture;
+            chargees = true;
+        } catch (RuntimeException e) {
+            // La base peut être indisponible : nouvel essai au prochain passage
+            log.warn("Synchronisation des vues d'occupation impossible", e);
+        } finally {
+            maintenance.unlock();
+        }
+    }
+
+    private void relire(String type, LocalDate jour, int vendues, BigDecimal revenu) {
+        fixer(type, jour, vendues, DailyInventory.centimes(revenu));
+    }
+
+    // ========== Lecture ==========
+
+    /**
+     * @return true si les vues sont chargées
+     */
+    public boolean isReady() {
+        return chargees;
+    }
+
+    /**
+     * Occupation et revenu d'un type de chambre (ou de tous) sur une période, découpée en jours,
+     * semaines ou mois civils (la première et la dernière période sont coupées aux bornes)
+     * @param type Le type de chambre (insensible à la casse), ou null (ou vide) pour tous les types
+     * @param granularite JOUR, SEMAINE ou MOIS (insensible à la casse)
+     * @param debut Première nuit, passée ou future
+     * @param fin Fin de la période (exclue), au plus max-days jours après le début
+     * @return La vue, une période par jour, semaine ou mois
+     * @throws IllegalArgumentException Si la période ou la granularité est invalide
+     * @throws IllegalStateException Si les vues ne sont pas encore chargées
+     * @throws RuntimeException Si aucune chambre n'est de ce type
+     */
+    public Vue occupancy(String type, String granularite, LocalDate debut, LocalDate fin) {
+        if (debut == null || fin == null) {
+            throw new IllegalArgumentException("Les dates de début et de fin sont obligatoires");
+        }
+        if (!fin.isAfter(debut)) {
+            throw new IllegalArgumentException("La date de fin doit être postérieure à la date de début");
+        }
+        if (fin.toEpochDay() - debut.toEpochDay() > maxJours) {
+            throw new IllegalArgumentException("Période trop longue (" + maxJours + " jours max)");
+        }
+        Granularite decoupage = granularite(granularite);
+        if (!chargees) {
+            throw new IllegalStateException("Les vues d'occupation ne sont pas encore chargées");
+        }
+
+        Map<String, Integer> courantes = capacites;
+        List<String> types = new ArrayList<>();
+        String cle = null;
+        if (type == null || type.isBlank()) {
+            TreeSet<String> tous = new TreeSet<>(courantes.keySet());
+            tous.addAll(fragments.keySet());
+            types.addAll(tous);
+        } else {
+            cle = type.toLowerCase(Locale.ROOT);
+            if (!courantes.containsKey(cle) && !fragments.containsKey(cle)) {
+                throw new RuntimeException("Type de chambre non trouvé : " + type);
+            }
+            types.add(cle);
+        }
+        requetes.increment();
+
+        int chambres = 0;
+        List<Map<Integer, Fragment>> parType = new ArrayList<>(types.size());
+        for (String t : types) {
+            chambres += courantes.getOrDefault(t, 0);
+            parType.add(fragments.getOrDefault(t, Collections.emptyMap()));
+        }
+
+        List<Periode> periodes = new ArrayList<>();
+        LocalDate debutPeriode = debut;
+        while (debutPeriode.isBefore(fin)) {
+            LocalDate finPeriode = suivante(debutPeriode, decoupage);
+            if (finPeriode.isAfter(fin)) {
+                finPeriode = fin;
+            }
+            long vendues = 0;
+            long centimes = 0;
+            for (LocalDate jour = debutPeriode; jour.isBefore(finPeriode); jour = jour.plusDays(1)) {
+                int mois = mois(jour);
+                for (Map<Integer, Fragment> fragmentsType : parType) {
+                    Fragment fragment = fragmentsType.get(mois);
+                    if (fragment != null) {
+                        vendues += fragment.vendues.get(jour.getDayOfMonth() - 1);
+                        centimes += fragment.centimes.get(jour.getDayOfMonth() - 1);
+                    }
+                }
+            }
+            int nuits = (int) (finPeriode.toEpochDay() - debutPeriode.toEpochDay());
+            periodes.add(new Periode(debutPeriode, finPeriode, nuits, (long) chambres * nuits, vendues,
+                    BigDecimal.valueOf(centimes, 2)));
+            debutPeriode = finPeriode;
+        }
+        return new Vue(cle, decoupage.name(), debut, fin, periodes);
+    }
+
+    private static Granularite granularite(String granularite) {
+        try {
+            return Granularite.valueOf(granularite == null ? "" : granularite.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Granularité inconnue : " + granularite + " (JOUR, SEMAINE ou MOIS)");
+        }
+    }
+
+    // Début de la période qui suit celle du jour donné
+    private static LocalDate suivante(LocalDate jour, Granularite decoupage) {
+        if (decoupage == Granularite.SEMAINE) {
+            return jour.with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+        }
+        if (decoupage == Granularite.MOIS) {
+            return jour.with(TemporalAdjusters.firstDayOfNextMonth());
+        }
+        return jour.plusDays(1);
+    }
+
+    /**
+     * Compteurs d'un type pour un mois : une case par jour (les jours au-delà de la fin du mois restent à 0)
+     */
+    private static final class Fragment {
+        private final AtomicIntegerArray vendues = new AtomicIntegerArray(31);
+        private final AtomicLongArray centimes = new AtomicLongArray(31);
+    }
+
+    /**
+     * Vue d'occupation et de revenu : une période par jour, semaine ou mois
+     */
+    public static final class Vue {
+        private final String type;
+        private final String granularite;
+        private final LocalDate dateDebut;
+        private final LocalDate dateFin;
+        private final List<Periode> periodes;
+
+        private Vue(String type, String granularite, LocalDate dateDebut, LocalDate dateFin, List<Periode> periodes) {
+            this.type = type;
+            this.granularite = granularite;
+            this.dateDebut = dateDebut;
+            this.dateFin = dateFin;
+            this.periodes = periodes;
+        }
+
+        /** Type de chambre, en minuscules (null : tous les types) */
+        public String getType() { return type; }
+        public String getGranularite() { return granularite; }
+        public LocalDate getDateDebut() { return dateDebut; }
+        public LocalDate getDateFin() { return dateFin; }
+        public List<Periode> getPeriodes() { return periodes; }
+    }
+
+    /**
+     * Occupation et revenu d'une période [dateDebut, dateFin)
+     */
+    public static final class Periode {
+        private final LocalDate dateDebut;
+        private final LocalDate dateFin;
+        private final int nuits;
+        private final long capacite;
+        private final long vendues;
+        private final BigDecimal revenu;
+
+        private Periode(LocalDate dateDebut, LocalDate dateFin, int nuits, long capacite, long vendues, BigDecimal revenu) {
+            this.dateDebut = dateDebut;
+            this.dateFin = dateFin;
+            this.nuits = nuits;
+            this.capacite = capacite;
+            this.vendues = vendues;
+            this.revenu = revenu;
+        }
+
+        public LocalDate getDateDebut() { return dateDebut; }
+        public LocalDate getDateFin() { return dateFin; }
+        public int getNuits() { return nuits; }
+        /** Nuits des chambres disponibles du type sur la période */
+        public long getCapacite() { return capacite; }
+        /** Nuits vendues, toutes chambres du type confondues */
+        public long getVendues() { return vendues; }
+        /** Somme des prix par nuit des nuits vendues */
+        public BigDecimal getRevenu() { return revenu; }
+
+        /** Taux d'occupation, entre 0 et 1 (au-delà si des chambres hors service sont vendues) */
+        public double getTaux() {
+            return capacite == 0 ? 0 : (double) vendues / capacite;
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package com.hotel.reservation.rest.limiter;
+
+import com.hotel.reservation.rest.fairness.Consumer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limiteur de concurrence adaptatif avec délestage sur temps d'attente (CoDel)
+ *
+ * La limite (nombre de requêtes traitées simultanément) suit la latence observée,
+ * selon l'algorithme du gradient : à chaque fenêtre de FENETRE_MS, la latence moyenne
+ * de la fenêtre est comparée à la latence sans charge. Si elle la dépasse de plus de la
+ * tolérance, la limite baisse proportionnellement ; sinon elle remonte d'environ √limite.
+ * La limite ne change pas tant que moins de la moitié est utilisée.
+ *
+ * La latence sans charge est mesurée toutes les MESURE_REFERENCE_MS : pendant une
+ * fenêtre, la limite descend au minimum, ce qui vide les files en aval (pool JDBC,
+ * cloisons) ; la latence alors observée devient la référence. Une référence qui suivrait
+ * la latence courante monterait avec la surcharge et laisserait la limite dériver.
+ *
+ * Au-delà de la limite, une requête attend un permis dans une file. Comme CoDel, la file
+ * est jugée saturée quand le temps d'attente minimal sur un intervalle dépasse la cible :
+ * les requêtes n'attendent alors plus que la cible (5 ms par défaut) au lieu de
+ * l'intervalle (100 ms), puis sont rejetées. La file reste courte et le débit utile stable.
+ *
+ * Les permis libérés sont attribués par file équitable pondérée (self-clocked fair
+ * queuing) : chaque requête en attente reçoit une étiquette de fin
+ * max(temps virtuel, dernière étiquette de son consommateur) + 1 / poids, et la plus
+ * petite étiquette est servie en premier. Un consommateur qui inonde l'API n'obtient
+ * que sa part des permis, quelle que soit la longueur de sa file.
+ *
+ * Métriques exposées (tag name) : limiter.limit, limiter.inflight, limiter.waiting,
+ * limiter.rejected (tag reason=queue-full|queue-timeout) et limiter.queue.sojourn.
+ */
+public class AdaptiveLimiter {
+
+    /** Durée d'une fenêtre de mesure de latence */
+    private static final long FENETRE_MS = 100;
+
+    /** Nombre minimal d'échantillons pour ajuster la limite sur une fenêtre */
+    private static final int MIN_ECHANTILLONS = 10;
+
+    /** Période de mesure de la latence sans charge */
+    private static final long MESURE_REFERENCE_MS = 30_000;
+
+    /** Dégradation de latence tolérée avant de réduire la limite */
+    private static final double TOLERANCE = 1.1;
+
+    /** Part de la nouvelle estimation dans la limite à chaque ajustement */
+    private static final double LISSAGE = 0.5;
+
+    private final String nom;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxWaiting;
+    private final long cibleNanos;
+    private final long intervalleNanos;
+
+    private volatile double limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlightFenetre = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    // File équitable des requêtes en attente, protégée par le verrou file
+    private final ReentrantLock file = new ReentrantLock();
+    private final PriorityQueue<Attente> attentes = new PriorityQueue<>(
+            Comparator.comparingDouble((Attente attente) -> attente.etiquette).thenComparingLong(attente -> attente.ordre));
+    private final Map<String, Double> dernieresEtiquettes = new HashMap<>();
+    private double tempsVirtuel;
+    private long ordreArrivee;
+
+    // Ajustement de la limite : une fenêtre à la fois, par le thread qui la clôt
+    private final ReentrantLock ajustement = new ReentrantLock();
+    private final LongAdder sommeRtt = new LongAdder();
+    private final LongAdder nombreRtt = new LongAdder();
+    private volatile long finFenetre;
+    private double rttReference;
+    private long prochaineMesure;
+    private boolean mesureEnCours;
+    private double limitAvantMesure;
+
+    // État CoDel : attente minimale sur l'intervalle en cours
+    private final AtomicLong finIntervalle;
+    private final AtomicLong attenteMinimale = new AtomicLong(Long.MAX_VALUE);
+    private volatile boolean fileSaturee;
+
+    private final Counter rejetsFilePleine;
+    private final Counter rejetsDelai;
+    private final Timer sejour;
+
+    public AdaptiveLimiter(String nom, int initialLimit, int minLimit, int maxLimit, int maxWaiting,
+                           long codelTargetMs, long codelIntervalMs, MeterRegistry registry) {
+        this.nom = nom;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxWaiting = maxWaiting;
+        this.cibleNanos = TimeUnit.MILLISECONDS.toNanos(codelTargetMs);
+        this.intervalleNanos = TimeUnit.MILLISECONDS.toNanos(codelIntervalMs);
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+
+        long maintenant = System.nanoTime();
+        this.finFenetre = maintenant + TimeUnit.MILLISECONDS.toNanos(FENETRE_MS);
+        this.prochaineMesure = maintenant;
+        this.finIntervalle = new AtomicLong(maintenant + intervalleNanos);
+
+        Gauge.builder("limiter.limit", this, AdaptiveLimiter::getLimit)
+                .description("Limite de concurrence courante")
+                .tag("name", nom)
+                .register(registry);
+        Gauge.builder("limiter.inflight", inFlight, AtomicInteger::get)
+                .description("Requêtes en cours de traitement")
+                .tag("name", nom)
+                .register(registry);
+        Gauge.builder("limiter.waiting", waiting, AtomicInteger::get)
+                .description("Requêtes en attente d'un permis")
+                .tag("name", nom)
+                .register(registry);
+        this.rejetsFilePleine = Counter.builder("limiter.rejected")
+                .description("Requêtes rejetées par le limiteur de concurrence")
+                .tag("name", nom)
+                .tag("reason", "queue-full")
+                .register(registry);
+        this.rejetsDelai = Counter.builder("limiter.rejected")
+                .description("Requêtes rejetées par le limiteur de concurrence")
+                .tag("name", nom)
+                .tag("reason", "queue-timeout")
+                .register(registry);
+        this.sejour = Timer.builder("limiter.queue.sojourn")
+                .description("Temps d'attente d'un permis dans la file")
+                .tag("name", nom)
+                .register(registry);
+    }
+
+    /**
+     * Demande un permis de traitement, en attendant au plus le délai CoDel courant
+     * @param consommateur Le consommateur de la requête (poids et quotas de file)
+     * @return Le permis, à libérer en fin de traitement, ou null si la requête est rejetée
+     */
+    public Permit tryAcquire(Consumer consommateur) {
+        long arrivee = System.nanoTime();
+        if (waiting.get() == 0 && tryIncrement()) {
+            enregistrerAttente(0, arrivee);
+            return new Permit(consommateur, arrivee, arrivee);
+        }
+
+        if (waiting.incrementAndGet() > maxWaiting) {
+            waiting.decrementAndGet();
+            rejetsFilePleine.increment();
+            consommateur.countRejection(Consumer.QUEUE_FULL);
+            return null;
+        }
+        if (!consommateur.enterQueue()) {
+            waiting.decrementAndGet();
+            return null;
+        }
+
+        boolean obtenu = false;
+        Attente attente = null;
+        file.lock();
+        try {
+            attente = new Attente(consommateur);
+            attentes.add(attente);
+            distribuer();
+
+            long restant = fileSaturee ? cibleNanos : intervalleNanos;
+            while (!attente.accorde && restant > 0) {
+                restant = attente.condition.awaitNanos(restant);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (attente != null) {
+                obtenu = attente.accorde;
+                if (!obtenu) {
+                    attentes.remove(attente);
+                }
+            }
+            file.unlock();
+            consommateur.leaveQueue();
+            waiting.decrementAndGet();
+        }
+
+        long maintenant = System.nanoTime();
+        enregistrerAttente(maintenant - arrivee, maintenant);
+        sejour.record(maintenant - arrivee, TimeUnit.NANOSECONDS);
+        if (!obtenu) {
+            rejetsDelai.increment();
+            consommateur.countRejection(Consumer.QUEUE_TIMEOUT);
+            return null;
+        }
+        return new Permit(consommateur, arrivee, maintenant);
+    }
+
+    public String getNom() {
+        return nom;
+    }
+
+    public double getLimit() {
+        return limit;
+    }
+
+    private boolean tryIncrement() {
+        while (true) {
+            int courant = inFlight.get();
+            if (courant >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(courant, courant + 1)) {
+                if (courant + 1 > maxInFlightFenetre.get()) {
+                    maxInFlightFenetre.accumulateAndGet(courant + 1, Math::max);
+                }
+                return true;
+            }
+        }
+    }
+
+    private void liberer(long debut, boolean echantillon) {
+        inFlight.decrementAndGet();
+        if (waiting.get() > 0) {
+            file.lock();
+            try {
+                distribuer();
+            } finally {
+                file.unlock();
+            }
+        }
+        if (echantillon) {
+            long maintenant = System.nanoTime();
+            sommeRtt.add(maintenant - debut);
+            nombreRtt.increment();
+            if (maintenant - finFenetre >= 0) {
+                ajusterLimite(maintenant);
+            }
+        }
+    }
+
+    /**
+     * Attribue les permis disponibles aux requêtes en attente, plus petite étiquette d'abord
+     * (appelée sous le verrou file)
+     */
+    private void distribuer() {
+        while (!attentes.isEmpty() && tryIncrement()) {
+            Attente servie = attentes.poll();
+            tempsVirtuel = servie.etiquette;
+            servie.accorde = true;
+            servie.condition.signal();
+        }
+    }
+
+    /**
+     * CoDel : la file est saturée si même l'attente la plus courte de l'intervalle dépasse la cible
+     */
+    private void enregistrerAttente(long attente, long maintenant) {
+        long fin = finIntervalle.get();
+        if (maintenant - fin >= 0 && finIntervalle.compareAndSet(fin, maintenant + intervalleNanos)) {
+            long minimum = attenteMinimale.getAndSet(attente);
+            fileSaturee = minimum != Long.MAX_VALUE && minimum > cibleNanos;
+            return;
+        }
+        long minimum;
+        while (attente < (minimum = attenteMinimale.get()) && !attenteMinimale.compareAndSet(minimum, attente)) {
+            // Un autre thread a enregistré une attente entre-temps : on recompare
+        }
+    }
+
+    /**
+     * Gradient : limite × min(1, tolérance × latence sans charge / latence de la fenêtre) + √limite
+     */
+    private void ajusterLimite(long maintenant) {
+        if (!ajustement.tryLock()) {
+            return;
+        }
+        try {
+            if (maintenant - finFenetre < 0) {
+                return;
+            }
+            finFenetre = maintenant + TimeUnit.MILLISECONDS.toNanos(FENETRE_MS);
+
+            if (!mesureEnCours && maintenant - prochaineMesure >= 0) {
+                // Début de mesure de la latence sans charge : la limite passe au minimum
+                mesureEnCours = true;
+                limitAvantMesure = limit;
+                limit = minLimit;
+                sommeRtt.reset();
+                nombreRtt.reset();
+                return;
+            }
+            if (nombreRtt.sum() < MIN_ECHANTILLONS) {
+                return;
+            }
+
+            double rttFenetre = (double) sommeRtt.sumThenReset() / nombreRtt.sumThenReset();
+            int utilisation = maxInFlightFenetre.getAndSet(inFlight.get());
+
+            if (mesureEnCours) {
+                rttReference = rttFenetre;
+                mesureEnCours = false;
+                prochaineMesure = maintenant + TimeUnit.MILLISECONDS.toNanos(MESURE_REFERENCE_MS);
+                limit = limitAvantMesure;
+                signalerSiAugmentation(minLimit);
+                return;
+            }
+
+            double actuelle = limit;
+            if (utilisation < actuelle / 2) {
+                // La limite n'est pas le facteur limitant : pas d'information pour l'ajuster
+                return;
+            }
+
+            double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * rttReference / rttFenetre));
+            double estimation = actuelle * gradient + Math.sqrt(actuelle);
+            double nouvelle = actuelle * (1 - LISSAGE) + estimation * LISSAGE;
+            limit = Math.max(minLimit, Math.min(maxLimit, nouvelle));
+            signalerSiAugmentation(actuelle);
+        } finally {
+            ajustement.unlock();
+        }
+    }
+
+    /**
+     * Réveille les requêtes en attente quand la limite augmente
+     */
+    private void signalerSiAugmentation(double ancienne) {
+        if ((int) limit > (int) ancienne && waiting.get() > 0) {
+            file.lock();
+            try {
+                distribuer();
+            } finally {
+                file.unlock();
+            }
+        }
+    }
+
+    /**
+     * Requête en attente d'un permis (créée et lue sous le verrou file)
+     */
+    private final class Attente {
+
+        private final double etiquette;
+        private final long ordre;
+        private final Condition condition = file.newCondition();
+        private boolean accorde;
+
+        private Attente(Consumer consommateur) {
+            double debut = Math.max(tempsVirtuel, dernieresEtiquettes.getOrDefault(consommateur.getNom(), 0.0));
+            this.etiquette = debut + 1.0 / consommateur.getPoids();
+            this.ordre = ordreArrivee++;
+            dernieresEtiquettes.put(consommateur.getNom(), etiquette);
+        }
+    }
+
+    /**
+     * Permis de traitement d'une requête, à libérer une seule fois
+     */
+    public final class Permit {
+
+        private final Consumer consommateur;
+        private final long arrivee;
+        private final long debut;
+        private final AtomicBoolean libere = new AtomicBoolean();
+
+        private Permit(Consumer consommateur, long arrivee, long debut) {
+            this.consommateur = consommateur;
+            this.arrivee = arrivee;
+            this.debut = debut;
+        }
+
+        /**
+         * Libère le permis d'une requête traitée normalement : sa latence ajuste la limite
+         */
+        public void release() {
+            if (libere.compareAndSet(false, true)) {
+                liberer(debut, true);
+                consommateur.recordLatency(System.nanoTime() - arrivee, true);
+            }
+        }
+
+        /**
+         * Libère le permis sans mesurer la latence (erreur, annulation, rejet en aval)
+         */
+        public void ignore() {
+            if (libere.compareAndSet(false, true)) {
+                liberer(debut, false);
+                consommateur.recordLatency(System.nanoTime() - arrivee, false);
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.hotel.reservation.rest.limiter;
+
+import com.hotel.reservation.rest.fairness.Consumer;
+import com.hotel.reservation.rest.fairness.ConsumerRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Filtre appliquant le limiteur de concurrence adaptatif aux requêtes de l'API
+ *
+ * La requête est d'abord attribuée à son consommateur (X-Api-Key ou X-Consumer) :
+ * au-delà de son quota de débit, ou sans permis du limiteur, elle reçoit immédiatement
+ * 429 + Retry-After, avant tout traitement. Le contrôleur répondant de façon asynchrone,
+ * le permis est libéré à la fin de la requête asynchrone (AsyncListener) et non au
+ * retour de la chaîne.
+ * Les réponses 429 et 5xx libèrent le permis sans ajuster la limite.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final AdaptiveLimiter limiter;
+
+    private final ConsumerRegistry consumerRegistry;
+
+    public ConcurrencyLimitFilter(AdaptiveLimiter limiter, ConsumerRegistry consumerRegistry) {
+        this.limiter = limiter;
+        this.consumerRegistry = consumerRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Consumer consommateur = consumerRegistry.resolve(
+                request.getHeader(ConsumerRegistry.API_KEY_HEADER), request.getHeader(ConsumerRegistry.CONSUMER_HEADER));
+        AdaptiveLimiter.Permit permis = consommateur.tryAcquireQuota() ? limiter.tryAcquire(consommateur) : null;
+        if (permis == null) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            return;
+        }
+
+        boolean asynchrone = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                asynchrone = true;
+                request.getAsyncContext().addListener(new LiberationAsynchrone(permis));
+            }
+        } finally {
+            if (!asynchrone) {
+                terminer(permis, response);
+            }
+        }
+    }
+
+    private static void terminer(AdaptiveLimiter.Permit permis, HttpServletResponse response) {
+        int statut = response.getStatus();
+        if (statut >= 500 || statut == HttpStatus.TOO_MANY_REQUESTS.value()) {
+            permis.ignore();
+        } else {
+            permis.release();
+        }
+    }
+
+    /**
+     * Libère le permis quand la requête asynchrone se termine
+     */
+    private static final class LiberationAsynchrone implements AsyncListener {
+
+        private final AdaptiveLimiter.Permit permis;
+
+        private LiberationAsynchrone(AdaptiveLimiter.Permit permis) {
+            this.permis = permis;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            terminer(permis, (HttpServletResponse) event.getSuppliedResponse());
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            permis.ignore();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            permis.ignore();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Relance asynchrone : le même écouteur reste attaché
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.hotel.reservation.rest.live;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Filtre mesurant les requêtes de l'API pour les métriques en direct
+ *
+ * Placé avant le limiteur de concurrence, il compte aussi les rejets (429). Pour une
+ * requête asynchrone, la mesure se termine à la fin de la requête asynchrone.
+ */
+public class LiveMetricsFilter extends OncePerRequestFilter {
+
+    private final LiveMetrics liveMetrics;
+
+    public LiveMetricsFilter(LiveMetrics liveMetrics) {
+        this.liveMetrics = liveMetrics;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        LiveMetrics.Mesure mesure = liveMetrics.start();
+        boolean asynchrone = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                asynchrone = true;
+                request.getAsyncContext().addListener(new FinAsynchrone(mesure));
+            }
+        } catch (IOException | ServletException | RuntimeException e) {
+            mesure.stop(LiveMetrics.Resultat.ERREUR);
+            throw e;
+        } finally {
+            if (!asynchrone) {
+                mesure.stop(LiveMetrics.resultatHttp(response.getStatus()));
+            }
+        }
+    }
+
+    /**
+     * Termine la mesure quand la requête asynchrone se termine
+     */
+    private static final class FinAsynchrone implements AsyncListener {
+
+        private final LiveMetrics.Mesure mesure;
+
+        private FinAsynchrone(LiveMetrics.Mesure mesure) {
+            this.mesure = mesure;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            mesure.stop(LiveMetrics.resultatHttp(((HttpServletResponse) event.getSuppliedResponse()).getStatus()));
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            mesure.stop(LiveMetrics.Resultat.ERREUR);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            mesure.stop(LiveMetrics.Resultat.ERREUR);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Relance asynchrone : le même écouteur reste attaché
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
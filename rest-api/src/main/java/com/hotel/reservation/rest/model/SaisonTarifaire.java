@@ -0,0 +1,118 @@
+package com.hotel.reservation.rest.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Entité JPA représentant une saison tarifaire
+ * 
+ * Cette classe mappe la table "saison_tarifaire" : du dateDebut au dateFin exclu,
+ * le prix par nuit des chambres du type (de tous les types si type est null) est
+ * multiplié par le coefficient.
+ */
+@Entity
+@Table(name = "saison_tarifaire")
+public class SaisonTarifaire {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "type", length = 50)
+    private String type; // null : tous les types de chambre
+
+    @NotNull(message = "La date de début est obligatoire")
+    @Column(name = "date_debut", nullable = false)
+    private LocalDate dateDebut;
+
+    @NotNull(message = "La date de fin est obligatoire")
+    @Column(name = "date_fin", nullable = false)
+    private LocalDate dateFin; // exclue
+
+    @NotNull(message = "Le coefficient est obligatoire")
+    @DecimalMin(value = "0.0", inclusive = false, message = "Le coefficient doit être positif")
+    @Column(name = "coefficient", nullable = false, precision = 6, scale = 4)
+    private BigDecimal coefficient;
+
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Constructeurs
+    public SaisonTarifaire() {
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Getters et Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public LocalDate getDateDebut() {
+        return dateDebut;
+    }
+
+    public void setDateDebut(LocalDate dateDebut) {
+        this.dateDebut = dateDebut;
+    }
+
+    public LocalDate getDateFin() {
+        return dateFin;
+    }
+
+    public void setDateFin(LocalDate dateFin) {
+        this.dateFin = dateFin;
+    }
+
+    public BigDecimal getCoefficient() {
+        return coefficient;
+    }
+
+    public void setCoefficient(BigDecimal coefficient) {
+        this.coefficient = coefficient;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,21 @@
+package com.hotel.reservation.rest.payload;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Compression transparente de la colonne reservation.preferences (voir PreferencesCodec)
+ */
+@Converter
+public class PreferencesConverter implements AttributeConverter<String, String> {
+
+    @Override
+    public String convertToDatabaseColumn(String preferences) {
+        return PreferencesCodec.encode(preferences);
+    }
+
+    @Override
+    public String convertToEntityAttribute(String stockee) {
+        return PreferencesCodec.decode(stockee);
+    }
+}
@@ -0,0 +1,11 @@
+package com.hotel.reservation.rest.payload;
+
+/**
+ * Préférences au-delà de la taille acceptée (en clair ou une fois compressées)
+ */
+public class PreferencesTooLargeException extends RuntimeException {
+
+    public PreferencesTooLargeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,493 @@
+package com.hotel.reservation.rest.report;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotel.reservation.rest.inventory.DailyInventory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Relevés de fin de mois : séjours, nuits et montant du mois par client, par chambre et par statut
+ *
+ * Les clients sont découpés en plages d'identifiants de chunk-clients clients, traitées en
+ * parallèle dans un ForkJoinPool de parallelism threads : chaque tâche coupe sa plage en deux
+ * jusqu'à la taille d'une plage, lit les séjours qui chevauchent le mois, puis fusionne les
+ * résultats de ses deux moitiés. Une plage est lue dans sa propre transaction en lecture seule,
+ * par un curseur MySQL en avant seulement (fetch size Integer.MIN_VALUE : les lignes arrivent une
+ * à une, sans charger le résultat en mémoire). Tous les séjours d'un client sont dans la même
+ * plage : ses totaux sont complets à la fin de la plage, écrits aussitôt dans un fichier
+ * intermédiaire, puis oubliés. Seuls les totaux par chambre et par statut, petits, remontent
+ * jusqu'à la fusion finale. La mémoire dépend de la taille d'une plage, pas de celle de la table.
+ *
+ * Le montant d'un séjour dans le mois est la part de ses nuits du mois dans le prix enregistré à sa
+ * réservation (reservation.montant, tarifs compris), réparti comme dans l'inventaire journalier
+ * (DailyInventory.share) : relancer le relevé d'un mois après un changement de prix ou de tarif
+ * donne les mêmes totaux. Les relevés par client et par chambre ne comptent que les séjours
+ * confirmés ; le relevé par statut compte tous les séjours, options et annulations comprises.
+ *
+ * Les fichiers clients, chambres et statuts (format csv ou ndjson) sont écrits dans
+ * output-dir/AAAA-MM, et remplacent ceux d'une exécution précédente pour le même mois. Le relevé
+ * du mois précédent est produit selon report.monthly.cron ; un seul relevé à la fois, sur un
+ * thread dédié (la planification et les requêtes ne l'attendent pas).
+ *
+ * Métrique exposée : report.monthly.
+ */
+@Component
+public class MonthlyReportJob {
+
+    private static final Logger log = LoggerFactory.getLogger(MonthlyReportJob.class);
+
+    private static final String BORNES = "SELECT MIN(id), MAX(id) FROM client";
+
+    private static final String SEJOURS = "SELECT r.client_id, cl.nom, cl.prenom, cl.email, r.chambre_id, c.type, c.prix, "
+            + "COALESCE(r.statut, 'CONFIRMEE'), r.date_debut, r.date_fin, r.montant FROM reservation r "
+            + "JOIN chambre c ON c.id = r.chambre_id JOIN client cl ON cl.id = r.client_id "
+            + "WHERE r.client_id >= ? AND r.client_id < ? AND r.date_debut < ? AND r.date_fin > ?";
+
+    private static final String[] COLONNES_CLIENTS = {"client_id", "nom", "prenom", "email", "sejours", "nuits", "montant"};
+    private static final String[] COLONNES_CHAMBRES = {"chambre_id", "type", "sejours", "nuits", "montant"};
+    private static final String[] COLONNES_STATUTS = {"statut", "sejours", "nuits", "montant"};
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${report.output-dir:reports}")
+    private String repertoire;
+
+    @Value("${report.format:csv}")
+    private String format;
+
+    @Value("${report.chunk-clients:50000}")
+    private long chunkClients;
+
+    @Value("${report.parallelism:4}")
+    private int parallelisme;
+
+    // Curseur en avant seulement : Connector/J transmet les lignes une à une
+    private JdbcTemplate lecteur;
+
+    private TransactionTemplate lectureSeule;
+
+    private final ExecutorService executeur = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("monthly-report-"));
+
+    private final AtomicBoolean enCours = new AtomicBoolean();
+
+    private volatile Etat dernier;
+
+    private Timer duree;
+
+    @PostConstruct
+    void initialiser() {
+        lecteur = new JdbcTemplate(dataSource);
+        lecteur.setFetchSize(Integer.MIN_VALUE);
+        lectureSeule = new TransactionTemplate(transactionManager);
+        lectureSeule.setReadOnly(true);
+        duree = Timer.builder("report.monthly")
+                .description("Production des relevés de fin de mois")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Relevé du mois précédent (report.monthly.cron)
+     */
+    @Scheduled(cron = "${report.monthly.cron:0 0 4 1 * *}")
+    public void planifie() {
+        try {
+            start(YearMonth.now().minusMonths(1));
+        } catch (IllegalStateException e) {
+            log.warn("Relevé de fin de mois non lancé : {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Lance la production des relevés d'un mois, sur le thread du job
+     * @param mois Le mois, au plus tard le mois en cours (relevé partiel)
+     * @return L'état du relevé lancé (EN_COURS)
+     * @throws IllegalArgumentException Si le mois est absent ou à venir
+     * @throws IllegalStateException Si un relevé est déjà en cours
+     */
+    public Etat start(YearMonth mois) {
+        if (mois == null || mois.isAfter(YearMonth.now())) {
+            throw new IllegalArgumentException("Le mois est obligatoire, et au plus tard le mois en cours");
+        }
+        if (!enCours.compareAndSet(false, true)) {
+            throw new IllegalStateException("Un relevé de fin de mois est déjà en cours");
+        }
+        Etat etat = new Etat(mois);
+        dernier = etat;
+        try {
+            executeur.execute(() -> {
+                try {
+                    duree.record(() -> produire(etat));
+                } finally {
+                    enCours.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            enCours.set(false);
+            throw e;
+        }
+        return etat;
+    }
+
+    /**
+     * @return L'état du dernier relevé lancé, ou null
+     */
+    public Etat last() {
+        return dernier;
+    }
+
+    private void produire(Etat etat) {
+        Path cible = Paths.get(repertoire, etat.mois.toString());
+        Path parties = null;
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelisme), p -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            thread.setName("monthly-report-worker-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        try {
+            Files.createDirectories(cible);
+            parties = Files.createTempDirectory(cible.getParent(), "." + etat.mois + "-");
+            Partiel resultat = new Partiel();
+            long[] bornes = lecteur.queryForObject(BORNES, (ligne, i) ->
+                    ligne.getObject(1) == null ? null : new long[] {ligne.getLong(1), ligne.getLong(2)});
+            if (bornes != null) {
+                resultat = pool.invoke(new Plage(etat, parties, bornes[0], bornes[1] + 1));
+            }
+
+            boolean ndjson = "ndjson".equalsIgnoreCase(format);
+            String extension = ndjson ? ".ndjson" : ".csv";
+            Path clients = cible.resolve("clients" + extension);
+            try (OutputStream sortie = Files.newOutputStream(temporaire(clients))) {
+                if (!ndjson) {
+                    sortie.write((String.join(",", COLONNES_CLIENTS) + "\n").getBytes(StandardCharsets.UTF_8));
+                }
+                for (Path partie : resultat.parties) {
+                    Files.copy(partie, sortie);
+                }
+            }
+            publier(clients);
+            ecrire(cible.resolve("chambres" + extension), COLONNES_CHAMBRES, resultat.chambres);
+            ecrire(cible.resolve("statuts" + extension), COLONNES_STATUTS, resultat.statuts);
+
+            etat.clients = resultat.clients;
+            etat.chambres = resultat.chambres.size();
+            etat.repertoire = cible.toAbsolutePath().toString();
+            etat.terminer("TERMINE", null);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Relevé de fin de mois {} impossible", etat.mois, e);
+            etat.terminer("ECHEC", e.toString());
+        } finally {
+            pool.shutdownNow();
+            supprimer(parties);
+        }
+    }
+
+    /**
+     * Plage d'identifiants de clients [de, a) : coupée en deux tant qu'elle dépasse chunk-clients
+     */
+    private final class Plage extends RecursiveTask<Partiel> {
+        private final Etat etat;
+        private final Path parties;
+        private final long de;
+        private final long a;
+
+        private Plage(Etat etat, Path parties, long de, long a) {
+            this.etat = etat;
+            this.parties = parties;
+            this.de = de;
+            this.a = a;
+        }
+
+        @Override
+        protected Partiel compute() {
+            if (a - de <= chunkClients) {
+                return lectureSeule.execute(status -> lire(etat, parties, de, a));
+            }
+            long milieu = de + (a - de) / 2;
+            Plage gauche = new Plage(etat, parties, de, milieu);
+            gauche.fork();
+            Partiel droite = new Plage(etat, parties, milieu, a).compute();
+            // Fichiers dans l'ordre des identifiants : la moitié gauche d'abord
+            return gauche.join().fusionner(droite);
+        }
+    }
+
+    /**
+     * Lit les séjours des clients [de, a) qui chevauchent le mois, dans la transaction en cours
+     */
+    private Partiel lire(Etat etat, Path parties, long de, long a) {
+        long debutMois = etat.mois.atDay(1).toEpochDay();
+        long finMois = etat.mois.plusMonths(1).atDay(1).toEpochDay();
+        Partiel partiel = new Partiel();
+        Map<Long, Cumul> clients = new HashMap<>();
+        AtomicLong lus = new AtomicLong();
+        lecteur.query(SEJOURS, resultat -> {
+            lus.incrementAndGet();
+            long clientId = resultat.getLong(1);
+            long chambreId = resultat.getLong(5);
+            String statut = resultat.getString(8);
+            LocalDate debut = resultat.getDate(9).toLocalDate();
+            LocalDate fin = resultat.getDate(10).toLocalDate();
+            // Nuits du mois, comptées depuis la première nuit du séjour : [premiere, derniere)
+            long premiere = Math.max(debutMois - debut.toEpochDay(), 0);
+            long derniere = Math.min(finMois, fin.toEpochDay()) - debut.toEpochDay();
+            long montant = DailyInventory.share(DailyInventory.montant(resultat.getBigDecimal(11), resultat.getBigDecimal(7), debut, fin),
+                    fin.toEpochDay() - debut.toEpochDay(), premiere, derniere);
+            long nuits = derniere - premiere;
+
+            partiel.statuts.computeIfAbsent(statut, s -> new Cumul(new Object[] {s})).ajouter(nuits, montant);
+            if (DailyInventory.confirmee(statut)) {
+                Cumul client = clients.get(clientId);
+                if (client == null) {
+                    client = new Cumul(new Object[] {clientId, resultat.getString(2), resultat.getString(3), resultat.getString(4)});
+                    clients.put(clientId, client);
+                }
+                client.ajouter(nuits, montant);
+                String type = resultat.getString(6);
+                partiel.chambres.computeIfAbsent(chambreId, id -> new Cumul(new Object[] {id, type})).ajouter(nuits, montant);
+            }
+        }, de, a, Date.valueOf(etat.mois.plusMonths(1).atDay(1)), Date.valueOf(etat.mois.atDay(1)));
+
+        if (!clients.isEmpty()) {
+            Path partie = parties.resolve(String.format(Locale.ROOT, "clients-%020d.part", de));
+            ecrireLignes(partie, COLONNES_CLIENTS, new TreeMap<>(clients));
+            partiel.parties.add(partie);
+            partiel.clients = clients.size();
+        }
+        etat.plages.incrementAndGet();
+        etat.sejours.addAndGet(lus.get());
+        return partiel;
+    }
+
+    // ========== Fichiers ==========
+
+    private void ecrire(Path fichier, String[] colonnes, Map<?, Cumul> lignes) throws IOException {
+        Path temporaire = temporaire(fichier);
+        try (BufferedWriter sortie = Files.newBufferedWriter(temporaire, StandardCharsets.UTF_8)) {
+            if (!"ndjson".equalsIgnoreCase(format)) {
+                sortie.write(String.join(",", colonnes));
+                sortie.write('\n');
+            }
+            ecrireCumuls(sortie, colonnes, new TreeMap<>(lignes));
+        }
+        publier(fichier);
+    }
+
+    private void ecrireLignes(Path fichier, String[] colonnes, Map<?, Cumul> lignes) {
+        try (BufferedWriter sortie = Files.newBufferedWriter(fichier, StandardCharsets.UTF_8)) {
+            ecrireCumuls(sortie, colonnes, lignes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Une ligne par cumul : ses libellés, puis séjours, nuits et montant
+    private void ecrireCumuls(Writer sortie, String[] colonnes, Map<?, Cumul> lignes) throws IOException {
+        boolean ndjson = "ndjson".equalsIgnoreCase(format);
+        for (Cumul cumul : lignes.values()) {
+            Object[] valeurs = cumul.valeurs();
+            if (ndjson) {
+                Map<String, Object> objet = new LinkedHashMap<>();
+                for (int i = 0; i < colonnes.length; i++) {
+                    objet.put(colonnes[i], valeurs[i]);
+                }
+                sortie.write(objectMapper.writeValueAsString(objet));
+            } else {
+                for (int i = 0; i < valeurs.length; i++) {
+                    if (i > 0) {
+                        sortie.write(',');
+                    }
+                    sortie.write(csv(valeurs[i]));
+                }
+            }
+            sortie.write('\n');
+        }
+    }
+
+    private static String csv(Object valeur) {
+        if (valeur == null) {
+            return "";
+        }
+        String texte = valeur.toString();
+        if (texte.indexOf(',') < 0 && texte.indexOf('"') < 0 && texte.indexOf('\n') < 0 && texte.indexOf('\r') < 0) {
+            return texte;
+        }
+        return '"' + texte.replace("\"", "\"\"") + '"';
+    }
+
+    private static Path temporaire(Path fichier) {
+        return fichier.resolveSibling(fichier.getFileName() + ".tmp");
+    }
+
+    // Le fichier complet remplace l'ancien d'un coup : un lecteur ne voit jamais de relevé à moitié écrit
+    private static void publier(Path fichier) throws IOException {
+        Files.move(temporaire(fichier), fichier, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void supprimer(Path parties) {
+        if (parties == null) {
+            return;
+        }
+        try (var fichiers = Files.list(parties)) {
+            for (Path fichier : (Iterable<Path>) fichiers::iterator) {
+                Files.deleteIfExists(fichier);
+            }
+            Files.deleteIfExists(parties);
+        } catch (IOException e) {
+            log.warn("Suppression des fichiers intermédiaires impossible", e);
+        }
+    }
+
+    // ========== Agrégats ==========
+
+    /**
+     * Séjours, nuits et montant (en centimes) d'un client, d'une chambre ou d'un statut
+     */
+    private static final class Cumul {
+        private final Object[] libelles;
+        private long sejours;
+        private long nuits;
+        private long centimes;
+
+        private Cumul(Object[] libelles) {
+            this.libelles = libelles;
+        }
+
+        private void ajouter(long nuitsSejour, long montant) {
+            sejours++;
+            nuits += nuitsSejour;
+            centimes += montant;
+        }
+
+        private void fusionner(Cumul autre) {
+            sejours += autre.sejours;
+            nuits += autre.nuits;
+            centimes += autre.centimes;
+        }
+
+        private Object[] valeurs() {
+            Object[] valeurs = new Object[libelles.length + 3];
+            System.arraycopy(libelles, 0, valeurs, 0, libelles.length);
+            valeurs[libelles.length] = sejours;
+            valeurs[libelles.length + 1] = nuits;
+            valeurs[libelles.length + 2] = BigDecimal.valueOf(centimes, 2);
+            return valeurs;
+        }
+    }
+
+    /**
+     * Résultat d'une plage ou d'une fusion : fichiers des clients (dans l'ordre), totaux par chambre et par statut
+     */
+    private static final class Partiel {
+        private final List<Path> parties = new ArrayList<>();
+        private final Map<Long, Cumul> chambres = new HashMap<>();
+        private final Map<String, Cumul> statuts = new HashMap<>();
+        private long clients;
+
+        private Partiel fusionner(Partiel autre) {
+            parties.addAll(autre.parties);
+            autre.chambres.forEach((id, cumul) -> chambres.merge(id, cumul, (a, b) -> {
+                a.fusionner(b);
+                return a;
+            }));
+            autre.statuts.forEach((statut, cumul) -> statuts.merge(statut, cumul, (a, b) -> {
+                a.fusionner(b);
+                return a;
+            }));
+            clients += autre.clients;
+            return this;
+        }
+    }
+
+    /**
+     * État d'un relevé : EN_COURS, TERMINE ou ECHEC, avec son avancement
+     */
+    public static final class Etat {
+        private final YearMonth mois;
+        private final LocalDateTime debut = LocalDateTime.now();
+        private final AtomicLong plages = new AtomicLong();
+        private final AtomicLong sejours = new AtomicLong();
+        private volatile String statut = "EN_COURS";
+        private volatile LocalDateTime fin;
+        private volatile long clients;
+        private volatile int chambres;
+        private volatile String repertoire;
+        private volatile String erreur;
+
+        private Etat(YearMonth mois) {
+            this.mois = mois;
+        }
+
+        private void terminer(String statutFinal, String message) {
+            erreur = message;
+            fin = LocalDateTime.now();
+            statut = statutFinal;
+        }
+
+        public String getMois() { return mois.toString(); }
+        public String getStatut() { return statut; }
+        public LocalDateTime getDebut() { return debut; }
+        public LocalDateTime getFin() { return fin; }
+        /** Plages de clients lues */
+        public long getPlages() { return plages.get(); }
+        /** Séjours du mois lus */
+        public long getSejours() { return sejours.get(); }
+        /** Clients et chambres des relevés (une fois terminé) */
+        public long getClients() { return clients; }
+        public int getChambres() { return chambres; }
+        /** Répertoire des fichiers (une fois terminé) */
+        public String getRepertoire() { return repertoire; }
+        public String getErreur() { return erreur; }
+    }
+}
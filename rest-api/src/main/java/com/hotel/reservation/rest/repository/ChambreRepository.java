@@ -1,10 +1,18 @@
 package com.hotel.reservation.rest.repository;
 
 import com.hotel.reservation.rest.model.Chambre;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository JPA pour l'entité Chambre
@@ -27,4 +35,47 @@ public interface ChambreRepository extends JpaRepository<Chambre, Long> {
      * @return Liste des chambres correspondantes
      */
     List<Chambre> findByType(String type);
+
+    /**
+     * Recherche les chambres modifiées depuis une date
+     * @param depuis Date de modification minimale (updated_at)
+     * @return Liste des chambres correspondantes
+     */
+    List<Chambre> findByUpdatedAtGreaterThanEqual(LocalDateTime depuis);
+
+    /**
+     * Recherche en base les chambres disponibles sans réservation non annulée sur une période
+     * (utilisée tant que l'index des disponibilités n'est pas construit)
+     * @param type Le type de chambre (insensible à la casse), ou null pour tous les types
+     * @param debut Date d'arrivée (incluse)
+     * @param fin Date de départ (exclue)
+     * @return Les chambres libres, triées par ID
+     */
+    @Query("SELECT c FROM Chambre c WHERE c.disponible = true "
+            + "AND (:type IS NULL OR LOWER(c.type) = LOWER(:type)) "
+            + "AND NOT EXISTS (SELECT r.id FROM Reservation r WHERE r.chambre = c "
+            + "AND (r.statut IS NULL OR r.statut <> 'ANNULEE') "
+            + "AND r.dateDebut < :fin AND r.dateFin > :debut) "
+            + "ORDER BY c.id")
+    List<Chambre> findDisponibles(@Param("type") String type, @Param("debut") LocalDate debut, @Param("fin") LocalDate fin);
+
+    /**
+     * Lit une chambre en verrouillant sa ligne (SELECT ... FOR UPDATE) jusqu'à la fin de la transaction
+     * Sérialise les réservations d'une même chambre entre tous les modules, sans bloquer les autres chambres
+     * @param id L'ID de la chambre
+     * @return La chambre verrouillée, ou vide
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Chambre c WHERE c.id = :id")
+    Optional<Chambre> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Lit plusieurs chambres en verrouillant leurs lignes dans l'ordre croissant des IDs
+     * Deux transactions qui verrouillent des chambres communes le font dans le même ordre : pas d'interblocage
+     * @param ids Les IDs des chambres
+     * @return Les chambres trouvées, verrouillées jusqu'à la fin de la transaction, triées par ID
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Chambre c WHERE c.id IN :ids ORDER BY c.id")
+    List<Chambre> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
 }
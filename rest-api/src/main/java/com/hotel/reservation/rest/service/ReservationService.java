@@ -1,17 +1,40 @@
 package com.hotel.reservation.rest.service;
 
+import com.hotel.reservation.rest.admission.RoomAdmission;
+import com.hotel.reservation.rest.availability.AvailabilityIndex;
+import com.hotel.reservation.rest.cache.NearCache;
+import com.hotel.reservation.rest.catalog.CatalogCache;
+import com.hotel.reservation.rest.dto.ReservationLookup;
+import com.hotel.reservation.rest.dto.ReservationPatch;
+import com.hotel.reservation.rest.hold.HoldExpiredException;
+import com.hotel.reservation.rest.hold.HoldManager;
+import com.hotel.reservation.rest.inventory.DailyInventory;
 import com.hotel.reservation.rest.model.Client;
 import com.hotel.reservation.rest.model.Chambre;
 import com.hotel.reservation.rest.model.Reservation;
+import com.hotel.reservation.rest.model.SaisonTarifaire;
+import com.hotel.reservation.rest.model.TarifJour;
+import com.hotel.reservation.rest.pricing.RateCache;
 import com.hotel.reservation.rest.repository.ClientRepository;
 import com.hotel.reservation.rest.repository.ChambreRepository;
 import com.hotel.reservation.rest.repository.ReservationRepository;
+import com.hotel.reservation.rest.repository.SaisonTarifaireRepository;
+import com.hotel.reservation.rest.repository.TarifJourRepository;
+import com.hotel.reservation.rest.stats.ReservationCounters;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -24,6 +47,9 @@ import java.util.Optional;
 @Transactional
 public class ReservationService {
 
+    /** Nombre maximal d'IDs acceptés par une recherche multiple */
+    public static final int MAX_IDS_PAR_REQUETE = 500;
+
     @Autowired
     private ClientRepository clientRepository;
 
@@ -33,6 +59,39 @@ public class ReservationService {
     @Autowired
     private ReservationRepository reservationRepository;
 
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private NearCache<Long, Reservation> reservationCache;
+
+    @Autowired
+    private NearCache<Long, Client> clientCache;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private RoomAdmission roomAdmission;
+
+    @Autowired
+    private HoldManager holdManager;
+
+    @Autowired
+    private SaisonTarifaireRepository saisonTarifaireRepository;
+
+    @Autowired
+    private TarifJourRepository tarifJourRepository;
+
+    @Autowired
+    private RateCache rateCache;
+
+    @Autowired
+    private DailyInventory dailyInventory;
+
+    @Autowired
+    private ReservationCounters reservationCounters;
+
     // ========== Opérations sur les Clients ==========
 
     /**
@@ -46,12 +105,16 @@ public class ReservationService {
 
     /**
      * Récupère un client par son ID
+     * 
+     * Servi par le cache local (clientCache) ; hors transaction pour qu'un succès
+     * de cache n'emprunte pas de connexion.
+     * 
      * @param id L'ID du client
-     * @return Un Optional contenant le client ou vide
+     * @return Un Optional contenant le client ou vide ; partagé : ne pas le modifier
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Optional<Client> getClientById(Long id) {
-        return clientRepository.findById(id);
+        return clientCache.get(id, clientRepository::findById);
     }
 
     /**
@@ -78,6 +141,9 @@ public class ReservationService {
         existingClient.setEmail(client.getEmail());
         existingClient.setTelephone(client.getTelephone());
         
+        // Le client est embarqué dans les réservations en cache
+        clientCache.invalidateAfterCommit(id);
+        reservationCache.invalidateAllAfterCommit();
         return clientRepository.save(existingClient);
     }
 
@@ -86,6 +152,12 @@ public class ReservationService {
      * @param id L'ID du client à supprimer
      */
     public void deleteClient(Long id) {
+        clientCache.invalidateAfterCommit(id);
+        reservationCache.invalidateAllAfterCommit();
+        // Les réservations du client sont supprimées en cascade par la base
+        availabilityIndex.removeAllAfterCommit(reservationRepository.findIdsByClientId(id));
+        dailyInventory.releaseClient(id);
+        reservationCounters.removeClient(id);
         clientRepository.deleteById(id);
     }
 
@@ -97,7 +169,11 @@ public class ReservationService {
      * @return La chambre créée avec son ID généré
      */
     public Chambre createChambre(Chambre chambre) {
-        return chambreRepository.save(chambre);
+        catalogCache.invalidateAfterCommit();
+        rateCache.invalidateAfterCommit();
+        Chambre savedChambre = chambreRepository.save(chambre);
+        availabilityIndex.updateRoomAfterCommit(savedChambre);
+        return savedChambre;
     }
 
     /**
@@ -126,14 +202,22 @@ public class ReservationService {
      * @return La chambre mise à jour
      */
     public Chambre updateChambre(Long id, Chambre chambre) {
-        Chambre existingChambre = chambreRepository.findById(id)
+        // Verrouillée : aucune réservation ne s'ajoute à la chambre pendant un changement de type ou de prix
+        Chambre existingChambre = chambreRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new RuntimeException("Chambre non trouvée avec l'ID: " + id));
         
+        dailyInventory.updateRoom(id, existingChambre.getType(), existingChambre.getPrix(), chambre.getType(), chambre.getPrix());
+        reservationCounters.retypeRoom(id, existingChambre.getType(), chambre.getType());
         existingChambre.setType(chambre.getType());
         existingChambre.setPrix(chambre.getPrix());
         existingChambre.setDisponible(chambre.getDisponible());
         
-        return chambreRepository.save(existingChambre);
+        catalogCache.invalidateAfterCommit();
+        rateCache.invalidateAfterCommit();
+        reservationCache.invalidateAllAfterCommit();
+        Chambre savedChambre = chambreRepository.save(existingChambre);
+        availabilityIndex.updateRoomAfterCommit(savedChambre);
+        return savedChambre;
     }
 
     /**
@@ -141,15 +225,144 @@ public class ReservationService {
      * @param id L'ID de la chambre à supprimer
      */
     public void deleteChambre(Long id) {
+        catalogCache.invalidateAfterCommit();
+        rateCache.invalidateAfterCommit();
+        reservationCache.invalidateAllAfterCommit();
+        availabilityIndex.removeRoomAfterCommit(id);
         chambreRepository.deleteById(id);
     }
 
+    /**
+     * Recherche les chambres libres sur une période
+     * 
+     * Servie par l'index des disponibilités, sans requête SQL une fois l'index construit ;
+     * hors transaction pour ne pas emprunter de connexion dans ce cas.
+     * 
+     * @param type Le type de chambre (insensible à la casse), ou null pour tous les types
+     * @param dateDebut Date d'arrivée (incluse, au plus tôt aujourd'hui)
+     * @param dateFin Date de départ (exclue)
+     * @return Les chambres disponibles sans réservation sur la période ; partagées : ne pas les modifier
+     * @throws IllegalArgumentException Si la période est invalide
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<Chambre> getChambresDisponibles(String type, LocalDate dateDebut, LocalDate dateFin) {
+        return availabilityIndex.search(type, dateDebut, dateFin);
+    }
+
+    /**
+     * Calcule le taux d'occupation d'un mois par type de chambre, en mémoire
+     * (bitmaps des nuits réservées de l'index des disponibilités)
+     * 
+     * @param mois Le mois, dans l'horizon de l'index
+     * @param type Le type de chambre, ou null pour tous les types
+     * @return Une occupation par type
+     * @throws IllegalArgumentException Si le mois est hors de l'horizon
+     * @throws IllegalStateException Si l'index n'est pas encore construit
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<AvailabilityIndex.Occupation> getOccupation(YearMonth mois, String type) {
+        return availabilityIndex.occupancy(mois, type);
+    }
+
+    /**
+     * Recherche la première fenêtre de nuits consécutives libres, en mémoire
+     * 
+     * @param type Le type de chambre, ou null pour tous les types
+     * @param depuis Première date d'arrivée possible, ou null pour aujourd'hui
+     * @param nuits Nombre de nuits
+     * @return La fenêtre la plus tôt avec sa chambre, ou vide s'il n'y en a pas dans l'horizon de l'index
+     * @throws IllegalArgumentException Si les paramètres sont invalides
+     * @throws IllegalStateException Si l'index n'est pas encore construit
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Optional<AvailabilityIndex.Fenetre> getPremiereDisponibilite(String type, LocalDate depuis, int nuits) {
+        return availabilityIndex.firstFreeWindow(type, depuis, nuits);
+    }
+
+    // ========== Opérations sur les Tarifs ==========
+
+    /**
+     * Récupère toutes les saisons tarifaires
+     * @return Les saisons triées par ID
+     */
+    @Transactional(readOnly = true)
+    public List<SaisonTarifaire> getAllSaisons() {
+        return saisonTarifaireRepository.findAll(Sort.by("id"));
+    }
+
+    /**
+     * Crée une saison tarifaire ; les devis en tiennent compte après la validation
+     * @param saison La saison à créer
+     * @return La saison créée avec son ID généré
+     * @throws IllegalArgumentException Si dateFin n'est pas après dateDebut
+     */
+    public SaisonTarifaire createSaison(SaisonTarifaire saison) {
+        if (!saison.getDateFin().isAfter(saison.getDateDebut())) {
+            throw new IllegalArgumentException("La date de fin doit être après la date de début");
+        }
+        rateCache.invalidateAfterCommit();
+        return saisonTarifaireRepository.save(saison);
+    }
+
+    /**
+     * Supprime une saison tarifaire
+     * @param id L'ID de la saison à supprimer
+     */
+    public void deleteSaison(Long id) {
+        if (!saisonTarifaireRepository.existsById(id)) {
+            throw new RuntimeException("Saison tarifaire non trouvée avec l'ID: " + id);
+        }
+        rateCache.invalidateAfterCommit();
+        saisonTarifaireRepository.deleteById(id);
+    }
+
+    /**
+     * Récupère tous les tarifs par jour de la semaine
+     * @return Les tarifs triés par ID
+     */
+    @Transactional(readOnly = true)
+    public List<TarifJour> getAllTarifsJour() {
+        return tarifJourRepository.findAll(Sort.by("id"));
+    }
+
+    /**
+     * Crée un tarif par jour de la semaine ; les devis en tiennent compte après la validation
+     * @param tarif Le tarif à créer
+     * @return Le tarif créé avec son ID généré
+     */
+    public TarifJour createTarifJour(TarifJour tarif) {
+        rateCache.invalidateAfterCommit();
+        return tarifJourRepository.save(tarif);
+    }
+
+    /**
+     * Supprime un tarif par jour de la semaine
+     * @param id L'ID du tarif à supprimer
+     */
+    public void deleteTarifJour(Long id) {
+        if (!tarifJourRepository.existsById(id)) {
+            throw new RuntimeException("Tarif par jour non trouvé avec l'ID: " + id);
+        }
+        rateCache.invalidateAfterCommit();
+        tarifJourRepository.deleteById(id);
+    }
+
     // ========== Opérations sur les Réservations ==========
 
     /**
      * Crée une nouvelle réservation
+     * 
+     * La ligne de la chambre est verrouillée jusqu'au commit avant la recherche de
+     * chevauchement : deux créations simultanées sur la même chambre, dans ce module
+     * ou dans un autre, ne peuvent pas réserver les mêmes nuits. L'appelant passe par
+     * RoomAdmission pour ne pas attendre ce verrou en tenant une connexion.
+     * 
+     * Une réservation créée EN_ATTENTE est une option : son échéance est fixée ici
+     * (HoldManager) et elle expire si elle n'est pas confirmée à temps.
+     * 
      * @param reservation La réservation à créer
      * @return La réservation créée avec son ID généré
+     * @throws com.hotel.reservation.rest.admission.BookingConflictException si la période chevauche une réservation de la chambre
      */
     public Reservation createReservation(Reservation reservation) {
         // Vérification que le client existe
@@ -157,7 +370,7 @@ public class ReservationService {
                 .orElseThrow(() -> new RuntimeException("Client non trouvé"));
         
         // Vérification que la chambre existe et est disponible
-        Chambre chambre = chambreRepository.findById(reservation.getChambre().getId())
+        Chambre chambre = chambreRepository.findByIdForUpdate(reservation.getChambre().getId())
                 .orElseThrow(() -> new RuntimeException("Chambre non trouvée"));
         
         if (!chambre.getDisponible()) {
@@ -170,20 +383,106 @@ public class ReservationService {
             throw new RuntimeException("La date de fin doit être postérieure à la date de début");
         }
 
+        verifierChevauchement(chambre.getId(), reservation.getDateDebut(), reservation.getDateFin(),
+                reservation.getStatut(), null);
+
         reservation.setClient(client);
         reservation.setChambre(chambre);
+        reservation.setMontant(rateCache.priceStay(chambre, reservation.getDateDebut(), reservation.getDateFin()));
+        reservation.setExpiresAt(HoldManager.EN_ATTENTE.equals(reservation.getStatut()) ? holdManager.newExpiry() : null);
         
-        return reservationRepository.save(reservation);
+        Reservation savedReservation = reservationRepository.save(reservation);
+        dailyInventory.sell(savedReservation);
+        reservationCounters.add(savedReservation);
+        availabilityIndex.updateAfterCommit(savedReservation);
+        if (savedReservation.getExpiresAt() != null) {
+            holdManager.trackAfterCommit(savedReservation.getId(), savedReservation.getExpiresAt());
+        }
+        return savedReservation;
+    }
+
+    /**
+     * Pose une option : la chambre est bloquée jusqu'à l'échéance (hold.ttl-minutes)
+     * @param reservation La réservation à poser en attente
+     * @return L'option créée, avec son échéance (expiresAt)
+     */
+    public Reservation placeHold(Reservation reservation) {
+        reservation.setStatut(HoldManager.EN_ATTENTE);
+        return createReservation(reservation);
+    }
+
+    /**
+     * Confirme une option avant son échéance
+     * 
+     * La ligne est verrouillée : l'expiration de l'option passe avant ou après, jamais
+     * pendant. Confirmer une réservation déjà confirmée la renvoie telle quelle.
+     * 
+     * @param id L'ID de l'option
+     * @return La réservation confirmée
+     * @throws HoldExpiredException si l'option a expiré ou a été annulée
+     */
+    public Reservation confirmHold(Long id) {
+        Reservation reservation = reservationRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new RuntimeException("Réservation non trouvée avec l'ID: " + id));
+        if ("CONFIRMEE".equals(reservation.getStatut())) {
+            return reservation;
+        }
+        if (!HoldManager.EN_ATTENTE.equals(reservation.getStatut()) || reservation.getExpiresAt() == null
+                || !reservation.getExpiresAt().isAfter(LocalDateTime.now())) {
+            throw new HoldExpiredException("L'option a expiré ou a été annulée");
+        }
+        
+        reservationCache.invalidateAfterCommit(id);
+        // Mêmes nuits vendues ; le séjour entre dans le revenu
+        dailyInventory.release(reservation);
+        reservationCounters.remove(reservation);
+        reservation.setStatut("CONFIRMEE");
+        dailyInventory.sell(reservation);
+        reservationCounters.add(reservation);
+        reservation.setExpiresAt(null);
+        holdManager.untrackAfterCommit(id, true);
+        return reservation;
     }
 
     /**
      * Récupère une réservation par son ID
+     * 
+     * Servie par le cache local (reservationCache) : les lectures simultanées d'un même
+     * ID absent du cache ne déclenchent qu'une requête. Hors transaction pour qu'un
+     * succès de cache n'emprunte pas de connexion.
+     * 
      * @param id L'ID de la réservation
-     * @return Un Optional contenant la réservation ou vide
+     * @return Un Optional contenant la réservation ou vide ; partagée : ne pas la modifier
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Optional<Reservation> getReservationById(Long id) {
-        return reservationRepository.findById(id);
+        return reservationCache.get(id, reservationRepository::findWithClientAndChambreById);
+    }
+
+    /**
+     * Récupère plusieurs réservations par leurs IDs en une seule requête
+     * L'ordre de la liste d'entrée est conservé, y compris pour les IDs non trouvés
+     * @param ids Les IDs des réservations (au plus MAX_IDS_PAR_REQUETE)
+     * @return Un résultat par ID demandé, marqué comme non trouvé si absent
+     */
+    @Transactional(readOnly = true)
+    public List<ReservationLookup> getReservationsByIds(List<Long> ids) {
+        if (ids.size() > MAX_IDS_PAR_REQUETE) {
+            throw new IllegalArgumentException("Trop d'IDs demandés (maximum " + MAX_IDS_PAR_REQUETE + ")");
+        }
+
+        Map<Long, Reservation> parId = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (Reservation reservation : reservationRepository.findAllWithClientAndChambreByIdIn(new LinkedHashSet<>(ids))) {
+                parId.put(reservation.getId(), reservation);
+            }
+        }
+
+        List<ReservationLookup> resultats = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            resultats.add(new ReservationLookup(id, parId.get(id)));
+        }
+        return resultats;
     }
 
     /**
@@ -192,7 +491,7 @@ public class ReservationService {
      */
     @Transactional(readOnly = true)
     public List<Reservation> getAllReservations() {
-        return reservationRepository.findAll();
+        return reservationRepository.findAllWithClientAndChambre();
     }
 
     /**
@@ -202,39 +501,139 @@ public class ReservationService {
      * @return La réservation mise à jour
      */
     public Reservation updateReservation(Long id, Reservation reservation) {
-        Reservation existingReservation = reservationRepository.findById(id)
+        return patchReservation(id, ReservationPatch.from(reservation));
+    }
+
+    /**
+     * Met à jour partiellement une réservation existante
+     * 
+     * Seuls les champs renseignés du patch sont modifiés. Le client et la chambre
+     * sont affectés par référence (getReferenceById) après une simple vérification
+     * d'existence, et @DynamicUpdate limite l'UPDATE aux colonnes modifiées.
+     * 
+     * @param id L'ID de la réservation à mettre à jour
+     * @param patch Les champs à modifier
+     * @return La réservation mise à jour
+     */
+    public Reservation patchReservation(Long id, ReservationPatch patch) {
+        reservationCache.invalidateAfterCommit(id);
+        // Verrouillée : les nuits retirées de l'inventaire sont bien celles de l'état modifié
+        Reservation existingReservation = reservationRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new RuntimeException("Réservation non trouvée avec l'ID: " + id));
+        dailyInventory.release(existingReservation);
+        reservationCounters.remove(existingReservation);
+        Long ancienneChambre = existingReservation.getChambre().getId();
+        LocalDate ancienDebut = existingReservation.getDateDebut();
+        LocalDate ancienneFin = existingReservation.getDateFin();
+        
+        if (patch.getClientId() != null
+                && !patch.getClientId().equals(existingReservation.getClient().getId())) {
+            if (!clientRepository.existsById(patch.getClientId())) {
+                throw new RuntimeException("Client non trouvé");
+            }
+            existingReservation.setClient(clientRepository.getReferenceById(patch.getClientId()));
+        }
+        
+        if (patch.getChambreId() != null
+                && !patch.getChambreId().equals(existingReservation.getChambre().getId())) {
+            if (!chambreRepository.existsById(patch.getChambreId())) {
+                throw new RuntimeException("Chambre non trouvée");
+            }
+            existingReservation.setChambre(chambreRepository.getReferenceById(patch.getChambreId()));
+        }
         
-        // Mise à jour des champs
-        if (reservation.getClient() != null) {
-            Client client = clientRepository.findById(reservation.getClient().getId())
-                    .orElseThrow(() -> new RuntimeException("Client non trouvé"));
-            existingReservation.setClient(client);
+        if (patch.getDateDebut() != null) {
+            existingReservation.setDateDebut(patch.getDateDebut());
         }
         
-        if (reservation.getChambre() != null) {
-            Chambre chambre = chambreRepository.findById(reservation.getChambre().getId())
-                    .orElseThrow(() -> new RuntimeException("Chambre non trouvée"));
-            existingReservation.setChambre(chambre);
+        if (patch.getDateFin() != null) {
+            existingReservation.setDateFin(patch.getDateFin());
         }
         
-        if (reservation.getDateDebut() != null) {
-            existingReservation.setDateDebut(reservation.getDateDebut());
+        if (!existingReservation.getDateFin().isAfter(existingReservation.getDateDebut())) {
+            throw new RuntimeException("La date de fin doit être postérieure à la date de début");
+        }
+        
+        if (patch.getPreferences() != null) {
+            existingReservation.setPreferences(patch.getPreferences());
         }
         
-        if (reservation.getDateFin() != null) {
-            existingReservation.setDateFin(reservation.getDateFin());
+        if (patch.getStatut() != null && !patch.getStatut().equals(existingReservation.getStatut())) {
+            if (HoldManager.EN_ATTENTE.equals(patch.getStatut())) {
+                throw new RuntimeException("Une réservation existante ne peut pas être remise en attente");
+            }
+            // Une option confirmée ou annulée par modification n'expire plus
+            existingReservation.setStatut(patch.getStatut());
+            existingReservation.setExpiresAt(null);
+            holdManager.untrackAfterCommit(id, false);
         }
         
-        if (reservation.getPreferences() != null) {
-            existingReservation.setPreferences(reservation.getPreferences());
+        // Nouvelle chambre, nouvelles dates ou réservation réactivée : mêmes garanties qu'à la création
+        if (patch.getChambreId() != null || patch.getDateDebut() != null
+                || patch.getDateFin() != null || patch.getStatut() != null) {
+            chambreRepository.findByIdForUpdate(existingReservation.getChambre().getId());
+            verifierChevauchement(existingReservation.getChambre().getId(), existingReservation.getDateDebut(),
+                    existingReservation.getDateFin(), existingReservation.getStatut(), id);
         }
         
-        if (reservation.getStatut() != null) {
-            existingReservation.setStatut(reservation.getStatut());
+        // Autre chambre ou autres nuits : le séjour est revendu aux tarifs du moment
+        if (!ancienneChambre.equals(existingReservation.getChambre().getId())
+                || !ancienDebut.equals(existingReservation.getDateDebut())
+                || !ancienneFin.equals(existingReservation.getDateFin())) {
+            existingReservation.setMontant(rateCache.priceStay(existingReservation.getChambre(),
+                    existingReservation.getDateDebut(), existingReservation.getDateFin()));
         }
         
-        return reservationRepository.save(existingReservation);
+        dailyInventory.sell(existingReservation);
+        reservationCounters.add(existingReservation);
+        availabilityIndex.updateAfterCommit(existingReservation);
+        
+        // L'entité est gérée : le flush en fin de transaction n'écrit que les colonnes modifiées
+        return existingReservation;
+    }
+
+    /**
+     * Refuse une période qui chevauche une réservation non annulée de la chambre
+     * La ligne de la chambre doit être verrouillée dans la transaction courante (findByIdForUpdate)
+     * @param exclue La réservation modifiée, ignorée dans la recherche (null pour une création)
+     */
+    private void verifierChevauchement(Long chambreId, LocalDate debut, LocalDate fin, String statut, Long exclue) {
+        if ("ANNULEE".equals(statut)) {
+            return;
+        }
+        if (reservationRepository.existsOverlapping(chambreId, debut, fin, exclue)) {
+            throw roomAdmission.conflict();
+        }
+    }
+
+    /**
+     * Lit les préférences d'une réservation telles que stockées, sans les décompresser
+     * @param id L'ID de la réservation
+     * @return La valeur stockée (voir PreferencesCodec), ou null si la réservation n'a pas de préférences
+     */
+    @Transactional(readOnly = true)
+    public String getStoredPreferences(Long id) {
+        Optional<String> stockee = reservationRepository.findStoredPreferencesById(id);
+        if (stockee.isEmpty() && !reservationRepository.existsById(id)) {
+            throw new RuntimeException("Réservation non trouvée avec l'ID: " + id);
+        }
+        return stockee.orElse(null);
+    }
+
+    /**
+     * Remplace les préférences d'une réservation par une valeur déjà encodée
+     * 
+     * La valeur a été compressée au fil de la lecture de la requête : les préférences
+     * en clair ne passent jamais par l'entité.
+     * 
+     * @param id L'ID de la réservation
+     * @param stockee La valeur encodée par PreferencesCodec
+     */
+    public void replaceStoredPreferences(Long id, String stockee) {
+        if (reservationRepository.updateStoredPreferences(id, stockee) == 0) {
+            throw new RuntimeException("Réservation non trouvée avec l'ID: " + id);
+        }
+        reservationCache.invalidateAfterCommit(id);
     }
 
     /**
@@ -242,6 +641,13 @@ public class ReservationService {
      * @param id L'ID de la réservation à supprimer
      */
     public void deleteReservation(Long id) {
-        reservationRepository.deleteById(id);
+        reservationCache.invalidateAfterCommit(id);
+        availabilityIndex.removeAfterCommit(id);
+        holdManager.untrackAfterCommit(id, false);
+        reservationRepository.findByIdForUpdate(id).ifPresent(reservation -> {
+            dailyInventory.release(reservation);
+            reservationCounters.remove(reservation);
+            reservationRepository.delete(reservation);
+        });
     }
 }
@@ -0,0 +1,207 @@
+package com.hotel.reservation.rest.service;
+
+import com.hotel.reservation.rest.admission.BookingConflictException;
+import com.hotel.reservation.rest.admission.RoomAdmission;
+import com.hotel.reservation.rest.availability.AvailabilityIndex;
+import com.hotel.reservation.rest.hold.HoldManager;
+import com.hotel.reservation.rest.inventory.DailyInventory;
+import com.hotel.reservation.rest.model.Chambre;
+import com.hotel.reservation.rest.model.Client;
+import com.hotel.reservation.rest.model.Reservation;
+import com.hotel.reservation.rest.pricing.RateCache;
+import com.hotel.reservation.rest.repository.ChambreRepository;
+import com.hotel.reservation.rest.repository.ClientRepository;
+import com.hotel.reservation.rest.repository.ReservationRepository;
+import com.hotel.reservation.rest.stats.ReservationCounters;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+
+/**
+ * Créations simultanées de réservations sur une même chambre
+ *
+ * Les dépôts sont remplacés par une table en mémoire dont la recherche de chevauchement
+ * et l'enregistrement ne sont pas atomiques (l'enregistrement est volontairement lent) :
+ * sans l'admission par chambre, plusieurs créations passeraient la vérification avant
+ * le premier enregistrement. Le verrou de ligne MySQL n'est pas couvert ici, seulement
+ * la sérialisation locale (RoomAdmission) et la vérification de chevauchement du service.
+ *
+ * Reste à faire : la protection entre modules (deux services avec chacun leur RoomAdmission,
+ * départagés par SELECT ... FOR UPDATE sur un vrai MySQL) n'est vérifiée par aucun test.
+ * Elle le sera par benchmarks/double-booking.sh, jamais exécuté à ce jour, ou par un test
+ * d'intégration sur MySQL (Testcontainers), pas encore écrit.
+ */
+@ExtendWith(MockitoExtension.class)
+class ReservationServiceConcurrencyTest {
+
+    private static final int CREATIONS = 16;
+    private static final LocalDate DEBUT = LocalDate.of(2026, 11, 2);
+    private static final LocalDate FIN = LocalDate.of(2026, 11, 6);
+
+    @Mock
+    private ClientRepository clientRepository;
+
+    @Mock
+    private ChambreRepository chambreRepository;
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @Mock
+    private AvailabilityIndex availabilityIndex;
+
+    @Mock
+    private HoldManager holdManager;
+
+    @Mock
+    private RateCache rateCache;
+
+    @Mock
+    private DailyInventory dailyInventory;
+
+    @Mock
+    private ReservationCounters reservationCounters;
+
+    @InjectMocks
+    private ReservationService reservationService;
+
+    private RoomAdmission roomAdmission;
+
+    // Table reservation simulée
+    private final List<Reservation> enregistrees = new ArrayList<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ExecutorService clients;
+
+    @BeforeEach
+    void preparer() {
+        roomAdmission = new RoomAdmission();
+        ReflectionTestUtils.setField(roomAdmission, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(roomAdmission, "stripes", 1024);
+        ReflectionTestUtils.setField(roomAdmission, "waitTimeoutMs", 10_000L);
+        ReflectionTestUtils.invokeMethod(roomAdmission, "initialiser");
+        ReflectionTestUtils.setField(reservationService, "roomAdmission", roomAdmission);
+
+        when(clientRepository.findById(anyLong())).thenAnswer(invocation -> {
+            Client client = new Client("Durand", "Alice", "alice.durand@example.com", null);
+            client.setId(invocation.getArgument(0));
+            return Optional.of(client);
+        });
+        when(chambreRepository.findByIdForUpdate(anyLong())).thenAnswer(invocation -> {
+            Chambre chambre = new Chambre("double", new BigDecimal("120.00"), true);
+            chambre.setId(invocation.getArgument(0));
+            return Optional.of(chambre);
+        });
+        when(rateCache.priceStay(any(), any(), any())).thenReturn(new BigDecimal("480.00"));
+
+        when(reservationRepository.existsOverlapping(anyLong(), any(), any(), isNull())).thenAnswer(invocation -> {
+            Long chambreId = invocation.getArgument(0);
+            LocalDate debut = invocation.getArgument(1);
+            LocalDate fin = invocation.getArgument(2);
+            synchronized (enregistrees) {
+                return enregistrees.stream().anyMatch(r -> r.getChambre().getId().equals(chambreId)
+                        && r.getDateDebut().isBefore(fin) && r.getDateFin().isAfter(debut));
+            }
+        });
+        when(reservationRepository.save(any(Reservation.class))).thenAnswer(invocation -> {
+            Reservation reservation = invocation.getArgument(0);
+            // Élargit la fenêtre entre la vérification et l'enregistrement
+            Thread.sleep(20);
+            reservation.setId(sequence.incrementAndGet());
+            synchronized (enregistrees) {
+                enregistrees.add(reservation);
+            }
+            return reservation;
+        });
+
+        clients = Executors.newFixedThreadPool(CREATIONS);
+    }
+
+    @AfterEach
+    void arreter() throws InterruptedException {
+        clients.shutdownNow();
+        clients.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void uneSeuleCreationReussitPourLaMemeChambreEtLesMemesDates() throws Exception {
+        List<Resultat> resultats = creerEnMemeTemps(i -> 7L);
+
+        assertThat(resultats).filteredOn(r -> r == Resultat.CREEE).hasSize(1);
+        assertThat(resultats).filteredOn(r -> r == Resultat.CONFLIT).hasSize(CREATIONS - 1);
+        assertThat(enregistrees).hasSize(1);
+    }
+
+    @Test
+    void lesCreationsDeChambresDifferentesReussissentToutes() throws Exception {
+        List<Resultat> resultats = creerEnMemeTemps(i -> 100L + i);
+
+        assertThat(resultats).containsOnly(Resultat.CREEE);
+        assertThat(enregistrees).hasSize(CREATIONS);
+    }
+
+    /**
+     * Lance CREATIONS créations libérées au même instant, comme le contrôleur REST
+     * (admission par chambre, puis service)
+     */
+    private List<Resultat> creerEnMemeTemps(IntFunction<Long> chambreDe) throws Exception {
+        CountDownLatch depart = new CountDownLatch(1);
+        List<Future<Resultat>> futurs = new ArrayList<>();
+        for (int i = 0; i < CREATIONS; i++) {
+            Long chambreId = chambreDe.apply(i);
+            futurs.add(clients.submit(() -> {
+                depart.await();
+                try {
+                    roomAdmission.admit(chambreId, () -> reservationService.createReservation(nouvelle(chambreId)));
+                    return Resultat.CREEE;
+                } catch (BookingConflictException e) {
+                    return Resultat.CONFLIT;
+                }
+            }));
+        }
+        depart.countDown();
+
+        List<Resultat> resultats = new ArrayList<>();
+        for (Future<Resultat> futur : futurs) {
+            resultats.add(futur.get(30, TimeUnit.SECONDS));
+        }
+        return resultats;
+    }
+
+    private static Reservation nouvelle(Long chambreId) {
+        Client client = new Client();
+        client.setId(1L);
+        Chambre chambre = new Chambre();
+        chambre.setId(chambreId);
+        return new Reservation(client, chambre, DEBUT, FIN, null);
+    }
+
+    private enum Resultat {
+        CREEE, CONFLIT
+    }
+}
@@ -0,0 +1,28 @@
+package com.hotel.reservation.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Application principale pour le module REST réactif
+ * 
+ * Cette application Spring Boot expose le même contrat REST (/api) que le module
+ * rest-api, mais sur une pile non bloquante : WebFlux (Netty) et R2DBC sur la
+ * même base hotel_reservation_db. Elle sert de point de comparaison avec le
+ * couple bloquant Spring MVC + JPA.
+ * 
+ * Port par défaut : 8085
+ */
+@SpringBootApplication
+@EnableScheduling
+public class RestReactiveApiApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(RestReactiveApiApplication.class, args);
+        System.out.println("========================================");
+        System.out.println("REST API réactive démarrée sur le port 8085");
+        System.out.println("API: http://localhost:8085/api");
+        System.out.println("========================================");
+    }
+}
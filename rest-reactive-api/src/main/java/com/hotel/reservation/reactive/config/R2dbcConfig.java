@@ -0,0 +1,40 @@
+package com.hotel.reservation.reactive.config;
+
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.r2dbc.config.EnableR2dbcAuditing;
+import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
+import org.springframework.data.r2dbc.dialect.DialectResolver;
+
+import java.util.List;
+
+/**
+ * Configuration de l'accès R2DBC
+ *
+ * - l'audit renseigne created_at / updated_at, comme les callbacks @PrePersist /
+ *   @PreUpdate des entités JPA ;
+ * - les colonnes BOOLEAN de MySQL (TINYINT(1)) sont lues comme Byte par le driver
+ *   R2DBC et converties en Boolean.
+ */
+@Configuration
+@EnableR2dbcAuditing
+public class R2dbcConfig {
+
+    @Bean
+    public R2dbcCustomConversions r2dbcCustomConversions(ConnectionFactory connectionFactory) {
+        return R2dbcCustomConversions.of(DialectResolver.getDialect(connectionFactory),
+                List.of(new ByteToBooleanConverter()));
+    }
+
+    @ReadingConverter
+    static class ByteToBooleanConverter implements Converter<Byte, Boolean> {
+
+        @Override
+        public Boolean convert(Byte source) {
+            return source != 0;
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.hotel.reservation.reactive.controller;
+
+import com.hotel.reservation.reactive.dto.ReservationLookup;
+import com.hotel.reservation.reactive.dto.ReservationPatch;
+import com.hotel.reservation.reactive.idempotency.IdempotencyConflictException;
+import com.hotel.reservation.reactive.idempotency.IdempotencyStore;
+import com.hotel.reservation.reactive.model.Client;
+import com.hotel.reservation.reactive.model.Chambre;
+import com.hotel.reservation.reactive.model.Reservation;
+import com.hotel.reservation.reactive.service.BookingConflictException;
+import com.hotel.reservation.reactive.service.ReservationService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Contrôleur REST réactif pour la gestion des réservations d'hôtel
+ * 
+ * Ce contrôleur expose le même contrat que ReservationRestController du module
+ * rest-api (mêmes chemins, corps JSON et codes HTTP), sur WebFlux : aucun thread
+ * n'est bloqué pendant l'accès à la base.
+ * 
+ * Les listes sont renvoyées en flux : en application/json le tableau est écrit
+ * au fil des lignes lues, en application/x-ndjson chaque élément est une ligne.
+ * 
+ * Base URL: http://localhost:8085/api
+ */
+@RestController
+@RequestMapping("/api")
+@CrossOrigin(origins = "*") // Permet les requêtes CORS depuis n'importe quelle origine
+public class ReservationRestController {
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    // ========== Endpoints pour les Clients ==========
+
+    /**
+     * POST /api/clients
+     * Crée un nouveau client
+     * 
+     * @param client Le client à créer (dans le body de la requête)
+     * @return Le client créé avec son ID généré
+     */
+    @PostMapping("/clients")
+    public Mono<ResponseEntity<Client>> createClient(@Valid @RequestBody Client client) {
+        return reservationService.createClient(client)
+                .map(createdClient -> new ResponseEntity<>(createdClient, HttpStatus.CREATED))
+                .onErrorResume(e -> Mono.just(new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR)));
+    }
+
+    /**
+     * GET /api/clients/{id}
+     * Récupère un client par son ID
+     * 
+     * @param id L'ID du client
+     * @return Le client trouvé ou 404 si non trouvé
+     */
+    @GetMapping("/clients/{id}")
+    public Mono<ResponseEntity<Client>> getClientById(@PathVariable Long id) {
+        return reservationService.getClientById(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * GET /api/clients
+     * Récupère tous les clients
+     * 
+     * @return Flux de tous les clients
+     */
+    @GetMapping(value = "/clients", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<Client> getAllClients() {
+        return reservationService.getAllClients();
+    }
+
+    /**
+     * PUT /api/clients/{id}
+     * Met à jour un client existant
+     * 
+     * @param id L'ID du client à mettre à jour
+     * @param client Les nouvelles données du client
+     * @return Le client mis à jour
+     */
+    @PutMapping("/clients/{id}")
+    public Mono<ResponseEntity<Client>> updateClient(@PathVariable Long id, @Valid @RequestBody Client client) {
+        return reservationService.updateClient(id, client)
+                .map(ResponseEntity::ok)
+                .onErrorResume(RuntimeException.class, e -> Mono.just(ResponseEntity.notFound().build()));
+    }
+
+    /**
+     * DELETE /api/clients/{id}
+     * Supprime un client
+     * 
+     * @param id L'ID du client à supprimer
+     * @return 204 No Content si succès, 404 si non trouvé
+     */
+    @DeleteMapping("/clients/{id}")
+    public Mono<ResponseEntity<Void>> deleteClient(@PathVariable Long id) {
+        return reservationService.deleteClient(id)
+                .then(Mono.just(ResponseEntity.noContent().<Void>build()))
+                .onErrorResume(e -> Mono.just(ResponseEntity.notFound().build()));
+    }
+
+    // ========== Endpoints pour les Chambres ==========
+
+    /**
+     * POST /api/chambres
+     * Crée une nouvelle chambre
+     * 
+     * @param chambre La chambre à créer
+     * @return La chambre créée avec son ID généré
+     */
+    @PostMapping("/chambres")
+    public Mono<ResponseEntity<Chambre>> createChambre(@Valid @RequestBody Chambre chambre) {
+        return reservationService.createChambre(chambre)
+                .map(createdChambre -> new ResponseEntity<>(createdChambre, HttpStatus.CREATED))
+                .onErrorResume(e -> Mono.just(new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR)));
+    }
+
+    /**
+     * GET /api/chambres/{id}
+     * Récupère une chambre par son ID
+     * 
+     * @param id L'ID de la chambre
+     * @return La chambre trouvée ou 404 si non trouvée
+     */
+    @GetMapping("/chambres/{id}")
+    public Mono<ResponseEntity<Chambre>> getChambreById(@PathVariable Long id) {
+        return reservationService.getChambreById(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * GET /api/chambres
+     * Récupère toutes les chambres
+     * 
+     * @return Flux de toutes les chambres
+     */
+    @GetMapping(value = "/chambres", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<Chambre> getAllChambres() {
+        return reservationService.getAllChambres();
+    }
+
+    /**
+     * PUT /api/chambres/{id}
+     * Met à jour une chambre existante
+     * 
+     * @param id L'ID de la chambre à mettre à jour
+     * @param chambre Les nouvelles données de la chambre
+     * @return La chambre mise à jour
+     */
+    @PutMapping("/chambres/{id}")
+    public Mono<ResponseEntity<Chambre>> updateChambre(@PathVariable Long id, @Valid @RequestBody Chambre chambre) {
+        return reservationService.updateChambre(id, chambre)
+                .map(ResponseEntity::ok)
+                .onErrorResume(RuntimeException.class, e -> Mono.just(ResponseEntity.notFound().build()));
+    }
+
+    /**
+     * DELETE /api/chambres/{id}
+     * Supprime une chambre
+     * 
+     * @param id L'ID de la chambre à supprimer
+     * @return 204 No Content si succès, 404 si non trouvé
+     */
+    @DeleteMapping("/chambres/{id}")
+    public Mono<ResponseEntity<Void>> deleteChambre(@PathVariable Long id) {
+        return reservationService.deleteChambre(id)
+                .then(Mono.just(ResponseEntity.noContent().<Void>build()))
+                .onErrorResume(e -> Mono.just(ResponseEntity.notFound().build()));
+    }
+
+    // ========== Endpoints pour les Réservations ==========
+
+    /**
+     * POST /api/reservations
+     * Crée une nouvelle réservation
+     * 
+     * Avec l'en-tête Idempotency-Key, une nouvelle tentative portant la même clé
+     * renvoie la réservation créée la première fois sans en créer une autre. La même
+     * clé envoyée avec une autre requête est refusée avec 422.
+     * 
+     * @param reservation La réservation à créer
+     * @param idempotencyKey Clé d'idempotence optionnelle (128 caractères max)
+     * @return La réservation créée avec son ID généré, 409 si la chambre est déjà réservée sur la période,
+     *         422 si la clé a servi pour une autre requête
+     */
+    @PostMapping("/reservations")
+    public Mono<ResponseEntity<Reservation>> createReservation(@Valid @RequestBody Reservation reservation,
+                                                               @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        Mono<ResponseEntity<Reservation>> reponse;
+        if (idempotencyKey == null) {
+            reponse = reservationService.createReservation(reservation)
+                    .map(createdReservation -> new ResponseEntity<>(createdReservation, HttpStatus.CREATED));
+        } else if (!IdempotencyStore.isValidKey(idempotencyKey)) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        } else {
+            String empreinte = IdempotencyStore.empreinte(reservation.getClientId(), reservation.getChambreId(),
+                    reservation.getDateDebut(), reservation.getDateFin(), reservation.getStatut(),
+                    reservation.getPreferences());
+            reponse = idempotencyStore.execute(idempotencyKey, empreinte,
+                            () -> reservationService.createReservation(reservation).map(Reservation::getId))
+                    .flatMap(id -> reservationService.getReservationById(id)
+                            .map(createdReservation -> new ResponseEntity<>(createdReservation, HttpStatus.CREATED))
+                            .defaultIfEmpty(new ResponseEntity<>(null, HttpStatus.GONE)));
+        }
+        return reponse
+                .onErrorResume(BookingConflictException.class, e -> Mono.just(new ResponseEntity<>(null, HttpStatus.CONFLICT)))
+                .onErrorResume(IdempotencyConflictException.class,
+                        e -> Mono.just(new ResponseEntity<>(null, HttpStatus.UNPROCESSABLE_ENTITY)))
+                .onErrorResume(RuntimeException.class, e -> Mono.just(new ResponseEntity<>(null, HttpStatus.BAD_REQUEST)));
+    }
+
+    /**
+     * GET /api/reservations/{id}
+     * Récupère une réservation par son ID
+     * 
+     * @param id L'ID de la réservation
+     * @return La réservation trouvée ou 404 si non trouvée
+     */
+    @GetMapping("/reservations/{id}")
+    public Mono<ResponseEntity<Reservation>> getReservationById(@PathVariable Long id) {
+        return reservationService.getReservationById(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * GET /api/reservations?ids=1,2,3
+     * Récupère plusieurs réservations en un seul aller-retour
+     * 
+     * @param ids Les IDs des réservations, séparés par des virgules
+     * @return Un résultat par ID dans l'ordre demandé (found=false si non trouvé),
+     *         ou 400 si trop d'IDs sont demandés
+     */
+    @GetMapping(value = "/reservations", params = "ids")
+    public Mono<ResponseEntity<List<ReservationLookup>>> getReservationsByIds(@RequestParam List<Long> ids) {
+        return reservationService.getReservationsByIds(ids)
+                .map(ResponseEntity::ok)
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity.badRequest().build()));
+    }
+
+    /**
+     * GET /api/reservations
+     * Récupère toutes les réservations
+     * 
+     * @return Flux de toutes les réservations
+     */
+    @GetMapping(value = "/reservations", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<Reservation> getAllReservations() {
+        return reservationService.getAllReservations();
+    }
+
+    /**
+     * PUT /api/reservations/{id}
+     * Met à jour une réservation existante
+     * 
+     * @param id L'ID de la réservation à mettre à jour
+     * @param reservation Les nouvelles données de la réservation
+     * @return La réservation mise à jour, 409 si la chambre est déjà réservée sur la période
+     */
+    @PutMapping("/reservations/{id}")
+    public Mono<ResponseEntity<Reservation>> updateReservation(@PathVariable Long id, @Valid @RequestBody Reservation reservation) {
+        return reservationService.updateReservation(id, reservation)
+                .map(ResponseEntity::ok)
+                .onErrorResume(BookingConflictException.class, e -> Mono.just(new ResponseEntity<>(null, HttpStatus.CONFLICT)))
+                .onErrorResume(RuntimeException.class, e -> Mono.just(ResponseEntity.notFound().build()));
+    }
+
+    /**
+     * PATCH /api/reservations/{id}
+     * Met à jour partiellement une réservation : seuls les champs fournis sont modifiés
+     * 
+     * @param id L'ID de la réservation à mettre à jour
+     * @param patch Les champs à modifier (clientId, chambreId, dateDebut, dateFin, preferences, statut)
+     * @return La réservation mise à jour, 409 si la chambre est déjà réservée sur la période
+     */
+    @PatchMapping("/reservations/{id}")
+    public Mono<ResponseEntity<Reservation>> patchReservation(@PathVariable Long id, @RequestBody ReservationPatch patch) {
+        return reservationService.patchReservation(id, patch)
+                .map(ResponseEntity::ok)
+                .onErrorResume(BookingConflictException.class, e -> Mono.just(new ResponseEntity<>(null, HttpStatus.CONFLICT)))
+                .onErrorResume(RuntimeException.class, e -> Mono.just(ResponseEntity.notFound().build()));
+    }
+
+    /**
+     * DELETE /api/reservations/{id}
+     * Supprime une réservation
+     * 
+     * @param id L'ID de la réservation à supprimer
+     * @return 204 No Content si succès, 404 si non trouvé
+     */
+    @DeleteMapping("/reservations/{id}")
+    public Mono<ResponseEntity<Void>> deleteReservation(@PathVariable Long id) {
+        return reservationService.deleteReservation(id)
+                .then(Mono.just(ResponseEntity.noContent().<Void>build()))
+                .onErrorResume(e -> Mono.just(ResponseEntity.notFound().build()));
+    }
+}
@@ -0,0 +1,50 @@
+package com.hotel.reservation.reactive.dto;
+
+import com.hotel.reservation.reactive.model.Reservation;
+
+/**
+ * Résultat d'une recherche multiple de réservations par ID
+ *
+ * Chaque élément correspond à un ID demandé, dans l'ordre de la requête.
+ * Si la réservation n'existe pas, found vaut false et reservation est null.
+ */
+public class ReservationLookup {
+
+    private Long id;
+    private boolean found;
+    private Reservation reservation;
+
+    public ReservationLookup() {
+    }
+
+    public ReservationLookup(Long id, Reservation reservation) {
+        this.id = id;
+        this.found = reservation != null;
+        this.reservation = reservation;
+    }
+
+    // Getters et Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public boolean isFound() {
+        return found;
+    }
+
+    public void setFound(boolean found) {
+        this.found = found;
+    }
+
+    public Reservation getReservation() {
+        return reservation;
+    }
+
+    public void setReservation(Reservation reservation) {
+        this.reservation = reservation;
+    }
+}
@@ -0,0 +1,245 @@
+package com.hotel.reservation.reactive.idempotency;
+
+import com.hotel.reservation.reactive.model.IdempotencyKey;
+import com.hotel.reservation.reactive.repository.IdempotencyKeyRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Stockage des clés d'idempotence pour la création de réservations (version non bloquante)
+ *
+ * Même fonctionnement que dans rest-api : une création exécutée avec une clé déjà
+ * connue renvoie l'ID de la réservation créée la première fois, et les doublons
+ * concurrents attendent la première exécution. L'attente se fait sans bloquer de
+ * thread : les doublons s'abonnent au résultat de la première exécution.
+ *
+ * La table idempotency_key reste le repli après éviction, redémarrage ou exécution
+ * sur une autre instance (y compris rest-api, qui partage la même table). La même
+ * clé réutilisée pour une requête d'empreinte différente est refusée
+ * (IdempotencyConflictException).
+ */
+@Component
+public class IdempotencyStore {
+
+    /** En-tête HTTP portant la clé d'idempotence */
+    public static final String HEADER = "Idempotency-Key";
+
+    /** Longueur maximale d'une clé (taille de la colonne idempotency_key.cle) */
+    public static final int MAX_KEY_LENGTH = 128;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private TransactionalOperator transactionalOperator;
+
+    @Value("${idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${idempotency.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    @Value("${idempotency.wait-timeout-ms:30000}")
+    private long waitTimeoutMs;
+
+    @Value("${idempotency.db-retention-hours:24}")
+    private long dbRetentionHours;
+
+    private final Map<String, Entree> entrees = new ConcurrentHashMap<>();
+
+    // Ordre d'insertion des clés, pour évincer les plus anciennes en premier
+    private final Queue<String> ordre = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Vérifie qu'une clé fournie par le client est utilisable
+     * @param cle La clé reçue
+     * @return true si la clé est non vide et de longueur acceptable
+     */
+    public static boolean isValidKey(String cle) {
+        return cle != null && !cle.isBlank() && cle.length() <= MAX_KEY_LENGTH;
+    }
+
+    /**
+     * Calcule l'empreinte d'une requête de création : SHA-256 de ses champs normalisés
+     *
+     * Même calcul que dans rest-api : une clé utilisée sur l'un des deux modules est
+     * reconnue par l'autre pour la même requête.
+     *
+     * @param champs Les champs qui déterminent la réservation créée (null comme vide)
+     * @return L'empreinte, en 64 caractères hexadécimaux
+     */
+    public static String empreinte(Object... champs) {
+        StringBuilder normalisee = new StringBuilder();
+        for (Object champ : champs) {
+            normalisee.append(champ == null ? "" : champ).append('\u001F');
+        }
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(normalisee.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    /**
+     * Exécute une création au plus une fois pour une clé donnée
+     *
+     * @param cle La clé d'idempotence fournie par le client
+     * @param empreinte L'empreinte de la requête (voir empreinte(Object...))
+     * @param creation La création à exécuter, qui émet l'ID de la réservation créée
+     * @return L'ID de la réservation, créée maintenant ou lors d'une exécution précédente,
+     *         en erreur IdempotencyConflictException si la clé a servi pour une autre requête
+     */
+    public Mono<Long> execute(String cle, String empreinte, Supplier<Mono<Long>> creation) {
+        return Mono.defer(() -> {
+            purger();
+
+            while (true) {
+                Entree nouvelle = new Entree(empreinte, System.nanoTime());
+                Entree existante = entrees.putIfAbsent(cle, nouvelle);
+
+                if (existante == null) {
+                    ordre.add(cle);
+                    return executerPremiere(cle, nouvelle, creation);
+                }
+
+                if (existante.isExpiree(ttlNanos())) {
+                    entrees.remove(cle, existante);
+                    continue;
+                }
+
+                if (!empreinte.equals(existante.empreinte)) {
+                    return Mono.error(conflit());
+                }
+                return attendre(existante.resultat);
+            }
+        });
+    }
+
+    /**
+     * Première exécution pour une clé : consulte la table, puis crée et enregistre
+     * la clé dans la même transaction que la réservation
+     */
+    private Mono<Long> executerPremiere(String cle, Entree entree, Supplier<Mono<Long>> creation) {
+        Mono<Long> enTransaction = idempotencyKeyRepository.findById(cle)
+                .flatMap(enregistree -> reservationDe(enregistree, entree.empreinte))
+                .switchIfEmpty(Mono.defer(() -> creation.get()
+                        .flatMap(reservationId -> idempotencyKeyRepository
+                                .save(new IdempotencyKey(cle, reservationId, entree.empreinte))
+                                .thenReturn(reservationId))))
+                .as(transactionalOperator::transactional);
+
+        return enTransaction
+                // Une autre instance a enregistré la même clé : notre création a été annulée
+                .onErrorResume(DataIntegrityViolationException.class, e -> idempotencyKeyRepository.findById(cle)
+                        .flatMap(gagnante -> reservationDe(gagnante, entree.empreinte))
+                        .switchIfEmpty(Mono.error(e)))
+                .doOnNext(entree.resultat::complete)
+                .doOnError(e -> echouer(cle, entree, e))
+                .doOnCancel(() -> echouer(cle, entree, new CancellationException("Création annulée")));
+    }
+
+    /**
+     * ID de la réservation enregistrée pour la clé, si la requête a la même empreinte
+     */
+    private static Mono<Long> reservationDe(IdempotencyKey enregistree, String empreinte) {
+        if (!empreinte.equals(enregistree.getEmpreinte())) {
+            return Mono.error(conflit());
+        }
+        return Mono.just(enregistree.getReservationId());
+    }
+
+    private static IdempotencyConflictException conflit() {
+        return new IdempotencyConflictException("Clé d'idempotence déjà utilisée pour une autre requête");
+    }
+
+    /**
+     * En cas d'échec, la clé est libérée pour qu'une nouvelle tentative puisse s'exécuter
+     */
+    private void echouer(String cle, Entree entree, Throwable e) {
+        entrees.remove(cle, entree);
+        entree.resultat.completeExceptionally(e);
+    }
+
+    /**
+     * Attend, sans bloquer de thread, le résultat d'une exécution pour la même clé
+     */
+    private Mono<Long> attendre(CompletableFuture<Long> resultat) {
+        return Mono.fromFuture(resultat, true)
+                .timeout(Duration.ofMillis(waitTimeoutMs), Mono.error(
+                        new RuntimeException("Création en cours pour cette clé d'idempotence, réessayez plus tard")));
+    }
+
+    /**
+     * Évince les entrées expirées ou en surnombre, de la plus ancienne à la plus récente
+     */
+    private void purger() {
+        long ttl = ttlNanos();
+        String cle;
+        while ((cle = ordre.peek()) != null) {
+            Entree entree = entrees.get(cle);
+            boolean enSurnombre = entrees.size() > maxEntries;
+            if (entree != null && !enSurnombre && !entree.isExpiree(ttl)) {
+                break;
+            }
+            if (ordre.remove(cle) && entree != null && (enSurnombre || entree.isExpiree(ttl))) {
+                entrees.remove(cle, entree);
+            }
+        }
+    }
+
+    /**
+     * Supprime périodiquement les clés anciennes de la table de repli
+     *
+     * S'exécute sur le thread du planificateur (pas sur la boucle d'événements) :
+     * l'attente du résultat y est sans conséquence et les erreurs sont journalisées
+     * par le planificateur comme dans rest-api.
+     */
+    @Scheduled(fixedDelayString = "${idempotency.db-purge-interval-ms:3600000}")
+    public void purgerTable() {
+        idempotencyKeyRepository.deleteCreatedBefore(LocalDateTime.now().minusHours(dbRetentionHours)).block();
+    }
+
+    private long ttlNanos() {
+        return TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    /**
+     * Entrée du cache mémoire : empreinte de la requête, résultat (éventuellement en cours)
+     * et date de création
+     */
+    private static final class Entree {
+        private final CompletableFuture<Long> resultat = new CompletableFuture<>();
+        private final String empreinte;
+        private final long creeeA;
+
+        private Entree(String empreinte, long creeeA) {
+            this.empreinte = empreinte;
+            this.creeeA = creeeA;
+        }
+
+        private boolean isExpiree(long ttlNanos) {
+            return System.nanoTime() - creeeA > ttlNanos;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.hotel.reservation.reactive.inventory;
+
+import com.hotel.reservation.reactive.model.Chambre;
+import com.hotel.reservation.reactive.model.Reservation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Inventaire journalier : chambres vendues par type et par nuit (table daily_inventory)
+ *
+ * Mêmes compteurs que DailyInventory des autres modules, dans la même table : chaque création,
+ * modification ou suppression de réservation de ce module ajoute ou retire les nuits du séjour
+ * dans sa propre transaction R2DBC. Les mouvements sont cumulés par nuit puis écrits en une seule
+ * requête (INSERT multi-lignes ... ON DUPLICATE KEY UPDATE, trié par type puis par nuit : deux
+ * transactions prennent les lignes dans le même ordre et ne peuvent pas s'interbloquer). Une
+ * modification qui ne change ni le type, ni les nuits, ni le statut, ni le montant n'écrit rien.
+ *
+ * Seules les réservations non annulées sont comptées dans les chambres vendues ; le revenu ne
+ * compte que les réservations confirmées, leur montant réparti également entre les nuits au
+ * centime près. Les types sont en minuscules. Ce module ne tient pas de miroir en mémoire : les
+ * vues d'occupation des autres modules relisent la table.
+ */
+@Component
+public class DailyInventory {
+
+    private static final String CUMUL = "INSERT INTO daily_inventory (type, jour, vendues, revenu) VALUES ";
+
+    private static final String CUMUL_DOUBLONS =
+            " ON DUPLICATE KEY UPDATE vendues = vendues + VALUES(vendues), revenu = revenu + VALUES(revenu)";
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    /**
+     * Ajoute les nuits d'une réservation aux compteurs de son type
+     * @param reservation La réservation enregistrée
+     * @param chambre Sa chambre (type, et prix pour une réservation sans montant)
+     */
+    public Mono<Void> sell(Reservation reservation, Chambre chambre) {
+        Mouvements mouvements = new Mouvements();
+        mouvements.compter(reservation, chambre, 1);
+        return ecrire(mouvements);
+    }
+
+    /**
+     * Retire les nuits d'une réservation des compteurs de son type
+     * @param reservation La réservation avant sa suppression
+     * @param chambre Sa chambre
+     */
+    public Mono<Void> release(Reservation reservation, Chambre chambre) {
+        Mouvements mouvements = new Mouvements();
+        mouvements.compter(reservation, chambre, -1);
+        return ecrire(mouvements);
+    }
+
+    /**
+     * Remplace les nuits de l'ancien état d'une réservation par celles du nouveau, en une écriture
+     * Les nuits communes aux deux états s'annulent et ne sont pas écrites.
+     */
+    public Mono<Void> replace(Reservation ancienne, Chambre ancienneChambre, Reservation nouvelle, Chambre nouvelleChambre) {
+        Mouvements mouvements = new Mouvements();
+        mouvements.compter(ancienne, ancienneChambre, -1);
+        mouvements.compter(nouvelle, nouvelleChambre, 1);
+        return ecrire(mouvements);
+    }
+
+    private Mono<Void> ecrire(Mouvements mouvements) {
+        StringBuilder sql = new StringBuilder(CUMUL);
+        Map<String, Object> valeurs = new LinkedHashMap<>();
+        mouvements.parType.forEach((type, nuits) -> nuits.forEach((jour, cumul) -> {
+            if (cumul[0] == 0 && cumul[1] == 0) {
+                return;
+            }
+            int i = valeurs.size() / 4;
+            sql.append(i == 0 ? "" : ", ")
+                    .append("(:type").append(i).append(", :jour").append(i)
+                    .append(", :vendues").append(i).append(", :revenu").append(i).append(')');
+            valeurs.put("type" + i, type);
+            valeurs.put("jour" + i, LocalDate.ofEpochDay(jour));
+            valeurs.put("vendues" + i, (int) cumul[0]);
+            valeurs.put("revenu" + i, BigDecimal.valueOf(cumul[1], 2));
+        }));
+        if (valeurs.isEmpty()) {
+            return Mono.empty();
+        }
+
+        DatabaseClient.GenericExecuteSpec requete = databaseClient.sql(sql.append(CUMUL_DOUBLONS).toString());
+        for (Map.Entry<String, Object> valeur : valeurs.entrySet()) {
+            requete = requete.bind(valeur.getKey(), valeur.getValue());
+        }
+        return requete.then();
+    }
+
+    /**
+     * @return true si une réservation de ce statut compte dans le revenu (confirmée)
+     */
+    static boolean confirmee(String statut) {
+        return statut == null || "CONFIRMEE".equals(statut);
+    }
+
+    /**
+     * Prix d'un séjour en centimes : le montant enregistré à la réservation, ou pour une
+     * réservation antérieure à la colonne montant, le prix par nuit de la chambre multiplié par les nuits
+     */
+    static long montant(BigDecimal montant, BigDecimal prix, LocalDate debut, LocalDate fin) {
+        return montant != null ? centimes(montant) : centimes(prix) * (fin.toEpochDay() - debut.toEpochDay());
+    }
+
+    /**
+     * Part d'un montant (positif) réparti également entre les nuits d'un séjour qui revient aux
+     * nuits [de, a), comptées depuis la première nuit : la somme des parts de toutes les nuits est
+     * le montant
+     */
+    static long share(long montant, long nuits, long de, long a) {
+        return montant * a / nuits - montant * de / nuits;
+    }
+
+    /**
+     * Prix arrondi au centime, en centimes (0 si la chambre n'a pas de prix)
+     */
+    static long centimes(BigDecimal prix) {
+        return prix == null ? 0 : prix.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Mouvements d'une transaction, cumulés par type puis par nuit (ordre d'écriture)
+     */
+    private static final class Mouvements {
+        private final TreeMap<String, TreeMap<Long, long[]>> parType = new TreeMap<>();
+
+        private void compter(Reservation reservation, Chambre chambre, int delta) {
+            if ("ANNULEE".equals(reservation.getStatut())) {
+                return;
+            }
+            LocalDate debut = reservation.getDateDebut();
+            LocalDate fin = reservation.getDateFin();
+            long montant = confirmee(reservation.getStatut())
+                    ? montant(reservation.getMontant(), chambre.getPrix(), debut, fin) : 0;
+            String type = chambre.getType().toLowerCase(Locale.ROOT);
+            long nuits = fin.toEpochDay() - debut.toEpochDay();
+            // Même répartition pour un retrait que pour l'ajout qu'il annule
+            for (long i = 0; i < nuits; i++) {
+                long[] cumul = parType.computeIfAbsent(type, t -> new TreeMap<>())
+                        .computeIfAbsent(debut.toEpochDay() + i, j -> new long[2]);
+                cumul[0] += delta;
+                cumul[1] += delta * share(montant, nuits, i, i + 1);
+            }
+        }
+    }
+}
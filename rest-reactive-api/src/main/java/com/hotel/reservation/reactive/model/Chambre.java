@@ -0,0 +1,105 @@
+package com.hotel.reservation.reactive.model;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Entité R2DBC représentant une Chambre
+ * 
+ * Cette classe mappe la table "chambre" de la base de données.
+ * Une chambre peut être associée à plusieurs réservations.
+ */
+@Table("chambre")
+public class Chambre {
+
+    @Id
+    private Long id;
+
+    @NotBlank(message = "Le type de chambre est obligatoire")
+    @Column("type")
+    private String type; // Exemples : simple, double, suite
+
+    @NotNull(message = "Le prix est obligatoire")
+    @DecimalMin(value = "0.0", inclusive = false, message = "Le prix doit être positif")
+    @Column("prix")
+    private BigDecimal prix;
+
+    @NotNull(message = "Le statut de disponibilité est obligatoire")
+    @Column("disponible")
+    private Boolean disponible = true;
+
+    @CreatedDate
+    @Column("created_at")
+    private LocalDateTime createdAt;
+
+    @LastModifiedDate
+    @Column("updated_at")
+    private LocalDateTime updatedAt;
+
+    // Constructeurs
+    public Chambre() {
+    }
+
+    public Chambre(String type, BigDecimal prix, Boolean disponible) {
+        this.type = type;
+        this.prix = prix;
+        this.disponible = disponible;
+    }
+
+    // Getters et Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public BigDecimal getPrix() {
+        return prix;
+    }
+
+    public void setPrix(BigDecimal prix) {
+        this.prix = prix;
+    }
+
+    public Boolean getDisponible() {
+        return disponible;
+    }
+
+    public void setDisponible(Boolean disponible) {
+        this.disponible = disponible;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
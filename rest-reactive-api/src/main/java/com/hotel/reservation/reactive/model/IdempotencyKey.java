@@ -0,0 +1,93 @@
+package com.hotel.reservation.reactive.model;
+
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.domain.Persistable;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entité R2DBC représentant une clé d'idempotence
+ *
+ * Cette classe mappe la table "idempotency_key" : elle associe une clé fournie
+ * par le client à la réservation créée lors de la première exécution, et à
+ * l'empreinte de la requête qui l'a créée.
+ * Elle sert de repli durable au cache mémoire de IdempotencyStore.
+ */
+@Table("idempotency_key")
+public class IdempotencyKey implements Persistable<String> {
+
+    @Id
+    @Column("cle")
+    private String cle;
+
+    @Column("reservation_id")
+    private Long reservationId;
+
+    @Column("empreinte")
+    private String empreinte;
+
+    @CreatedDate
+    @Column("created_at")
+    private LocalDateTime createdAt;
+
+    // La clé est assignée par le client : on force un INSERT plutôt qu'un UPDATE
+    @Transient
+    private boolean nouvelle = false;
+
+    public IdempotencyKey() {
+    }
+
+    public IdempotencyKey(String cle, Long reservationId, String empreinte) {
+        this.cle = cle;
+        this.reservationId = reservationId;
+        this.empreinte = empreinte;
+        this.nouvelle = true;
+    }
+
+    @Override
+    public String getId() {
+        return cle;
+    }
+
+    @Override
+    public boolean isNew() {
+        return nouvelle;
+    }
+
+    // Getters et Setters
+    public String getCle() {
+        return cle;
+    }
+
+    public void setCle(String cle) {
+        this.cle = cle;
+    }
+
+    public Long getReservationId() {
+        return reservationId;
+    }
+
+    public void setReservationId(Long reservationId) {
+        this.reservationId = reservationId;
+    }
+
+    public String getEmpreinte() {
+        return empreinte;
+    }
+
+    public void setEmpreinte(String empreinte) {
+        this.empreinte = empreinte;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,180 @@
+package com.hotel.reservation.reactive.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Entité R2DBC représentant une Réservation
+ * 
+ * Cette classe mappe la table "reservation" de la base de données.
+ * Une réservation lie un client à une chambre pour une période donnée.
+ * 
+ * R2DBC ne gère pas les associations : seules les clés étrangères (clientId,
+ * chambreId) sont persistées. Le client et la chambre sont renseignés par les
+ * requêtes avec jointure et gardent la même forme JSON que dans rest-api.
+ */
+@Table("reservation")
+public class Reservation {
+
+    @Id
+    private Long id;
+
+    @JsonIgnore
+    @Column("client_id")
+    private Long clientId;
+
+    @JsonIgnore
+    @Column("chambre_id")
+    private Long chambreId;
+
+    @NotNull(message = "Le client est obligatoire")
+    @Transient
+    private Client client;
+
+    @NotNull(message = "La chambre est obligatoire")
+    @Transient
+    private Chambre chambre;
+
+    @NotNull(message = "La date de début est obligatoire")
+    @Column("date_debut")
+    private LocalDate dateDebut;
+
+    @NotNull(message = "La date de fin est obligatoire")
+    @Column("date_fin")
+    private LocalDate dateFin;
+
+    @Column("preferences")
+    private String preferences; // JSON string pour les préférences
+
+    @Column("statut")
+    private String statut = "CONFIRMEE"; // CONFIRMEE, ANNULEE, EN_ATTENTE
+
+    @Column("montant")
+    private BigDecimal montant; // Prix du séjour fixé à la réservation, null pour les plus anciennes
+
+    @CreatedDate
+    @Column("created_at")
+    private LocalDateTime createdAt;
+
+    @LastModifiedDate
+    @Column("updated_at")
+    private LocalDateTime updatedAt;
+
+    // Constructeurs
+    public Reservation() {
+    }
+
+    public Reservation(Client client, Chambre chambre, LocalDate dateDebut, LocalDate dateFin, String preferences) {
+        this.client = client;
+        this.chambre = chambre;
+        this.dateDebut = dateDebut;
+        this.dateFin = dateFin;
+        this.preferences = preferences;
+    }
+
+    // Getters et Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getClientId() {
+        return clientId;
+    }
+
+    public void setClientId(Long clientId) {
+        this.clientId = clientId;
+    }
+
+    public Long getChambreId() {
+        return chambreId;
+    }
+
+    public void setChambreId(Long chambreId) {
+        this.chambreId = chambreId;
+    }
+
+    public Client getClient() {
+        return client;
+    }
+
+    public void setClient(Client client) {
+        this.client = client;
+    }
+
+    public Chambre getChambre() {
+        return chambre;
+    }
+
+    public void setChambre(Chambre chambre) {
+        this.chambre = chambre;
+    }
+
+    public LocalDate getDateDebut() {
+        return dateDebut;
+    }
+
+    public void setDateDebut(LocalDate dateDebut) {
+        this.dateDebut = dateDebut;
+    }
+
+    public LocalDate getDateFin() {
+        return dateFin;
+    }
+
+    public void setDateFin(LocalDate dateFin) {
+        this.dateFin = dateFin;
+    }
+
+    public String getPreferences() {
+        return preferences;
+    }
+
+    public void setPreferences(String preferences) {
+        this.preferences = preferences;
+    }
+
+    public String getStatut() {
+        return statut;
+    }
+
+    public void setStatut(String statut) {
+        this.statut = statut;
+    }
+
+    public BigDecimal getMontant() {
+        return montant;
+    }
+
+    public void setMontant(BigDecimal montant) {
+        this.montant = montant;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
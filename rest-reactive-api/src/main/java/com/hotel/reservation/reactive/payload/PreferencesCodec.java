@@ -0,0 +1,210 @@
+package com.hotel.reservation.reactive.payload;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Format de stockage compressé des préférences de réservation
+ *
+ * Au-delà de SEUIL_COMPRESSION octets, les préférences sont stockées dans la colonne
+ * TEXT sous la forme PREFIXE + base64(gzip(UTF-8)). Des préférences JSON de 100 Ko
+ * occupent alors quelques dizaines de Ko au plus. Les valeurs sans préfixe (petites
+ * valeurs, lignes écrites avant la compression ou par le module réactif) sont relues
+ * telles quelles.
+ *
+ * Les variantes par flux (encode(InputStream, long), openDecoded) ne gardent en mémoire
+ * que la forme compressée : le texte complet n'est jamais matérialisé en String.
+ */
+public final class PreferencesCodec {
+
+    /** Préfixe des valeurs compressées */
+    public static final String PREFIXE = "gz64:";
+
+    /** Taille (octets UTF-8) à partir de laquelle une valeur est compressée */
+    public static final int SEUIL_COMPRESSION = 1024;
+
+    /** Taille maximale d'une valeur stockée (colonne TEXT) */
+    public static final int MAX_TAILLE_STOCKEE = 65_535;
+
+    /** Taille maximale (caractères) des préférences d'une réservation gardée dans un cache local */
+    public static final int MAX_TAILLE_EN_CACHE = 16 * 1024;
+
+    private static final int TAILLE_TAMPON = 8192;
+
+    private PreferencesCodec() {
+    }
+
+    /**
+     * Vérifie que des préférences peuvent être gardées dans un cache local
+     * @param preferences Les préférences décodées (éventuellement null)
+     * @return true si elles sont assez petites
+     */
+    public static boolean isPetite(String preferences) {
+        return preferences == null || preferences.length() <= MAX_TAILLE_EN_CACHE;
+    }
+
+    /**
+     * Encode des préférences pour le stockage
+     * @param texte Les préférences en clair (éventuellement null)
+     * @return La valeur à stocker : compressée au-delà du seuil, inchangée sinon
+     */
+    public static String encode(String texte) {
+        if (texte == null) {
+            return null;
+        }
+        byte[] octets = texte.getBytes(StandardCharsets.UTF_8);
+        // Une valeur en clair qui commence par le préfixe est compressée pour rester relisible
+        if (octets.length < SEUIL_COMPRESSION && !texte.startsWith(PREFIXE)) {
+            return texte;
+        }
+        Encodeur encodeur = new Encodeur(Long.MAX_VALUE);
+        try (encodeur) {
+            encodeur.write(octets);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return encodeur.resultat();
+    }
+
+    /**
+     * Encode des préférences lues depuis un flux, sans les matérialiser en clair
+     * @param entree Le flux des préférences (UTF-8)
+     * @param maxOctets Taille maximale en clair
+     * @return La valeur compressée à stocker
+     * @throws PreferencesTooLargeException si le flux dépasse maxOctets ou la colonne
+     */
+    public static String encode(InputStream entree, long maxOctets) throws IOException {
+        Encodeur encodeur = new Encodeur(maxOctets);
+        try (encodeur) {
+            entree.transferTo(encodeur);
+        }
+        return encodeur.resultat();
+    }
+
+    /**
+     * Décode une valeur stockée
+     * @param stockee La valeur de la colonne (éventuellement null)
+     * @return Les préférences en clair
+     */
+    public static String decode(String stockee) {
+        if (!isCompressee(stockee)) {
+            return stockee;
+        }
+        try (InputStream entree = openDecoded(stockee)) {
+            return new String(entree.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Préférences compressées illisibles", e);
+        }
+    }
+
+    /**
+     * Ouvre un flux sur les préférences en clair, décompressées au fil de la lecture
+     * @param stockee La valeur de la colonne (non null)
+     * @return Le flux UTF-8 des préférences
+     */
+    public static InputStream openDecoded(String stockee) throws IOException {
+        if (!isCompressee(stockee)) {
+            return new ByteArrayInputStream(stockee.getBytes(StandardCharsets.UTF_8));
+        }
+        return new GZIPInputStream(Base64.getDecoder().wrap(corpsBase64(stockee)), TAILLE_TAMPON);
+    }
+
+    /**
+     * Renvoie les octets gzip d'une valeur compressée, à envoyer tels quels avec
+     * Content-Encoding: gzip
+     * @param stockee La valeur de la colonne
+     * @return Les octets gzip, ou null si la valeur n'est pas compressée
+     */
+    public static byte[] gzipBytes(String stockee) {
+        if (!isCompressee(stockee)) {
+            return null;
+        }
+        return Base64.getDecoder().decode(stockee.substring(PREFIXE.length()));
+    }
+
+    public static boolean isCompressee(String stockee) {
+        return stockee != null && stockee.startsWith(PREFIXE);
+    }
+
+    private static InputStream corpsBase64(String stockee) {
+        byte[] ascii = stockee.getBytes(StandardCharsets.ISO_8859_1);
+        return new ByteArrayInputStream(ascii, PREFIXE.length(), ascii.length - PREFIXE.length());
+    }
+
+    /**
+     * Flux d'écriture qui compresse et encode en base64 au fil de l'eau
+     *
+     * Seule la forme encodée est gardée en mémoire. La taille en clair et la taille
+     * stockée sont contrôlées à chaque écriture.
+     */
+    public static final class Encodeur extends OutputStream {
+
+        private final long maxOctets;
+        private final ByteArrayOutputStream encodee = new ByteArrayOutputStream(TAILLE_TAMPON);
+        private final OutputStream gzip;
+        private long octetsEnClair;
+        private boolean ferme;
+
+        public Encodeur(long maxOctets) {
+            this.maxOctets = maxOctets;
+            try {
+                encodee.writeBytes(PREFIXE.getBytes(StandardCharsets.US_ASCII));
+                this.gzip = new GZIPOutputStream(Base64.getEncoder().wrap(encodee), TAILLE_TAMPON);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            octetsEnClair += len;
+            if (octetsEnClair > maxOctets) {
+                throw new PreferencesTooLargeException("Préférences trop volumineuses (maximum " + maxOctets + " octets)");
+            }
+            gzip.write(b, off, len);
+            verifierTailleStockee();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!ferme) {
+                ferme = true;
+                gzip.close();
+                verifierTailleStockee();
+            }
+        }
+
+        /**
+         * @return La valeur encodée, une fois le flux fermé
+         */
+        public String resultat() {
+            if (!ferme) {
+                throw new IllegalStateException("Encodeur non fermé");
+            }
+            return encodee.toString(StandardCharsets.US_ASCII);
+        }
+
+        public long getOctetsEnClair() {
+            return octetsEnClair;
+        }
+
+        private void verifierTailleStockee() {
+            if (encodee.size() > MAX_TAILLE_STOCKEE) {
+                throw new PreferencesTooLargeException("Préférences trop volumineuses une fois compressées");
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.hotel.reservation.reactive.repository;
+
+import com.hotel.reservation.reactive.model.Chambre;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Repository R2DBC pour l'entité Chambre
+ * 
+ * Cette interface fournit des méthodes CRUD non bloquantes grâce à Spring Data R2DBC.
+ */
+@Repository
+public interface ChambreRepository extends ReactiveCrudRepository<Chambre, Long> {
+
+    /**
+     * Recherche les chambres disponibles
+     * @param disponible Le statut de disponibilité
+     * @return Les chambres correspondantes
+     */
+    Flux<Chambre> findByDisponible(Boolean disponible);
+
+    /**
+     * Recherche les chambres par type
+     * @param type Le type de chambre
+     * @return Les chambres correspondantes
+     */
+    Flux<Chambre> findByType(String type);
+
+    /**
+     * Lit une chambre en verrouillant sa ligne (SELECT ... FOR UPDATE) jusqu'à la fin de la transaction
+     * Même verrou que findByIdForUpdate des autres modules : les réservations d'une chambre
+     * sont sérialisées quel que soit le module qui les reçoit
+     * @param id L'ID de la chambre
+     * @return La chambre verrouillée, ou vide
+     */
+    @Query("SELECT * FROM chambre WHERE id = :id FOR UPDATE")
+    Mono<Chambre> findByIdForUpdate(Long id);
+}
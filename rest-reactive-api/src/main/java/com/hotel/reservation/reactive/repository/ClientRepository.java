@@ -0,0 +1,29 @@
+package com.hotel.reservation.reactive.repository;
+
+import com.hotel.reservation.reactive.model.Client;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Repository R2DBC pour l'entité Client
+ * 
+ * Cette interface fournit des méthodes CRUD non bloquantes grâce à Spring Data R2DBC.
+ */
+@Repository
+public interface ClientRepository extends ReactiveCrudRepository<Client, Long> {
+
+    /**
+     * Recherche un client par son email
+     * @param email L'email du client
+     * @return Le client trouvé ou vide
+     */
+    Mono<Client> findByEmail(String email);
+
+    /**
+     * Vérifie si un client existe avec cet email
+     * @param email L'email à vérifier
+     * @return true si un client existe, false sinon
+     */
+    Mono<Boolean> existsByEmail(String email);
+}
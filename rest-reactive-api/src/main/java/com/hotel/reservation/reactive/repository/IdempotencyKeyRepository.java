@@ -0,0 +1,26 @@
+package com.hotel.reservation.reactive.repository;
+
+import com.hotel.reservation.reactive.model.IdempotencyKey;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Repository R2DBC pour l'entité IdempotencyKey
+ */
+@Repository
+public interface IdempotencyKeyRepository extends ReactiveCrudRepository<IdempotencyKey, String> {
+
+    /**
+     * Supprime les clés plus anciennes que la date donnée
+     * @param limite Les clés créées avant cette date sont supprimées
+     * @return Le nombre de clés supprimées
+     */
+    @Modifying
+    @Query("DELETE FROM idempotency_key WHERE created_at < :limite")
+    Mono<Integer> deleteCreatedBefore(LocalDateTime limite);
+}
@@ -0,0 +1,36 @@
+package com.hotel.reservation.reactive.repository;
+
+import com.hotel.reservation.reactive.model.Reservation;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * Lectures de réservations avec leur client et leur chambre en une seule requête
+ * 
+ * Équivalent des requêtes JOIN FETCH du module rest-api : R2DBC ne gérant pas
+ * les associations, la jointure est écrite en SQL et mappée ligne par ligne.
+ */
+public interface ReservationJoinRepository {
+
+    /**
+     * Recherche une réservation avec son client et sa chambre
+     * @param id L'ID de la réservation
+     * @return La réservation ou vide
+     */
+    Mono<Reservation> findWithClientAndChambreById(Long id);
+
+    /**
+     * Recherche plusieurs réservations en une seule requête IN
+     * @param ids Les IDs des réservations
+     * @return Les réservations trouvées (sans ordre garanti)
+     */
+    Flux<Reservation> findAllWithClientAndChambreByIdIn(Collection<Long> ids);
+
+    /**
+     * Récupère toutes les réservations, émises au fil de la lecture du résultat
+     * @return Flux de toutes les réservations
+     */
+    Flux<Reservation> findAllWithClientAndChambre();
+}
@@ -0,0 +1,89 @@
+package com.hotel.reservation.reactive.repository;
+
+import com.hotel.reservation.reactive.model.Chambre;
+import com.hotel.reservation.reactive.model.Client;
+import com.hotel.reservation.reactive.model.Reservation;
+import com.hotel.reservation.reactive.payload.PreferencesCodec;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Implémentation des lectures avec jointure client / chambre via DatabaseClient
+ * 
+ * Les lignes sont mappées au fil de leur réception : un Flux de réservations
+ * est émis sans matérialiser le résultat complet en mémoire.
+ */
+public class ReservationJoinRepositoryImpl implements ReservationJoinRepository {
+
+    private static final String SELECT_AVEC_JOINTURE =
+            "SELECT r.id, r.date_debut, r.date_fin, r.preferences, r.statut, r.montant, r.created_at, r.updated_at, "
+            + "c.id AS c_id, c.nom AS c_nom, c.prenom AS c_prenom, c.email AS c_email, c.telephone AS c_telephone, "
+            + "c.created_at AS c_created_at, c.updated_at AS c_updated_at, "
+            + "ch.id AS ch_id, ch.type AS ch_type, ch.prix AS ch_prix, ch.disponible AS ch_disponible, "
+            + "ch.created_at AS ch_created_at, ch.updated_at AS ch_updated_at "
+            + "FROM reservation r "
+            + "JOIN client c ON c.id = r.client_id "
+            + "JOIN chambre ch ON ch.id = r.chambre_id";
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Override
+    public Mono<Reservation> findWithClientAndChambreById(Long id) {
+        return databaseClient.sql(SELECT_AVEC_JOINTURE + " WHERE r.id = :id")
+                .bind("id", id)
+                .map(ReservationJoinRepositoryImpl::toReservation)
+                .one();
+    }
+
+    @Override
+    public Flux<Reservation> findAllWithClientAndChambreByIdIn(Collection<Long> ids) {
+        return databaseClient.sql(SELECT_AVEC_JOINTURE + " WHERE r.id IN (:ids)")
+                .bind("ids", ids)
+                .map(ReservationJoinRepositoryImpl::toReservation)
+                .all();
+    }
+
+    @Override
+    public Flux<Reservation> findAllWithClientAndChambre() {
+        return databaseClient.sql(SELECT_AVEC_JOINTURE)
+                .map(ReservationJoinRepositoryImpl::toReservation)
+                .all();
+    }
+
+    /**
+     * Construit une réservation, son client et sa chambre à partir d'une ligne de la jointure
+     */
+    private static Reservation toReservation(Readable row) {
+        Client client = new Client(row.get("c_nom", String.class), row.get("c_prenom", String.class),
+                row.get("c_email", String.class), row.get("c_telephone", String.class));
+        client.setId(row.get("c_id", Long.class));
+        client.setCreatedAt(row.get("c_created_at", LocalDateTime.class));
+        client.setUpdatedAt(row.get("c_updated_at", LocalDateTime.class));
+
+        Chambre chambre = new Chambre(row.get("ch_type", String.class), row.get("ch_prix", BigDecimal.class),
+                row.get("ch_disponible", Boolean.class));
+        chambre.setId(row.get("ch_id", Long.class));
+        chambre.setCreatedAt(row.get("ch_created_at", LocalDateTime.class));
+        chambre.setUpdatedAt(row.get("ch_updated_at", LocalDateTime.class));
+
+        Reservation reservation = new Reservation(client, chambre, row.get("date_debut", LocalDate.class),
+                row.get("date_fin", LocalDate.class), PreferencesCodec.decode(row.get("preferences", String.class)));
+        reservation.setId(row.get("id", Long.class));
+        reservation.setClientId(client.getId());
+        reservation.setChambreId(chambre.getId());
+        reservation.setStatut(row.get("statut", String.class));
+        reservation.setMontant(row.get("montant", BigDecimal.class));
+        reservation.setCreatedAt(row.get("created_at", LocalDateTime.class));
+        reservation.setUpdatedAt(row.get("updated_at", LocalDateTime.class));
+        return reservation;
+    }
+}
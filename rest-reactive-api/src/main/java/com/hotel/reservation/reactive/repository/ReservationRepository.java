@@ -0,0 +1,56 @@
+package com.hotel.reservation.reactive.repository;
+
+import com.hotel.reservation.reactive.model.Reservation;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+/**
+ * Repository R2DBC pour l'entité Reservation
+ * 
+ * Cette interface fournit des méthodes CRUD non bloquantes grâce à Spring Data R2DBC.
+ * Les lectures avec client et chambre sont implémentées par ReservationJoinRepositoryImpl.
+ */
+@Repository
+public interface ReservationRepository extends ReactiveCrudRepository<Reservation, Long>, ReservationJoinRepository {
+
+    /**
+     * Recherche les réservations d'un client
+     * @param clientId L'ID du client
+     * @return Les réservations du client
+     */
+    Flux<Reservation> findByClientId(Long clientId);
+
+    /**
+     * Recherche les réservations d'une chambre
+     * @param chambreId L'ID de la chambre
+     * @return Les réservations de la chambre
+     */
+    Flux<Reservation> findByChambreId(Long chambreId);
+
+    /**
+     * Compte les réservations non annulées d'une chambre qui chevauchent une période
+     * Deux séjours se chevauchent si chacun commence avant la fin de l'autre
+     * (le jour de départ de l'un peut être le jour d'arrivée de l'autre)
+     * @param chambreId L'ID de la chambre
+     * @param debut Date d'arrivée (incluse)
+     * @param fin Date de départ (exclue)
+     * @param exclue ID d'une réservation à ignorer (celle qui est modifiée), ou null
+     * @return Le nombre de réservations qui occupent déjà une nuit de la période
+     */
+    @Query("SELECT COUNT(*) FROM reservation WHERE chambre_id = :chambreId AND (statut IS NULL OR statut <> 'ANNULEE') "
+            + "AND date_debut < :fin AND date_fin > :debut AND (:exclue IS NULL OR id <> :exclue)")
+    Mono<Long> countOverlapping(Long chambreId, LocalDate debut, LocalDate fin, Long exclue);
+
+    /**
+     * Lit une réservation en verrouillant sa ligne (SELECT ... FOR UPDATE) jusqu'à la fin de la transaction
+     * @param id L'ID de la réservation
+     * @return La réservation verrouillée, ou vide
+     */
+    @Query("SELECT * FROM reservation WHERE id = :id FOR UPDATE")
+    Mono<Reservation> findByIdForUpdate(Long id);
+}
@@ -0,0 +1,426 @@
+package com.hotel.reservation.reactive.service;
+
+import com.hotel.reservation.reactive.dto.ReservationLookup;
+import com.hotel.reservation.reactive.dto.ReservationPatch;
+import com.hotel.reservation.reactive.inventory.DailyInventory;
+import com.hotel.reservation.reactive.model.Client;
+import com.hotel.reservation.reactive.model.Chambre;
+import com.hotel.reservation.reactive.model.Reservation;
+import com.hotel.reservation.reactive.repository.ClientRepository;
+import com.hotel.reservation.reactive.repository.ChambreRepository;
+import com.hotel.reservation.reactive.repository.ReservationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.data.relational.core.query.Update;
+import org.springframework.data.relational.core.sql.SqlIdentifier;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service métier pour la gestion des réservations (version non bloquante)
+ * 
+ * Même logique métier que le service du module rest-api, exprimée avec Reactor :
+ * aucune méthode ne bloque de thread, les transactions sont portées par le
+ * contexte Reactor (R2dbcTransactionManager).
+ */
+@Service
+@Transactional
+public class ReservationService {
+
+    /** Nombre maximal d'IDs acceptés par une recherche multiple */
+    public static final int MAX_IDS_PAR_REQUETE = 500;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private ChambreRepository chambreRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private R2dbcEntityTemplate r2dbcEntityTemplate;
+
+    @Autowired
+    private DailyInventory dailyInventory;
+
+    // ========== Opérations sur les Clients ==========
+
+    /**
+     * Crée un nouveau client
+     * @param client Le client à créer
+     * @return Le client créé avec son ID généré
+     */
+    public Mono<Client> createClient(Client client) {
+        return clientRepository.save(client);
+    }
+
+    /**
+     * Récupère un client par son ID
+     * @param id L'ID du client
+     * @return Le client ou vide
+     */
+    @Transactional(readOnly = true)
+    public Mono<Client> getClientById(Long id) {
+        return clientRepository.findById(id);
+    }
+
+    /**
+     * Récupère tous les clients
+     * @return Flux de tous les clients
+     */
+    @Transactional(readOnly = true)
+    public Flux<Client> getAllClients() {
+        return clientRepository.findAll();
+    }
+
+    /**
+     * Met à jour un client existant
+     * @param id L'ID du client à mettre à jour
+     * @param client Les nouvelles données du client
+     * @return Le client mis à jour
+     */
+    public Mono<Client> updateClient(Long id, Client client) {
+        return clientRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Client non trouvé avec l'ID: " + id)))
+                .flatMap(existingClient -> {
+                    existingClient.setNom(client.getNom());
+                    existingClient.setPrenom(client.getPrenom());
+                    existingClient.setEmail(client.getEmail());
+                    existingClient.setTelephone(client.getTelephone());
+                    return clientRepository.save(existingClient);
+                });
+    }
+
+    /**
+     * Supprime un client
+     * @param id L'ID du client à supprimer
+     */
+    public Mono<Void> deleteClient(Long id) {
+        return clientRepository.deleteById(id);
+    }
+
+    // ========== Opérations sur les Chambres ==========
+
+    /**
+     * Crée une nouvelle chambre
+     * @param chambre La chambre à créer
+     * @return La chambre créée avec son ID généré
+     */
+    public Mono<Chambre> createChambre(Chambre chambre) {
+        return chambreRepository.save(chambre);
+    }
+
+    /**
+     * Récupère une chambre par son ID
+     * @param id L'ID de la chambre
+     * @return La chambre ou vide
+     */
+    @Transactional(readOnly = true)
+    public Mono<Chambre> getChambreById(Long id) {
+        return chambreRepository.findById(id);
+    }
+
+    /**
+     * Récupère toutes les chambres
+     * @return Flux de toutes les chambres
+     */
+    @Transactional(readOnly = true)
+    public Flux<Chambre> getAllChambres() {
+        return chambreRepository.findAll();
+    }
+
+    /**
+     * Met à jour une chambre existante
+     * @param id L'ID de la chambre à mettre à jour
+     * @param chambre Les nouvelles données de la chambre
+     * @return La chambre mise à jour
+     */
+    public Mono<Chambre> updateChambre(Long id, Chambre chambre) {
+        return chambreRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Chambre non trouvée avec l'ID: " + id)))
+                .flatMap(existingChambre -> {
+                    existingChambre.setType(chambre.getType());
+                    existingChambre.setPrix(chambre.getPrix());
+                    existingChambre.setDisponible(chambre.getDisponible());
+                    return chambreRepository.save(existingChambre);
+                });
+    }
+
+    /**
+     * Supprime une chambre
+     * @param id L'ID de la chambre à supprimer
+     */
+    public Mono<Void> deleteChambre(Long id) {
+        return chambreRepository.deleteById(id);
+    }
+
+    // ========== Opérations sur les Réservations ==========
+
+    /**
+     * Crée une nouvelle réservation
+     * 
+     * Les vérifications d'existence du client et de la chambre sont lancées
+     * ensemble, sans attendre l'une l'autre ni bloquer de thread.
+     * 
+     * La ligne de la chambre est verrouillée (SELECT ... FOR UPDATE) jusqu'au commit,
+     * comme dans les autres modules : deux réservations qui se chevauchent ne peuvent
+     * pas réussir toutes les deux, quel que soit le module qui les reçoit. En READ
+     * COMMITTED, la recherche de chevauchement voit les réservations validées avant
+     * l'obtention du verrou. Les nuits du séjour sont ajoutées à daily_inventory dans
+     * la même transaction.
+     * 
+     * @param reservation La réservation à créer
+     * @return La réservation créée avec son ID généré
+     * @throws BookingConflictException si la chambre est déjà réservée sur la période
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public Mono<Reservation> createReservation(Reservation reservation) {
+        return Mono.defer(() -> {
+            // Vérification que le client existe
+            Mono<Client> client = clientRepository.findById(reservation.getClient().getId())
+                    .switchIfEmpty(Mono.error(() -> new RuntimeException("Client non trouvé")));
+
+            // Vérification que la chambre existe, verrouillée jusqu'à la fin de la transaction
+            Mono<Chambre> chambre = chambreRepository.findByIdForUpdate(reservation.getChambre().getId())
+                    .switchIfEmpty(Mono.error(() -> new RuntimeException("Chambre non trouvée")));
+
+            return Mono.zip(client, chambre);
+        }).flatMap(clientEtChambre -> {
+            Chambre chambre = clientEtChambre.getT2();
+            if (!chambre.getDisponible()) {
+                return Mono.error(new RuntimeException("La chambre n'est pas disponible"));
+            }
+
+            // Vérification des dates
+            if (reservation.getDateFin().isBefore(reservation.getDateDebut()) ||
+                reservation.getDateFin().isEqual(reservation.getDateDebut())) {
+                return Mono.error(new RuntimeException("La date de fin doit être postérieure à la date de début"));
+            }
+
+            reservation.setClientId(clientEtChambre.getT1().getId());
+            reservation.setChambreId(chambre.getId());
+            reservation.setMontant(montant(chambre, reservation.getDateDebut(), reservation.getDateFin()));
+            return verifierChevauchement(chambre.getId(), reservation.getDateDebut(), reservation.getDateFin(),
+                            reservation.getStatut(), null)
+                    .then(Mono.defer(() -> reservationRepository.save(reservation)))
+                    .flatMap(createdReservation -> dailyInventory.sell(createdReservation, chambre).thenReturn(createdReservation))
+                    .doOnNext(createdReservation -> {
+                        createdReservation.setClient(clientEtChambre.getT1());
+                        createdReservation.setChambre(chambre);
+                    });
+        });
+    }
+
+    /**
+     * Récupère une réservation par son ID
+     * @param id L'ID de la réservation
+     * @return La réservation ou vide
+     */
+    @Transactional(readOnly = true)
+    public Mono<Reservation> getReservationById(Long id) {
+        return reservationRepository.findWithClientAndChambreById(id);
+    }
+
+    /**
+     * Récupère plusieurs réservations par leurs IDs en une seule requête
+     * L'ordre de la liste d'entrée est conservé, y compris pour les IDs non trouvés
+     * @param ids Les IDs des réservations (au plus MAX_IDS_PAR_REQUETE)
+     * @return Un résultat par ID demandé, marqué comme non trouvé si absent
+     */
+    @Transactional(readOnly = true)
+    public Mono<List<ReservationLookup>> getReservationsByIds(List<Long> ids) {
+        if (ids.size() > MAX_IDS_PAR_REQUETE) {
+            return Mono.error(new IllegalArgumentException("Trop d'IDs demandés (maximum " + MAX_IDS_PAR_REQUETE + ")"));
+        }
+
+        Mono<Map<Long, Reservation>> parId = ids.isEmpty()
+                ? Mono.just(Map.of())
+                : reservationRepository.findAllWithClientAndChambreByIdIn(new LinkedHashSet<>(ids))
+                        .collectMap(Reservation::getId);
+
+        return parId.map(trouvees -> {
+            List<ReservationLookup> resultats = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                resultats.add(new ReservationLookup(id, trouvees.get(id)));
+            }
+            return resultats;
+        });
+    }
+
+    /**
+     * Récupère toutes les réservations
+     * @return Flux de toutes les réservations, émises au fil de la lecture
+     */
+    @Transactional(readOnly = true)
+    public Flux<Reservation> getAllReservations() {
+        return reservationRepository.findAllWithClientAndChambre();
+    }
+
+    /**
+     * Met à jour une réservation existante
+     * @param id L'ID de la réservation à mettre à jour
+     * @param reservation Les nouvelles données de la réservation
+     * @return La réservation mise à jour
+     */
+    public Mono<Reservation> updateReservation(Long id, Reservation reservation) {
+        return patchReservation(id, ReservationPatch.from(reservation));
+    }
+
+    /**
+     * Met à jour partiellement une réservation existante
+     * 
+     * Seuls les champs renseignés du patch sont écrits (UPDATE limité à ces colonnes,
+     * comme @DynamicUpdate dans rest-api). Le client et la chambre ne sont que
+     * vérifiés par existence, puis la réservation est relue avec sa jointure.
+     * 
+     * Une nouvelle chambre, de nouvelles dates ou un nouveau statut reçoivent les
+     * mêmes garanties qu'à la création : chambre verrouillée, puis recherche de
+     * chevauchement hors de la réservation modifiée. Les nuits de l'ancien état sont
+     * alors remplacées par celles du nouveau dans daily_inventory, dans la même transaction.
+     * 
+     * @param id L'ID de la réservation à mettre à jour
+     * @param patch Les champs à modifier
+     * @return La réservation mise à jour
+     * @throws BookingConflictException si la chambre est déjà réservée sur la nouvelle période
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public Mono<Reservation> patchReservation(Long id, ReservationPatch patch) {
+        return reservationRepository.findByIdForUpdate(id)
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Réservation non trouvée avec l'ID: " + id)))
+                .flatMap(existingReservation -> {
+                    Map<SqlIdentifier, Object> colonnes = new LinkedHashMap<>();
+                    List<Mono<Void>> verifications = new ArrayList<>();
+
+                    if (patch.getClientId() != null && !patch.getClientId().equals(existingReservation.getClientId())) {
+                        verifications.add(verifierExistence(clientRepository.existsById(patch.getClientId()), "Client non trouvé"));
+                        colonnes.put(SqlIdentifier.unquoted("client_id"), patch.getClientId());
+                    }
+
+                    if (patch.getChambreId() != null && !patch.getChambreId().equals(existingReservation.getChambreId())) {
+                        colonnes.put(SqlIdentifier.unquoted("chambre_id"), patch.getChambreId());
+                    }
+
+                    LocalDate dateDebut = patch.getDateDebut() != null ? patch.getDateDebut() : existingReservation.getDateDebut();
+                    LocalDate dateFin = patch.getDateFin() != null ? patch.getDateFin() : existingReservation.getDateFin();
+                    if (!dateFin.isAfter(dateDebut)) {
+                        return Mono.error(new RuntimeException("La date de fin doit être postérieure à la date de début"));
+                    }
+
+                    if (patch.getDateDebut() != null) {
+                        colonnes.put(SqlIdentifier.unquoted("date_debut"), patch.getDateDebut());
+                    }
+
+                    if (patch.getDateFin() != null) {
+                        colonnes.put(SqlIdentifier.unquoted("date_fin"), patch.getDateFin());
+                    }
+
+                    if (patch.getPreferences() != null) {
+                        colonnes.put(SqlIdentifier.unquoted("preferences"), patch.getPreferences());
+                    }
+
+                    if (patch.getStatut() != null) {
+                        colonnes.put(SqlIdentifier.unquoted("statut"), patch.getStatut());
+                    }
+
+                    if (colonnes.isEmpty()) {
+                        return Mono.<Void>empty();
+                    }
+                    colonnes.put(SqlIdentifier.unquoted("updated_at"), LocalDateTime.now());
+
+                    Mono<Void> ecriture = Mono.defer(() -> r2dbcEntityTemplate.update(Reservation.class)
+                            .matching(Query.query(Criteria.where("id").is(id)))
+                            .apply(Update.from(colonnes)))
+                            .then();
+                    if (patch.getChambreId() == null && patch.getDateDebut() == null
+                            && patch.getDateFin() == null && patch.getStatut() == null) {
+                        return Mono.when(verifications).then(ecriture);
+                    }
+
+                    // Nouvelle chambre, nouvelles dates ou réservation réactivée : mêmes garanties qu'à la création
+                    Long chambreId = patch.getChambreId() != null ? patch.getChambreId() : existingReservation.getChambreId();
+                    String statut = patch.getStatut() != null ? patch.getStatut() : existingReservation.getStatut();
+                    boolean autreSejour = !chambreId.equals(existingReservation.getChambreId())
+                            || !dateDebut.equals(existingReservation.getDateDebut())
+                            || !dateFin.equals(existingReservation.getDateFin());
+                    return Mono.when(verifications)
+                            .then(chambreRepository.findByIdForUpdate(chambreId)
+                                    .switchIfEmpty(Mono.error(() -> new RuntimeException("Chambre non trouvée"))))
+                            .flatMap(chambre -> {
+                                // Autre chambre ou autres nuits : le séjour est revendu au prix du moment
+                                Reservation modifiee = new Reservation(null, null, dateDebut, dateFin, null);
+                                modifiee.setStatut(statut);
+                                modifiee.setMontant(autreSejour ? montant(chambre, dateDebut, dateFin) : existingReservation.getMontant());
+                                if (autreSejour) {
+                                    colonnes.put(SqlIdentifier.unquoted("montant"), modifiee.getMontant());
+                                }
+
+                                Mono<Chambre> ancienneChambre = chambre.getId().equals(existingReservation.getChambreId())
+                                        ? Mono.just(chambre)
+                                        : chambreRepository.findById(existingReservation.getChambreId());
+                                return verifierChevauchement(chambreId, dateDebut, dateFin, statut, id)
+                                        .then(ecriture)
+                                        .then(ancienneChambre)
+                                        .flatMap(ancienne -> dailyInventory.replace(existingReservation, ancienne, modifiee, chambre));
+                            });
+                })
+                .then(reservationRepository.findWithClientAndChambreById(id));
+    }
+
+    /**
+     * Supprime une réservation, et retire ses nuits de daily_inventory dans la même transaction
+     * @param id L'ID de la réservation à supprimer
+     */
+    public Mono<Void> deleteReservation(Long id) {
+        // Verrouillée : les nuits retirées de l'inventaire sont bien celles de la réservation supprimée
+        return reservationRepository.findByIdForUpdate(id)
+                .flatMap(reservation -> chambreRepository.findById(reservation.getChambreId())
+                        .flatMap(chambre -> dailyInventory.release(reservation, chambre)))
+                .then(reservationRepository.deleteById(id));
+    }
+
+    /**
+     * Refuse une période qui chevauche une réservation non annulée de la chambre
+     * La ligne de la chambre doit être verrouillée dans la transaction courante (findByIdForUpdate)
+     * @param exclue La réservation modifiée, ignorée dans la recherche (null pour une création)
+     */
+    private Mono<Void> verifierChevauchement(Long chambreId, LocalDate debut, LocalDate fin, String statut, Long exclue) {
+        if ("ANNULEE".equals(statut)) {
+            return Mono.empty();
+        }
+        return reservationRepository.countOverlapping(chambreId, debut, fin, exclue)
+                .flatMap(chevauchements -> chevauchements > 0
+                        ? Mono.<Void>error(new BookingConflictException("La chambre est déjà réservée sur cette période"))
+                        : Mono.<Void>empty());
+    }
+
+    /**
+     * Émet une erreur si l'entité référencée n'existe pas
+     */
+    private static Mono<Void> verifierExistence(Mono<Boolean> existe, String message) {
+        return existe.flatMap(trouvee -> trouvee ? Mono.<Void>empty() : Mono.error(new RuntimeException(message)));
+    }
+
+    /**
+     * Prix d'un séjour, fixé à la réservation : prix par nuit de la chambre multiplié par les nuits
+     * (ce module n'applique pas les grilles tarifaires des autres modules)
+     */
+    private static BigDecimal montant(Chambre chambre, LocalDate debut, LocalDate fin) {
+        return chambre.getPrix().multiply(BigDecimal.valueOf(fin.toEpochDay() - debut.toEpochDay()));
+    }
+}
@@ -2,6 +2,7 @@ package com.hotel.reservation.soap;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Application principale pour le module SOAP API
@@ -14,6 +15,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * WSDL : http://localhost:8082/ws/reservations.wsdl
  */
 @SpringBootApplication
+@EnableScheduling
 public class SoapApiApplication {
 
     public static void main(String[] args) {
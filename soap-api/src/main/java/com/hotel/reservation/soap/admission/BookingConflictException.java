@@ -0,0 +1,17 @@
+package com.hotel.reservation.soap.admission;
+
+import org.springframework.ws.soap.server.endpoint.annotation.FaultCode;
+import org.springframework.ws.soap.server.endpoint.annotation.SoapFault;
+
+/**
+ * Réservation refusée : la chambre a déjà une réservation non annulée sur la période
+ *
+ * Convertie en faute SOAP Client : la demande doit changer de chambre ou de dates.
+ */
+@SoapFault(faultCode = FaultCode.CLIENT)
+public class BookingConflictException extends RuntimeException {
+
+    public BookingConflictException(String message) {
+        super(message);
+    }
+}
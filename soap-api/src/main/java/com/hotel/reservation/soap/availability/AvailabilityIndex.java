@@ -0,0 +1,901 @@
+package com.hotel.reservation.soap.availability;
+
+import com.hotel.reservation.soap.model.Chambre;
+import com.hotel.reservation.soap.model.Reservation;
+import com.hotel.reservation.soap.repository.ChambreRepository;
+import com.hotel.reservation.soap.repository.ReservationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Index mémoire des séjours par chambre, pour la recherche de disponibilités
+ *
+ * Chaque chambre a un planning immuable : séjours triés par date de début, avec
+ * le maximum cumulé des dates de fin. Une chambre est libre sur [début, fin) si
+ * aucun séjour commençant avant la fin ne se termine après le début, ce qu'une
+ * recherche dichotomique suivie d'une comparaison établit : une recherche sur des
+ * milliers de chambres se fait en mémoire, sans requête SQL.
+ *
+ * Les séjours annulés (statut ANNULEE) ne bloquent pas la chambre. Les séjours
+ * terminés ne sont pas chargés : une recherche ne peut pas commencer dans le passé.
+ *
+ * Chaque planning porte aussi le bitmap de ses nuits réservées (NightsBitmap) sur
+ * horizon-days jours à partir de la dernière reconstruction. Sur cet horizon, une
+ * chambre est libre si le bitmap n'a aucun bit dans la période ; le bitmap sert aussi
+ * au taux d'occupation d'un mois par type (cardinalité, intersection des chambres) et
+ * à la recherche de la première fenêtre libre de N nuits. Au-delà de l'horizon, la
+ * recherche dichotomique prend le relais. Les bitmaps d'un type servent enfin à choisir
+ * la chambre attribuée à une réservation par type (bestFit).
+ *
+ * L'index est construit au démarrage puis tenu à jour :
+ * - après la validation des écritures de ce module (updateAfterCommit, removeAfterCommit...) ;
+ * - toutes les sync-interval-ms par relecture des lignes modifiées depuis la synchronisation
+ *   précédente (updated_at), pour les écritures des autres modules (même base) ;
+ * - toutes les rebuild-interval-ms par reconstruction complète, qui retire aussi les
+ *   séjours et chambres supprimés par les autres modules.
+ * Les écritures de ce module validées pendant une relecture sont rejouées après elle,
+ * pour ne jamais revenir à un état lu avant leur validation.
+ *
+ * Tant que l'index n'est pas construit, les recherches sont faites en base.
+ *
+ * Les lectures sont sans verrou ; les écritures sont sérialisées par un ReentrantLock.
+ *
+ * Métriques exposées : availability.searches (tag source=index|database),
+ * availability.index.stays, availability.index.rooms et availability.index.bitmap.bytes
+ * (mémoire des bitmaps ; divisée par le nombre de chambres, mémoire par chambre).
+ */
+@Component
+public class AvailabilityIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(AvailabilityIndex.class);
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private ChambreRepository chambreRepository;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Value("${availability.index.sync-overlap-seconds:10}")
+    private long syncOverlapSeconds;
+
+    @Value("${availability.index.horizon-days:730}")
+    private int horizonJours;
+
+    // Sérialise les écritures dans l'index et l'accès au journal
+    private final ReentrantLock verrou = new ReentrantLock();
+
+    // Une seule relecture de la base à la fois (synchronisation ou reconstruction)
+    private final ReentrantLock maintenance = new ReentrantLock();
+
+    // Null tant que l'index n'est pas construit
+    private volatile Etat etat;
+
+    // Écritures validées pendant une relecture de la base, rejouées après elle (sous verrou)
+    private List<Consumer<Etat>> journal;
+
+    // Début de la dernière relecture réussie (thread de maintenance uniquement)
+    private LocalDateTime derniereSynchro;
+
+    private Counter recherchesIndex;
+    private Counter recherchesBase;
+
+    @PostConstruct
+    void enregistrerMetriques() {
+        recherchesIndex = Counter.builder("availability.searches").tag("source", "index").register(registry);
+        recherchesBase = Counter.builder("availability.searches").tag("source", "database").register(registry);
+        Gauge.builder("availability.index.stays", this, index -> {
+            Etat courant = index.etat;
+            return courant == null ? 0 : courant.sejours.size();
+        }).register(registry);
+        Gauge.builder("availability.index.rooms", this, index -> {
+            Etat courant = index.etat;
+            return courant == null ? 0 : courant.catalogue.toutes.size();
+        }).register(registry);
+        Gauge.builder("availability.index.bitmap.bytes", this, index -> {
+            Etat courant = index.etat;
+            long octets = 0;
+            if (courant != null) {
+                for (Planning planning : courant.plannings.values()) {
+                    octets += planning.nuits.sizeInBytes();
+                }
+            }
+            return octets;
+        }).baseUnit("bytes").register(registry);
+    }
+
+    /**
+     * Vérifie une période de recherche
+     * @param debut Date d'arrivée (incluse)
+     * @param fin Date de départ (exclue)
+     * @throws IllegalArgumentException Si une date manque, si la fin n'est pas après le début ou si le début est passé
+     */
+    public static void checkPeriod(LocalDate debut, LocalDate fin) {
+        if (debut == null || fin == null) {
+            throw new IllegalArgumentException("Les dates de début et de fin sont obligatoires");
+        }
+        if (!fin.isAfter(debut)) {
+            throw new IllegalArgumentException("La date de fin doit être postérieure à la date de début");
+        }
+        if (debut.isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("La date de début ne peut pas être passée");
+        }
+    }
+
+    /**
+     * @return true si l'index est construit (les recherches ne vont plus en base)
+     */
+    public boolean isReady() {
+        return etat != null;
+    }
+
+    /**
+     * Recherche les chambres libres sur une période
+     * @param type Le type de chambre (insensible à la casse), ou null (ou vide) pour tous les types
+     * @param debut Date d'arrivée (incluse)
+     * @param fin Date de départ (exclue)
+     * @return Les chambres marquées disponibles et sans séjour sur la période, triées par ID ;
+     *         partagées : ne pas les modifier
+     */
+    public List<Chambre> search(String type, LocalDate debut, LocalDate fin) {
+        checkPeriod(debut, fin);
+        if (type != null && type.isBlank()) {
+            type = null;
+        }
+        Etat courant = etat;
+        if (courant == null) {
+            recherchesBase.increment();
+            return chambreRepository.findDisponibles(type, debut, fin);
+        }
+        recherchesIndex.increment();
+
+        Catalogue catalogue = courant.catalogue;
+        List<Chambre> candidates = type == null
+                ? catalogue.toutes
+                : catalogue.parType.getOrDefault(type.toLowerCase(Locale.ROOT), List.of());
+        int jourDebut = (int) debut.toEpochDay();
+        int jourFin = (int) fin.toEpochDay();
+
+        List<Chambre> libres = new ArrayList<>();
+        for (Chambre chambre : candidates) {
+            if (!Boolean.TRUE.equals(chambre.getDisponible())) {
+                continue;
+            }
+            Planning planning = courant.plannings.get(chambre.getId());
+            if (planning == null || planning.estLibre(jourDebut, jourFin)) {
+                libres.add(chambre);
+            }
+        }
+        return libres;
+    }
+
+    /**
+     * Taux d'occupation d'un mois par type de chambre, calculé sur les bitmaps des nuits réservées
+     * Pour le mois en cours, seules les nuits à partir d'aujourd'hui sont comptées.
+     * @param mois Le mois, entre le mois en cours et la fin de l'horizon de l'index
+     * @param type Le type de chambre (insensible à la casse), ou null (ou vide) pour tous les types
+     * @return Une occupation par type, triée par type (vide si le type n'existe pas)
+     * @throws IllegalArgumentException Si le mois est hors de l'horizon
+     * @throws IllegalStateException Si l'index n'est pas encore construit
+     */
+    public List<Occupation> occupancy(YearMonth mois, String type) {
+        Etat courant = etatConstruit();
+        if (mois == null) {
+            throw new IllegalArgumentException("Le mois est obligatoire");
+        }
+        int debutMois = (int) mois.atDay(1).toEpochDay();
+        int finMois = (int) mois.plusMonths(1).atDay(1).toEpochDay();
+        int debut = Math.max(debutMois, (int) LocalDate.now().toEpochDay());
+        if (debut >= finMois || finMois > courant.origine + courant.horizon) {
+            throw new IllegalArgumentException("Mois hors de l'horizon de l'index des disponibilités");
+        }
+
+        Map<String, List<Chambre>> parType = courant.catalogue.parType;
+        List<String> types = new ArrayList<>();
+        if (type == null || type.isBlank()) {
+            types.addAll(parType.keySet());
+            Collections.sort(types);
+        } else if (parType.containsKey(type.toLowerCase(Locale.ROOT))) {
+            types.add(type.toLowerCase(Locale.ROOT));
+        }
+
+        List<Occupation> occupations = new ArrayList<>(types.size());
+        for (String cle : types) {
+            List<Chambre> chambres = parType.get(cle);
+            List<NightsBitmap> bitmaps = new ArrayList<>(chambres.size());
+            long reservees = 0;
+            for (Chambre chambre : chambres) {
+                NightsBitmap nuits = courant.nuits(chambre.getId());
+                reservees += nuits.cardinality(debut - courant.origine, finMois - courant.origine);
+                bitmaps.add(nuits);
+            }
+            int completes = NightsBitmap.andCardinality(bitmaps, debut - courant.origine, finMois - courant.origine);
+            occupations.add(new Occupation(chambres.get(0).getType(), chambres.size(), finMois - debut, reservees, completes));
+        }
+        return occupations;
+    }
+
+    /**
+     * Recherche la première fenêtre de nuits consécutives libres dans une chambre disponible
+     * @param type Le type de chambre (insensible à la casse), ou null (ou vide) pour tous les types
+     * @param depuis Première date d'arrivée possible (aujourd'hui si null)
+     * @param nuits Nombre de nuits (au moins 1)
+     * @return La fenêtre la plus tôt (à date égale, la chambre de plus petit ID), ou vide s'il n'y
+     *         en a pas dans l'horizon de l'index
+     * @throws IllegalArgumentException Si depuis est passé ou si la fenêtre dépasse l'horizon
+     * @throws IllegalStateException Si l'index n'est pas encore construit
+     */
+    public Optional<Fenetre> firstFreeWindow(String type, LocalDate depuis, int nuits) {
+        Etat courant = etatConstruit();
+        LocalDate aujourdhui = LocalDate.now();
+        if (depuis == null) {
+            depuis = aujourdhui;
+        }
+        if (depuis.isBefore(aujourdhui)) {
+            throw new IllegalArgumentException("La date de début ne peut pas être passée");
+        }
+        int debut = (int) depuis.toEpochDay() - courant.origine;
+        if (nuits < 1 || debut + nuits > courant.horizon) {
+            throw new IllegalArgumentException("Le nombre de nuits doit être positif et tenir dans l'horizon de l'index");
+        }
+
+        Catalogue catalogue = courant.catalogue;
+        List<Chambre> candidates = type == null || type.isBlank()
+                ? catalogue.toutes
+                : catalogue.parType.getOrDefault(type.toLowerCase(Locale.ROOT), List.of());
+        Chambre meilleure = null;
+        int meilleurDebut = -1;
+        for (Chambre chambre : candidates) {
+            if (!Boolean.TRUE.equals(chambre.getDisponible())) {
+                continue;
+            }
+            int trouve = courant.nuits(chambre.getId()).firstFreeRun(debut, nuits, courant.horizon);
+            if (trouve >= 0 && (meilleure == null || trouve < meilleurDebut)) {
+                meilleure = chambre;
+                meilleurDebut = trouve;
+                if (trouve == debut) {
+                    break;
+                }
+            }
+        }
+        if (meilleure == null) {
+            return Optional.empty();
+        }
+        LocalDate arrivee = LocalDate.ofEpochDay(courant.origine + meilleurDebut);
+        return Optional.of(new Fenetre(meilleure, arrivee, arrivee.plusDays(nuits)));
+    }
+
+    /**
+     * Choisit les chambres d'un type à attribuer pour un séjour, de la mieux ajustée à la moins bien ajustée
+     *
+     * Best fit : parmi les chambres disponibles et libres sur la période, la meilleure est celle
+     * où le séjour laisse le moins de trous de moins de trouMinimum nuits juste avant ou juste
+     * après lui (nuits isolées, invendables), puis celle dont la plage libre qui contient le
+     * séjour est la plus courte : un séjour qui comble exactement un trou est idéal, et les
+     * chambres vides gardent leurs longues plages pour les longs séjours. À ajustement égal,
+     * la chambre de plus petit ID passe d'abord.
+     *
+     * Les trous sont mesurés sur les bitmaps des nuits, en quelques mots de 64 bits par chambre.
+     * Un séjour qui dépasse l'horizon n'est pas évalué : les chambres libres sont rendues par ID,
+     * comme par la recherche en base tant que l'index n'est pas construit.
+     *
+     * @param type Le type de chambre (insensible à la casse)
+     * @param debut Date d'arrivée (incluse)
+     * @param fin Date de départ (exclue)
+     * @param trouMinimum Plus court trou vendable, en nuits
+     * @param limite Nombre maximal de chambres renvoyées (au moins 1)
+     * @return Les chambres candidates, la mieux ajustée d'abord ; partagées : ne pas les modifier
+     */
+    public List<Chambre> bestFit(String type, LocalDate debut, LocalDate fin, int trouMinimum, int limite) {
+        checkPeriod(debut, fin);
+        if (type == null || type.isBlank()) {
+            throw new IllegalArgumentException("Le type de chambre est obligatoire");
+        }
+        if (limite < 1) {
+            throw new IllegalArgumentException("Le nombre de chambres candidates doit être positif");
+        }
+        Etat courant = etat;
+        if (courant == null) {
+            recherchesBase.increment();
+            List<Chambre> libres = chambreRepository.findDisponibles(type, debut, fin);
+            return libres.subList(0, Math.min(limite, libres.size()));
+        }
+        recherchesIndex.increment();
+
+        int jourDebut = (int) debut.toEpochDay();
+        int jourFin = (int) fin.toEpochDay();
+        boolean evalue = jourFin <= courant.origine + courant.horizon;
+        int de = jourDebut - courant.origine;
+        int a = jourFin - courant.origine;
+        // Les nuits passées ne se vendent plus : le trou avant le séjour commence au plus tôt aujourd'hui
+        int aujourdhui = (int) LocalDate.now().toEpochDay() - courant.origine;
+
+        // Les meilleures chambres vues jusqu'ici, triées par score croissant
+        Chambre[] retenues = new Chambre[limite];
+        long[] scores = new long[limite];
+        int n = 0;
+        for (Chambre chambre : courant.catalogue.parType.getOrDefault(type.toLowerCase(Locale.ROOT), List.of())) {
+            if (!Boolean.TRUE.equals(chambre.getDisponible())) {
+                continue;
+            }
+            Planning planning = courant.plannings.get(chambre.getId());
+            if (planning != null && !planning.estLibre(jourDebut, jourFin)) {
+                continue;
+            }
+            long score = 0;
+            if (evalue) {
+                NightsBitmap nuits = planning == null ? NightsBitmap.VIDE : planning.nuits;
+                int avant = de - Math.max(nuits.previousSetBit(de) + 1, aujourdhui);
+                int suivante = nuits.nextSetBit(a, courant.horizon);
+                // Sans séjour après, la plage reste ouverte jusqu'à l'horizon : jamais un trou isolé
+                int apres = (suivante < 0 ? courant.horizon : suivante) - a;
+                int isoles = (avant > 0 && avant < trouMinimum ? 1 : 0)
+                        + (suivante >= 0 && apres > 0 && apres < trouMinimum ? 1 : 0);
+                score = ((long) isoles << 32) | (avant + apres);
+            }
+            if (n == limite && score >= scores[n - 1]) {
+                continue;
+            }
+            int position = n == limite ? n - 1 : n++;
+            while (position > 0 && scores[position - 1] > score) {
+                retenues[position] = retenues[position - 1];
+                scores[position] = scores[position - 1];
+                position--;
+            }
+            retenues[position] = chambre;
+            scores[position] = score;
+            if (n == limite && scores[n - 1] == 0) {
+                // Que des ajustements parfaits : aucune chambre suivante ne peut faire mieux
+                break;
+            }
+        }
+        return Arrays.asList(Arrays.copyOf(retenues, n));
+    }
+
+    private Etat etatConstruit() {
+        Etat courant = etat;
+        if (courant == null) {
+            throw new IllegalStateException("Index des disponibilités en cours de construction");
+        }
+        return courant;
+    }
+
+    /**
+     * Enregistre une réservation créée ou modifiée, après la validation de la transaction
+     * en cours (immédiatement s'il n'y a pas de transaction)
+     * Les valeurs sont lues à l'appel : l'appeler une fois la réservation à jour.
+     */
+    public void updateAfterCommit(Reservation reservation) {
+        Long id = reservation.getId();
+        Long chambreId = reservation.getChambre().getId();
+        LocalDate debut = reservation.getDateDebut();
+        LocalDate fin = reservation.getDateFin();
+        String statut = reservation.getStatut();
+        apresCommit(() -> muter(e -> e.placer(id, chambreId, debut, fin, statut)));
+    }
+
+    /**
+     * Retire une réservation supprimée, après la validation de la transaction en cours
+     */
+    public void removeAfterCommit(Long id) {
+        apresCommit(() -> muter(e -> e.retirer(id)));
+    }
+
+    /**
+     * Retire plusieurs réservations supprimées, après la validation de la transaction en cours
+     */
+    public void removeAllAfterCommit(Collection<Long> ids) {
+        List<Long> copie = List.copyOf(ids);
+        apresCommit(() -> muter(e -> copie.forEach(e::retirer)));
+    }
+
+    /**
+     * Enregistre une chambre créée ou modifiée, après la validation de la transaction en cours
+     * Les valeurs sont copiées à l'appel : l'appeler une fois la chambre à jour.
+     */
+    public void updateRoomAfterCommit(Chambre chambre) {
+        Chambre copie = copier(chambre);
+        apresCommit(() -> muter(e -> e.majChambres(List.of(copie))));
+    }
+
+    /**
+     * Retire une chambre supprimée (et ses séjours), après la validation de la transaction en cours
+     */
+    public void removeRoomAfterCommit(Long chambreId) {
+        apresCommit(() -> muter(e -> e.retirerChambre(chambreId)));
+    }
+
+    /**
+     * Synchronisation périodique avec les écritures des autres modules
+     * Construit l'index au premier passage, puis relit les chambres et réservations
+     * modifiées depuis la synchronisation précédente (moins sync-overlap-seconds,
+     * pour les transactions validées après la lecture précédente).
+     */
+    @Scheduled(fixedDelayString = "${availability.index.sync-interval-ms:2000}")
+    public void synchroniser() {
+        if (!maintenance.tryLock()) {
+            return;
+        }
+        try {
+            if (etat == null) {
+                construire();
+                return;
+            }
+            LocalDateTime depuis = derniereSynchro.minusSeconds(syncOverlapSeconds);
+            LocalDateTime debutLecture = LocalDateTime.now();
+            relire(() -> {
+                List<Chambre> chambres = chambreRepository.findByUpdatedAtGreaterThanEqual(depuis);
+                List<ReservationRepository.Sejour> sejours = reservationRepository.findSejoursUpdatedSince(depuis);
+                return courant -> {
+                    courant.majChambres(chambres);
+                    for (ReservationRepository.Sejour sejour : sejours) {
+                        courant.placer(sejour.getId(), sejour.getChambreId(),
+                                sejour.getDateDebut(), sejour.getDateFin(), sejour.getStatut());
+                    }
+                    return courant;
+                };
+            });
+            derniereSynchro = debutLecture;
+        } catch (RuntimeException e) {
+            // La base peut être indisponible : nouvel essai au prochain passage
+            log.warn("Synchronisation de l'index des disponibilités impossible", e);
+        } finally {
+            maintenance.unlock();
+        }
+    }
+
+    /**
+     * Reconstruction périodique complète de l'index
+     */
+    @Scheduled(initialDelayString = "${availability.index.rebuild-interval-ms:300000}",
+            fixedDelayString = "${availability.index.rebuild-interval-ms:300000}")
+    public void reconstruire() {
+        maintenance.lock();
+        try {
+            construire();
+        } catch (RuntimeException e) {
+            log.warn("Reconstruction de l'index des disponibilités impossible", e);
+        } finally {
+            maintenance.unlock();
+        }
+    }
+
+    private void construire() {
+        LocalDateTime debutLecture = LocalDateTime.now();
+        relire(() -> {
+            Etat nouveau = new Etat((int) LocalDate.now().toEpochDay(), horizonJours);
+            nouveau.majChambres(chambreRepository.findAll());
+            // Triés par chambre puis par début : chaque planning est construit en une passe
+            List<ReservationRepository.Sejour> sejours =
+                    reservationRepository.findSejoursEndingAfter(LocalDate.now());
+            nouveau.charger(sejours);
+            return ancien -> nouveau;
+        });
+        derniereSynchro = debutLecture;
+    }
+
+    /**
+     * Lit la base hors verrou puis applique la lecture sous le verrou, suivie des écritures
+     * de ce module validées pendant la lecture (que celle-ci a pu manquer ou voir avant elles)
+     * @param lecture Lit la base et renvoie la transformation de l'état courant en nouvel état
+     */
+    private void relire(Supplier<Function<Etat, Etat>> lecture) {
+        verrou.lock();
+        try {
+            journal = new ArrayList<>();
+        } finally {
+            verrou.unlock();
+        }
+        Function<Etat, Etat> application = null;
+        try {
+            application = lecture.get();
+        } finally {
+            verrou.lock();
+            try {
+                if (application != null) {
+                    Etat resultat = application.apply(etat);
+                    for (Consumer<Etat> ecriture : journal) {
+                        ecriture.accept(resultat);
+                    }
+                    etat = resultat;
+                }
+                journal = null;
+            } finally {
+                verrou.unlock();
+            }
+        }
+    }
+
+    /**
+     * Applique une écriture validée à l'index, et la journalise si une relecture est en cours
+     */
+    private void muter(Consumer<Etat> ecriture) {
+        verrou.lock();
+        try {
+            Etat courant = etat;
+            if (courant != null) {
+                ecriture.accept(courant);
+            }
+            if (journal != null) {
+                journal.add(ecriture);
+            }
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    private static void apresCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Copie détachée d'une chambre, partagée par les résultats de recherche
+     */
+    private static Chambre copier(Chambre chambre) {
+        Chambre copie = new Chambre();
+        copie.setId(chambre.getId());
+        copie.setType(chambre.getType());
+        copie.setPrix(chambre.getPrix());
+        copie.setDisponible(chambre.getDisponible());
+        copie.setCreatedAt(chambre.getCreatedAt());
+        copie.setUpdatedAt(chambre.getUpdatedAt());
+        return copie;
+    }
+
+    private static boolean bloque(String statut) {
+        return !"ANNULEE".equals(statut);
+    }
+
+    /**
+     * État de l'index ; modifié uniquement sous le verrou, lu sans verrou
+     */
+    private static final class Etat {
+
+        // Première nuit et longueur (en jours) de l'horizon des bitmaps
+        private final int origine;
+        private final int horizon;
+
+        // Planning par ID de chambre (remplacé, jamais modifié)
+        private final Map<Long, Planning> plannings = new ConcurrentHashMap<>();
+
+        // Séjour indexé par ID de réservation
+        private final Map<Long, Sejour> sejours = new ConcurrentHashMap<>();
+
+        private volatile Catalogue catalogue = Catalogue.VIDE;
+
+        private Etat(int origine, int horizon) {
+            this.origine = origine;
+            this.horizon = horizon;
+        }
+
+        private NightsBitmap nuits(Long chambreId) {
+            Planning planning = plannings.get(chambreId);
+            return planning == null ? NightsBitmap.VIDE : planning.nuits;
+        }
+
+        private void charger(List<ReservationRepository.Sejour> tries) {
+            int i = 0;
+            while (i < tries.size()) {
+                Long chambreId = tries.get(i).getChambreId();
+                int j = i;
+                while (j < tries.size() && tries.get(j).getChambreId().equals(chambreId)) {
+                    j++;
+                }
+                long[] ids = new long[j - i];
+                int[] debuts = new int[j - i];
+                int[] fins = new int[j - i];
+                for (int k = i; k < j; k++) {
+                    ReservationRepository.Sejour sejour = tries.get(k);
+                    ids[k - i] = sejour.getId();
+                    debuts[k - i] = (int) sejour.getDateDebut().toEpochDay();
+                    fins[k - i] = (int) sejour.getDateFin().toEpochDay();
+                    sejours.put(sejour.getId(), new Sejour(chambreId, debuts[k - i], fins[k - i]));
+                }
+                plannings.put(chambreId, new Planning(ids, debuts, fins, origine, horizon));
+                i = j;
+            }
+        }
+
+        private void placer(Long id, Long chambreId, LocalDate debut, LocalDate fin, String statut) {
+            if (!bloque(statut) || debut == null || fin == null || !fin.isAfter(debut)) {
+                retirer(id);
+                return;
+            }
+            Sejour sejour = new Sejour(chambreId, (int) debut.toEpochDay(), (int) fin.toEpochDay());
+            Sejour ancien = sejours.put(id, sejour);
+            // Ajout dans la nouvelle chambre avant le retrait de l'ancienne : une recherche
+            // concurrente peut voir les deux chambres occupées, jamais les deux libres
+            Planning planning = plannings.get(chambreId);
+            if (planning == null) {
+                planning = new Planning(new long[0], new int[0], new int[0], origine, horizon);
+            }
+            plannings.put(chambreId, planning.avec(id, sejour.debut, sejour.fin));
+            if (ancien != null && !ancien.chambreId.equals(chambreId)) {
+                retirerDuPlanning(ancien.chambreId, id);
+            }
+        }
+
+        private void retirer(Long id) {
+            Sejour ancien = sejours.remove(id);
+            if (ancien != null) {
+                retirerDuPlanning(ancien.chambreId, id);
+            }
+        }
+
+        private void retirerDuPlanning(Long chambreId, Long id) {
+            Planning planning = plannings.get(chambreId);
+            if (planning != null) {
+                Planning reste = planning.sans(id);
+                if (reste.taille() == 0) {
+                    plannings.remove(chambreId);
+                } else {
+                    plannings.put(chambreId, reste);
+                }
+            }
+        }
+
+        private void majChambres(List<Chambre> chambres) {
+            if (chambres.isEmpty()) {
+                return;
+            }
+            Map<Long, Chambre> parId = new HashMap<>(catalogue.parId);
+            for (Chambre chambre : chambres) {
+                parId.put(chambre.getId(), copier(chambre));
+            }
+            catalogue = new Catalogue(parId);
+        }
+
+        private void retirerChambre(Long chambreId) {
+            Map<Long, Chambre> parId = new HashMap<>(catalogue.parId);
+            parId.remove(chambreId);
+            catalogue = new Catalogue(parId);
+            Planning planning = plannings.remove(chambreId);
+            if (planning != null) {
+                for (long id : planning.ids) {
+                    sejours.remove(id);
+                }
+            }
+        }
+    }
+
+    /**
+     * Catalogue immuable des chambres : par ID, par type (en minuscules) et trié par ID
+     */
+    private static final class Catalogue {
+
+        private static final Catalogue VIDE = new Catalogue(Map.of());
+
+        private final Map<Long, Chambre> parId;
+        private final Map<String, List<Chambre>> parType;
+        private final List<Chambre> toutes;
+
+        private Catalogue(Map<Long, Chambre> parId) {
+            this.parId = Collections.unmodifiableMap(parId);
+            List<Chambre> triees = new ArrayList<>(parId.values());
+            triees.sort(Comparator.comparing(Chambre::getId));
+            Map<String, List<Chambre>> groupes = new HashMap<>();
+            for (Chambre chambre : triees) {
+                groupes.computeIfAbsent(chambre.getType().toLowerCase(Locale.ROOT), t -> new ArrayList<>()).add(chambre);
+            }
+            this.toutes = Collections.unmodifiableList(triees);
+            this.parType = Collections.unmodifiableMap(groupes);
+        }
+    }
+
+    /**
+     * Séjour indexé : chambre et nuits [debut, fin) en jours epoch
+     */
+    private static final class Sejour {
+        private final Long chambreId;
+        private final int debut;
+        private final int fin;
+
+        private Sejour(Long chambreId, int debut, int fin) {
+            this.chambreId = chambreId;
+            this.debut = debut;
+            this.fin = fin;
+        }
+    }
+
+    /**
+     * Planning immuable d'une chambre : séjours triés par début, avec le maximum
+     * cumulé des fins (maxFins[i] = plus grande fin parmi les séjours 0..i), et
+     * bitmap des nuits réservées sur [origine, origine + horizon)
+     */
+    static final class Planning {
+
+        private final long[] ids;
+        private final int[] debuts;
+        private final int[] fins;
+        private final int[] maxFins;
+        private final int origine;
+        private final int horizon;
+        private final NightsBitmap nuits;
+
+        Planning(long[] ids, int[] debuts, int[] fins, int origine, int horizon) {
+            this.ids = ids;
+            this.debuts = debuts;
+            this.fins = fins;
+            this.origine = origine;
+            this.horizon = horizon;
+            this.nuits = NightsBitmap.of(debuts, fins, origine, horizon);
+            this.maxFins = new int[fins.length];
+            int max = Integer.MIN_VALUE;
+            for (int i = 0; i < fins.length; i++) {
+                max = Math.max(max, fins[i]);
+                maxFins[i] = max;
+            }
+        }
+
+        int taille() {
+            return ids.length;
+        }
+
+        /**
+         * @return true si aucun séjour ne chevauche [debut, fin)
+         */
+        boolean estLibre(int debut, int fin) {
+            if (debut >= origine && fin <= origine + horizon) {
+                return nuits.isFree(debut - origine, fin - origine);
+            }
+            // Hors de l'horizon : nombre de séjours commençant avant la fin demandée
+            int bas = 0;
+            int haut = debuts.length;
+            while (bas < haut) {
+                int milieu = (bas + haut) >>> 1;
+                if (debuts[milieu] < fin) {
+                    bas = milieu + 1;
+                } else {
+                    haut = milieu;
+                }
+            }
+            return bas == 0 || maxFins[bas - 1] <= debut;
+        }
+
+        /**
+         * @return Un planning où le séjour id occupe [debut, fin) (ajouté ou déplacé)
+         */
+        Planning avec(long id, int debut, int fin) {
+            Planning base = sans(id);
+            int n = base.ids.length;
+            int position = 0;
+            while (position < n && base.debuts[position] <= debut) {
+                position++;
+            }
+            long[] nouveauxIds = new long[n + 1];
+            int[] nouveauxDebuts = new int[n + 1];
+            int[] nouvellesFins = new int[n + 1];
+            System.arraycopy(base.ids, 0, nouveauxIds, 0, position);
+            System.arraycopy(base.debuts, 0, nouveauxDebuts, 0, position);
+            System.arraycopy(base.fins, 0, nouvellesFins, 0, position);
+            nouveauxIds[position] = id;
+            nouveauxDebuts[position] = debut;
+            nouvellesFins[position] = fin;
+            System.arraycopy(base.ids, position, nouveauxIds, position + 1, n - position);
+            System.arraycopy(base.debuts, position, nouveauxDebuts, position + 1, n - position);
+            System.arraycopy(base.fins, position, nouvellesFins, position + 1, n - position);
+            return new Planning(nouveauxIds, nouveauxDebuts, nouvellesFins, origine, horizon);
+        }
+
+        /**
+         * @return Un planning sans le séjour id (this s'il n'y figure pas)
+         */
+        Planning sans(long id) {
+            int position = -1;
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == id) {
+                    position = i;
+                    break;
+                }
+            }
+            if (position < 0) {
+                return this;
+            }
+            int n = ids.length - 1;
+            long[] nouveauxIds = Arrays.copyOf(ids, n);
+            int[] nouveauxDebuts = Arrays.copyOf(debuts, n);
+            int[] nouvellesFins = Arrays.copyOf(fins, n);
+            System.arraycopy(ids, position + 1, nouveauxIds, position, n - position);
+            System.arraycopy(debuts, position + 1, nouveauxDebuts, position, n - position);
+            System.arraycopy(fins, position + 1, nouvellesFins, position, n - position);
+            return new Planning(nouveauxIds, nouveauxDebuts, nouvellesFins, origine, horizon);
+        }
+    }
+
+    /**
+     * Occupation d'un type de chambre sur un mois
+     */
+    public static final class Occupation {
+        private final String type;
+        private final int chambres;
+        private final int nuits;
+        private final long nuitsReservees;
+        private final int nuitsCompletes;
+
+        private Occupation(String type, int chambres, int nuits, long nuitsReservees, int nuitsCompletes) {
+            this.type = type;
+            this.chambres = chambres;
+            this.nuits = nuits;
+            this.nuitsReservees = nuitsReservees;
+            this.nuitsCompletes = nuitsCompletes;
+        }
+
+        public String getType() { return type; }
+
+        /** Nombre de chambres du type */
+        public int getChambres() { return chambres; }
+
+        /** Nombre de nuits comptées du mois (à partir d'aujourd'hui pour le mois en cours) */
+        public int getNuits() { return nuits; }
+
+        /** Nuits réservées, toutes chambres du type confondues */
+        public long getNuitsReservees() { return nuitsReservees; }
+
+        /** Nuits où toutes les chambres du type sont réservées */
+        public int getNuitsCompletes() { return nuitsCompletes; }
+
+        /** Taux d'occupation, entre 0 et 1 */
+        public double getTaux() {
+            return chambres == 0 ? 0 : (double) nuitsReservees / ((long) chambres * nuits);
+        }
+    }
+
+    /**
+     * Fenêtre de nuits libres : chambre, arrivée (incluse) et départ
+     */
+    public static final class Fenetre {
+        private final Chambre chambre;
+        private final LocalDate dateDebut;
+        private final LocalDate dateFin;
+
+        private Fenetre(Chambre chambre, LocalDate dateDebut, LocalDate dateFin) {
+            this.chambre = chambre;
+            this.dateDebut = dateDebut;
+            this.dateFin = dateFin;
+        }
+
+        public Chambre getChambre() { return chambre; }
+        public LocalDate getDateDebut() { return dateDebut; }
+        public LocalDate getDateFin() { return dateFin; }
+    }
+}
@@ -0,0 +1,159 @@
+package com.hotel.reservation.soap.bulkhead;
+
+import com.hotel.reservation.soap.config.VirtualThreads;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Cloison (bulkhead) d'exécution bornée
+ *
+ * Chaque cloison possède son propre pool de threads et sa propre file d'attente
+ * bornée : une rafale de travail d'un type (par exemple les écritures) ne peut pas
+ * consommer les threads réservés à l'autre (les lectures). Quand la file est pleine,
+ * la tâche est rejetée immédiatement et le rejet est compté.
+ *
+ * Spring-WS traite les messages de façon synchrone : le thread Tomcat attend le
+ * résultat, mais le nombre de threads Tomcat bloqués par une cloison reste borné
+ * par ses threads et sa file, ce qui préserve les autres opérations.
+ *
+ * En mode threads virtuels (threads.virtual.enabled=true), chaque tâche démarre sur
+ * son propre thread virtuel et les limites sont portées par deux sémaphores : au plus
+ * « threads » tâches s'exécutent en même temps, les suivantes attendent leur tour, et
+ * au-delà de « threads + queueCapacity » tâches admises la tâche est rejetée comme
+ * avec une file pleine.
+ *
+ * Métriques exposées : executor.* (tag name=bulkhead.&lt;nom&gt;, pool plateforme) ou
+ * bulkhead.active et bulkhead.queued (tag name, threads virtuels), et bulkhead.rejected (tag name).
+ */
+public class Bulkhead {
+
+    private final String nom;
+    private final ExecutorService executor;
+    private final Counter rejets;
+    private final long timeoutMs;
+
+    /** Tâches admises (en cours + en attente), null hors mode threads virtuels */
+    private final Semaphore admises;
+
+    /** Tâches en cours d'exécution, null hors mode threads virtuels */
+    private final Semaphore enCours;
+
+    public Bulkhead(String nom, int threads, int queueCapacity, long timeoutMs, boolean virtuel,
+                    MeterRegistry registry) {
+        this.nom = nom;
+        this.timeoutMs = timeoutMs;
+        this.rejets = Counter.builder("bulkhead.rejected")
+                .description("Tâches rejetées car la file de la cloison est pleine")
+                .tag("name", nom)
+                .register(registry);
+
+        if (virtuel) {
+            this.executor = VirtualThreads.newVirtualThreadPerTaskExecutor();
+            this.admises = new Semaphore(threads + queueCapacity);
+            this.enCours = new Semaphore(threads);
+            Gauge.builder("bulkhead.active", enCours, s -> threads - s.availablePermits())
+                    .description("Tâches en cours d'exécution dans la cloison")
+                    .tag("name", nom)
+                    .register(registry);
+            Gauge.builder("bulkhead.queued", this,
+                            b -> (threads + queueCapacity - b.admises.availablePermits())
+                                    - (threads - b.enCours.availablePermits()))
+                    .description("Tâches admises en attente d'une place dans la cloison")
+                    .tag("name", nom)
+                    .register(registry);
+        } else {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    new CustomizableThreadFactory("bulkhead-" + nom + "-"),
+                    new ThreadPoolExecutor.AbortPolicy());
+            ExecutorServiceMetrics.monitor(registry, pool, "bulkhead." + nom, List.of());
+            this.executor = pool;
+            this.admises = null;
+            this.enCours = null;
+        }
+    }
+
+    /**
+     * Exécute une tâche dans la cloison et attend son résultat
+     * @param tache La tâche à exécuter
+     * @return Le résultat de la tâche
+     * @throws BulkheadFullException si la cloison est saturée ou si l'attente dépasse le délai
+     */
+    public <T> T call(Supplier<T> tache) {
+        CompletableFuture<T> resultat;
+        try {
+            resultat = lancer(tache);
+        } catch (RejectedExecutionException e) {
+            rejets.increment();
+            throw new BulkheadFullException("Cloison " + nom + " saturée, réessayez plus tard");
+        }
+
+        try {
+            return resultat.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new BulkheadFullException("Délai dépassé dans la cloison " + nom);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Attente interrompue", e);
+        }
+    }
+
+    /**
+     * Démarre la tâche sur le pool, ou sur un thread virtuel borné par les sémaphores
+     * @throws RejectedExecutionException si la cloison est saturée
+     */
+    private <T> CompletableFuture<T> lancer(Supplier<T> tache) {
+        if (admises == null) {
+            return CompletableFuture.supplyAsync(tache, executor);
+        }
+
+        if (!admises.tryAcquire()) {
+            throw new RejectedExecutionException("Cloison " + nom + " saturée");
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                enCours.acquireUninterruptibly();
+                try {
+                    return tache.get();
+                } finally {
+                    enCours.release();
+                    admises.release();
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            admises.release();
+            throw e;
+        }
+    }
+
+    public String getNom() {
+        return nom;
+    }
+
+    /**
+     * Arrête l'exécuteur : les tâches déjà acceptées sont terminées
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
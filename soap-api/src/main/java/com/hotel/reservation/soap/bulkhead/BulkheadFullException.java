@@ -0,0 +1,17 @@
+package com.hotel.reservation.soap.bulkhead;
+
+import org.springframework.ws.soap.server.endpoint.annotation.FaultCode;
+import org.springframework.ws.soap.server.endpoint.annotation.SoapFault;
+
+/**
+ * Levée quand une cloison d'exécution est saturée
+ *
+ * Convertie en faute SOAP Server pour que le client réessaie plus tard.
+ */
+@SoapFault(faultCode = FaultCode.SERVER)
+public class BulkheadFullException extends RuntimeException {
+
+    public BulkheadFullException(String message) {
+        super(message);
+    }
+}
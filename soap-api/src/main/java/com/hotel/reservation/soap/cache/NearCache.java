@@ -0,0 +1,260 @@
+package com.hotel.reservation.soap.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Cache mémoire local (near cache) devant une recherche par ID
+ *
+ * Les entrées sont bornées en nombre et en durée de vie, et évincées de la plus
+ * ancienne à la plus récente. Les absences (ID inconnu) ne sont pas mises en cache,
+ * ni les valeurs refusées par le filtre aGarder (par exemple les réservations aux
+ * préférences volumineuses, pour borner la mémoire du cache).
+ *
+ * Les défauts de cache simultanés sur un même ID sont regroupés (single-flight) :
+ * le premier appelant interroge la base, les suivants attendent son résultat au
+ * lieu de lancer la même requête.
+ *
+ * Une invalidation retire l'entrée et détache le chargement en cours : un chargement
+ * commencé avant l'invalidation n'est pas mis en cache. Les modifications faites par
+ * les autres modules (même base) sont prises en compte au plus tard après ttl-seconds.
+ *
+ * Métriques exposées : nearcache.gets (tags cache, result=hit|miss|coalesced),
+ * nearcache.evictions, nearcache.invalidations et nearcache.size (tag cache).
+ */
+public class NearCache<K, V> {
+
+    private final String nom;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Predicate<V> aGarder;
+
+    private final Map<K, Entree<V>> entrees = new ConcurrentHashMap<>();
+
+    // Ordre d'insertion des clés, pour évincer les plus anciennes en premier
+    private final Queue<K> ordre = new ConcurrentLinkedQueue<>();
+
+    // Chargements en cours, partagés par les défauts de cache simultanés
+    private final Map<K, CompletableFuture<Optional<V>>> enCours = new ConcurrentHashMap<>();
+
+    // Incrémentée à chaque invalidation : un chargement qui la voit changer n'est pas gardé
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter coalesced;
+    private final Counter evictions;
+    private final Counter invalidations;
+
+    public NearCache(String nom, int maxEntries, long ttlSeconds, MeterRegistry registry) {
+        this(nom, maxEntries, ttlSeconds, valeur -> true, registry);
+    }
+
+    public NearCache(String nom, int maxEntries, long ttlSeconds, Predicate<V> aGarder, MeterRegistry registry) {
+        this.nom = nom;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.aGarder = aGarder;
+        this.hits = compteurGets(registry, "hit");
+        this.misses = compteurGets(registry, "miss");
+        this.coalesced = compteurGets(registry, "coalesced");
+        this.evictions = Counter.builder("nearcache.evictions")
+                .description("Entrées évincées (taille ou durée de vie)")
+                .tag("cache", nom)
+                .register(registry);
+        this.invalidations = Counter.builder("nearcache.invalidations")
+                .description("Invalidations déclenchées par les écritures")
+                .tag("cache", nom)
+                .register(registry);
+        Gauge.builder("nearcache.size", entrees, Map::size)
+                .description("Nombre d'entrées en cache")
+                .tag("cache", nom)
+                .register(registry);
+    }
+
+    private Counter compteurGets(MeterRegistry registry, String resultat) {
+        return Counter.builder("nearcache.gets")
+                .description("Lectures du cache : hit, miss (requête en base) ou coalesced (attente d'un chargement en cours)")
+                .tag("cache", nom)
+                .tag("result", resultat)
+                .register(registry);
+    }
+
+    /**
+     * Renvoie la valeur en cache, ou la charge une seule fois pour tous les appelants simultanés
+     * @param cle L'ID recherché
+     * @param chargement La recherche en base, exécutée en cas de défaut de cache
+     * @return La valeur trouvée ou vide ; partagée entre appelants : ne pas la modifier
+     */
+    public Optional<V> get(K cle, Function<K, Optional<V>> chargement) {
+        Entree<V> entree = entrees.get(cle);
+        if (entree != null && !entree.isExpiree(ttlNanos)) {
+            hits.increment();
+            return Optional.of(entree.valeur);
+        }
+
+        CompletableFuture<Optional<V>> nouveau = new CompletableFuture<>();
+        CompletableFuture<Optional<V>> existant = enCours.putIfAbsent(cle, nouveau);
+        if (existant != null) {
+            coalesced.increment();
+            return attendre(existant);
+        }
+
+        misses.increment();
+        return charger(cle, nouveau, chargement);
+    }
+
+    /**
+     * Chargement par le premier appelant : le résultat est publié aux appelants en attente
+     * puis gardé s'il n'y a pas eu d'invalidation entre-temps
+     */
+    private Optional<V> charger(K cle, CompletableFuture<Optional<V>> resultat, Function<K, Optional<V>> chargement) {
+        long generationLue = generation.get();
+        try {
+            Optional<V> valeur = chargement.apply(cle);
+            if (valeur.isPresent() && aGarder.test(valeur.get()) && generation.get() == generationLue) {
+                stocker(cle, valeur.get(), generationLue);
+            }
+            resultat.complete(valeur);
+            return valeur;
+        } catch (RuntimeException | Error e) {
+            resultat.completeExceptionally(e);
+            throw e;
+        } finally {
+            enCours.remove(cle, resultat);
+        }
+    }
+
+    private void stocker(K cle, V valeur, long generationLue) {
+        purger();
+        Entree<V> entree = new Entree<>(valeur, System.nanoTime());
+        if (entrees.put(cle, entree) == null) {
+            ordre.add(cle);
+        }
+        // Une invalidation a pu passer entre la vérification et l'insertion
+        if (generation.get() != generationLue) {
+            entrees.remove(cle, entree);
+        }
+    }
+
+    /**
+     * Attend le chargement en cours d'un autre appelant pour le même ID
+     */
+    private Optional<V> attendre(CompletableFuture<Optional<V>> resultat) {
+        try {
+            return resultat.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Attente interrompue", e);
+        }
+    }
+
+    /**
+     * Évince les entrées expirées ou en surnombre, de la plus ancienne à la plus récente
+     */
+    private void purger() {
+        K cle;
+        while ((cle = ordre.peek()) != null) {
+            Entree<V> entree = entrees.get(cle);
+            boolean enSurnombre = entrees.size() >= maxEntries;
+            if (entree != null && !enSurnombre && !entree.isExpiree(ttlNanos)) {
+                break;
+            }
+            if (ordre.remove(cle) && entree != null && entrees.remove(cle, entree)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Invalide un ID : la prochaine lecture le recharge depuis la base
+     * @param cle L'ID modifié ou supprimé
+     */
+    public void invalidate(K cle) {
+        generation.incrementAndGet();
+        entrees.remove(cle);
+        enCours.remove(cle);
+        invalidations.increment();
+    }
+
+    /**
+     * Invalide toutes les entrées (modification d'une donnée embarquée dans les valeurs)
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        entrees.clear();
+        enCours.clear();
+        invalidations.increment();
+    }
+
+    /**
+     * Invalide un ID après la validation de la transaction en cours
+     * (immédiatement s'il n'y a pas de transaction)
+     * @param cle L'ID modifié ou supprimé
+     */
+    public void invalidateAfterCommit(K cle) {
+        apresCommit(() -> invalidate(cle));
+    }
+
+    /**
+     * Invalide toutes les entrées après la validation de la transaction en cours
+     * (immédiatement s'il n'y a pas de transaction)
+     */
+    public void invalidateAllAfterCommit() {
+        apresCommit(this::invalidateAll);
+    }
+
+    private static void apresCommit(Runnable invalidation) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidation.run();
+                }
+            });
+        } else {
+            invalidation.run();
+        }
+    }
+
+    public String getNom() {
+        return nom;
+    }
+
+    /**
+     * Entrée du cache : valeur et date de chargement
+     */
+    private static final class Entree<V> {
+        private final V valeur;
+        private final long chargeeA;
+
+        private Entree(V valeur, long chargeeA) {
+            this.valeur = valeur;
+            this.chargeeA = chargeeA;
+        }
+
+        private boolean isExpiree(long ttlNanos) {
+            return System.nanoTime() - chargeeA > ttlNanos;
+        }
+    }
+}
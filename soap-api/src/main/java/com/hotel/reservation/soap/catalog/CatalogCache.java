@@ -0,0 +1,159 @@
+package com.hotel.reservation.soap.catalog;
+
+import com.hotel.reservation.soap.model.Chambre;
+import com.hotel.reservation.soap.repository.ChambreRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache du catalogue des chambres, déjà encodé en XML
+ *
+ * Garde deux formes encodées du catalogue : la charge utile getChambresResponse
+ * (renvoyée par l'endpoint) et l'enveloppe SOAP complète, écrite telle quelle
+ * par CatalogSoapFilter sans passer par Spring-WS, la base ni un sérialiseur.
+ *
+ * Les chambres sont modifiées par le module REST (même base) : le catalogue est
+ * rechargé au plus tard après catalog.cache.ttl-seconds, ou immédiatement après
+ * invalidate().
+ */
+@Component
+public class CatalogCache {
+
+    /** Namespace des messages SOAP (targetNamespace du XSD) */
+    public static final String NAMESPACE_URI = "http://hotel.reservation.com/soap";
+
+    private static final String SOAP_ENV_URI = "http://schemas.xmlsoap.org/soap/envelope/";
+
+    private static final byte[] DEBUT_ENVELOPPE = ("<SOAP-ENV:Envelope xmlns:SOAP-ENV=\"" + SOAP_ENV_URI + "\">"
+            + "<SOAP-ENV:Header/><SOAP-ENV:Body>").getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] FIN_ENVELOPPE = "</SOAP-ENV:Body></SOAP-ENV:Envelope>".getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    private ChambreRepository chambreRepository;
+
+    @Value("${catalog.cache.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final ReentrantLock chargement = new ReentrantLock();
+
+    private volatile Entree entree;
+
+    /**
+     * Renvoie l'enveloppe SOAP de réponse si le catalogue est en cache
+     * @return Les octets de l'enveloppe, ou null s'il faut recharger le catalogue
+     */
+    public byte[] getEnvelopeIfPresent() {
+        Entree courante = entree;
+        return isValide(courante) ? courante.enveloppe : null;
+    }
+
+    /**
+     * Renvoie la charge utile getChambresResponse, en rechargeant le catalogue si nécessaire
+     * @return Les octets XML de la charge utile
+     */
+    public byte[] getPayload() {
+        Entree courante = entree;
+        return isValide(courante) ? courante.payload : charger().payload;
+    }
+
+    /**
+     * Invalide le catalogue : la prochaine lecture le recharge depuis la base
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        entree = null;
+    }
+
+    private Entree charger() {
+        chargement.lock();
+        try {
+            // Un autre thread a pu recharger le catalogue pendant l'attente du verrou
+            Entree courante = entree;
+            if (isValide(courante)) {
+                return courante;
+            }
+
+            long generationLue = generation.get();
+            byte[] payload = encoder(chambreRepository.findAll());
+
+            byte[] enveloppe = new byte[DEBUT_ENVELOPPE.length + payload.length + FIN_ENVELOPPE.length];
+            System.arraycopy(DEBUT_ENVELOPPE, 0, enveloppe, 0, DEBUT_ENVELOPPE.length);
+            System.arraycopy(payload, 0, enveloppe, DEBUT_ENVELOPPE.length, payload.length);
+            System.arraycopy(FIN_ENVELOPPE, 0, enveloppe, DEBUT_ENVELOPPE.length + payload.length, FIN_ENVELOPPE.length);
+
+            entree = new Entree(payload, enveloppe, generationLue, System.nanoTime());
+            return entree;
+        } finally {
+            chargement.unlock();
+        }
+    }
+
+    /**
+     * Encode les chambres en élément getChambresResponse (voir reservations.xsd)
+     */
+    private static byte[] encoder(List<Chambre> chambres) {
+        ByteArrayOutputStream sortie = new ByteArrayOutputStream(128 + chambres.size() * 128);
+        try {
+            XMLStreamWriter xml = XMLOutputFactory.newInstance().createXMLStreamWriter(sortie, "UTF-8");
+            xml.setDefaultNamespace(NAMESPACE_URI);
+            xml.writeStartElement(NAMESPACE_URI, "getChambresResponse");
+            xml.writeDefaultNamespace(NAMESPACE_URI);
+            for (Chambre chambre : chambres) {
+                xml.writeStartElement(NAMESPACE_URI, "chambre");
+                ecrire(xml, "id", chambre.getId().toString());
+                ecrire(xml, "type", chambre.getType());
+                ecrire(xml, "prix", chambre.getPrix().toPlainString());
+                ecrire(xml, "disponible", chambre.getDisponible().toString());
+                xml.writeEndElement();
+            }
+            xml.writeEndElement();
+            xml.close();
+        } catch (XMLStreamException e) {
+            throw new IllegalStateException("Impossible d'encoder le catalogue des chambres", e);
+        }
+        return sortie.toByteArray();
+    }
+
+    private static void ecrire(XMLStreamWriter xml, String element, String valeur) throws XMLStreamException {
+        xml.writeStartElement(NAMESPACE_URI, element);
+        xml.writeCharacters(valeur);
+        xml.writeEndElement();
+    }
+
+    private boolean isValide(Entree courante) {
+        return courante != null
+                && courante.generation == generation.get()
+                && System.nanoTime() - courante.chargeeA < TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    /**
+     * Catalogue encodé, avec la génération et l'instant de son chargement
+     */
+    private static final class Entree {
+        private final byte[] payload;
+        private final byte[] enveloppe;
+        private final long generation;
+        private final long chargeeA;
+
+        private Entree(byte[] payload, byte[] enveloppe, long generation, long chargeeA) {
+            this.payload = payload;
+            this.enveloppe = enveloppe;
+            this.generation = generation;
+            this.chargeeA = chargeeA;
+        }
+    }
+}
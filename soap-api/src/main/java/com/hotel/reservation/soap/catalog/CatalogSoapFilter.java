@@ -0,0 +1,174 @@
+package com.hotel.reservation.soap.catalog;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Voie rapide pour l'opération SOAP getChambres
+ *
+ * Quand le catalogue est en cache, une requête getChambresRequest reçoit directement
+ * l'enveloppe de réponse pré-encodée de CatalogCache : ni MessageDispatcherServlet,
+ * ni SAAJ, ni la base ne sont sollicités. Sinon, ou pour toute autre opération,
+ * la requête (dont le corps a été lu) continue vers Spring-WS.
+ *
+ * Seuls les petits messages SOAP 1.1 de longueur connue sont examinés.
+ */
+public class CatalogSoapFilter extends OncePerRequestFilter {
+
+    /** Taille maximale d'un corps examiné : une requête getChambres est minuscule */
+    private static final int MAX_TAILLE_CORPS = 4096;
+
+    private static final String SOAP_ENV_URI = "http://schemas.xmlsoap.org/soap/envelope/";
+
+    private static final byte[] MARQUEUR = "getChambresRequest".getBytes(StandardCharsets.US_ASCII);
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = creerXmlInputFactory();
+
+    private final CatalogCache catalogCache;
+
+    public CatalogSoapFilter(CatalogCache catalogCache) {
+        this.catalogCache = catalogCache;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return !"POST".equals(request.getMethod())
+                || contentType == null || !contentType.startsWith("text/xml")
+                || request.getContentLength() < 0 || request.getContentLength() > MAX_TAILLE_CORPS;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        byte[] corps = request.getInputStream().readNBytes(request.getContentLength());
+
+        if (contient(corps, MARQUEUR) && isDemandeCatalogue(corps)) {
+            byte[] enveloppe = catalogCache.getEnvelopeIfPresent();
+            if (enveloppe != null) {
+                response.setStatus(HttpServletResponse.SC_OK);
+                response.setContentType("text/xml;charset=UTF-8");
+                response.setContentLength(enveloppe.length);
+                response.getOutputStream().write(enveloppe);
+                return;
+            }
+        }
+
+        chain.doFilter(new CorpsDejaLu(request, corps), response);
+    }
+
+    /**
+     * Vérifie que le premier élément du Body SOAP est getChambresRequest
+     */
+    private static boolean isDemandeCatalogue(byte[] corps) {
+        try {
+            XMLStreamReader xml = XML_INPUT_FACTORY.createXMLStreamReader(new ByteArrayInputStream(corps));
+            try {
+                boolean dansBody = false;
+                while (xml.hasNext()) {
+                    if (xml.next() != XMLStreamConstants.START_ELEMENT) {
+                        continue;
+                    }
+                    if (dansBody) {
+                        return CatalogCache.NAMESPACE_URI.equals(xml.getNamespaceURI())
+                                && "getChambresRequest".equals(xml.getLocalName());
+                    }
+                    dansBody = SOAP_ENV_URI.equals(xml.getNamespaceURI()) && "Body".equals(xml.getLocalName());
+                }
+                return false;
+            } finally {
+                xml.close();
+            }
+        } catch (XMLStreamException e) {
+            // Message mal formé : Spring-WS produira la faute SOAP habituelle
+            return false;
+        }
+    }
+
+    private static boolean contient(byte[] corps, byte[] motif) {
+        for (int i = 0; i <= corps.length - motif.length; i++) {
+            int j = 0;
+            while (j < motif.length && corps[i + j] == motif[j]) {
+                j++;
+            }
+            if (j == motif.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static XMLInputFactory creerXmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    /**
+     * Requête dont le corps, déjà lu par le filtre, est relu depuis la mémoire
+     */
+    private static final class CorpsDejaLu extends HttpServletRequestWrapper {
+
+        private final byte[] corps;
+
+        private CorpsDejaLu(HttpServletRequest request, byte[] corps) {
+            super(request);
+            this.corps = corps;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream entree = new ByteArrayInputStream(corps);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return entree.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return entree.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return entree.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException("Lecture asynchrone non supportée");
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encodage = getCharacterEncoding() != null ? getCharacterEncoding() : StandardCharsets.UTF_8.name();
+            return new BufferedReader(new InputStreamReader(getInputStream(), Charset.forName(encodage)));
+        }
+    }
+}
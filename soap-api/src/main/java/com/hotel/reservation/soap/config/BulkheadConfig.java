@@ -0,0 +1,43 @@
+package com.hotel.reservation.soap.config;
+
+import com.hotel.reservation.soap.bulkhead.Bulkhead;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration des cloisons d'exécution de l'endpoint SOAP
+ *
+ * Les lectures et les écritures s'exécutent sur deux pools séparés et bornés :
+ * une rafale de createReservation ne peut plus bloquer tous les threads Tomcat
+ * et priver les lectures de capacité. En mode threads virtuels, les mêmes tailles
+ * bornent les tâches par sémaphore au lieu d'un pool plateforme.
+ */
+@Configuration
+public class BulkheadConfig {
+
+    /**
+     * Cloison des lectures (getReservation, getReservations)
+     */
+    @Bean(destroyMethod = "shutdown")
+    public Bulkhead readBulkhead(@Value("${bulkhead.reads.threads:16}") int threads,
+                                 @Value("${bulkhead.reads.queue-capacity:500}") int queueCapacity,
+                                 @Value("${bulkhead.timeout-ms:30000}") long timeoutMs,
+                                 @Value("${" + VirtualThreads.ENABLED_PROPERTY + ":false}") boolean virtuel,
+                                 MeterRegistry registry) {
+        return new Bulkhead("reads", threads, queueCapacity, timeoutMs, virtuel, registry);
+    }
+
+    /**
+     * Cloison des écritures (createReservation, deleteReservation)
+     */
+    @Bean(destroyMethod = "shutdown")
+    public Bulkhead writeBulkhead(@Value("${bulkhead.writes.threads:4}") int threads,
+                                  @Value("${bulkhead.writes.queue-capacity:100}") int queueCapacity,
+                                  @Value("${bulkhead.timeout-ms:30000}") long timeoutMs,
+                                  @Value("${" + VirtualThreads.ENABLED_PROPERTY + ":false}") boolean virtuel,
+                                  MeterRegistry registry) {
+        return new Bulkhead("writes", threads, queueCapacity, timeoutMs, virtuel, registry);
+    }
+}
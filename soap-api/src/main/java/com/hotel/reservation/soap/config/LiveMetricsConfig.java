@@ -0,0 +1,37 @@
+package com.hotel.reservation.soap.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotel.reservation.soap.live.LiveMetrics;
+import com.hotel.reservation.soap.live.LiveMetricsFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Configuration des métriques en direct (GET /metrics/live)
+ *
+ * Le filtre de mesure est le premier de la chaîne sur /ws, avant le limiteur.
+ */
+@Configuration
+public class LiveMetricsConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public LiveMetrics liveMetrics(@Value("${live-metrics.window-seconds:5}") int windowSeconds,
+                                   @Value("${live-metrics.max-subscribers:16}") int maxSubscribers,
+                                   @Value("${live-metrics.subscription-timeout-ms:1800000}") long subscriptionTimeoutMs,
+                                   MeterRegistry registry,
+                                   ObjectMapper objectMapper) {
+        return new LiveMetrics("soap", windowSeconds, maxSubscribers, subscriptionTimeoutMs, registry, objectMapper);
+    }
+
+    @Bean
+    public FilterRegistrationBean<LiveMetricsFilter> liveMetricsFilter(LiveMetrics liveMetrics) {
+        FilterRegistrationBean<LiveMetricsFilter> registration = new FilterRegistrationBean<>(new LiveMetricsFilter(liveMetrics));
+        registration.addUrlPatterns("/ws", "/ws/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
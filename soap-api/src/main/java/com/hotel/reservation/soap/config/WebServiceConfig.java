@@ -1,5 +1,8 @@
 package com.hotel.reservation.soap.config;
 
+import com.hotel.reservation.soap.catalog.CatalogCache;
+import com.hotel.reservation.soap.catalog.CatalogSoapFilter;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.boot.web.servlet.ServletRegistrationBean;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
@@ -32,6 +35,16 @@ public class WebServiceConfig {
         return new ServletRegistrationBean<>(servlet, "/ws/*");
     }
 
+    /**
+     * Voie rapide de getChambres : réponse pré-encodée servie avant le MessageDispatcherServlet
+     */
+    @Bean
+    public FilterRegistrationBean<CatalogSoapFilter> catalogSoapFilter(CatalogCache catalogCache) {
+        FilterRegistrationBean<CatalogSoapFilter> registration = new FilterRegistrationBean<>(new CatalogSoapFilter(catalogCache));
+        registration.addUrlPatterns("/ws", "/ws/*");
+        return registration;
+    }
+
     /**
      * Définition WSDL pour le service de réservation
      * WSDL accessible à : http://localhost:8082/ws/reservations.wsdl
@@ -0,0 +1,17 @@
+package com.hotel.reservation.soap.endpoint;
+
+import org.springframework.ws.soap.server.endpoint.annotation.FaultCode;
+import org.springframework.ws.soap.server.endpoint.annotation.SoapFault;
+
+/**
+ * Réservation refusée : chambre hors service ou date de fin non postérieure à la date de début
+ *
+ * Convertie en faute SOAP Client : la demande elle-même est invalide.
+ */
+@SoapFault(faultCode = FaultCode.CLIENT)
+public class InvalidReservationException extends IllegalArgumentException {
+
+    public InvalidReservationException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,177 @@
+package com.hotel.reservation.soap.endpoint;
+
+import com.hotel.reservation.soap.bulkhead.Bulkhead;
+import com.hotel.reservation.soap.cache.NearCache;
+import com.hotel.reservation.soap.endpoint.ReservationEndpoint.ReservationType;
+import com.hotel.reservation.soap.payload.PreferencesCodec;
+import com.hotel.reservation.soap.repository.ReservationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.mime.Attachment;
+import org.springframework.ws.server.endpoint.annotation.Endpoint;
+import org.springframework.ws.server.endpoint.annotation.PayloadRoot;
+import org.springframework.ws.server.endpoint.annotation.RequestPayload;
+import org.springframework.ws.soap.SoapMessage;
+import org.springframework.xml.transform.StringSource;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Endpoint SOAP des préférences volumineuses, transmises en pièce jointe (style MTOM)
+ *
+ * L'élément preferences (xs:base64Binary) ne contient qu'un xop:Include dont l'attribut
+ * href (cid:...) désigne une partie MIME du message multipart/related : le contenu ne
+ * passe pas dans l'arbre XML.
+ *
+ * - getPreferences : la pièce jointe de la réponse est décompressée au fil de l'écriture ;
+ * - setPreferences : la pièce jointe de la requête (ou, à défaut, le contenu base64 en
+ *   ligne) est compressée au fil de la lecture, seule sa forme compressée est gardée.
+ *
+ * Namespace : http://hotel.reservation.com/soap
+ */
+@Endpoint
+public class PreferencesEndpoint {
+
+    private static final String NAMESPACE_URI = "http://hotel.reservation.com/soap";
+
+    private static final String XOP_URI = "http://www.w3.org/2004/08/xop/include";
+
+    private static final String TYPE_PREFERENCES = "application/json";
+
+    private static final TransformerFactory TRANSFORMER_FACTORY = TransformerFactory.newInstance();
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private NearCache<Long, ReservationType> reservationCache;
+
+    @Autowired
+    @Qualifier("readBulkhead")
+    private Bulkhead readBulkhead;
+
+    @Autowired
+    @Qualifier("writeBulkhead")
+    private Bulkhead writeBulkhead;
+
+    @Value("${payload.preferences.max-bytes:1048576}")
+    private long maxPreferencesBytes;
+
+    /**
+     * Récupère les préférences d'une réservation en pièce jointe
+     * SOAP Action: getPreferences
+     */
+    @PayloadRoot(namespace = NAMESPACE_URI, localPart = "getPreferencesRequest")
+    public void getPreferences(@RequestPayload Element requete, MessageContext messageContext) {
+        long id = lireId(requete);
+        String stockee = readBulkhead.call(() -> {
+            Optional<String> preferences = reservationRepository.findStoredPreferencesById(id);
+            if (preferences.isEmpty() && !reservationRepository.existsById(id)) {
+                throw new RuntimeException("Réservation non trouvée");
+            }
+            return preferences.orElse(null);
+        });
+
+        SoapMessage reponse = (SoapMessage) messageContext.getResponse();
+        StringBuilder payload = new StringBuilder()
+                .append("<getPreferencesResponse xmlns=\"").append(NAMESPACE_URI).append("\">")
+                .append("<id>").append(id).append("</id>");
+        if (stockee != null) {
+            String contentId = "preferences-" + id + "@hotel.reservation.com";
+            // Source relue à chaque écriture : décompression au fil de l'eau, sans tampon en clair
+            reponse.addAttachment(contentId, () -> PreferencesCodec.openDecoded(stockee), TYPE_PREFERENCES);
+            payload.append("<preferences><xop:Include xmlns:xop=\"").append(XOP_URI)
+                    .append("\" href=\"cid:").append(contentId).append("\"/></preferences>");
+        }
+        payload.append("</getPreferencesResponse>");
+        ecrirePayload(reponse, payload.toString());
+    }
+
+    /**
+     * Remplace les préférences d'une réservation à partir d'une pièce jointe
+     * SOAP Action: setPreferences
+     */
+    @PayloadRoot(namespace = NAMESPACE_URI, localPart = "setPreferencesRequest")
+    public void setPreferences(@RequestPayload Element requete, MessageContext messageContext) throws IOException {
+        long id = lireId(requete);
+        Element preferences = premierEnfant(requete, NAMESPACE_URI, "preferences");
+        if (preferences == null) {
+            throw new IllegalArgumentException("Élément preferences manquant");
+        }
+
+        String stockee;
+        try (InputStream contenu = ouvrirContenu(preferences, (SoapMessage) messageContext.getRequest())) {
+            stockee = PreferencesCodec.encode(contenu, maxPreferencesBytes);
+        }
+
+        writeBulkhead.call(() -> {
+            if (reservationRepository.updateStoredPreferences(id, stockee) == 0) {
+                throw new RuntimeException("Réservation non trouvée");
+            }
+            reservationCache.invalidate(id);
+            return null;
+        });
+
+        ecrirePayload((SoapMessage) messageContext.getResponse(),
+                "<setPreferencesResponse xmlns=\"" + NAMESPACE_URI + "\"><status>SUCCESS</status></setPreferencesResponse>");
+    }
+
+    /**
+     * Ouvre le contenu de l'élément preferences : pièce jointe désignée par xop:Include,
+     * ou contenu base64 en ligne (message non optimisé)
+     */
+    private InputStream ouvrirContenu(Element preferences, SoapMessage requete) throws IOException {
+        Element include = premierEnfant(preferences, XOP_URI, "Include");
+        if (include == null) {
+            byte[] base64 = preferences.getTextContent().strip().getBytes(StandardCharsets.US_ASCII);
+            return Base64.getMimeDecoder().wrap(new ByteArrayInputStream(base64));
+        }
+
+        String href = include.getAttribute("href");
+        if (!href.startsWith("cid:")) {
+            throw new IllegalArgumentException("Référence de pièce jointe invalide : " + href);
+        }
+        String contentId = URLDecoder.decode(href.substring("cid:".length()), StandardCharsets.UTF_8);
+        Attachment piece = requete.getAttachment("<" + contentId + ">");
+        if (piece == null) {
+            piece = requete.getAttachment(contentId);
+        }
+        if (piece == null) {
+            throw new IllegalArgumentException("Pièce jointe non trouvée : " + contentId);
+        }
+        return piece.getInputStream();
+    }
+
+    private static long lireId(Element requete) {
+        Element id = premierEnfant(requete, NAMESPACE_URI, "id");
+        if (id == null) {
+            throw new IllegalArgumentException("Élément id manquant");
+        }
+        return Long.parseLong(id.getTextContent().strip());
+    }
+
+    private static Element premierEnfant(Element parent, String namespace, String nom) {
+        NodeList enfants = parent.getElementsByTagNameNS(namespace, nom);
+        return enfants.getLength() > 0 ? (Element) enfants.item(0) : null;
+    }
+
+    private static void ecrirePayload(SoapMessage reponse, String payload) {
+        try {
+            TRANSFORMER_FACTORY.newTransformer().transform(new StringSource(payload), reponse.getPayloadResult());
+        } catch (TransformerException e) {
+            throw new RuntimeException("Impossible d'écrire la réponse SOAP", e);
+        }
+    }
+}
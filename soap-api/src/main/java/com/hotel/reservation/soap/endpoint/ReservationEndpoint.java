@@ -1,25 +1,55 @@
 package com.hotel.reservation.soap.endpoint;
 
+import com.hotel.reservation.soap.admission.RoomAdmission;
+import com.hotel.reservation.soap.assignment.RoomAssignment;
+import com.hotel.reservation.soap.availability.AvailabilityIndex;
+import com.hotel.reservation.soap.bulkhead.Bulkhead;
+import com.hotel.reservation.soap.cache.NearCache;
+import com.hotel.reservation.soap.catalog.CatalogCache;
+import com.hotel.reservation.soap.group.GroupBooking;
+import com.hotel.reservation.soap.hold.HoldExpiredException;
+import com.hotel.reservation.soap.hold.HoldManager;
+import com.hotel.reservation.soap.idempotency.IdempotencyStore;
+import com.hotel.reservation.soap.inventory.DailyInventory;
+import com.hotel.reservation.soap.inventory.OccupancyViews;
 import com.hotel.reservation.soap.model.Client;
 import com.hotel.reservation.soap.model.Chambre;
 import com.hotel.reservation.soap.model.Reservation;
+import com.hotel.reservation.soap.pricing.RateCache;
 import com.hotel.reservation.soap.repository.ClientRepository;
 import com.hotel.reservation.soap.repository.ChambreRepository;
 import com.hotel.reservation.soap.repository.ReservationRepository;
+import com.hotel.reservation.soap.stats.ReservationCounters;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.ws.server.endpoint.annotation.Endpoint;
 import org.springframework.ws.server.endpoint.annotation.PayloadRoot;
 import org.springframework.ws.server.endpoint.annotation.RequestPayload;
 import org.springframework.ws.server.endpoint.annotation.ResponsePayload;
+import org.springframework.ws.transport.context.TransportContext;
+import org.springframework.ws.transport.context.TransportContextHolder;
+import org.springframework.ws.transport.http.HttpServletConnection;
 
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
  * Endpoint SOAP pour les opérations de réservation
  * 
- * Ce endpoint expose les opérations CRUD via SOAP
+ * Ce endpoint expose les opérations CRUD via SOAP.
+ * Les lectures et les écritures s'exécutent sur deux cloisons bornées séparées.
  * Namespace : http://hotel.reservation.com/soap
  */
 @Endpoint
@@ -27,6 +57,9 @@ public class ReservationEndpoint {
 
     private static final String NAMESPACE_URI = "http://hotel.reservation.com/soap";
 
+    /** Nombre maximal d'IDs acceptés par getReservations (maxOccurs du XSD) */
+    private static final int MAX_IDS_PAR_REQUETE = 500;
+
     @Autowired
     private ClientRepository clientRepository;
 
@@ -36,47 +69,450 @@ public class ReservationEndpoint {
     @Autowired
     private ReservationRepository reservationRepository;
 
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private NearCache<Long, ReservationType> reservationCache;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private RoomAdmission roomAdmission;
+
+    @Autowired
+    private HoldManager holdManager;
+
+    @Autowired
+    private GroupBooking groupBooking;
+
+    @Autowired
+    private RoomAssignment roomAssignment;
+
+    @Autowired
+    private RateCache rateCache;
+
+    @Autowired
+    private DailyInventory dailyInventory;
+
+    @Autowired
+    private ReservationCounters reservationCounters;
+
+    @Autowired
+    private OccupancyViews occupancyViews;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    @Qualifier("readBulkhead")
+    private Bulkhead readBulkhead;
+
+    @Autowired
+    @Qualifier("writeBulkhead")
+    private Bulkhead writeBulkhead;
+
     /**
      * Récupère une réservation par son ID
      * SOAP Action: getReservation
+     * 
+     * Le type SOAP déjà converti est servi par le cache local : les appels simultanés
+     * pour un même ID absent du cache ne déclenchent qu'une requête.
      */
     @PayloadRoot(namespace = NAMESPACE_URI, localPart = "getReservationRequest")
     @ResponsePayload
     public GetReservationResponse getReservation(@RequestPayload GetReservationRequest request) {
-        GetReservationResponse response = new GetReservationResponse();
-        
-        Optional<Reservation> reservation = reservationRepository.findById(request.getId());
-        if (reservation.isPresent()) {
-            Reservation res = reservation.get();
-            ReservationType resType = new ReservationType();
-            resType.setId(res.getId());
-            resType.setClientId(res.getClient().getId());
-            resType.setChambreId(res.getChambre().getId());
-            resType.setDateDebut(res.getDateDebut().toString());
-            resType.setDateFin(res.getDateFin().toString());
-            resType.setPreferences(res.getPreferences());
-            response.setReservation(resType);
+        return readBulkhead.call(() -> {
+            GetReservationResponse response = new GetReservationResponse();
+            
+            Optional<ReservationType> reservation = reservationCache.get(request.getId(),
+                    id -> reservationRepository.findById(id).map(this::convertToType));
+            reservation.ifPresent(response::setReservation);
+            
+            return response;
+        });
+    }
+
+    /**
+     * Récupère plusieurs réservations par leurs IDs en une seule requête IN
+     * SOAP Action: getReservations
+     */
+    @PayloadRoot(namespace = NAMESPACE_URI, localPart = "getReservationsRequest")
+    @ResponsePayload
+    public GetReservationsResponse getReservations(@RequestPayload GetReservationsRequest request) {
+        List<Long> ids = request.getId();
+        if (ids.size() > MAX_IDS_PAR_REQUETE) {
+            throw new IllegalArgumentException("Trop d'IDs demandés (maximum " + MAX_IDS_PAR_REQUETE + ")");
+        }
+
+        return readBulkhead.call(() -> {
+            GetReservationsResponse response = new GetReservationsResponse();
+
+            Map<Long, Reservation> parId = new HashMap<>();
+            for (Reservation reservation : reservationRepository.findAllById(new LinkedHashSet<>(ids))) {
+                parId.put(reservation.getId(), reservation);
+            }
+
+            for (Long id : ids) {
+                ReservationResult result = new ReservationResult();
+                result.setId(id);
+                Reservation reservation = parId.get(id);
+                result.setFound(reservation != null);
+                if (reservation != null) {
+                    result.setReservation(convertToType(reservation));
+                }
+                response.getResult().add(result);
+            }
+            
+            return response;
+        });
+    }
+
+    /**
+     * Récupère le catalogue des chambres
+     * SOAP Action: getChambres
+     * 
+     * La charge utile est déjà encodée par CatalogCache. Quand elle est en cache,
+     * CatalogSoapFilter répond avant même d'atteindre cet endpoint.
+     */
+    @PayloadRoot(namespace = NAMESPACE_URI, localPart = "getChambresRequest")
+    @ResponsePayload
+    public Source getChambres() {
+        byte[] payload = readBulkhead.call(catalogCache::getPayload);
+        return new StreamSource(new ByteArrayInputStream(payload));
+    }
+
+    /**
+     * Recherche les chambres libres sur une période
+     * SOAP Action: getChambresDisponibles
+     * 
+     * Une fois l'index des disponibilités construit, la recherche se fait en mémoire,
+     * sans passer par la cloison ni la base. Période invalide (dates manquantes, fin
+     * avant début, début passé) : faute SOAP.
+     */
+    @PayloadRoot(namespace = NAMESPACE_URI, localPart = "getChambresDisponiblesRequest")
+    @ResponsePayload
+    public GetChambresDisponiblesResponse getChambresDisponibles(@RequestPayload GetChambresDisponiblesRequest request) {
+        LocalDate dateDebut = LocalDate.parse(request.getDateDebut());
+        LocalDate dateFin = LocalDate.parse(request.getDateFin());
+        if (availabilityIndex.isReady()) {
+            return chambresDisponibles(request.getType(), dateDebut, dateFin);
+        }
+        return readBulkhead.call(() -> chambresDisponibles(request.getType(), dateDebut, dateFin));
+    }
+
+    private GetChambresDisponiblesResponse chambresDisponibles(String type, LocalDate dateDebut, LocalDate dateFin) {
+        GetChambresDisponiblesResponse response = new GetChambresDisponiblesResponse();
+        for (Chambre chambre : availabilityIndex.search(type, dateDebut, dateFin)) {
+            ChambreType chambreType = new ChambreType();
+            chambreType.setId(chambre.getId());
+            chambreType.setType(chambre.getType());
+            chambreType.setPrix(chambre.getPrix());
+            chambreType.setDisponible(chambre.getDisponible());
+            response.getChambre().add(chambreType);
+        }
+        return response;
+    }
+
+    /**
+     * Calcule le prix d'un séjour dans une chambre, ou « à partir de » dans la chambre
+     * la moins chère d'un type (sans chambreId)
+     * SOAP Action: getDevis
+     * 
+     * Une fois les grilles tarifaires chargées, le devis est calculé en mémoire (RateCache),
+     * sans passer par la cloison ni la base. Période invalide ou hors de l'horizon des tarifs,
+     * chambre ou type inconnu : faute SOAP.
+     */
+    @PayloadRoot(namespace = NAMESPACE_URI, localPart = "getDevisRequest")
+    @ResponsePayload
+    public GetDevisResponse getDevis(@RequestPayload GetDevisRequest request) {
+        LocalDate dateDebut = LocalDate.parse(request.getDateDebut());
+        LocalDate dateFin = LocalDate.parse(request.getDateFin());
+        if (rateCache.isReady()) {
+            return devis(request.getChambreId(), request.getType(), dateDebut, dateFin);
+        }
+        return readBulkhead.call(() -> devis(request.getChambreId(), request.getType(), dateDebut, dateFin));
+    }
+
+    private GetDevisResponse devis(Long chambreId, String type, LocalDate dateDebut, LocalDate dateFin) {
+        RateCache.Devis devis = chambreId != null
+                ? rateCache.quoteRoom(chambreId, dateDebut, dateFin)
+                : rateCache.quoteType(type, dateDebut, dateFin);
+        GetDevisResponse response = new GetDevisResponse();
+        response.setChambreId(devis.getChambreId());
+        response.setType(devis.getType());
+        response.setDateDebut(devis.getDateDebut().toString());
+        response.setDateFin(devis.getDateFin().toString());
+        response.setNuits(devis.getNuits());
+        response.setTotal(devis.getTotal());
+        return response;
+    }
+
+    /**
+     * Chambres vendues d'un type pour chaque nuit d'une période
+     * SOAP Action: getInventaire
+     * 
+     * Lu sur le miroir de l'inventaire journalier (un compteur par nuit), sans passer par la
+     * cloison ni la base. disponible indique qu'une chambre du type reste libre chaque nuit.
+     * Période invalide ou hors de l'horizon, type inconnu, miroir en cours de chargement : faute SOAP.
+     */
+    @PayloadRoot(namespace = NAMESPACE_URI, localPart = "getInventaireRequest")
+    @ResponsePayload
+    public GetInventaireResponse getInventaire(@RequestPayload GetInventaireRequest request) {
+        DailyInventory.Inventaire inventaire = dailyInventory.inventory(request.getType(),
+                LocalDate.parse(request.getDateDebut()), LocalDate.parse(request.getDateFin()));
+        GetInventaireResponse response = new GetInventaireResponse();
+        response.setType(inventaire.getType());
+        response.setDateDebut(inventaire.getDateDebut().toString());
+        response.setDateFin(inventaire.getDateFin().toString());
+        response.setCapacite(inventaire.getCapacite());
+        response.setLibres(inventaire.getLibres());
+        response.setDisponible(inventaire.isDisponible());
+        response.setVendues(inventaire.getVendues());
+        return response;
+    }
+
+    /**
+     * Taux d'occupation et revenu par jour, semaine ou mois, d'un type de chambre ou de tous
+     * SOAP Action: getOccupation
+     * 
+     * Lu sur les vues tenues à jour en mémoire à chaque réservation, sans passer par la cloison
+     * ni la base. Période ou granularité invalide, type inconnu, vues en cours de chargement : faute SOAP.
+     */
+    @PayloadRoot(namespace = NAMESPACE_URI, localPart = "getOccupationRequest")
+    @ResponsePayload
+    public GetOccupationResponse getOccupation(@RequestPayload GetOccupationRequest request) {
+        OccupancyViews.Vue vue = occupancyViews.occupancy(request.getType(), request.getGranularite(),
+                LocalDate.parse(request.getDateDebut()), LocalDate.parse(request.getDateFin()));
+        GetOccupationResponse response = new GetOccupationResponse();
+        response.setType(vue.getType());
+        response.setGranularite(vue.getGranularite());
+        response.setDateDebut(vue.getDateDebut().toString());
+        response.setDateFin(vue.getDateFin().toString());
+        for (OccupancyViews.Periode periode : vue.getPeriodes()) {
+            PeriodeType periodeType = new PeriodeType();
+            periodeType.setDateDebut(periode.getDateDebut().toString());
+            periodeType.setDateFin(periode.getDateFin().toString());
+            periodeType.setNuits(periode.getNuits());
+            periodeType.setCapacite(periode.getCapacite());
+            periodeType.setVendues(periode.getVendues());
+            periodeType.setTaux(periode.getTaux());
+            periodeType.setRevenu(periode.getRevenu());
+            response.getPeriode().add(periodeType);
         }
-        
+        return response;
+    }
+
+    /**
+     * Nombre de réservations par statut, et de réservations non annulées par type de chambre
+     * SOAP Action: getReservationStats
+     * 
+     * Lu sur les compteurs en mémoire, sans passer par la cloison ni la base. Compteurs en cours
+     * de chargement : faute SOAP.
+     */
+    @PayloadRoot(namespace = NAMESPACE_URI, localPart = "getReservationStatsRequest")
+    @ResponsePayload
+    public GetReservationStatsResponse getReservationStats() {
+        ReservationCounters.Statistiques stats = reservationCounters.stats();
+        GetReservationStatsResponse response = new GetReservationStatsResponse();
+        response.setTotal(stats.getTotal());
+        stats.getParStatut().forEach(c -> response.getStatut().add(new CompteurType(c.getCle(), c.getNombre())));
+        stats.getParType().forEach(c -> response.getType().add(new CompteurType(c.getCle(), c.getNombre())));
+        response.setRechargeLe(stats.getRechargeLe().toString());
         return response;
     }
 
     /**
      * Crée une nouvelle réservation
      * SOAP Action: createReservation
+     * 
+     * Avec l'en-tête HTTP Idempotency-Key, une nouvelle tentative portant la même
+     * clé renvoie la réservation créée la première fois sans en créer une autre. La même
+     * clé envoyée avec une autre réservation est refusée par une faute Client.
+     * 
+     * Les créations d'une même chambre passent une par une (RoomAdmission) ; une période
+     * qui chevauche une réservation non annulée de la chambre est refusée par une faute Client,
+     * comme une chambre hors service ou une date de fin non postérieure à la date de début.
      */
     @PayloadRoot(namespace = NAMESPACE_URI, localPart = "createReservationRequest")
     @ResponsePayload
     public CreateReservationResponse createReservation(@RequestPayload CreateReservationRequest request) {
-        CreateReservationResponse response = new CreateReservationResponse();
+        ReservationType resType = request.getReservation();
+        
+        // Lu sur le thread Tomcat : le contexte de transport n'est pas visible depuis la cloison
+        String idempotencyKey = idempotencyKeyFromRequest();
+        if (idempotencyKey != null && !IdempotencyStore.isValidKey(idempotencyKey)) {
+            throw new IllegalArgumentException("Clé d'idempotence invalide");
+        }
+        
+        return writeBulkhead.call(() -> {
+            Reservation saved;
+            if (idempotencyKey == null) {
+                saved = roomAdmission.admit(resType.getChambreId(),
+                        () -> transactionTemplate.execute(status -> creerReservation(resType, "CONFIRMEE")));
+            } else {
+                String empreinte = IdempotencyStore.empreinte(resType.getClientId(), resType.getChambreId(),
+                        LocalDate.parse(resType.getDateDebut()), LocalDate.parse(resType.getDateFin()),
+                        "CONFIRMEE", resType.getPreferences());
+                // Verrou de la chambre pris seulement pour créer : une nouvelle tentative rejoint la création en cours
+                Long id = idempotencyStore.execute(idempotencyKey, empreinte,
+                        enregistrement -> roomAdmission.admit(resType.getChambreId(), enregistrement),
+                        () -> creerReservation(resType, "CONFIRMEE").getId());
+                saved = reservationRepository.findById(id)
+                        .orElseThrow(() -> new RuntimeException("Réservation non trouvée"));
+            }
+            
+            CreateReservationResponse response = new CreateReservationResponse();
+            response.setReservation(convertToType(saved));
+            return response;
+        });
+    }
+
+    /**
+     * Réserve plusieurs chambres et séjours en une seule transaction : tous ou aucun
+     * SOAP Action: createGroupReservation
+     * 
+     * Les chambres sont verrouillées dans l'ordre croissant de leurs IDs et les réservations
+     * insérées en un seul lot (GroupBooking). Un groupe refusé donne une faute Client qui liste
+     * les chambres en conflit ou hors service.
+     */
+    @PayloadRoot(namespace = NAMESPACE_URI, localPart = "createGroupReservationRequest")
+    @ResponsePayload
+    public CreateGroupReservationResponse createGroupReservation(@RequestPayload CreateGroupReservationRequest request) {
+        List<GroupBooking.Ligne> lignes = new ArrayList<>();
+        for (GroupSejourType sejour : request.getSejour()) {
+            lignes.add(new GroupBooking.Ligne(sejour.getChambreId(),
+                    sejour.getDateDebut() != null ? LocalDate.parse(sejour.getDateDebut()) : null,
+                    sejour.getDateFin() != null ? LocalDate.parse(sejour.getDateFin()) : null));
+        }
+        
+        return writeBulkhead.call(() -> {
+            CreateGroupReservationResponse response = new CreateGroupReservationResponse();
+            for (GroupBooking.Ligne ligne : groupBooking.book(request.getClientId(), lignes)) {
+                GroupSejourType sejour = new GroupSejourType();
+                sejour.setChambreId(ligne.getChambreId());
+                sejour.setDateDebut(ligne.getDateDebut().toString());
+                sejour.setDateFin(ligne.getDateFin().toString());
+                sejour.setReservationId(ligne.getReservationId());
+                sejour.setResultat(ligne.getResultat());
+                response.getSejour().add(sejour);
+            }
+            return response;
+        });
+    }
+
+    /**
+     * Réserve une chambre d'un type donné : le module choisit la chambre
+     * SOAP Action: createReservationByType
+     * 
+     * La chambre retenue est la mieux ajustée au calendrier parmi les chambres libres du type
+     * (RoomAssignment) : celle qui laisse le moins de nuits isolées invendables. Si aucune
+     * chambre du type n'est libre, la demande est refusée par une faute Client.
+     */
+    @PayloadRoot(namespace = NAMESPACE_URI, localPart = "createReservationByTypeRequest")
+    @ResponsePayload
+    public CreateReservationByTypeResponse createReservationByType(@RequestPayload CreateReservationByTypeRequest request) {
+        LocalDate dateDebut = request.getDateDebut() != null ? LocalDate.parse(request.getDateDebut()) : null;
+        LocalDate dateFin = request.getDateFin() != null ? LocalDate.parse(request.getDateFin()) : null;
         
+        return writeBulkhead.call(() -> {
+            Reservation saved = roomAssignment.assign(request.getType(), dateDebut, dateFin, chambreId -> {
+                ReservationType resType = new ReservationType();
+                resType.setClientId(request.getClientId());
+                resType.setChambreId(chambreId);
+                resType.setDateDebut(request.getDateDebut());
+                resType.setDateFin(request.getDateFin());
+                resType.setPreferences(request.getPreferences());
+                return transactionTemplate.execute(status -> creerReservation(resType, "CONFIRMEE"));
+            });
+            
+            CreateReservationByTypeResponse response = new CreateReservationByTypeResponse();
+            response.setReservation(convertToType(saved));
+            return response;
+        });
+    }
+
+    /**
+     * Pose une option : la chambre est bloquée jusqu'à l'échéance (hold.ttl-minutes)
+     * SOAP Action: placeHold
+     * 
+     * L'option expire (statut ANNULEE) si elle n'est pas confirmée par confirmHold avant expiresAt.
+     */
+    @PayloadRoot(namespace = NAMESPACE_URI, localPart = "placeHoldRequest")
+    @ResponsePayload
+    public PlaceHoldResponse placeHold(@RequestPayload PlaceHoldRequest request) {
         ReservationType resType = request.getReservation();
+        
+        return writeBulkhead.call(() -> {
+            Reservation saved = roomAdmission.admit(resType.getChambreId(),
+                    () -> transactionTemplate.execute(status -> creerReservation(resType, HoldManager.EN_ATTENTE)));
+            
+            PlaceHoldResponse response = new PlaceHoldResponse();
+            response.setReservation(convertToType(saved));
+            return response;
+        });
+    }
+
+    /**
+     * Confirme une option avant son échéance
+     * SOAP Action: confirmHold
+     * 
+     * La ligne est verrouillée : l'expiration de l'option passe avant ou après, jamais
+     * pendant. Une option expirée ou annulée est refusée par une faute Client.
+     */
+    @PayloadRoot(namespace = NAMESPACE_URI, localPart = "confirmHoldRequest")
+    @ResponsePayload
+    public ConfirmHoldResponse confirmHold(@RequestPayload ConfirmHoldRequest request) {
+        return writeBulkhead.call(() -> {
+            Reservation confirmee = transactionTemplate.execute(status -> {
+                Reservation reservation = reservationRepository.findByIdForUpdate(request.getId())
+                        .orElseThrow(() -> new RuntimeException("Réservation non trouvée"));
+                if ("CONFIRMEE".equals(reservation.getStatut())) {
+                    return reservation;
+                }
+                if (!HoldManager.EN_ATTENTE.equals(reservation.getStatut()) || reservation.getExpiresAt() == null
+                        || !reservation.getExpiresAt().isAfter(LocalDateTime.now())) {
+                    throw new HoldExpiredException("L'option a expiré ou a été annulée");
+                }
+                reservationCache.invalidateAfterCommit(reservation.getId());
+                // Mêmes nuits vendues ; le séjour entre dans le revenu
+                dailyInventory.release(reservation);
+                reservationCounters.remove(reservation);
+                reservation.setStatut("CONFIRMEE");
+                dailyInventory.sell(reservation);
+                reservationCounters.add(reservation);
+                reservation.setExpiresAt(null);
+                holdManager.untrackAfterCommit(reservation.getId(), true);
+                return reservation;
+            });
+            
+            ConfirmHoldResponse response = new ConfirmHoldResponse();
+            response.setReservation(convertToType(confirmee));
+            return response;
+        });
+    }
+
+    /**
+     * Crée la réservation dans la transaction courante
+     * 
+     * La ligne de la chambre est verrouillée jusqu'au commit avant la recherche de
+     * chevauchement : deux créations simultanées sur la même chambre, dans ce module
+     * ou dans un autre, ne peuvent pas réserver les mêmes nuits.
+     * 
+     * @param statut CONFIRMEE, ou EN_ATTENTE pour une option dont l'échéance est fixée ici
+     * @throws InvalidReservationException si la chambre est hors service ou si la date de fin n'est pas postérieure à la date de début
+     */
+    private Reservation creerReservation(ReservationType resType, String statut) {
         Reservation reservation = new Reservation();
         
         Client client = clientRepository.findById(resType.getClientId())
                 .orElseThrow(() -> new RuntimeException("Client non trouvé"));
         
-        Chambre chambre = chambreRepository.findById(resType.getChambreId())
+        Chambre chambre = chambreRepository.findByIdForUpdate(resType.getChambreId())
                 .orElseThrow(() -> new RuntimeException("Chambre non trouvée"));
         
         reservation.setClient(client);
@@ -84,19 +520,42 @@ public class ReservationEndpoint {
         reservation.setDateDebut(LocalDate.parse(resType.getDateDebut()));
         reservation.setDateFin(LocalDate.parse(resType.getDateFin()));
         reservation.setPreferences(resType.getPreferences());
+        reservation.setStatut(statut);
         
-        Reservation saved = reservationRepository.save(reservation);
+        if (!chambre.getDisponible()) {
+            throw new InvalidReservationException("La chambre n'est pas disponible");
+        }
+        if (!reservation.getDateFin().isAfter(reservation.getDateDebut())) {
+            throw new InvalidReservationException("La date de fin doit être postérieure à la date de début");
+        }
         
-        ReservationType savedType = new ReservationType();
-        savedType.setId(saved.getId());
-        savedType.setClientId(saved.getClient().getId());
-        savedType.setChambreId(saved.getChambre().getId());
-        savedType.setDateDebut(saved.getDateDebut().toString());
-        savedType.setDateFin(saved.getDateFin().toString());
-        savedType.setPreferences(saved.getPreferences());
+        reservation.setMontant(rateCache.priceStay(chambre, reservation.getDateDebut(), reservation.getDateFin()));
+        reservation.setExpiresAt(HoldManager.EN_ATTENTE.equals(statut) ? holdManager.newExpiry() : null);
         
-        response.setReservation(savedType);
-        return response;
+        if (reservationRepository.existsOverlapping(chambre.getId(), reservation.getDateDebut(),
+                reservation.getDateFin(), null)) {
+            throw roomAdmission.conflict();
+        }
+        
+        Reservation saved = reservationRepository.save(reservation);
+        dailyInventory.sell(saved);
+        reservationCounters.add(saved);
+        availabilityIndex.updateAfterCommit(saved);
+        if (saved.getExpiresAt() != null) {
+            holdManager.trackAfterCommit(saved.getId(), saved.getExpiresAt());
+        }
+        return saved;
+    }
+
+    /**
+     * Lit l'en-tête Idempotency-Key de la requête HTTP transportant le message SOAP
+     */
+    private String idempotencyKeyFromRequest() {
+        TransportContext context = TransportContextHolder.getTransportContext();
+        if (context != null && context.getConnection() instanceof HttpServletConnection connection) {
+            return connection.getHttpServletRequest().getHeader(IdempotencyStore.HEADER);
+        }
+        return null;
     }
 
     /**
@@ -106,12 +565,40 @@ public class ReservationEndpoint {
     @PayloadRoot(namespace = NAMESPACE_URI, localPart = "deleteReservationRequest")
     @ResponsePayload
     public DeleteReservationResponse deleteReservation(@RequestPayload DeleteReservationRequest request) {
-        DeleteReservationResponse response = new DeleteReservationResponse();
-        
-        reservationRepository.deleteById(request.getId());
-        response.setStatus("SUCCESS");
-        
-        return response;
+        return writeBulkhead.call(() -> {
+            DeleteReservationResponse response = new DeleteReservationResponse();
+            
+            // Ligne verrouillée : ses nuits sont retirées de l'inventaire dans la même transaction
+            transactionTemplate.executeWithoutResult(status ->
+                    reservationRepository.findByIdForUpdate(request.getId()).ifPresent(reservation -> {
+                        dailyInventory.release(reservation);
+                        reservationCounters.remove(reservation);
+                        reservationRepository.delete(reservation);
+                    }));
+            reservationCache.invalidate(request.getId());
+            availabilityIndex.removeAfterCommit(request.getId());
+            holdManager.untrackAfterCommit(request.getId(), false);
+            response.setStatus("SUCCESS");
+            
+            return response;
+        });
+    }
+
+    /**
+     * Convertit une entité JPA en type SOAP
+     */
+    private ReservationType convertToType(Reservation reservation) {
+        ReservationType resType = new ReservationType();
+        resType.setId(reservation.getId());
+        resType.setClientId(reservation.getClient().getId());
+        resType.setChambreId(reservation.getChambre().getId());
+        resType.setDateDebut(reservation.getDateDebut().toString());
+        resType.setDateFin(reservation.getDateFin().toString());
+        resType.setPreferences(reservation.getPreferences());
+        resType.setStatut(reservation.getStatut());
+        resType.setExpiresAt(reservation.getExpiresAt() != null
+                ? DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(reservation.getExpiresAt()) : null);
+        return resType;
     }
 
     // Classes internes simplifiées pour les requêtes/réponses SOAP
@@ -141,6 +628,115 @@ public class ReservationEndpoint {
         public void setReservation(ReservationType reservation) { this.reservation = reservation; }
     }
 
+    public static class CreateGroupReservationRequest {
+        private Long clientId;
+        private List<GroupSejourType> sejour = new ArrayList<>();
+        public Long getClientId() { return clientId; }
+        public void setClientId(Long clientId) { this.clientId = clientId; }
+        public List<GroupSejourType> getSejour() { return sejour; }
+        public void setSejour(List<GroupSejourType> sejour) { this.sejour = sejour; }
+    }
+
+    public static class CreateGroupReservationResponse {
+        private List<GroupSejourType> sejour = new ArrayList<>();
+        public List<GroupSejourType> getSejour() { return sejour; }
+        public void setSejour(List<GroupSejourType> sejour) { this.sejour = sejour; }
+    }
+
+    public static class GroupSejourType {
+        private Long chambreId;
+        private String dateDebut;
+        private String dateFin;
+        private Long reservationId;
+        private String resultat;
+
+        // Getters et Setters
+        public Long getChambreId() { return chambreId; }
+        public void setChambreId(Long chambreId) { this.chambreId = chambreId; }
+        public String getDateDebut() { return dateDebut; }
+        public void setDateDebut(String dateDebut) { this.dateDebut = dateDebut; }
+        public String getDateFin() { return dateFin; }
+        public void setDateFin(String dateFin) { this.dateFin = dateFin; }
+        public Long getReservationId() { return reservationId; }
+        public void setReservationId(Long reservationId) { this.reservationId = reservationId; }
+        public String getResultat() { return resultat; }
+        public void setResultat(String resultat) { this.resultat = resultat; }
+    }
+
+    public static class CreateReservationByTypeRequest {
+        private Long clientId;
+        private String type;
+        private String dateDebut;
+        private String dateFin;
+        private String preferences;
+
+        // Getters et Setters
+        public Long getClientId() { return clientId; }
+        public void setClientId(Long clientId) { this.clientId = clientId; }
+        public String getType() { return type; }
+        public void setType(String type) { this.type = type; }
+        public String getDateDebut() { return dateDebut; }
+        public void setDateDebut(String dateDebut) { this.dateDebut = dateDebut; }
+        public String getDateFin() { return dateFin; }
+        public void setDateFin(String dateFin) { this.dateFin = dateFin; }
+        public String getPreferences() { return preferences; }
+        public void setPreferences(String preferences) { this.preferences = preferences; }
+    }
+
+    public static class CreateReservationByTypeResponse {
+        private ReservationType reservation;
+        public ReservationType getReservation() { return reservation; }
+        public void setReservation(ReservationType reservation) { this.reservation = reservation; }
+    }
+
+    public static class PlaceHoldRequest {
+        private ReservationType reservation;
+        public ReservationType getReservation() { return reservation; }
+        public void setReservation(ReservationType reservation) { this.reservation = reservation; }
+    }
+
+    public static class PlaceHoldResponse {
+        private ReservationType reservation;
+        public ReservationType getReservation() { return reservation; }
+        public void setReservation(ReservationType reservation) { this.reservation = reservation; }
+    }
+
+    public static class ConfirmHoldRequest {
+        private Long id;
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+    }
+
+    public static class ConfirmHoldResponse {
+        private ReservationType reservation;
+        public ReservationType getReservation() { return reservation; }
+        public void setReservation(ReservationType reservation) { this.reservation = reservation; }
+    }
+
+    public static class GetReservationsRequest {
+        private List<Long> id = new ArrayList<>();
+        public List<Long> getId() { return id; }
+        public void setId(List<Long> id) { this.id = id; }
+    }
+
+    public static class GetReservationsResponse {
+        private List<ReservationResult> result = new ArrayList<>();
+        public List<ReservationResult> getResult() { return result; }
+        public void setResult(List<ReservationResult> result) { this.result = result; }
+    }
+
+    public static class ReservationResult {
+        private Long id;
+        private boolean found;
+        private ReservationType reservation;
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+        public boolean isFound() { return found; }
+        public void setFound(boolean found) { this.found = found; }
+        public ReservationType getReservation() { return reservation; }
+        public void setReservation(ReservationType reservation) { this.reservation = reservation; }
+    }
+
     public static class DeleteReservationRequest {
         private Long id;
         public Long getId() { return id; }
@@ -153,6 +749,213 @@ public class ReservationEndpoint {
         public void setStatus(String status) { this.status = status; }
     }
 
+    public static class GetChambresDisponiblesRequest {
+        private String type;
+        private String dateDebut;
+        private String dateFin;
+        public String getType() { return type; }
+        public void setType(String type) { this.type = type; }
+        public String getDateDebut() { return dateDebut; }
+        public void setDateDebut(String dateDebut) { this.dateDebut = dateDebut; }
+        public String getDateFin() { return dateFin; }
+        public void setDateFin(String dateFin) { this.dateFin = dateFin; }
+    }
+
+    public static class GetChambresDisponiblesResponse {
+        private List<ChambreType> chambre = new ArrayList<>();
+        public List<ChambreType> getChambre() { return chambre; }
+        public void setChambre(List<ChambreType> chambre) { this.chambre = chambre; }
+    }
+
+    public static class GetDevisRequest {
+        private Long chambreId;
+        private String type;
+        private String dateDebut;
+        private String dateFin;
+        public Long getChambreId() { return chambreId; }
+        public void setChambreId(Long chambreId) { this.chambreId = chambreId; }
+        public String getType() { return type; }
+        public void setType(String type) { this.type = type; }
+        public String getDateDebut() { return dateDebut; }
+        public void setDateDebut(String dateDebut) { this.dateDebut = dateDebut; }
+        public String getDateFin() { return dateFin; }
+        public void setDateFin(String dateFin) { this.dateFin = dateFin; }
+    }
+
+    public static class GetDevisResponse {
+        private Long chambreId;
+        private String type;
+        private String dateDebut;
+        private String dateFin;
+        private Integer nuits;
+        private BigDecimal total;
+
+        // Getters et Setters
+        public Long getChambreId() { return chambreId; }
+        public void setChambreId(Long chambreId) { this.chambreId = chambreId; }
+        public String getType() { return type; }
+        public void setType(String type) { this.type = type; }
+        public String getDateDebut() { return dateDebut; }
+        public void setDateDebut(String dateDebut) { this.dateDebut = dateDebut; }
+        public String getDateFin() { return dateFin; }
+        public void setDateFin(String dateFin) { this.dateFin = dateFin; }
+        public Integer getNuits() { return nuits; }
+        public void setNuits(Integer nuits) { this.nuits = nuits; }
+        public BigDecimal getTotal() { return total; }
+        public void setTotal(BigDecimal total) { this.total = total; }
+    }
+
+    public static class GetInventaireRequest {
+        private String type;
+        private String dateDebut;
+        private String dateFin;
+        public String getType() { return type; }
+        public void setType(String type) { this.type = type; }
+        public String getDateDebut() { return dateDebut; }
+        public void setDateDebut(String dateDebut) { this.dateDebut = dateDebut; }
+        public String getDateFin() { return dateFin; }
+        public void setDateFin(String dateFin) { this.dateFin = dateFin; }
+    }
+
+    public static class GetInventaireResponse {
+        private String type;
+        private String dateDebut;
+        private String dateFin;
+        private Integer capacite;
+        private Integer libres;
+        private Boolean disponible;
+        private List<Integer> vendues = new ArrayList<>();
+
+        // Getters et Setters
+        public String getType() { return type; }
+        public void setType(String type) { this.type = type; }
+        public String getDateDebut() { return dateDebut; }
+        public void setDateDebut(String dateDebut) { this.dateDebut = dateDebut; }
+        public String getDateFin() { return dateFin; }
+        public void setDateFin(String dateFin) { this.dateFin = dateFin; }
+        public Integer getCapacite() { return capacite; }
+        public void setCapacite(Integer capacite) { this.capacite = capacite; }
+        public Integer getLibres() { return libres; }
+        public void setLibres(Integer libres) { this.libres = libres; }
+        public Boolean getDisponible() { return disponible; }
+        public void setDisponible(Boolean disponible) { this.disponible = disponible; }
+        public List<Integer> getVendues() { return vendues; }
+        public void setVendues(List<Integer> vendues) { this.vendues = vendues; }
+    }
+
+    public static class GetOccupationRequest {
+        private String type;
+        private String granularite;
+        private String dateDebut;
+        private String dateFin;
+        public String getType() { return type; }
+        public void setType(String type) { this.type = type; }
+        public String getGranularite() { return granularite; }
+        public void setGranularite(String granularite) { this.granularite = granularite; }
+        public String getDateDebut() { return dateDebut; }
+        public void setDateDebut(String dateDebut) { this.dateDebut = dateDebut; }
+        public String getDateFin() { return dateFin; }
+        public void setDateFin(String dateFin) { this.dateFin = dateFin; }
+    }
+
+    public static class GetOccupationResponse {
+        private String type;
+        private String granularite;
+        private String dateDebut;
+        private String dateFin;
+        private List<PeriodeType> periode = new ArrayList<>();
+
+        // Getters et Setters
+        public String getType() { return type; }
+        public void setType(String type) { this.type = type; }
+        public String getGranularite() { return granularite; }
+        public void setGranularite(String granularite) { this.granularite = granularite; }
+        public String getDateDebut() { return dateDebut; }
+        public void setDateDebut(String dateDebut) { this.dateDebut = dateDebut; }
+        public String getDateFin() { return dateFin; }
+        public void setDateFin(String dateFin) { this.dateFin = dateFin; }
+        public List<PeriodeType> getPeriode() { return periode; }
+        public void setPeriode(List<PeriodeType> periode) { this.periode = periode; }
+    }
+
+    public static class PeriodeType {
+        private String dateDebut;
+        private String dateFin;
+        private Integer nuits;
+        private Long capacite;
+        private Long vendues;
+        private Double taux;
+        private BigDecimal revenu;
+
+        // Getters et Setters
+        public String getDateDebut() { return dateDebut; }
+        public void setDateDebut(String dateDebut) { this.dateDebut = dateDebut; }
+        public String getDateFin() { return dateFin; }
+        public void setDateFin(String dateFin) { this.dateFin = dateFin; }
+        public Integer getNuits() { return nuits; }
+        public void setNuits(Integer nuits) { this.nuits = nuits; }
+        public Long getCapacite() { return capacite; }
+        public void setCapacite(Long capacite) { this.capacite = capacite; }
+        public Long getVendues() { return vendues; }
+        public void setVendues(Long vendues) { this.vendues = vendues; }
+        public Double getTaux() { return taux; }
+        public void setTaux(Double taux) { this.taux = taux; }
+        public BigDecimal getRevenu() { return revenu; }
+        public void setRevenu(BigDecimal revenu) { this.revenu = revenu; }
+    }
+
+    public static class GetReservationStatsResponse {
+        private Long total;
+        private List<CompteurType> statut = new ArrayList<>();
+        private List<CompteurType> type = new ArrayList<>();
+        private String rechargeLe;
+
+        // Getters et Setters
+        public Long getTotal() { return total; }
+        public void setTotal(Long total) { this.total = total; }
+        public List<CompteurType> getStatut() { return statut; }
+        public void setStatut(List<CompteurType> statut) { this.statut = statut; }
+        public List<CompteurType> getType() { return type; }
+        public void setType(List<CompteurType> type) { this.type = type; }
+        public String getRechargeLe() { return rechargeLe; }
+        public void setRechargeLe(String rechargeLe) { this.rechargeLe = rechargeLe; }
+    }
+
+    public static class CompteurType {
+        private String cle;
+        private Long nombre;
+
+        public CompteurType() {
+        }
+
+        public CompteurType(String cle, Long nombre) {
+            this.cle = cle;
+            this.nombre = nombre;
+        }
+
+        public String getCle() { return cle; }
+        public void setCle(String cle) { this.cle = cle; }
+        public Long getNombre() { return nombre; }
+        public void setNombre(Long nombre) { this.nombre = nombre; }
+    }
+
+    public static class ChambreType {
+        private Long id;
+        private String type;
+        private BigDecimal prix;
+        private Boolean disponible;
+
+        // Getters et Setters
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+        public String getType() { return type; }
+        public void setType(String type) { this.type = type; }
+        public BigDecimal getPrix() { return prix; }
+        public void setPrix(BigDecimal prix) { this.prix = prix; }
+        public Boolean getDisponible() { return disponible; }
+        public void setDisponible(Boolean disponible) { this.disponible = disponible; }
+    }
+
     public static class ReservationType {
         private Long id;
         private Long clientId;
@@ -160,6 +963,8 @@ public class ReservationEndpoint {
         private String dateDebut;
         private String dateFin;
         private String preferences;
+        private String statut;
+        private String expiresAt;
 
         // Getters et Setters
         public Long getId() { return id; }
@@ -174,5 +979,9 @@ public class ReservationEndpoint {
         public void setDateFin(String dateFin) { this.dateFin = dateFin; }
         public String getPreferences() { return preferences; }
         public void setPreferences(String preferences) { this.preferences = preferences; }
+        public String getStatut() { return statut; }
+        public void setStatut(String statut) { this.statut = statut; }
+        public String getExpiresAt() { return expiresAt; }
+        public void setExpiresAt(String expiresAt) { this.expiresAt = expiresAt; }
     }
 }
@@ -0,0 +1,17 @@
+package com.hotel.reservation.soap.hold;
+
+import org.springframework.ws.soap.server.endpoint.annotation.FaultCode;
+import org.springframework.ws.soap.server.endpoint.annotation.SoapFault;
+
+/**
+ * Confirmation refusée : l'option a expiré ou a été annulée
+ *
+ * Convertie en faute SOAP Client : une nouvelle option doit être posée.
+ */
+@SoapFault(faultCode = FaultCode.CLIENT)
+public class HoldExpiredException extends RuntimeException {
+
+    public HoldExpiredException(String message) {
+        super(message);
+    }
+}
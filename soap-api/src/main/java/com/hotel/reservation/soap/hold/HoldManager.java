@@ -0,0 +1,267 @@
+package com.hotel.reservation.soap.hold;
+
+import com.hotel.reservation.soap.availability.AvailabilityIndex;
+import com.hotel.reservation.soap.cache.NearCache;
+import com.hotel.reservation.soap.inventory.DailyInventory;
+import com.hotel.reservation.soap.endpoint.ReservationEndpoint.ReservationType;
+import com.hotel.reservation.soap.model.Reservation;
+import com.hotel.reservation.soap.repository.ReservationRepository;
+import com.hotel.reservation.soap.stats.ReservationCounters;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Options (réservations EN_ATTENTE) : pose, confirmation et expiration
+ *
+ * Une option bloque la chambre comme une réservation jusqu'à son échéance (expires_at),
+ * fixée à hold.ttl-minutes après la pose. Confirmée avant, elle devient CONFIRMEE ; sinon
+ * elle passe ANNULEE et libère la chambre.
+ *
+ * Les échéances sont tenues en mémoire dans une roue temporelle (TimingWheel) avancée
+ * toutes les hold.tick-ms : une pose ou une confirmation coûte O(1) et aucune requête
+ * périodique ne cherche les options échues. Seules les options échues sont relues, par
+ * clé primaire et verrouillées, pour ne pas expirer une option confirmée entre-temps.
+ *
+ * Au démarrage, la roue est reconstruite à partir des options EN_ATTENTE de la base, y
+ * compris celles posées par les autres modules. Les options expirées sont supprimées
+ * après hold.purge-retention-hours.
+ */
+@Component
+public class HoldManager {
+
+    private static final Logger log = LoggerFactory.getLogger(HoldManager.class);
+
+    /** Statut d'une option */
+    public static final String EN_ATTENTE = "EN_ATTENTE";
+
+    // 4 niveaux de 64 cases : 194 jours avec des ticks d'une seconde
+    private static final int NIVEAUX = 4;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private DailyInventory dailyInventory;
+
+    @Autowired
+    private ReservationCounters reservationCounters;
+
+    @Autowired
+    private NearCache<Long, ReservationType> reservationCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${hold.ttl-minutes:15}")
+    private long ttlMinutes;
+
+    @Value("${hold.tick-ms:1000}")
+    private long tickMs;
+
+    @Value("${hold.expiry-batch-size:500}")
+    private int expiryBatchSize;
+
+    @Value("${hold.purge-retention-hours:24}")
+    private long purgeRetentionHours;
+
+    private final ReentrantLock verrou = new ReentrantLock();
+    private TimingWheel roue;
+    private volatile boolean chargee;
+
+    private Counter posees;
+    private Counter confirmees;
+    private Counter expirees;
+
+    @PostConstruct
+    void initialiser() {
+        roue = new TimingWheel(System.currentTimeMillis(), tickMs, NIVEAUX);
+        Gauge.builder("holds.pending", this, HoldManager::enAttente)
+                .description("Options en attente suivies par la roue d'expiration")
+                .register(meterRegistry);
+        posees = Counter.builder("holds.placed").description("Options posées").register(meterRegistry);
+        confirmees = Counter.builder("holds.confirmed").description("Options confirmées").register(meterRegistry);
+        expirees = Counter.builder("holds.expired").description("Options expirées").register(meterRegistry);
+    }
+
+    /**
+     * @return L'échéance d'une option posée maintenant
+     */
+    public LocalDateTime newExpiry() {
+        // À la seconde : la colonne expires_at n'a pas de fraction, l'échéance relue est la même
+        return LocalDateTime.now().plusMinutes(ttlMinutes).truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    /**
+     * Suit l'échéance d'une option posée, après la validation de la transaction en cours
+     */
+    public void trackAfterCommit(Long id, LocalDateTime expiresAt) {
+        posees.increment();
+        apresCommit(() -> planifier(id, expiresAt));
+    }
+
+    /**
+     * Cesse de suivre une option confirmée, modifiée ou supprimée, après la validation de la transaction en cours
+     * @param confirmee true si l'option vient d'être confirmée (compteur holds.confirmed)
+     */
+    public void untrackAfterCommit(Long id, boolean confirmee) {
+        apresCommit(() -> {
+            verrou.lock();
+            try {
+                roue.cancel(id);
+            } finally {
+                verrou.unlock();
+            }
+            if (confirmee) {
+                confirmees.increment();
+            }
+        });
+    }
+
+    /**
+     * Tâche périodique : avance la roue et expire les options échues
+     * Au premier passage (ou après un échec), recharge les options en attente de la base.
+     */
+    @Scheduled(fixedDelayString = "${hold.tick-ms:1000}")
+    public void avancer() {
+        if (!chargee) {
+            charger();
+            if (!chargee) {
+                return;
+            }
+        }
+        List<Long> echues;
+        verrou.lock();
+        try {
+            echues = roue.advance(System.currentTimeMillis());
+        } finally {
+            verrou.unlock();
+        }
+        for (int i = 0; i < echues.size(); i += expiryBatchSize) {
+            List<Long> lot = echues.subList(i, Math.min(i + expiryBatchSize, echues.size()));
+            try {
+                expirer(lot);
+            } catch (RuntimeException e) {
+                // Base indisponible : les options du lot sont réessayées au tick suivant
+                log.warn("Expiration des options impossible", e);
+                long reessai = System.currentTimeMillis() + tickMs;
+                verrou.lock();
+                try {
+                    lot.forEach(id -> roue.schedule(id, reessai));
+                } finally {
+                    verrou.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Supprime périodiquement les options expirées depuis plus de hold.purge-retention-hours
+     */
+    @Scheduled(fixedDelayString = "${hold.purge-interval-ms:3600000}")
+    public void purger() {
+        int supprimees = reservationRepository.deleteExpiredHoldsBefore(LocalDateTime.now().minusHours(purgeRetentionHours));
+        reservationCounters.removeCancelled(supprimees);
+    }
+
+    private void charger() {
+        try {
+            List<ReservationRepository.Option> options = reservationRepository.findPendingHolds();
+            verrou.lock();
+            try {
+                for (ReservationRepository.Option option : options) {
+                    // Une option sans échéance (posée hors de ce flux) expire au premier tick
+                    roue.schedule(option.getId(), option.getExpiresAt() == null ? 0 : millis(option.getExpiresAt()));
+                }
+            } finally {
+                verrou.unlock();
+            }
+            chargee = true;
+        } catch (RuntimeException e) {
+            log.warn("Chargement des options en attente impossible", e);
+        }
+    }
+
+    /**
+     * Passe ANNULEE les options du lot encore en attente et échues
+     * Les lignes sont verrouillées : une confirmation simultanée passe avant ou après, jamais entre les deux.
+     * Les options confirmées ou supprimées entre-temps ne sont pas relues.
+     */
+    private void expirer(List<Long> ids) {
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime maintenant = LocalDateTime.now();
+            for (Reservation option : reservationRepository.findPendingHoldsForUpdate(ids)) {
+                if (option.getExpiresAt() != null && option.getExpiresAt().isAfter(maintenant)) {
+                    // Horloge d'un autre module en avance : l'option est replanifiée à son échéance
+                    LocalDateTime echeance = option.getExpiresAt();
+                    apresCommit(() -> planifier(option.getId(), echeance));
+                    continue;
+                }
+                dailyInventory.release(option);
+                reservationCounters.remove(option);
+                option.setStatut("ANNULEE");
+                reservationCounters.add(option);
+                reservationCache.invalidateAfterCommit(option.getId());
+                availabilityIndex.updateAfterCommit(option);
+                apresCommit(expirees::increment);
+            }
+        });
+    }
+
+    private void planifier(Long id, LocalDateTime expiresAt) {
+        verrou.lock();
+        try {
+            roue.schedule(id, millis(expiresAt));
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    private double enAttente() {
+        verrou.lock();
+        try {
+            return roue.size();
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    private static long millis(LocalDateTime date) {
+        return date.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static void apresCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.hotel.reservation.soap.idempotency;
+
+import org.springframework.ws.soap.server.endpoint.annotation.FaultCode;
+import org.springframework.ws.soap.server.endpoint.annotation.SoapFault;
+
+/**
+ * Clé d'idempotence déjà utilisée pour une requête de création différente
+ *
+ * Convertie en faute SOAP Client : la requête doit être envoyée avec une nouvelle clé.
+ */
+@SoapFault(faultCode = FaultCode.CLIENT)
+public class IdempotencyConflictException extends RuntimeException {
+
+    public IdempotencyConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,481 @@
+package com.hotel.reservation.soap.inventory;
+
+import com.hotel.reservation.soap.availability.AvailabilityIndex;
+import com.hotel.reservation.soap.model.Reservation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Inventaire journalier : chambres vendues par type et par nuit (table daily_inventory)
+ *
+ * Chaque création, modification ou suppression de réservation, dans les quatre modules, met à
+ * jour les compteurs des nuits du séjour dans sa propre transaction : sell / release enregistrent
+ * les mouvements, cumulés par nuit, qui sont écrits juste avant la validation en un seul lot
+ * (INSERT ... ON DUPLICATE KEY UPDATE, trié par type puis par nuit : deux transactions prennent
+ * les lignes dans le même ordre et ne peuvent pas s'interbloquer). Une modification qui ne change
+ * ni le type, ni les nuits, ni le statut n'écrit rien. Seules les réservations non annulées
+ * (CONFIRMEE, EN_ATTENTE) sont comptées dans les chambres vendues ; les types sont en minuscules.
+ * Le revenu du jour (colonne revenu) ne compte que les réservations confirmées : le prix du séjour
+ * enregistré à la réservation (reservation.montant, tarifs compris) est réparti également entre
+ * ses nuits, au centime près. Un changement de tarif ou de prix de chambre ne modifie donc pas le
+ * revenu des séjours déjà vendus. Le revenu alimente les vues d'occupation et de revenu
+ * (OccupancyViews) après la validation.
+ *
+ * Le miroir en mémoire couvre horizon-days nuits à partir d'aujourd'hui, avec le nombre de
+ * chambres disponibles de chaque type : « une chambre Double est-elle libre du 10 au 15 mars »
+ * devient une lecture de compteur par nuit, sans jointure sur reservation. La réponse vaut pour
+ * le type (une chambre libre chaque nuit, pas forcément la même) ; la chambre précise est choisie
+ * à la réservation. Le miroir reçoit les mouvements de ce module après leur validation, et relit
+ * toutes les sync-interval-ms les compteurs modifiés depuis la relecture précédente (updated_at,
+ * moins sync-overlap-seconds), qui portent leur valeur absolue : une relecture concurrente d'un
+ * mouvement local est corrigée à la suivante. Il est rechargé en entier au changement de jour.
+ *
+ * Les compteurs sont recalculés depuis reservation par InventoryReconciler.
+ *
+ * Métrique exposée : inventory.checks.
+ */
+@Component
+public class DailyInventory {
+
+    private static final Logger log = LoggerFactory.getLogger(DailyInventory.class);
+
+    // Une requête multi-lignes avec rewriteBatchedStatements ; chaque ligne ajoute son delta au compteur
+    private static final String CUMUL = "INSERT INTO daily_inventory (type, jour, vendues, revenu) VALUES (?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE vendues = vendues + VALUES(vendues), revenu = revenu + VALUES(revenu)";
+
+    private static final String CAPACITES = "SELECT LOWER(type), SUM(CASE WHEN disponible THEN 1 ELSE 0 END) "
+            + "FROM chambre GROUP BY LOWER(type)";
+
+    private static final String COMPTEURS = "SELECT type, jour, vendues FROM daily_inventory WHERE jour >= ? AND jour < ?";
+
+    private static final String COMPTEURS_MODIFIES = COMPTEURS + " AND updated_at >= ?";
+
+    private static final String SEJOURS_CLIENT = "SELECT c.type, COALESCE(r.statut, 'CONFIRMEE'), r.montant, c.prix, "
+            + "r.date_debut, r.date_fin FROM reservation r JOIN chambre c ON c.id = r.chambre_id "
+            + "WHERE r.client_id = ? AND (r.statut IS NULL OR r.statut <> 'ANNULEE')";
+
+    private static final String SEJOURS_CHAMBRE = "SELECT COALESCE(statut, 'CONFIRMEE'), montant, date_debut, date_fin "
+            + "FROM reservation WHERE chambre_id = ? AND (statut IS NULL OR statut <> 'ANNULEE')";
+
+    // Réservations antérieures à la colonne montant : prix figé avant un changement de prix de la chambre
+    private static final String FIGER_MONTANTS = "UPDATE reservation SET montant = ? * DATEDIFF(date_fin, date_debut) "
+            + "WHERE chambre_id = ? AND montant IS NULL";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private OccupancyViews occupancyViews;
+
+    @Value("${inventory.horizon-days:365}")
+    private int horizonJours;
+
+    @Value("${inventory.sync-overlap-seconds:10}")
+    private long syncOverlapSeconds;
+
+    // Une seule relecture de la base à la fois
+    private final ReentrantLock maintenance = new ReentrantLock();
+
+    // Null tant que le miroir n'est pas chargé
+    private volatile Miroir miroir;
+
+    // Début de la dernière relecture réussie (thread de maintenance uniquement)
+    private LocalDateTime derniereSynchro;
+
+    private Counter verifications;
+
+    @PostConstruct
+    void initialiser() {
+        verifications = Counter.builder("inventory.checks")
+                .description("Vérifications de disponibilité par type sur le miroir")
+                .register(meterRegistry);
+    }
+
+    // ========== Mouvements, dans la transaction des écritures ==========
+
+    /**
+     * Compte les nuits d'une réservation dans l'inventaire (rien si elle est annulée)
+     * À appeler dans la transaction, avec l'état de la réservation après l'écriture.
+     */
+    public void sell(Reservation reservation) {
+        compter(reservation, 1);
+    }
+
+    /**
+     * Retire les nuits d'une réservation de l'inventaire (rien si elle est annulée)
+     * À appeler dans la transaction, avec l'état de la réservation avant l'écriture.
+     */
+    public void release(Reservation reservation) {
+        compter(reservation, -1);
+    }
+
+    private void compter(Reservation reservation, int delta) {
+        if ("ANNULEE".equals(reservation.getStatut())) {
+            return;
+        }
+        long montant = confirmee(reservation.getStatut()) ? montant(reservation.getMontant(),
+                reservation.getChambre().getPrix(), reservation.getDateDebut(), reservation.getDateFin()) : 0;
+        move(reservation.getChambre().getType(), reservation.getDateDebut(), reservation.getDateFin(), delta, montant * delta);
+    }
+
+    /**
+     * Ajoute delta chambres vendues à chaque nuit de [debut, fin) d'un type, et le montant
+     * (en centimes, négatif pour un retrait) au revenu de ces nuits, réparti également
+     * Écrit juste avant la validation de la transaction en cours, appliqué au miroir après elle.
+     * @throws IllegalStateException S'il n'y a pas de transaction en cours
+     */
+    public void move(String type, LocalDate debut, LocalDate fin, int delta, long montant) {
+        Mouvements mouvements = mouvements();
+        String cle = type.toLowerCase(Locale.ROOT);
+        long nuits = fin.toEpochDay() - debut.toEpochDay();
+        // Même répartition pour un retrait que pour l'ajout qu'il annule
+        long signe = Long.signum(montant);
+        for (long i = 0; i < nuits; i++) {
+            mouvements.ajouter(cle, debut.toEpochDay() + i, delta, signe * share(Math.abs(montant), nuits, i, i + 1));
+        }
+    }
+
+    /**
+     * @return true si une réservation de ce statut compte dans le revenu (confirmée)
+     */
+    public static boolean confirmee(String statut) {
+        return statut == null || "CONFIRMEE".equals(statut);
+    }
+
+    /**
+     * Prix d'un séjour en centimes : le montant enregistré à la réservation, ou pour une
+     * réservation antérieure à la colonne montant, le prix par nuit de la chambre multiplié par les nuits
+     */
+    public static long montant(BigDecimal montant, BigDecimal prix, LocalDate debut, LocalDate fin) {
+        return montant != null ? centimes(montant) : centimes(prix) * (fin.toEpochDay() - debut.toEpochDay());
+    }
+
+    /**
+     * Part d'un montant (positif) réparti également entre les nuits d'un séjour qui revient aux
+     * nuits [de, a), comptées depuis la première nuit : la somme des parts de toutes les nuits est
+     * le montant
+     */
+    public static long share(long montant, long nuits, long de, long a) {
+        return montant * a / nuits - montant * de / nuits;
+    }
+
+    /**
+     * Prix arrondi au centime, en centimes (0 si la chambre n'a pas de prix)
+     */
+    static long centimes(BigDecimal prix) {
+        return prix == null ? 0 : prix.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Retire les séjours non annulés d'un client, avant sa suppression (cascade en base)
+     */
+    public void releaseClient(Long clientId) {
+        jdbcTemplate.query(SEJOURS_CLIENT, resultat -> {
+            LocalDate debut = resultat.getDate(5).toLocalDate();
+            LocalDate fin = resultat.getDate(6).toLocalDate();
+            long montant = confirmee(resultat.getString(2))
+                    ? montant(resultat.getBigDecimal(3), resultat.getBigDecimal(4), debut, fin) : 0;
+            move(resultat.getString(1), debut, fin, -1, -montant);
+        }, clientId);
+    }
+
+    /**
+     * Reporte un changement de type ou de prix d'une chambre
+     * Les séjours non annulés passent au nouveau type avec le montant enregistré à leur
+     * réservation : un nouveau prix ne vaut que pour les séjours réservés ensuite. Les séjours
+     * antérieurs à la colonne montant reçoivent d'abord le leur, à l'ancien prix.
+     * La ligne de la chambre doit être verrouillée : aucune réservation ne s'y ajoute entre-temps.
+     */
+    public void updateRoom(Long chambreId, String ancienType, BigDecimal ancienPrix, String nouveauType, BigDecimal nouveauPrix) {
+        if (centimes(ancienPrix) != centimes(nouveauPrix)) {
+            jdbcTemplate.update(FIGER_MONTANTS, ancienPrix, chambreId);
+        }
+        if (ancienType.equalsIgnoreCase(nouveauType)) {
+            return;
+        }
+        jdbcTemplate.query(SEJOURS_CHAMBRE, resultat -> {
+            LocalDate debut = resultat.getDate(3).toLocalDate();
+            LocalDate fin = resultat.getDate(4).toLocalDate();
+            long montant = confirmee(resultat.getString(1)) ? montant(resultat.getBigDecimal(2), ancienPrix, debut, fin) : 0;
+            move(ancienType, debut, fin, -1, -montant);
+            move(nouveauType, debut, fin, 1, montant);
+        }, chambreId);
+    }
+
+    // Les mouvements sont portés par la synchronisation de la transaction : suspendus avec elle
+    private Mouvements mouvements() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("L'inventaire journalier est modifié hors transaction");
+        }
+        for (TransactionSynchronization synchronisation : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronisation instanceof Ecriture ecriture) {
+                return ecriture.mouvements;
+            }
+        }
+        Ecriture ecriture = new Ecriture();
+        TransactionSynchronizationManager.registerSynchronization(ecriture);
+        return ecriture.mouvements;
+    }
+
+    private final class Ecriture implements TransactionSynchronization {
+        private final Mouvements mouvements = new Mouvements();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            List<Object[]> lignes = mouvements.lignes();
+            if (!lignes.isEmpty()) {
+                jdbcTemplate.batchUpdate(CUMUL, lignes);
+            }
+        }
+
+        @Override
+        public void afterCommit() {
+            Miroir courant = miroir;
+            if (courant != null) {
+                mouvements.appliquer(courant);
+            }
+            mouvements.appliquer(occupancyViews);
+        }
+    }
+
+    // ========== Miroir ==========
+
+    /**
+     * @return true si le miroir est chargé
+     */
+    public boolean isReady() {
+        return miroir != null;
+    }
+
+    /**
+     * Chambres vendues d'un type pour chaque nuit d'une période, lues sur le miroir
+     * @param type Le type de chambre (insensible à la casse)
+     * @param debut Première nuit (au plus tôt aujourd'hui)
+     * @param fin Fin de la période (exclue, au plus horizon-days jours après aujourd'hui)
+     * @return L'inventaire de la période ; disponible si une chambre du type reste libre chaque nuit
+     * @throws IllegalArgumentException Si la période est invalide ou dépasse l'horizon
+     * @throws IllegalStateException Si le miroir n'est pas encore chargé
+     * @throws RuntimeException Si aucune chambre n'est de ce type
+     */
+    public Inventaire inventory(String type, LocalDate debut, LocalDate fin) {
+        AvailabilityIndex.checkPeriod(debut, fin);
+        if (type == null || type.isBlank()) {
+            throw new IllegalArgumentException("Le type de chambre est obligatoire");
+        }
+        Miroir courant = miroir;
+        if (courant == null) {
+            throw new IllegalStateException("L'inventaire journalier n'est pas encore chargé");
+        }
+        int de = (int) (debut.toEpochDay() - courant.origine);
+        int a = (int) (fin.toEpochDay() - courant.origine);
+        if (de < 0 || a > courant.horizon) {
+            throw new IllegalArgumentException("Période hors de l'horizon de l'inventaire");
+        }
+        String cle = type.toLowerCase(Locale.ROOT);
+        Integer capacite = courant.capacites.get(cle);
+        if (capacite == null) {
+            throw new RuntimeException("Type de chambre non trouvé : " + type);
+        }
+        verifications.increment();
+        AtomicIntegerArray compteurs = courant.vendues.get(cle);
+        List<Integer> vendues = new ArrayList<>(a - de);
+        int libres = capacite;
+        for (int i = de; i < a; i++) {
+            int nuit = compteurs == null ? 0 : compteurs.get(i);
+            vendues.add(nuit);
+            libres = Math.min(libres, capacite - nuit);
+        }
+        return new Inventaire(cle, debut, fin, capacite, Math.max(libres, 0), vendues);
+    }
+
+    /**
+     * Synchronisation périodique du miroir avec les compteurs de la base
+     * Charge le miroir au premier passage et au changement de jour, puis relit les compteurs
+     * modifiés depuis la relecture précédente (moins sync-overlap-seconds, pour les transactions
+     * validées après la lecture précédente) et le nombre de chambres de chaque type.
+     */
+    @Scheduled(fixedDelayString = "${inventory.sync-interval-ms:2000}")
+    public void synchroniser() {
+        if (!maintenance.tryLock()) {
+            return;
+        }
+        try {
+            LocalDateTime debutLecture = LocalDateTime.now();
+            int aujourdhui = (int) LocalDate.now().toEpochDay();
+            Miroir courant = miroir;
+            if (courant == null || courant.origine != aujourdhui) {
+                Miroir nouveau = new Miroir(aujourdhui, horizonJours);
+                nouveau.majCapacites(capacites());
+                relire(nouveau, COMPTEURS, Date.valueOf(LocalDate.ofEpochDay(aujourdhui)),
+                        Date.valueOf(LocalDate.ofEpochDay(aujourdhui + horizonJours)));
+                miroir = nouveau;
+            } else {
+                courant.majCapacites(capacites());
+                relire(courant, COMPTEURS_MODIFIES, Date.valueOf(LocalDate.ofEpochDay(aujourdhui)),
+                        Date.valueOf(LocalDate.ofEpochDay(aujourdhui + horizonJours)),
+                        Timestamp.valueOf(derniereSynchro.minusSeconds(syncOverlapSeconds)));
+            }
+            derniereSynchro = debutLecture;
+        } catch (RuntimeException e) {
+            // La base peut être indisponible : nouvel essai au prochain passage
+            log.warn("Synchronisation de l'inventaire journalier impossible", e);
+        } finally {
+            maintenance.unlock();
+        }
+    }
+
+    private Map<String, Integer> capacites() {
+        Map<String, Integer> capacites = new HashMap<>();
+        jdbcTemplate.query(CAPACITES, resultat -> {
+            capacites.put(resultat.getString(1), resultat.getInt(2));
+        });
+        return capacites;
+    }
+
+    private void relire(Miroir cible, String requete, Object... parametres) {
+        jdbcTemplate.query(requete, resultat -> {
+            cible.fixer(resultat.getString(1), resultat.getDate(2).toLocalDate().toEpochDay(), resultat.getInt(3));
+        }, parametres);
+    }
+
+    /**
+     * Compteurs du miroir, par type, indexés par nuit depuis l'origine
+     * Les mouvements locaux ajoutent leur delta, les relectures fixent la valeur lue en base.
+     */
+    private static final class Miroir {
+        private final int origine;
+        private final int horizon;
+        private final Map<String, AtomicIntegerArray> vendues = new ConcurrentHashMap<>();
+        private volatile Map<String, Integer> capacites = Collections.emptyMap();
+
+        private Miroir(int origine, int horizon) {
+            this.origine = origine;
+            this.horizon = horizon;
+        }
+
+        private void majCapacites(Map<String, Integer> nouvelles) {
+            for (String type : nouvelles.keySet()) {
+                vendues.computeIfAbsent(type, t -> new AtomicIntegerArray(horizon));
+            }
+            capacites = nouvelles;
+        }
+
+        private void ajouter(String type, long jour, int delta) {
+            AtomicIntegerArray compteurs = vendues.get(type);
+            long i = jour - origine;
+            if (compteurs != null && i >= 0 && i < horizon) {
+                compteurs.addAndGet((int) i, delta);
+            }
+        }
+
+        private void fixer(String type, long jour, int valeur) {
+            long i = jour - origine;
+            if (i >= 0 && i < horizon) {
+                vendues.computeIfAbsent(type, t -> new AtomicIntegerArray(horizon)).set((int) i, valeur);
+            }
+        }
+    }
+
+    /**
+     * Mouvements d'une transaction, cumulés par type et par nuit (triés : ordre des verrous)
+     * Pour chaque nuit : chambres vendues et revenu en centimes.
+     */
+    private static final class Mouvements {
+        private final TreeMap<String, TreeMap<Long, long[]>> parType = new TreeMap<>();
+
+        private void ajouter(String type, long jour, int delta, long centimes) {
+            long[] cumul = parType.computeIfAbsent(type, t -> new TreeMap<>()).computeIfAbsent(jour, j -> new long[2]);
+            cumul[0] += delta;
+            cumul[1] += centimes;
+        }
+
+        private List<Object[]> lignes() {
+            List<Object[]> lignes = new ArrayList<>();
+            parType.forEach((type, nuits) -> nuits.forEach((jour, cumul) -> {
+                if (cumul[0] != 0 || cumul[1] != 0) {
+                    lignes.add(new Object[] {type, Date.valueOf(LocalDate.ofEpochDay(jour)), (int) cumul[0],
+                            BigDecimal.valueOf(cumul[1], 2)});
+                }
+            }));
+            return lignes;
+        }
+
+        private void appliquer(Miroir cible) {
+            parType.forEach((type, nuits) -> nuits.forEach((jour, cumul) -> {
+                if (cumul[0] != 0) {
+                    cible.ajouter(type, jour, (int) cumul[0]);
+                }
+            }));
+        }
+
+        private void appliquer(OccupancyViews cible) {
+            parType.forEach((type, nuits) -> nuits.forEach((jour, cumul) -> {
+                if (cumul[0] != 0 || cumul[1] != 0) {
+                    cible.ajouter(type, jour, (int) cumul[0], cumul[1]);
+                }
+            }));
+        }
+    }
+
+    /**
+     * Inventaire d'un type sur une période : chambres vendues chaque nuit
+     */
+    public static final class Inventaire {
+        private final String type;
+        private final LocalDate dateDebut;
+        private final LocalDate dateFin;
+        private final int capacite;
+        private final int libres;
+        private final List<Integer> vendues;
+
+        private Inventaire(String type, LocalDate dateDebut, LocalDate dateFin, int capacite, int libres, List<Integer> vendues) {
+            this.type = type;
+            this.dateDebut = dateDebut;
+            this.dateFin = dateFin;
+            this.capacite = capacite;
+            this.libres = libres;
+            this.vendues = vendues;
+        }
+
+        public String getType() { return type; }
+        public LocalDate getDateDebut() { return dateDebut; }
+        public LocalDate getDateFin() { return dateFin; }
+        /** Chambres disponibles (hors service exclues) du type */
+        public int getCapacite() { return capacite; }
+        /** Chambres libres la nuit la plus chargée de la période */
+        public int getLibres() { return libres; }
+        public boolean isDisponible() { return libres > 0; }
+        /** Chambres vendues chaque nuit, de dateDebut à la veille de dateFin */
+        public List<Integer> getVendues() { return vendues; }
+    }
+}
@@ -0,0 +1,273 @@
+package com.hotel.reservation.soap.inventory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Réconciliation de l'inventaire journalier : compteurs recalculés depuis reservation
+ *
+ * Les nuits de past-days jours avant aujourd'hui (ou d'une date donnée) à la fin du dernier séjour
+ * non annulé (ou du dernier compteur non nul) sont découpées en plages de chunk-days nuits, traitées
+ * en parallèle sur threads threads, chacune dans sa transaction :
+ * 1. les compteurs de la plage sont verrouillés pour chaque type de chambre (créés à 0 s'ils
+ *    manquent), dans le même ordre que les écritures (type puis nuit) ;
+ * 2. les séjours non annulés qui chevauchent la plage sont relus, et comptés par type et par nuit ;
+ *    le revenu reprend la part de chaque nuit du montant enregistré à la réservation, pour les
+ *    seules réservations confirmées (comme DailyInventory) : les prix actuels n'y entrent pas ;
+ * 3. seuls les compteurs différents (chambres vendues ou revenu) sont corrigés.
+ * Une réservation validée avant l'étape 1 est relue à l'étape 2 ; une réservation validée après
+ * attend les verrous de l'étape 1 pour écrire ses compteurs, et les ajoute à la valeur corrigée.
+ * La réconciliation ne perd donc pas les réservations faites pendant qu'elle tourne.
+ *
+ * Elle tourne selon inventory.reconcile.cron, et à la demande (depuis la première réservation après
+ * la création de la table sur une base qui en a déjà, par exemple). Une seule à la fois par module.
+ *
+ * Métriques exposées : inventory.reconcile, inventory.reconcile.corrections.
+ */
+@Component
+public class InventoryReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryReconciler.class);
+
+    private static final String TYPES = "SELECT DISTINCT LOWER(type) FROM chambre";
+
+    private static final String FIN = "SELECT GREATEST("
+            + "COALESCE((SELECT MAX(date_fin) FROM reservation WHERE statut IS NULL OR statut <> 'ANNULEE'), ?), "
+            + "COALESCE((SELECT MAX(jour) + INTERVAL 1 DAY FROM daily_inventory WHERE vendues <> 0 OR revenu <> 0), ?))";
+
+    // Verrouille la ligne sans la modifier, et la crée si elle manque
+    private static final String VERROU = "INSERT INTO daily_inventory (type, jour, vendues) VALUES (?, ?, 0) "
+            + "ON DUPLICATE KEY UPDATE vendues = vendues";
+
+    private static final String COMPTEURS = "SELECT type, jour, vendues, revenu FROM daily_inventory WHERE jour >= ? AND jour < ?";
+
+    private static final String SEJOURS = "SELECT LOWER(c.type), COALESCE(r.statut, 'CONFIRMEE'), r.montant, c.prix, "
+            + "r.date_debut, r.date_fin FROM reservation r JOIN chambre c ON c.id = r.chambre_id "
+            + "WHERE (r.statut IS NULL OR r.statut <> 'ANNULEE') AND r.date_debut < ? AND r.date_fin > ?";
+
+    private static final String CORRECTION = "UPDATE daily_inventory SET vendues = ?, revenu = ? WHERE type = ? AND jour = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${inventory.reconcile.chunk-days:31}")
+    private int chunkJours;
+
+    @Value("${inventory.reconcile.threads:4}")
+    private int threads;
+
+    @Value("${inventory.reconcile.past-days:31}")
+    private int joursPasses;
+
+    private final ReentrantLock enCours = new ReentrantLock();
+
+    private Timer duree;
+    private Counter corrections;
+
+    @PostConstruct
+    void initialiser() {
+        duree = Timer.builder("inventory.reconcile")
+                .description("Réconciliation de l'inventaire journalier")
+                .register(meterRegistry);
+        corrections = Counter.builder("inventory.reconcile.corrections")
+                .description("Compteurs de l'inventaire journalier corrigés")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Réconciliation planifiée (inventory.reconcile.cron)
+     */
+    @Scheduled(cron = "${inventory.reconcile.cron:0 30 3 * * *}")
+    public void planifiee() {
+        try {
+            Bilan bilan = reconcile(null);
+            if (bilan.getCorrections() > 0 || bilan.getEchecs() > 0) {
+                log.warn("Réconciliation de l'inventaire journalier : {} compteur(s) corrigé(s), {} plage(s) en échec",
+                        bilan.getCorrections(), bilan.getEchecs());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Réconciliation de l'inventaire journalier impossible", e);
+        }
+    }
+
+    /**
+     * Recalcule les compteurs depuis reservation, par plages de nuits en parallèle
+     * @param depuis Première nuit recalculée, ou null pour past-days jours avant aujourd'hui
+     * @return Le bilan : plages traitées, compteurs corrigés, plages en échec (réessayées à la prochaine)
+     * @throws IllegalStateException Si une réconciliation est déjà en cours dans ce module
+     */
+    public Bilan reconcile(LocalDate depuis) {
+        LocalDate debut = depuis != null ? depuis : LocalDate.now().minusDays(joursPasses);
+        if (!enCours.tryLock()) {
+            throw new IllegalStateException("Réconciliation de l'inventaire déjà en cours");
+        }
+        try {
+            return duree.record(() -> reconcilier(debut));
+        } finally {
+            enCours.unlock();
+        }
+    }
+
+    private Bilan reconcilier(LocalDate debut) {
+        LocalDate fin = jdbcTemplate.queryForObject(FIN, Date.class, Date.valueOf(debut), Date.valueOf(debut)).toLocalDate();
+        // Triés comme les mouvements de DailyInventory : même ordre de verrouillage
+        List<String> types = new ArrayList<>(jdbcTemplate.queryForList(TYPES, String.class));
+        types.sort(null);
+
+        List<LocalDate[]> plages = new ArrayList<>();
+        for (LocalDate jour = debut; jour.isBefore(fin); jour = jour.plusDays(chunkJours)) {
+            LocalDate finPlage = jour.plusDays(chunkJours);
+            plages.add(new LocalDate[] {jour, finPlage.isAfter(fin) ? fin : finPlage});
+        }
+
+        ExecutorService executeur = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, plages.size())),
+                new CustomizableThreadFactory("inventory-reconcile-"));
+        try {
+            List<Future<Integer>> resultats = new ArrayList<>();
+            for (LocalDate[] plage : plages) {
+                resultats.add(executeur.submit(() -> transactionTemplate.execute(status -> reconcilierPlage(types, plage[0], plage[1]))));
+            }
+            long corrigees = 0;
+            int echecs = 0;
+            for (Future<Integer> resultat : resultats) {
+                try {
+                    corrigees += resultat.get();
+                } catch (ExecutionException e) {
+                    echecs++;
+                    log.warn("Réconciliation d'une plage de l'inventaire impossible", e.getCause());
+                }
+            }
+            corrections.increment(corrigees);
+            return new Bilan(debut, fin, plages.size(), corrigees, echecs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Réconciliation de l'inventaire interrompue", e);
+        } finally {
+            executeur.shutdownNow();
+        }
+    }
+
+    /**
+     * Réconcilie les nuits de [debut, fin) dans la transaction en cours
+     * @param types Les types de chambre, triés
+     * @return Le nombre de compteurs corrigés
+     */
+    private int reconcilierPlage(List<String> types, LocalDate debut, LocalDate fin) {
+        int nuits = (int) (fin.toEpochDay() - debut.toEpochDay());
+
+        // 1. Verrous, dans l'ordre des écritures : type puis nuit
+        List<Object[]> verrous = new ArrayList<>();
+        for (String type : types) {
+            for (int i = 0; i < nuits; i++) {
+                verrous.add(new Object[] {type, Date.valueOf(debut.plusDays(i))});
+            }
+        }
+        if (!verrous.isEmpty()) {
+            jdbcTemplate.batchUpdate(VERROU, verrous);
+        }
+
+        // Par type : chambres vendues de chaque nuit en [0, nuits), revenu en centimes en [nuits, 2 * nuits)
+        Map<String, long[]> actuels = new HashMap<>();
+        jdbcTemplate.query(COMPTEURS, resultat -> {
+            int i = (int) (resultat.getDate(2).toLocalDate().toEpochDay() - debut.toEpochDay());
+            long[] compteurs = actuels.computeIfAbsent(resultat.getString(1), t -> new long[2 * nuits]);
+            compteurs[i] = resultat.getInt(3);
+            compteurs[nuits + i] = DailyInventory.centimes(resultat.getBigDecimal(4));
+        }, Date.valueOf(debut), Date.valueOf(fin));
+
+        // 2. Séjours relus après les verrous
+        Map<String, long[]> attendus = new HashMap<>();
+        jdbcTemplate.query(SEJOURS, resultat -> {
+            long[] compteurs = attendus.computeIfAbsent(resultat.getString(1), t -> new long[2 * nuits]);
+            LocalDate debutSejour = resultat.getDate(5).toLocalDate();
+            LocalDate finSejour = resultat.getDate(6).toLocalDate();
+            long nuitsSejour = finSejour.toEpochDay() - debutSejour.toEpochDay();
+            long montant = DailyInventory.confirmee(resultat.getString(2))
+                    ? DailyInventory.montant(resultat.getBigDecimal(3), resultat.getBigDecimal(4), debutSejour, finSejour) : 0;
+            // Nuit i de la plage : nuit decalage + i du séjour
+            long decalage = debut.toEpochDay() - debutSejour.toEpochDay();
+            int de = (int) Math.max(-decalage, 0);
+            int a = (int) Math.min(finSejour.toEpochDay() - debut.toEpochDay(), nuits);
+            for (int i = de; i < a; i++) {
+                compteurs[i]++;
+                compteurs[nuits + i] += DailyInventory.share(montant, nuitsSejour, decalage + i, decalage + i + 1);
+            }
+        }, Date.valueOf(fin), Date.valueOf(debut));
+
+        // 3. Corrections
+        TreeMap<String, long[]> tousTypes = new TreeMap<>(actuels);
+        attendus.forEach(tousTypes::putIfAbsent);
+        List<Object[]> lignes = new ArrayList<>();
+        tousTypes.forEach((type, ignore) -> {
+            long[] actuel = actuels.get(type);
+            long[] attendu = attendus.get(type);
+            for (int i = 0; i < nuits; i++) {
+                long vendues = attendu == null ? 0 : attendu[i];
+                long centimes = attendu == null ? 0 : attendu[nuits + i];
+                if ((actuel == null ? 0 : actuel[i]) != vendues || (actuel == null ? 0 : actuel[nuits + i]) != centimes) {
+                    lignes.add(new Object[] {(int) vendues, BigDecimal.valueOf(centimes, 2), type, Date.valueOf(debut.plusDays(i))});
+                }
+            }
+        });
+        if (!lignes.isEmpty()) {
+            jdbcTemplate.batchUpdate(CORRECTION, lignes);
+        }
+        return lignes.size();
+    }
+
+    /**
+     * Bilan d'une réconciliation
+     */
+    public static final class Bilan {
+        private final LocalDate dateDebut;
+        private final LocalDate dateFin;
+        private final int plages;
+        private final long corrections;
+        private final int echecs;
+
+        private Bilan(LocalDate dateDebut, LocalDate dateFin, int plages, long corrections, int echecs) {
+            this.dateDebut = dateDebut;
+            this.dateFin = dateFin;
+            this.plages = plages;
+            this.corrections = corrections;
+            this.echecs = echecs;
+        }
+
+        public LocalDate getDateDebut() { return dateDebut; }
+        public LocalDate getDateFin() { return dateFin; }
+        public int getPlages() { return plages; }
+        public long getCorrections() { return corrections; }
+        public int getEchecs() { return echecs; }
+    }
+}
@@ -0,0 +1,57 @@
+package com.hotel.reservation.soap.limiter;
+
+import com.hotel.reservation.soap.fairness.Consumer;
+import com.hotel.reservation.soap.fairness.ConsumerRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Filtre appliquant le limiteur de concurrence adaptatif devant le dispatcher Spring-WS
+ *
+ * La requête est d'abord attribuée à son consommateur (X-Api-Key ou X-Consumer) :
+ * au-delà de son quota de débit, ou sans permis du limiteur, elle reçoit immédiatement
+ * 429 + Retry-After, sans que le message SOAP soit lu ni analysé. Les réponses 429 et 5xx (fautes SOAP comprises) libèrent le
+ * permis sans ajuster la limite.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final AdaptiveLimiter limiter;
+
+    private final ConsumerRegistry consumerRegistry;
+
+    public ConcurrencyLimitFilter(AdaptiveLimiter limiter, ConsumerRegistry consumerRegistry) {
+        this.limiter = limiter;
+        this.consumerRegistry = consumerRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Consumer consommateur = consumerRegistry.resolve(
+                request.getHeader(ConsumerRegistry.API_KEY_HEADER), request.getHeader(ConsumerRegistry.CONSUMER_HEADER));
+        AdaptiveLimiter.Permit permis = consommateur.tryAcquireQuota() ? limiter.tryAcquire(consommateur) : null;
+        if (permis == null) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            return;
+        }
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            int statut = response.getStatus();
+            if (statut >= 500 || statut == HttpStatus.TOO_MANY_REQUESTS.value()) {
+                permis.ignore();
+            } else {
+                permis.release();
+            }
+        }
+    }
+}
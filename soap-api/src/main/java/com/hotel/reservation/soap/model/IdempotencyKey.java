@@ -0,0 +1,100 @@
+package com.hotel.reservation.soap.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entité JPA représentant une clé d'idempotence
+ *
+ * Cette classe mappe la table "idempotency_key" : elle associe une clé fournie
+ * par le client à la réservation créée lors de la première exécution, et à
+ * l'empreinte de la requête qui l'a créée.
+ * Elle sert de repli durable au cache mémoire de IdempotencyStore.
+ */
+@Entity
+@Table(name = "idempotency_key")
+public class IdempotencyKey implements Persistable<String> {
+
+    @Id
+    @Column(name = "cle", length = 128)
+    private String cle;
+
+    @Column(name = "reservation_id", nullable = false)
+    private Long reservationId;
+
+    @Column(name = "empreinte", length = 64, nullable = false, updatable = false)
+    private String empreinte;
+
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    // La clé est assignée par le client : on force un INSERT plutôt qu'un merge
+    @Transient
+    private boolean nouvelle = false;
+
+    public IdempotencyKey() {
+    }
+
+    public IdempotencyKey(String cle, Long reservationId, String empreinte) {
+        this.cle = cle;
+        this.reservationId = reservationId;
+        this.empreinte = empreinte;
+        this.nouvelle = true;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    @PostPersist
+    @PostLoad
+    protected void marquerPersistee() {
+        nouvelle = false;
+    }
+
+    @Override
+    public String getId() {
+        return cle;
+    }
+
+    @Override
+    public boolean isNew() {
+        return nouvelle;
+    }
+
+    // Getters et Setters
+    public String getCle() {
+        return cle;
+    }
+
+    public void setCle(String cle) {
+        this.cle = cle;
+    }
+
+    public Long getReservationId() {
+        return reservationId;
+    }
+
+    public void setReservationId(Long reservationId) {
+        this.reservationId = reservationId;
+    }
+
+    public String getEmpreinte() {
+        return empreinte;
+    }
+
+    public void setEmpreinte(String empreinte) {
+        this.empreinte = empreinte;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
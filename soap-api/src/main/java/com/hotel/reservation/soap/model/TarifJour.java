@@ -0,0 +1,109 @@
+package com.hotel.reservation.soap.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Entité JPA représentant un tarif par jour de la semaine
+ * 
+ * Cette classe mappe la table "tarif_jour" : la nuit du jour jourSemaine (1 = lundi,
+ * 7 = dimanche), le prix par nuit des chambres du type (de tous les types si type est
+ * null) est multiplié par le coefficient, en plus de celui de la saison.
+ */
+@Entity
+@Table(name = "tarif_jour")
+public class TarifJour {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "type", length = 50)
+    private String type; // null : tous les types de chambre
+
+    @NotNull(message = "Le jour de la semaine est obligatoire")
+    @Min(value = 1, message = "Le jour de la semaine va de 1 (lundi) à 7 (dimanche)")
+    @Max(value = 7, message = "Le jour de la semaine va de 1 (lundi) à 7 (dimanche)")
+    @Column(name = "jour_semaine", nullable = false)
+    private Integer jourSemaine;
+
+    @NotNull(message = "Le coefficient est obligatoire")
+    @DecimalMin(value = "0.0", inclusive = false, message = "Le coefficient doit être positif")
+    @Column(name = "coefficient", nullable = false, precision = 6, scale = 4)
+    private BigDecimal coefficient;
+
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Constructeurs
+    public TarifJour() {
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Getters et Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Integer getJourSemaine() {
+        return jourSemaine;
+    }
+
+    public void setJourSemaine(Integer jourSemaine) {
+        this.jourSemaine = jourSemaine;
+    }
+
+    public BigDecimal getCoefficient() {
+        return coefficient;
+    }
+
+    public void setCoefficient(BigDecimal coefficient) {
+        this.coefficient = coefficient;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}